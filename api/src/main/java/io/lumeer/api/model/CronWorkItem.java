@@ -0,0 +1,200 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model;
+
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * A single unit of cron work planned for one tick. Covers all due cron rules of one collection
+ * so that the rule bookkeeping stored on the collection is updated by a single worker only.
+ */
+public class CronWorkItem {
+
+   public static final String TICK = "tick";
+   public static final String ORGANIZATION_ID = "organizationId";
+   public static final String PROJECT_ID = "projectId";
+   public static final String COLLECTION_ID = "collectionId";
+   public static final String PRIORITY = "priority";
+   public static final String DUE_AT = "dueAt";
+   public static final String STARTED_PROCESSING = "startedProcessing";
+   public static final String PROCESSOR = "processor";
+   public static final String COMPLETED = "completed";
+
+   private String id;
+
+   /**
+    * Identification of the cron tick that planned this item.
+    */
+   private String tick;
+
+   private String organizationId;
+   private String projectId;
+   private String collectionId;
+
+   /**
+    * Order of the item within its organization, items with lower priority are claimed first.
+    */
+   private int priority;
+
+   /**
+    * Timestamp when the item should have been executed.
+    */
+   private ZonedDateTime dueAt;
+
+   /**
+    * Timestamp of start of processing.
+    */
+   private ZonedDateTime startedProcessing;
+
+   /**
+    * Signature of who started processing the item.
+    */
+   private String processor;
+
+   /**
+    * Timestamp of processing completion.
+    */
+   private ZonedDateTime completed;
+
+   public CronWorkItem() {
+   }
+
+   public CronWorkItem(final String tick, final String organizationId, final String projectId, final String collectionId, final int priority, final ZonedDateTime dueAt) {
+      this.tick = tick;
+      this.organizationId = organizationId;
+      this.projectId = projectId;
+      this.collectionId = collectionId;
+      this.priority = priority;
+      this.dueAt = dueAt;
+   }
+
+   public String getId() {
+      return id;
+   }
+
+   public void setId(final String id) {
+      this.id = id;
+   }
+
+   public String getTick() {
+      return tick;
+   }
+
+   public void setTick(final String tick) {
+      this.tick = tick;
+   }
+
+   public String getOrganizationId() {
+      return organizationId;
+   }
+
+   public void setOrganizationId(final String organizationId) {
+      this.organizationId = organizationId;
+   }
+
+   public String getProjectId() {
+      return projectId;
+   }
+
+   public void setProjectId(final String projectId) {
+      this.projectId = projectId;
+   }
+
+   public String getCollectionId() {
+      return collectionId;
+   }
+
+   public void setCollectionId(final String collectionId) {
+      this.collectionId = collectionId;
+   }
+
+   public int getPriority() {
+      return priority;
+   }
+
+   public void setPriority(final int priority) {
+      this.priority = priority;
+   }
+
+   public ZonedDateTime getDueAt() {
+      return dueAt;
+   }
+
+   public void setDueAt(final ZonedDateTime dueAt) {
+      this.dueAt = dueAt;
+   }
+
+   public ZonedDateTime getStartedProcessing() {
+      return startedProcessing;
+   }
+
+   public void setStartedProcessing(final ZonedDateTime startedProcessing) {
+      this.startedProcessing = startedProcessing;
+   }
+
+   public String getProcessor() {
+      return processor;
+   }
+
+   public void setProcessor(final String processor) {
+      this.processor = processor;
+   }
+
+   public ZonedDateTime getCompleted() {
+      return completed;
+   }
+
+   public void setCompleted(final ZonedDateTime completed) {
+      this.completed = completed;
+   }
+
+   @Override
+   public boolean equals(final Object o) {
+      if (this == o) {
+         return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+         return false;
+      }
+      final CronWorkItem that = (CronWorkItem) o;
+      return Objects.equals(id, that.id);
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(id);
+   }
+
+   @Override
+   public String toString() {
+      return "CronWorkItem{" +
+            "id='" + id + '\'' +
+            ", tick='" + tick + '\'' +
+            ", organizationId='" + organizationId + '\'' +
+            ", projectId='" + projectId + '\'' +
+            ", collectionId='" + collectionId + '\'' +
+            ", priority=" + priority +
+            ", dueAt=" + dueAt +
+            ", startedProcessing=" + startedProcessing +
+            ", processor='" + processor + '\'' +
+            ", completed=" + completed +
+            '}';
+   }
+}
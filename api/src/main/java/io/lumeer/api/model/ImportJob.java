@@ -0,0 +1,124 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.api.model;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Progress of an import running in background. The counters are updated by the importing thread and read by the polling requests.
+ */
+public class ImportJob {
+
+   public enum State {
+      RUNNING, FINISHED, FAILED
+   }
+
+   private final String id;
+   private final String collectionId;
+   private final String userId;
+   private final ZonedDateTime startDate;
+   private volatile State state;
+   private volatile long processedRows;
+   private volatile long createdDocuments;
+   private volatile long updatedDocuments;
+   private volatile String error;
+   private volatile ZonedDateTime finishDate;
+
+   public ImportJob(final String id, final String collectionId, final String userId) {
+      this.id = id;
+      this.collectionId = collectionId;
+      this.userId = userId;
+      this.startDate = ZonedDateTime.now();
+      this.state = State.RUNNING;
+   }
+
+   public String getId() {
+      return id;
+   }
+
+   public String getCollectionId() {
+      return collectionId;
+   }
+
+   public String getUserId() {
+      return userId;
+   }
+
+   public ZonedDateTime getStartDate() {
+      return startDate;
+   }
+
+   public State getState() {
+      return state;
+   }
+
+   public long getProcessedRows() {
+      return processedRows;
+   }
+
+   public long getCreatedDocuments() {
+      return createdDocuments;
+   }
+
+   public long getUpdatedDocuments() {
+      return updatedDocuments;
+   }
+
+   public String getError() {
+      return error;
+   }
+
+   public ZonedDateTime getFinishDate() {
+      return finishDate;
+   }
+
+   public void addProgress(final long rows, final long created, final long updated) {
+      processedRows += rows;
+      createdDocuments += created;
+      updatedDocuments += updated;
+   }
+
+   public void finish() {
+      finishDate = ZonedDateTime.now();
+      state = State.FINISHED;
+   }
+
+   public void fail(final String error) {
+      this.error = error;
+      finishDate = ZonedDateTime.now();
+      state = State.FAILED;
+   }
+
+   public boolean isDone() {
+      return state != State.RUNNING;
+   }
+
+   @Override
+   public String toString() {
+      return "ImportJob{" +
+            "id='" + id + '\'' +
+            ", collectionId='" + collectionId + '\'' +
+            ", state=" + state +
+            ", processedRows=" + processedRows +
+            ", createdDocuments=" + createdDocuments +
+            ", updatedDocuments=" + updatedDocuments +
+            ", error='" + error + '\'' +
+            '}';
+   }
+}
@@ -20,15 +20,54 @@ package io.lumeer.api.model;
 
 import javax.annotation.concurrent.Immutable;
 
+/**
+ * Either page based pagination (skip and limit) or keyset pagination, which returns entities ordered by their id
+ * which follow the given cursor. Keyset pagination keeps constant cost of each page even for large collections.
+ */
 @Immutable
 public class Pagination {
 
    private final Integer page;
    private final Integer pageSize;
+   private final String afterId;
+   private final boolean keyset;
 
    public Pagination(final Integer page, final Integer pageSize) {
+      this(page, pageSize, null, false);
+   }
+
+   private Pagination(final Integer page, final Integer pageSize, final String afterId, final boolean keyset) {
       this.page = page;
       this.pageSize = pageSize;
+      this.afterId = afterId;
+      this.keyset = keyset;
+   }
+
+   /**
+    * Creates keyset pagination which returns at most pageSize entities with id greater than afterId.
+    *
+    * @param afterId
+    *       id of the last entity of the previous page, null for the first page
+    * @param pageSize
+    *       maximum number of returned entities
+    * @return keyset pagination
+    */
+   public static Pagination keyset(final String afterId, final Integer pageSize) {
+      return new Pagination(null, pageSize, afterId, true);
+   }
+
+   /**
+    * Returns pagination of the following page.
+    *
+    * @param lastId
+    *       id of the last entity of the current page, used only by keyset pagination
+    * @return pagination of the following page
+    */
+   public Pagination next(final String lastId) {
+      if (keyset) {
+         return keyset(lastId, pageSize);
+      }
+      return new Pagination(page != null ? page + 1 : null, pageSize);
    }
 
    public Integer getPage() {
@@ -38,4 +77,12 @@ public class Pagination {
    public Integer getPageSize() {
       return pageSize;
    }
+
+   public String getAfterId() {
+      return afterId;
+   }
+
+   public boolean isKeyset() {
+      return keyset;
+   }
 }
@@ -123,7 +123,7 @@ public interface Cache<T> {
    boolean tryLock(final String key);
 
    /**
-    * Clears the cache including all locks.
+    * Clears the cache.
     */
    void clear();
 
@@ -132,4 +132,10 @@ public interface Cache<T> {
     * @return Stream of values.
     */
    Stream<T> stream();
+
+   /**
+    * Gets the statistics of cache usage.
+    * @return Current statistics.
+    */
+   CacheStats getStats();
 }
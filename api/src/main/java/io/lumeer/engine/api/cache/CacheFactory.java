@@ -31,4 +31,16 @@ public interface CacheFactory {
     * @return A fresh cache of given type.
     */
    <T> Cache<T> getCache();
+
+   /**
+    * Obtains a fresh cache of given type with limited size and lifetime of its entries.
+    * Meant for long living (application scoped) caches.
+    *
+    * @param settings
+    *       Limits of the cache.
+    * @param <T>
+    *       Type of values stored in the cache.
+    * @return A fresh bounded cache of given type.
+    */
+   <T> Cache<T> getCache(final CacheSettings<T> settings);
 }
@@ -0,0 +1,107 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.api.cache;
+
+import java.time.Duration;
+import java.util.function.ToLongFunction;
+
+/**
+ * Limits of a bounded cache. Zero limits and null durations mean there is no such limit.
+ *
+ * @param <T>
+ *       Type of values stored in the cache.
+ */
+public class CacheSettings<T> {
+
+   private final long maximumSize;
+   private final long maximumWeight;
+   private final ToLongFunction<T> weigher;
+   private final Duration expireAfterWrite;
+
+   private CacheSettings(final long maximumSize, final long maximumWeight, final ToLongFunction<T> weigher, final Duration expireAfterWrite) {
+      this.maximumSize = maximumSize;
+      this.maximumWeight = maximumWeight;
+      this.weigher = weigher;
+      this.expireAfterWrite = expireAfterWrite;
+   }
+
+   /**
+    * Creates settings of a cache holding at most the given number of entries.
+    *
+    * @param maximumSize
+    *       Maximum number of entries, the least recently used entries are evicted first.
+    * @param <T>
+    *       Type of values stored in the cache.
+    * @return Cache settings.
+    */
+   public static <T> CacheSettings<T> maximumSize(final long maximumSize) {
+      return new CacheSettings<>(maximumSize, 0, null, null);
+   }
+
+   /**
+    * Creates settings of a cache with the total weight of its values limited.
+    *
+    * @param maximumWeight
+    *       Maximum total weight of entries, the least recently used entries are evicted first.
+    * @param weigher
+    *       Function computing weight of a value at the time it is stored.
+    * @param <T>
+    *       Type of values stored in the cache.
+    * @return Cache settings.
+    */
+   public static <T> CacheSettings<T> maximumWeight(final long maximumWeight, final ToLongFunction<T> weigher) {
+      return new CacheSettings<>(0, maximumWeight, weigher, null);
+   }
+
+   /**
+    * Copies the settings and lets entries expire after the given time since they were stored.
+    *
+    * @param duration
+    *       Time to live of entries.
+    * @return New cache settings.
+    */
+   public CacheSettings<T> expireAfterWrite(final Duration duration) {
+      return new CacheSettings<>(maximumSize, maximumWeight, weigher, duration);
+   }
+
+   public long getMaximumSize() {
+      return maximumSize;
+   }
+
+   public long getMaximumWeight() {
+      return maximumWeight;
+   }
+
+   public ToLongFunction<T> getWeigher() {
+      return weigher;
+   }
+
+   public Duration getExpireAfterWrite() {
+      return expireAfterWrite;
+   }
+
+   @Override
+   public String toString() {
+      return "CacheSettings{" +
+            "maximumSize=" + maximumSize +
+            ", maximumWeight=" + maximumWeight +
+            ", expireAfterWrite=" + expireAfterWrite +
+            '}';
+   }
+}
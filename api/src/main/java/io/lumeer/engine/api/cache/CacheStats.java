@@ -0,0 +1,82 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.engine.api.cache;
+
+/**
+ * Point in time statistics of a cache.
+ */
+public class CacheStats {
+
+   private final long hitCount;
+   private final long missCount;
+   private final long evictionCount;
+   private final long expirationCount;
+   private final long size;
+   private final long weight;
+
+   public CacheStats(final long hitCount, final long missCount, final long evictionCount, final long expirationCount, final long size, final long weight) {
+      this.hitCount = hitCount;
+      this.missCount = missCount;
+      this.evictionCount = evictionCount;
+      this.expirationCount = expirationCount;
+      this.size = size;
+      this.weight = weight;
+   }
+
+   public long getHitCount() {
+      return hitCount;
+   }
+
+   public long getMissCount() {
+      return missCount;
+   }
+
+   public long getEvictionCount() {
+      return evictionCount;
+   }
+
+   public long getExpirationCount() {
+      return expirationCount;
+   }
+
+   public long getSize() {
+      return size;
+   }
+
+   public long getWeight() {
+      return weight;
+   }
+
+   public double getHitRate() {
+      final long requests = hitCount + missCount;
+      return requests == 0 ? 1.0 : (double) hitCount / requests;
+   }
+
+   @Override
+   public String toString() {
+      return "CacheStats{" +
+            "hitCount=" + hitCount +
+            ", missCount=" + missCount +
+            ", evictionCount=" + evictionCount +
+            ", expirationCount=" + expirationCount +
+            ", size=" + size +
+            ", weight=" + weight +
+            '}';
+   }
+}
@@ -30,6 +30,9 @@ import java.util.Set;
  */
 public interface DataStorage extends Serializable {
 
+   String INDEX_ACCESSES = "accesses";
+   String INDEX_ACCESSES_SINCE = "accessesSince";
+
    void connect(final List<StorageConnection> connections, final String database, final Boolean useSsl);
 
    default void connect(final StorageConnection connection, final String database, final Boolean useSsl) {
@@ -465,6 +468,16 @@ public interface DataStorage extends Serializable {
     */
    List<DataDocument> listIndexes(final String collectionName);
 
+   /**
+    * Lists all indexes on the given collection together with the number of operations which used them
+    * (stored under {@link #INDEX_ACCESSES}) since the statistics were reset (stored under {@link #INDEX_ACCESSES_SINCE}).
+    *
+    * @param collectionName
+    *       The name of the collection to get indexes of.
+    * @return The list of all indexes on the given collection with their usage.
+    */
+   List<DataDocument> listIndexesUsage(final String collectionName);
+
    /**
     * Drops the given index on a collection.
     *
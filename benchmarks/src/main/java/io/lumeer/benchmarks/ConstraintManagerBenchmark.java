@@ -0,0 +1,142 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.benchmarks;
+
+import io.lumeer.api.model.Attribute;
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Constraint;
+import io.lumeer.api.model.ConstraintType;
+import io.lumeer.core.constraint.ConstraintManager;
+import io.lumeer.engine.api.data.DataDocument;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding of values of every constraint type, and of whole documents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstraintManagerBenchmark {
+
+   private static final int DOCUMENT_ATTRIBUTES = 20;
+
+   @Param({ "Action", "Address", "Boolean", "Coordinates", "DateTime", "Email", "Function", "FileAttachment", "Image", "Link",
+         "Number", "Percentage", "Rating", "Select", "Tag", "Text", "User", "Color", "Duration", "View", "None" })
+   private ConstraintType type;
+
+   private ConstraintManager constraintManager;
+
+   private Constraint constraint;
+
+   private Object rawValue;
+
+   private Object encodedValue;
+
+   private Collection collection;
+
+   private DataDocument rawDocument;
+
+   private DataDocument encodedDocument;
+
+   @Setup
+   public void setUp() {
+      constraintManager = new ConstraintManager();
+      constraintManager.setLocale(Locale.US);
+
+      constraint = new Constraint(type, null);
+      rawValue = sampleValue(type);
+      encodedValue = constraintManager.encode(rawValue, constraint);
+
+      final List<Attribute> attributes = new ArrayList<>();
+      rawDocument = new DataDocument();
+      for (int i = 0; i < DOCUMENT_ATTRIBUTES; i++) {
+         final Attribute attribute = new Attribute("a" + i);
+         attribute.setConstraint(constraint);
+         attributes.add(attribute);
+         rawDocument.append(attribute.getId(), rawValue);
+      }
+      collection = new Collection("BENCH", "Benchmark", "", "", null);
+      collection.setAttributes(attributes);
+      encodedDocument = constraintManager.encodeDataTypes(collection, rawDocument);
+   }
+
+   private static Object sampleValue(final ConstraintType type) {
+      return switch (type) {
+         case Boolean -> "true";
+         case Coordinates -> "40°7.38'N, 74°7.38'W";
+         case DateTime -> "2021-03-04T12:26:07.890+0530";
+         case Number, Rating -> "1234.5678";
+         case Percentage -> "12.5%";
+         case Select -> "42";
+         case Duration -> "3600000";
+         case Email -> "someone@lumeer.io";
+         case Color -> "#ff00ff";
+         default -> "Lorem ipsum dolor sit amet";
+      };
+   }
+
+   @Benchmark
+   public Object encodeValue() {
+      return constraintManager.encode(rawValue, constraint);
+   }
+
+   @Benchmark
+   public Object encodeValueForFce() {
+      return constraintManager.encodeForFce(rawValue, constraint);
+   }
+
+   @Benchmark
+   public Object decodeValue() {
+      return constraintManager.decode(encodedValue, constraint);
+   }
+
+   @Benchmark
+   public DataDocument encodeDocument() {
+      return constraintManager.encodeDataTypes(collection, rawDocument);
+   }
+
+   @Benchmark
+   public DataDocument decodeDocument() {
+      return constraintManager.decodeDataTypes(collection, encodedDocument);
+   }
+
+   @Benchmark
+   public DataDocument decodeDocumentInPlace() {
+      return constraintManager.getCodec(collection).decodeInPlace(new DataDocument(encodedDocument));
+   }
+}
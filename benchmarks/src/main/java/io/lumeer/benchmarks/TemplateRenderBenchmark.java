@@ -0,0 +1,121 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.benchmarks;
+
+import io.lumeer.api.model.Language;
+import io.lumeer.core.util.TemplateRegistry;
+
+import com.floreysoft.jmte.Engine;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering of the notification e-mail templates, re-parsed by the engine for every message and rendered from
+ * a precompiled plan, in a single thread and in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRenderBenchmark {
+
+   @Param({ "collection_shared", "due_date_changed", "due_date_soon", "invitation", "organization_shared", "past_due_date",
+         "project_shared", "state_update", "task_assigned", "task_commented", "task_mentioned", "task_removed", "task_reopened",
+         "task_unassigned", "task_updated", "view_shared" })
+   private String template;
+
+   @Param({ "en", "cs" })
+   private String language;
+
+   private String source;
+
+   private Engine engine;
+
+   private TemplateRegistry.RenderPlan plan;
+
+   private Map<String, Object> values;
+
+   @Setup
+   public void setUp() throws IOException {
+      source = IOUtils.resourceToString("/email-templates/" + template + "." + language + ".html", StandardCharsets.UTF_8);
+      engine = Engine.createEngine();
+      plan = TemplateRegistry.getInstance().getTemplate(template, Language.fromString(language), () -> source);
+
+      values = new HashMap<>();
+      values.put("title", "Task assigned: Prepare the quarterly report");
+      values.put("recipient", "someone@lumeer.io");
+      values.put("userName", "John Doe (<a href=\"mailto:john@doe.com\">john@doe.com</a>)");
+      values.put("organizationCode", "LMR");
+      values.put("organizationName", "Lumeer");
+      values.put("projectCode", "PRJ");
+      values.put("projectName", "Project");
+      values.put("collectionId", "5f1e0a2b3c4d5e6f7a8b9c0d");
+      values.put("collectionName", "Tasks");
+      values.put("collectionQuery", "eyJzIjpbeyJjIjoiNWYxZSJ9XX0");
+      values.put("documentId", "5f1e0a2b3c4d5e6f7a8b9c0e");
+      values.put("taskName", "Prepare the quarterly report");
+      values.put("taskState", "In progress");
+      values.put("taskDueDate", "2021-03-04");
+      values.put("taskComment", "Please have a look at the numbers.");
+      values.put("assigneeViaTeamOnly", Boolean.FALSE);
+      values.put("viewCode", "VIEW");
+      values.put("viewName", "Board");
+   }
+
+   @Benchmark
+   public String transformWithEngine() {
+      return engine.transform(source, values);
+   }
+
+   @Benchmark
+   public String renderPlan() {
+      return plan.render(values);
+   }
+
+   @Benchmark
+   @Threads(4)
+   public String transformWithEngineParallel() {
+      return engine.transform(source, values);
+   }
+
+   @Benchmark
+   @Threads(4)
+   public String renderPlanParallel() {
+      return plan.render(values);
+   }
+}
@@ -39,6 +39,7 @@ import io.lumeer.core.facade.EmailSenderFacade;
 import io.lumeer.core.facade.PusherFacade;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.core.facade.translate.TranslationManager;
+import io.lumeer.core.task.TaskExecutor;
 import io.lumeer.core.util.JsFunctionsParser;
 import io.lumeer.core.util.PusherClient;
 import io.lumeer.core.util.Utils;
@@ -52,6 +53,7 @@ import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.lang3.tuple.Triple;
 import org.marvec.pusher.data.Event;
 
@@ -66,10 +68,17 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import jakarta.annotation.PostConstruct;
 import jakarta.ejb.Schedule;
@@ -102,22 +111,34 @@ public class DelayedActionProcessor extends WorkspaceContext {
    @Inject
    private TranslationManager translationManager;
 
+   @Inject
+   private TaskExecutor taskExecutor;
+
    private PusherClient pusherClient;
 
    private boolean skipDelay = false;
 
-   private final Map<String, Organization> organizations = new HashMap<>();
-   private final Map<String, Project> projects = new HashMap<>();
-   private final Map<String, Collection> collections = new HashMap<>();
-   private final Map<String, PermissionAdapter> permissionAdapters = new HashMap<>();
-   private final Map<String, DaoContextSnapshot> organizationDaoSnapshots = new HashMap<>();
-   private final Map<String, DaoContextSnapshot> projectDaoSnapshots = new HashMap<>();
+   // shared by the workers during a single processing run
+   private final Map<String, Organization> organizations = new ConcurrentHashMap<>();
+   private final Map<String, Project> projects = new ConcurrentHashMap<>();
+   private final Map<String, Collection> collections = new ConcurrentHashMap<>();
+   private final Map<String, DaoContextSnapshot> organizationDaoSnapshots = new ConcurrentHashMap<>();
+   private final Map<String, DaoContextSnapshot> projectDaoSnapshots = new ConcurrentHashMap<>();
+
+   private int workersCount;
+   private int workBatchSize;
+   private int claimBatchSize;
+
+   private static final Logger log = Logger.getLogger(DelayedActionProcessor.class.getName());
 
    final private static Set<NotificationType> AGGREGATION_TYPES = Set.of(NotificationType.TASK_ASSIGNED, NotificationType.TASK_REOPENED, NotificationType.DUE_DATE_CHANGED, NotificationType.STATE_UPDATE, NotificationType.TASK_UPDATED, NotificationType.TASK_COMMENTED);
 
    @PostConstruct
    public void init() {
       skipDelay = !(configurationProducer.getEnvironment() == DefaultConfigurationProducer.DeployEnvironment.PRODUCTION || configurationProducer.getEnvironment() == DefaultConfigurationProducer.DeployEnvironment.STAGING);
+      workersCount = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.DELAYED_ACTIONS_WORKERS), 4);
+      workBatchSize = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.DELAYED_ACTIONS_WORK_BATCH_SIZE), 50);
+      claimBatchSize = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.DELAYED_ACTIONS_CLAIM_BATCH_SIZE), 500);
    }
 
    @Schedule(hour = "*", minute = "*/2")
@@ -125,7 +146,7 @@ public class DelayedActionProcessor extends WorkspaceContext {
       delayedActionDao.deleteProcessedActions();
       delayedActionDao.resetTimeoutedActions();
 
-      executeActions(delayedActionDao.getActionsForProcessing(skipDelay));
+      executeActions(delayedActionDao.getActionsForProcessing(skipDelay, claimBatchSize));
    }
 
    private Map<String, List<DelayedAction>> getActionsByTask(final List<DelayedAction> actions, final NotificationChannel notificationChannel) {
@@ -193,64 +214,108 @@ public class DelayedActionProcessor extends WorkspaceContext {
    }
 
    private void executeActions(final List<DelayedAction> actions) {
-      final Map<String, List<User>> userCache = new HashMap<>(); // org id -> users
       clearCache();
+      if (actions.isEmpty()) {
+         return;
+      }
+
+      final Map<String, OrganizationUsers> organizationUsers = initializeOrganizationUsers(actions);
+      final List<DelayedAction> aggregatedActions = aggregateActions(actions);
+      final Queue<List<DelayedAction>> batches = new ConcurrentLinkedQueue<>();
+      for (int i = 0; i < aggregatedActions.size(); i += workBatchSize) {
+         batches.add(aggregatedActions.subList(i, Math.min(i + workBatchSize, aggregatedActions.size())));
+      }
+
+      final List<Future<?>> workers = new ArrayList<>();
+      for (int i = 1; i < Math.min(workersCount, batches.size()); i++) {
+         try {
+            workers.add(taskExecutor.getExecutorService().submit(() -> runWorker(batches, actions, organizationUsers)));
+         } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Unable to start delayed actions worker.", e);
+            break;
+         }
+      }
 
-      aggregateActions(actions).forEach(action -> {
-         final String organizationId = action.getData().getString(DelayedAction.DATA_ORGANIZATION_ID);
-         final List<User> allUsers = userCache.computeIfAbsent(organizationId, orgId -> userDao.getAllUsers(orgId));
-         allUsers.addAll(getUsersFromActions(actions, allUsers)); // mix in users from actions
+      // the timer thread takes part in the processing as well, so the batches are processed even when no worker could be started
+      runWorker(batches, actions, organizationUsers);
 
-         final Map<String, User> users = getUsers(allUsers); // id -> user
-         final Map<String, Language> userLanguages = initializeLanguages(users.values());
-         final Map<String, String> userIds = getUserIds(users.values()); // email -> id
+      workers.forEach(worker -> {
+         try {
+            worker.get();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         } catch (ExecutionException e) {
+            log.log(Level.WARNING, "Delayed actions worker failed.", e.getCause());
+         }
+      });
+   }
+
+   private void runWorker(final Queue<List<DelayedAction>> batches, final List<DelayedAction> actions, final Map<String, OrganizationUsers> organizationUsers) {
+      // permission adapters are not thread safe, each worker needs its own
+      final Map<String, PermissionAdapter> permissionAdapters = new HashMap<>();
+
+      List<DelayedAction> batch;
+      while ((batch = batches.poll()) != null) {
+         for (final DelayedAction action : batch) {
+            try {
+               executeAction(action, actions, organizationUsers, permissionAdapters);
+            } catch (RuntimeException e) {
+               log.log(Level.WARNING, "Unable to process delayed action " + action.getId(), e);
+            }
+         }
+      }
+   }
 
-         final Language lang = userLanguages.getOrDefault(action.getReceiver(), Language.EN);
+   private void executeAction(final DelayedAction action, final List<DelayedAction> actions, final Map<String, OrganizationUsers> organizationUsers, final Map<String, PermissionAdapter> permissionAdapters) {
+      final OrganizationUsers orgUsers = organizationUsers.get(action.getData().getString(DelayedAction.DATA_ORGANIZATION_ID));
+      final Map<String, User> users = orgUsers.users; // id -> user
+      final Map<String, Language> userLanguages = orgUsers.languages;
+      final Map<String, String> userIds = orgUsers.userIds; // email -> id
 
-         final User receiverUser = userIds.containsKey(action.getReceiver()) ? users.get(userIds.get(action.getReceiver())) : null;
-         final Triple<Organization, Project, Collection> context = checkActionResourceExistsAndFillData(action, receiverUser);
+      final Language lang = userLanguages.getOrDefault(action.getReceiver(), Language.EN);
 
-         if (context != null && context.getMiddle().isWorkflowEnabled()) {
+      final User receiverUser = userIds.containsKey(action.getReceiver()) ? users.get(userIds.get(action.getReceiver())) : null;
+      final Triple<Organization, Project, Collection> context = checkActionResourceExistsAndFillData(action, receiverUser, permissionAdapters);
 
-            // if we do not know anything about the user, make sure to send the notification; otherwise check the user settings
-            if (receiverUser == null || isNotificationEnabled(action, receiverUser)) {
+      if (context != null && context.getMiddle().isWorkflowEnabled()) {
 
-               if (action.getNotificationChannel() == NotificationChannel.Email) {
-                  final User user = userIds.containsKey(action.getInitiator()) ? users.get(userIds.get(action.getInitiator())) : null;
-                  final String sender = user != null ? emailSenderFacade.formatUserReference(user) : "";
-                  final String from = user != null ? emailSenderFacade.formatFrom(user) : "";
-                  final String recipient = action.getReceiver();
-                  final Map<String, Object> additionalData = processData(action.getData(), lang, receiverUser);
+         // if we do not know anything about the user, make sure to send the notification; otherwise check the user settings
+         if (receiverUser == null || isNotificationEnabled(action, receiverUser)) {
 
-                  emailSenderFacade.sendEmailFromTemplate(getEmailTemplate(action), lang, sender, from, recipient, getEmailSubjectPart(action, additionalData, lang), additionalData);
-               } else if (action.getNotificationChannel() == NotificationChannel.Internal && userIds.containsKey(action.getReceiver())) {
-                  UserNotification notification = createUserNotification(users.get(userIds.get(action.getReceiver())), action, lang);
-                  notification = userNotificationDao.createNotification(notification);
-                  if (pusherClient != null) {
-                     pusherClient.trigger(List.of(createUserNotificationEvent(notification, PusherFacade.CREATE_EVENT_SUFFIX, userIds.get(action.getReceiver()))));
-                  }
+            if (action.getNotificationChannel() == NotificationChannel.Email) {
+               final User user = userIds.containsKey(action.getInitiator()) ? users.get(userIds.get(action.getInitiator())) : null;
+               final String sender = user != null ? emailSenderFacade.formatUserReference(user) : "";
+               final String from = user != null ? emailSenderFacade.formatFrom(user) : "";
+               final String recipient = action.getReceiver();
+               final Map<String, Object> additionalData = processData(action.getData(), lang, receiverUser);
+
+               emailSenderFacade.sendEmailFromTemplate(getEmailTemplate(action), lang, sender, from, recipient, getEmailSubjectPart(action, additionalData, lang), additionalData);
+            } else if (action.getNotificationChannel() == NotificationChannel.Internal && userIds.containsKey(action.getReceiver())) {
+               UserNotification notification = createUserNotification(users.get(userIds.get(action.getReceiver())), action, lang);
+               notification = userNotificationDao.createNotification(notification);
+               if (pusherClient != null) {
+                  pusherClient.trigger(List.of(createUserNotificationEvent(notification, PusherFacade.CREATE_EVENT_SUFFIX, userIds.get(action.getReceiver()))));
                }
             }
+         }
 
-            // reschedule past due actions - only when explicitely configured in the collection
-            if (context.getRight().getPurpose() != null && context.getRight().getPurpose().createIfAbsentMetaData().getBoolean(CollectionPurpose.META_REPEAT_DUE_NOTIFICATIONS, false)) {
-               if (!rescheduleDueDateAction(actions, action, receiverUser, context.getRight())) {
-                  markActionAsCompleted(actions, action);
-               }
-            } else {
+         // reschedule past due actions - only when explicitely configured in the collection
+         if (context.getRight().getPurpose() != null && context.getRight().getPurpose().createIfAbsentMetaData().getBoolean(CollectionPurpose.META_REPEAT_DUE_NOTIFICATIONS, false)) {
+            if (!rescheduleDueDateAction(actions, action, receiverUser, context.getRight())) {
                markActionAsCompleted(actions, action);
             }
          } else {
             markActionAsCompleted(actions, action);
          }
-      });
+      } else {
+         markActionAsCompleted(actions, action);
+      }
    }
 
    private void clearCache() {
       organizations.clear();
       projects.clear();
       collections.clear();
-      permissionAdapters.clear();
       organizationDaoSnapshots.clear();
       projectDaoSnapshots.clear();
    }
@@ -270,7 +335,7 @@ public class DelayedActionProcessor extends WorkspaceContext {
       }
    }
 
-   private Triple<Organization, Project, Collection> checkActionResourceExistsAndFillData(final DelayedAction action, final User receiver) {
+   private Triple<Organization, Project, Collection> checkActionResourceExistsAndFillData(final DelayedAction action, final User receiver, final Map<String, PermissionAdapter> permissionAdapters) {
       final String organizationId = action.getData().getString(DelayedAction.DATA_ORGANIZATION_ID);
       final String projectId = action.getData().getString(DelayedAction.DATA_PROJECT_ID);
       final String collectionId = action.getData().getString(DelayedAction.DATA_COLLECTION_ID);
@@ -510,23 +575,38 @@ public class DelayedActionProcessor extends WorkspaceContext {
       this.pusherClient = pusherClient;
    }
 
+   // get map of organization id -> users known in the organization, mixed with receivers of all actions
+   private Map<String, OrganizationUsers> initializeOrganizationUsers(final List<DelayedAction> actions) {
+      final Map<String, List<User>> usersByOrganization = new HashMap<>();
+      actions.forEach(action -> usersByOrganization.computeIfAbsent(action.getData().getString(DelayedAction.DATA_ORGANIZATION_ID), orgId -> userDao.getAllUsers(orgId)));
+
+      final Set<String> receivers = actions.stream().map(DelayedAction::getReceiver).filter(Objects::nonNull).collect(Collectors.toSet());
+      final Set<String> missingReceivers = new HashSet<>();
+      usersByOrganization.values().forEach(users -> {
+         final Set<String> emails = users.stream().map(User::getEmail).collect(Collectors.toSet());
+         receivers.stream().filter(email -> !emails.contains(email)).forEach(missingReceivers::add);
+      });
+      final List<User> receiverUsers = missingReceivers.isEmpty() ? List.of() : userDao.getUsersByEmails(missingReceivers);
+
+      final Map<String, OrganizationUsers> result = new HashMap<>();
+      usersByOrganization.forEach((organizationId, users) -> {
+         final Set<String> emails = users.stream().map(User::getEmail).collect(Collectors.toSet());
+         final List<User> allUsers = new ArrayList<>(users);
+         receiverUsers.stream().filter(user -> !emails.contains(user.getEmail())).forEach(allUsers::add); // mix in users from actions
+
+         final Map<String, User> usersById = getUsers(allUsers);
+         result.put(organizationId, new OrganizationUsers(usersById, initializeLanguages(usersById.values()), getUserIds(usersById.values())));
+      });
+
+      return result;
+   }
+
    // get map of user id -> user
    private Map<String, User> getUsers(final List<User> users) {
       return users.stream().distinct()
                   .collect(Collectors.toMap(User::getId, Function.identity()));
    }
 
-   private List<User> getUsersFromActions(final List<DelayedAction> actions, final List<User> loadedUsers) {
-      var loadedEmails = loadedUsers.stream().map(User::getEmail).collect(Collectors.toList());
-      return actions.stream()
-                    .map(DelayedAction::getReceiver)
-                    .distinct()
-                    .filter(email -> !loadedEmails.contains(email))
-                    .map(userDao::getUserByEmail)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-   }
-
    // get map of user email -> user language
    private Map<String, Language> initializeLanguages(final java.util.Collection<User> users) {
       return users.stream()
@@ -546,6 +626,18 @@ public class DelayedActionProcessor extends WorkspaceContext {
                   );
    }
 
+   private static class OrganizationUsers {
+      private final Map<String, User> users; // id -> user
+      private final Map<String, Language> languages; // email -> language
+      private final Map<String, String> userIds; // email -> id
+
+      private OrganizationUsers(final Map<String, User> users, final Map<String, Language> languages, final Map<String, String> userIds) {
+         this.users = users;
+         this.languages = languages;
+         this.userIds = userIds;
+      }
+   }
+
    private Event createUserNotificationEvent(final UserNotification notification, final String event, final String userId) {
       return new Event(PusherFacade.eventChannel(userId), UserNotification.class.getSimpleName() + event, notification);
    }
@@ -0,0 +1,216 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.auth;
+
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Group;
+import io.lumeer.api.model.LinkPermissionsType;
+import io.lumeer.api.model.LinkType;
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Permission;
+import io.lumeer.api.model.Permissions;
+import io.lumeer.api.model.Project;
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.api.model.Role;
+import io.lumeer.api.model.RoleType;
+import io.lumeer.api.model.User;
+import io.lumeer.api.model.common.Resource;
+import io.lumeer.api.util.PermissionUtils;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Roles of a single user in an organization and optionally in one of its projects, compiled into bit sets.
+ * The matrix evaluates roles in the same way as {@link PermissionUtils}, but the user's groups and the roles
+ * inherited from the organization and the project are resolved only once, when the matrix is built.
+ * Permissions of the checked resource itself are always read from the passed resource, so the matrix stays valid
+ * as long as the organization, the project and the groups it was built from do not change.
+ */
+public final class PermissionMatrix {
+
+   private static final RoleType[] ROLE_TYPES = RoleType.values();
+   private static final int READ = bit(RoleType.Read);
+
+   private final String userId;
+   private final Set<String> userGroups;
+   private final boolean hasProject;
+   private final int organizationRoles;
+   private final int organizationTransitiveRoles;
+   private final int projectRoles;
+   private final int projectTransitiveRoles;
+
+   private PermissionMatrix(final String userId, final Set<String> userGroups, final Organization organization, @Nullable final Project project) {
+      this.userId = userId;
+      this.userGroups = userGroups;
+      this.hasProject = project != null;
+
+      final long organizationBits = getRoleBits(organization.getPermissions());
+      this.organizationRoles = allRoles(organizationBits);
+      this.organizationTransitiveRoles = transitiveRoles(organizationBits);
+
+      final long projectBits = project != null ? getRoleBits(project.getPermissions()) : 0;
+      this.projectRoles = allRoles(projectBits);
+      this.projectTransitiveRoles = transitiveRoles(projectBits);
+   }
+
+   public static PermissionMatrix build(final Organization organization, @Nullable final Project project, final User user, final List<Group> groups) {
+      return new PermissionMatrix(user.getId(), PermissionUtils.getUserGroups(organization, user, groups), organization, project);
+   }
+
+   public String getUserId() {
+      return userId;
+   }
+
+   public Set<String> getUserGroups() {
+      return userGroups;
+   }
+
+   /**
+    * @return true when the user can read everything in the organization or in the project thanks to a transitive read role
+    */
+   public boolean canReadAllInWorkspace() {
+      return (organizationTransitiveRoles & READ) != 0 || (projectTransitiveRoles & READ) != 0;
+   }
+
+   public Set<RoleType> getUserRoles(final Resource resource) {
+      return toRoleTypes(getRoles(resource.getType(), resource.getPermissions()));
+   }
+
+   public Set<RoleType> getUserRoles(final ResourceType resourceType, @Nullable final Permissions permissions) {
+      return toRoleTypes(getRoles(resourceType, permissions));
+   }
+
+   public boolean hasRole(final Resource resource, final RoleType role) {
+      return (getRoles(resource.getType(), resource.getPermissions()) & bit(role)) != 0;
+   }
+
+   public Set<RoleType> getUserRolesInLinkType(final LinkType linkType, final java.util.Collection<Collection> collections) {
+      if (linkType.getPermissionsType() == LinkPermissionsType.Custom) {
+         return getUserRoles(ResourceType.LINK_TYPE, linkType.getPermissions());
+      }
+
+      final List<Collection> linkTypeCollections = new ArrayList<>(2);
+      for (final Collection collection : collections) {
+         if (linkType.getCollectionIds().contains(collection.getId())) {
+            linkTypeCollections.add(collection);
+         }
+      }
+      if (linkTypeCollections.size() != 2) {
+         return EnumSet.noneOf(RoleType.class);
+      }
+
+      final int roles1 = getRoles(ResourceType.COLLECTION, linkTypeCollections.get(0).getPermissions());
+      final int roles2 = getRoles(ResourceType.COLLECTION, linkTypeCollections.get(1).getPermissions());
+      if ((roles1 & READ) == 0 || (roles2 & READ) == 0) {
+         return EnumSet.noneOf(RoleType.class);
+      }
+
+      return toRoleTypes(roles1 & roles2);
+   }
+
+   private int getRoles(final ResourceType resourceType, @Nullable final Permissions permissions) {
+      final long resourceBits = getRoleBits(permissions);
+      int roles = allRoles(resourceBits);
+
+      final int organizationRoles = resourceType == ResourceType.ORGANIZATION ? roles : this.organizationRoles;
+      final int organizationTransitiveRoles = resourceType == ResourceType.ORGANIZATION ? transitiveRoles(resourceBits) : this.organizationTransitiveRoles;
+
+      if (resourceType != ResourceType.ORGANIZATION) {
+         // It's necessary to have read permission in organization in order to process resource (project, collection, view, link)
+         if ((organizationRoles & READ) == 0) {
+            return 0;
+         }
+         roles |= organizationTransitiveRoles;
+      }
+
+      if (hasProject && resourceType != ResourceType.PROJECT) {
+         // It's necessary to have read permission in project (or transitive in organization) in order to process resource (collection, view, link)
+         if ((organizationTransitiveRoles & READ) == 0 && (projectRoles & READ) == 0) {
+            return 0;
+         }
+         roles |= projectTransitiveRoles;
+      }
+
+      return roles;
+   }
+
+   /**
+    * Collects roles of the user in the permissions. Lower 32 bits contain all roles, upper 32 bits only the transitive ones.
+    */
+   private long getRoleBits(@Nullable final Permissions permissions) {
+      if (permissions == null) {
+         return 0;
+      }
+
+      long bits = 0;
+      if (permissions.getUserPermissions() != null) {
+         for (final Permission permission : permissions.getUserPermissions()) {
+            if (permission.getId() != null && permission.getId().equals(userId)) {
+               bits |= getPermissionBits(permission);
+            }
+         }
+      }
+      if (permissions.getGroupPermissions() != null && !userGroups.isEmpty()) {
+         for (final Permission permission : permissions.getGroupPermissions()) {
+            if (userGroups.contains(permission.getId())) {
+               bits |= getPermissionBits(permission);
+            }
+         }
+      }
+      return bits;
+   }
+
+   private static long getPermissionBits(final Permission permission) {
+      long bits = 0;
+      for (final Role role : permission.getRoles()) {
+         final int bit = bit(role.getType());
+         bits |= bit;
+         if (role.isTransitive()) {
+            bits |= (long) bit << 32;
+         }
+      }
+      return bits;
+   }
+
+   private static int allRoles(final long bits) {
+      return (int) bits;
+   }
+
+   private static int transitiveRoles(final long bits) {
+      return (int) (bits >>> 32);
+   }
+
+   private static int bit(final RoleType roleType) {
+      return 1 << roleType.ordinal();
+   }
+
+   private static Set<RoleType> toRoleTypes(final int roles) {
+      final Set<RoleType> roleTypes = EnumSet.noneOf(RoleType.class);
+      for (final RoleType roleType : ROLE_TYPES) {
+         if ((roles & bit(roleType)) != 0) {
+            roleTypes.add(roleType);
+         }
+      }
+      return roleTypes;
+   }
+}
@@ -0,0 +1,160 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.Project;
+import io.lumeer.api.model.function.FunctionResourceType;
+import io.lumeer.api.model.function.FunctionRow;
+import io.lumeer.core.util.FunctionGraph;
+import io.lumeer.storage.api.dao.FunctionDao;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Answers the searches of function rows from the cached dependency graph of the current project and keeps the graph
+ * up to date with the changes written through it. The version of the stored rows is checked once per instance,
+ * i.e. once per request or task.
+ */
+public class CachedFunctionDao implements FunctionDao {
+
+   private final FunctionDao functionDao;
+   private final FunctionGraphCache graphCache;
+   private final Supplier<String> projectIdSupplier;
+   private FunctionGraph graph;
+
+   public CachedFunctionDao(final FunctionDao functionDao, final FunctionGraphCache graphCache, final Supplier<String> projectIdSupplier) {
+      this.functionDao = functionDao;
+      this.graphCache = graphCache;
+      this.projectIdSupplier = projectIdSupplier;
+   }
+
+   public FunctionGraph getGraph() {
+      if (graph == null) {
+         final String projectId = projectIdSupplier.get();
+         if (projectId == null) {
+            return new FunctionGraph(functionDao.getAllRows());
+         }
+         graph = graphCache.getGraph(projectId, functionDao.getRowsVersion(), functionDao::getAllRows);
+      }
+      return graph;
+   }
+
+   @Override
+   public void createRepository(final Project project) {
+      functionDao.createRepository(project);
+   }
+
+   @Override
+   public void deleteRepository(final Project project) {
+      functionDao.deleteRepository(project);
+      graphCache.invalidate(project.getId());
+      graph = null;
+   }
+
+   @Override
+   public void setProject(final Project project) {
+      functionDao.setProject(project);
+   }
+
+   @Override
+   public void createRows(final List<FunctionRow> rows) {
+      functionDao.createRows(rows);
+      updateGraph(graph -> graph.withRows(rows));
+   }
+
+   @Override
+   public List<FunctionRow> getAllRows() {
+      return getGraph().getRows();
+   }
+
+   @Override
+   public long getRowsVersion() {
+      return functionDao.getRowsVersion();
+   }
+
+   @Override
+   public List<FunctionRow> searchByAnyCollection(final String collectionId, final String attributeId) {
+      return getGraph().searchByAnyCollection(collectionId, attributeId);
+   }
+
+   @Override
+   public List<FunctionRow> searchByDependentCollection(final String collectionId, final String attributeId) {
+      return getGraph().searchByDependentCollection(collectionId, attributeId);
+   }
+
+   @Override
+   public List<FunctionRow> searchByAnyLinkType(final String linkTypeId, final String attributeId) {
+      return getGraph().searchByAnyLinkType(linkTypeId, attributeId);
+   }
+
+   @Override
+   public List<FunctionRow> searchByDependentLinkType(final String linkTypeId, final String attributeId) {
+      return getGraph().searchByDependentLinkType(linkTypeId, attributeId);
+   }
+
+   @Override
+   public List<FunctionRow> searchByResource(final String resourceId, final String attributeId, final FunctionResourceType type) {
+      return getGraph().searchByResource(resourceId, attributeId, type);
+   }
+
+   @Override
+   public void deleteByResources(final FunctionResourceType type, final String... resourceIds) {
+      functionDao.deleteByResources(type, resourceIds);
+
+      final Set<String> ids = new HashSet<>(List.of(resourceIds));
+      updateGraph(graph -> graph.withoutRows(row -> row.getType() == type && ids.contains(row.getResourceId())));
+   }
+
+   @Override
+   public void deleteByCollection(final String collectionsId, final String attributeId) {
+      functionDao.deleteByCollection(collectionsId, attributeId);
+      updateGraph(graph -> graph.withoutRows(row -> isResource(row, FunctionResourceType.COLLECTION, collectionsId, attributeId)));
+   }
+
+   @Override
+   public void deleteByLinkType(final String linkTypeId, final String attributeId) {
+      functionDao.deleteByLinkType(linkTypeId, attributeId);
+      updateGraph(graph -> graph.withoutRows(row -> isResource(row, FunctionResourceType.LINK, linkTypeId, attributeId)));
+   }
+
+   @Override
+   public void deleteByIds(final List<String> ids) {
+      functionDao.deleteByIds(ids);
+
+      final Set<String> deletedIds = new HashSet<>(ids);
+      updateGraph(graph -> graph.withoutRows(row -> deletedIds.contains(row.getId())));
+   }
+
+   private boolean isResource(final FunctionRow row, final FunctionResourceType type, final String resourceId, final String attributeId) {
+      return row.getType() == type && Objects.equals(row.getResourceId(), resourceId) && (attributeId == null || attributeId.equals(row.getAttributeId()));
+   }
+
+   private void updateGraph(final UnaryOperator<FunctionGraph> change) {
+      final String projectId = projectIdSupplier.get();
+      if (projectId != null) {
+         graphCache.update(projectId, functionDao.getRowsVersion(), change);
+      }
+      graph = null;
+   }
+}
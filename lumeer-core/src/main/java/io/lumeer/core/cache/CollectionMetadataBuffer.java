@@ -0,0 +1,184 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Project;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accumulates changes of collection usage metadata (attributes usage counts and last time used) so that
+ * frequent document writes do not rewrite the collection document one by one. The accumulated changes are
+ * written by {@link io.lumeer.core.task.CollectionMetadataFlusher} in regular short intervals, or sooner when
+ * a collection collects too many changes.
+ * The buffer is shared by the whole application and it accepts changes only while a flusher is registered.
+ */
+public class CollectionMetadataBuffer {
+
+   private static final DefaultConfigurationProducer configurationProducer = new DefaultConfigurationProducer();
+   static final int FLUSH_WRITES = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.COLLECTION_METADATA_FLUSH_WRITES), 500);
+
+   private static final CollectionMetadataBuffer INSTANCE = new CollectionMetadataBuffer();
+
+   private final Map<String, PendingMetadata> pending = new ConcurrentHashMap<>();
+
+   private volatile Runnable flushTrigger;
+
+   CollectionMetadataBuffer() {
+   }
+
+   public static CollectionMetadataBuffer getInstance() {
+      return INSTANCE;
+   }
+
+   public void setFlushTrigger(final Runnable flushTrigger) {
+      this.flushTrigger = flushTrigger;
+   }
+
+   public boolean isEnabled() {
+      return flushTrigger != null;
+   }
+
+   /**
+    * Adds usage changes of a single collection.
+    *
+    * @return false when the buffer is not enabled and the changes must be written directly.
+    */
+   public boolean record(final Organization organization, final Project project, final String collectionId, final Map<String, Integer> attributesUsageDeltas, final ZonedDateTime lastTimeUsed) {
+      final Runnable trigger = flushTrigger;
+      if (trigger == null) {
+         return false;
+      }
+
+      // all the changes of an entry happen under the map lock, so they never get lost in an entry that is being drained
+      final boolean[] flush = new boolean[1];
+      pending.compute(getKey(organization, project, collectionId), (key, current) -> {
+         final PendingMetadata updated = current != null ? current : new PendingMetadata(organization, project, collectionId);
+         updated.add(attributesUsageDeltas, lastTimeUsed, 1);
+         flush[0] = updated.requestFlush();
+         return updated;
+      });
+
+      if (flush[0]) {
+         trigger.run();
+      }
+
+      return true;
+   }
+
+   /**
+    * Removes all the accumulated changes from the buffer.
+    */
+   public List<PendingMetadata> drain() {
+      final List<PendingMetadata> result = new ArrayList<>();
+      pending.keySet().forEach(key -> {
+         final PendingMetadata metadata = pending.remove(key);
+         if (metadata != null) {
+            result.add(metadata);
+         }
+      });
+
+      return result;
+   }
+
+   /**
+    * Returns changes that could not be written back to the buffer. They are written again by the next regular flush.
+    */
+   public void restore(final PendingMetadata metadata) {
+      pending.merge(getKey(metadata.organization, metadata.project, metadata.collectionId), metadata, (current, restored) -> {
+         current.add(restored.attributesUsageDeltas, restored.lastTimeUsed, restored.writes);
+         current.flushRequested |= restored.flushRequested;
+         return current;
+      });
+   }
+
+   public int getPendingCount() {
+      return pending.size();
+   }
+
+   private static String getKey(final Organization organization, final Project project, final String collectionId) {
+      return organization.getId() + "/" + project.getId() + "/" + collectionId;
+   }
+
+   public static class PendingMetadata {
+      private final Organization organization;
+      private final Project project;
+      private final String collectionId;
+      private final Map<String, Integer> attributesUsageDeltas = new HashMap<>();
+      private ZonedDateTime lastTimeUsed;
+      private int writes;
+      private boolean flushRequested;
+
+      private PendingMetadata(final Organization organization, final Project project, final String collectionId) {
+         this.organization = organization;
+         this.project = project;
+         this.collectionId = collectionId;
+      }
+
+      private void add(final Map<String, Integer> deltas, final ZonedDateTime time, final int count) {
+         deltas.forEach((attributeId, delta) -> attributesUsageDeltas.merge(attributeId, delta, Integer::sum));
+         if (lastTimeUsed == null || (time != null && time.isAfter(lastTimeUsed))) {
+            lastTimeUsed = time;
+         }
+         writes += count;
+      }
+
+      // asks for an early flush only once per entry, the regular flush takes care of the rest
+      private boolean requestFlush() {
+         if (writes >= FLUSH_WRITES && !flushRequested) {
+            flushRequested = true;
+            return true;
+         }
+         return false;
+      }
+
+      public Organization getOrganization() {
+         return organization;
+      }
+
+      public Project getProject() {
+         return project;
+      }
+
+      public String getCollectionId() {
+         return collectionId;
+      }
+
+      public Map<String, Integer> getAttributesUsageDeltas() {
+         return attributesUsageDeltas;
+      }
+
+      public ZonedDateTime getLastTimeUsed() {
+         return lastTimeUsed;
+      }
+
+      public int getWrites() {
+         return writes;
+      }
+   }
+}
@@ -0,0 +1,215 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.function.FunctionRow;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.core.util.FunctionGraph;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps compiled function dependency graphs of recently used projects. Every graph is stored with the version of the
+ * function rows it was built from and it is used only while the stored rows have the same version, so changes made
+ * on other nodes or through other DAOs are never missed. Changes made through {@link CachedFunctionDao} are applied
+ * to the cached graph directly when no other change happened in between.
+ * The cache is shared by the whole application, including tasks created outside of CDI.
+ */
+public class FunctionGraphCache {
+
+   private static final DefaultConfigurationProducer configurationProducer = new DefaultConfigurationProducer();
+   private static final int MAX_PROJECTS = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.FUNCTIONS_GRAPH_PROJECTS), 1000);
+
+   private static final FunctionGraphCache INSTANCE = new FunctionGraphCache();
+
+   private final Map<String, CachedGraph> graphs = new ConcurrentHashMap<>();
+
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong loads = new AtomicLong();
+   private final AtomicLong updates = new AtomicLong();
+
+   public static FunctionGraphCache getInstance() {
+      return INSTANCE;
+   }
+
+   /**
+    * Gets the graph of the project for the given version of its function rows.
+    *
+    * @param projectId
+    *       id of the project
+    * @param version
+    *       current version of the stored function rows
+    * @param loader
+    *       loads all function rows of the project
+    * @return the graph of the function rows
+    */
+   public FunctionGraph getGraph(final String projectId, final long version, final Supplier<List<FunctionRow>> loader) {
+      final CachedGraph cached = graphs.get(projectId);
+      if (cached != null && cached.version == version) {
+         hits.incrementAndGet();
+         cached.lastUsed = System.currentTimeMillis();
+         return cached.graph;
+      }
+
+      final FunctionGraph graph = new FunctionGraph(loader.get());
+      loads.incrementAndGet();
+
+      if (cached == null && graphs.size() >= MAX_PROJECTS) {
+         graphs.entrySet().stream()
+               .min(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+               .ifPresent(entry -> graphs.remove(entry.getKey(), entry.getValue()));
+      }
+      // the rows might have been loaded after another change, such graph is stored with an older version and reloaded next time
+      graphs.compute(projectId, (key, current) -> current != null && current.version > version ? current : new CachedGraph(graph, version));
+
+      return graph;
+   }
+
+   /**
+    * Applies a change of function rows, that has already been written to the storage, to the cached graph of the project.
+    * The graph is dropped when the rows were changed also by somebody else.
+    *
+    * @param projectId
+    *       id of the project
+    * @param version
+    *       version of the stored rows after the change
+    * @param change
+    *       produces the changed graph
+    */
+   public void update(final String projectId, final long version, final UnaryOperator<FunctionGraph> change) {
+      graphs.computeIfPresent(projectId, (key, current) -> current.version + 1 == version ? new CachedGraph(change.apply(current.graph), version) : null);
+      updates.incrementAndGet();
+   }
+
+   public void invalidate(final String projectId) {
+      graphs.remove(projectId);
+   }
+
+   public void clear() {
+      graphs.clear();
+   }
+
+   public FunctionGraphCacheStats getStats() {
+      int nodes = 0, edges = 0, functions = 0, cyclicFunctions = 0, maxRecomputeFanout = 0;
+      for (final CachedGraph cached : graphs.values()) {
+         final FunctionGraph.FunctionGraphMetrics metrics = cached.graph.getMetrics();
+         nodes += metrics.getNodes();
+         edges += metrics.getEdges();
+         functions += metrics.getFunctions();
+         cyclicFunctions += metrics.getCyclicFunctions();
+         maxRecomputeFanout = Math.max(maxRecomputeFanout, metrics.getMaxRecomputeFanout());
+      }
+
+      return new FunctionGraphCacheStats(graphs.size(), nodes, edges, functions, cyclicFunctions, maxRecomputeFanout, hits.get(), loads.get(), updates.get());
+   }
+
+   private static class CachedGraph {
+      private final FunctionGraph graph;
+      private final long version;
+      private volatile long lastUsed = System.currentTimeMillis();
+
+      private CachedGraph(final FunctionGraph graph, final long version) {
+         this.graph = graph;
+         this.version = version;
+      }
+   }
+
+   public static class FunctionGraphCacheStats {
+      private final int projects;
+      private final int nodes;
+      private final int edges;
+      private final int functions;
+      private final int cyclicFunctions;
+      private final int maxRecomputeFanout;
+      private final long hits;
+      private final long loads;
+      private final long updates;
+
+      public FunctionGraphCacheStats(final int projects, final int nodes, final int edges, final int functions, final int cyclicFunctions, final int maxRecomputeFanout, final long hits, final long loads, final long updates) {
+         this.projects = projects;
+         this.nodes = nodes;
+         this.edges = edges;
+         this.functions = functions;
+         this.cyclicFunctions = cyclicFunctions;
+         this.maxRecomputeFanout = maxRecomputeFanout;
+         this.hits = hits;
+         this.loads = loads;
+         this.updates = updates;
+      }
+
+      public int getProjects() {
+         return projects;
+      }
+
+      public int getNodes() {
+         return nodes;
+      }
+
+      public int getEdges() {
+         return edges;
+      }
+
+      public int getFunctions() {
+         return functions;
+      }
+
+      public int getCyclicFunctions() {
+         return cyclicFunctions;
+      }
+
+      public int getMaxRecomputeFanout() {
+         return maxRecomputeFanout;
+      }
+
+      public long getHits() {
+         return hits;
+      }
+
+      public long getLoads() {
+         return loads;
+      }
+
+      public long getUpdates() {
+         return updates;
+      }
+
+      @Override
+      public String toString() {
+         return "FunctionGraphCacheStats{" +
+               "projects=" + projects +
+               ", nodes=" + nodes +
+               ", edges=" + edges +
+               ", functions=" + functions +
+               ", cyclicFunctions=" + cyclicFunctions +
+               ", maxRecomputeFanout=" + maxRecomputeFanout +
+               ", hits=" + hits +
+               ", loads=" + loads +
+               ", updates=" + updates +
+               '}';
+      }
+   }
+}
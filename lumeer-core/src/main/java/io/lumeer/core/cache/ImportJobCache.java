@@ -0,0 +1,71 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.ImportJob;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Keeps progress of the running imports so that clients can poll it. Finished jobs are kept for a while and then forgotten.
+ */
+@ApplicationScoped
+public class ImportJobCache {
+
+   private static final long DEFAULT_RETENTION_MINUTES = 60;
+
+   @Inject
+   private DefaultConfigurationProducer configurationProducer;
+
+   private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+   private long retentionMinutes;
+
+   @PostConstruct
+   public void init() {
+      retentionMinutes = NumberUtils.toLong(configurationProducer.get(DefaultConfigurationProducer.IMPORT_JOB_RETENTION), DEFAULT_RETENTION_MINUTES);
+   }
+
+   public ImportJob createJob(final String collectionId, final String userId) {
+      removeExpiredJobs();
+
+      final ImportJob job = new ImportJob(UUID.randomUUID().toString(), collectionId, userId);
+      jobs.put(job.getId(), job);
+
+      return job;
+   }
+
+   public ImportJob getJob(final String jobId) {
+      return jobs.get(jobId);
+   }
+
+   private void removeExpiredJobs() {
+      final ZonedDateTime expiration = ZonedDateTime.now().minusMinutes(retentionMinutes);
+      jobs.values().removeIf(job -> job.isDone() && job.getFinishDate().isBefore(expiration));
+   }
+}
@@ -0,0 +1,122 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.Group;
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Project;
+import io.lumeer.api.model.User;
+import io.lumeer.cache.simple.BoundedCache;
+import io.lumeer.core.auth.PermissionMatrix;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.engine.api.cache.CacheSettings;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps compiled {@link PermissionMatrix permission matrices} of recently active users. A matrix is keyed by the versions
+ * of the organization and the project it was built from and by the version of the organization groups, so any stored change
+ * of these resources makes the old matrix unreachable. Changes of groups are tracked by {@link PermissionMatrixInvalidator},
+ * the expiration bounds the time a change of groups made on another node stays unnoticed.
+ * The cache is shared by the whole application, including tasks created outside of CDI.
+ */
+public class PermissionMatrixCache {
+
+   private static final DefaultConfigurationProducer configurationProducer = new DefaultConfigurationProducer();
+
+   private static final int MAX_MATRICES = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.PERMISSIONS_MATRIX_SIZE), 10000);
+   private static final long EXPIRATION_SECONDS = NumberUtils.toLong(configurationProducer.get(DefaultConfigurationProducer.PERMISSIONS_MATRIX_EXPIRATION), 30);
+
+   private static final PermissionMatrixCache INSTANCE = new PermissionMatrixCache();
+
+   private final BoundedCache<CachedMatrix> matrices = new BoundedCache<>(CacheSettings.<CachedMatrix>maximumSize(MAX_MATRICES).expireAfterWrite(Duration.ofSeconds(EXPIRATION_SECONDS)));
+   private final Map<String, AtomicLong> groupsVersions = new ConcurrentHashMap<>();
+
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong loads = new AtomicLong();
+
+   public static PermissionMatrixCache getInstance() {
+      return INSTANCE;
+   }
+
+   public PermissionMatrix getMatrix(final Organization organization, @Nullable final Project project, final User user, final Supplier<List<Group>> groupsLoader) {
+      final String projectId = project != null ? project.getId() : null;
+      final String key = String.join("/", organization.getId(), String.valueOf(organization.getVersion()), String.valueOf(projectId),
+            String.valueOf(project != null ? project.getVersion() : 0), user.getId(), String.valueOf(getGroupsVersion(organization.getId()).get()));
+
+      final CachedMatrix cached = matrices.get(key);
+      if (cached != null) {
+         hits.incrementAndGet();
+         return cached.matrix();
+      }
+
+      final PermissionMatrix matrix = PermissionMatrix.build(organization, project, user, groupsLoader.get());
+      loads.incrementAndGet();
+
+      // groups loaded during a change could be outdated already, the matrix is then stored under the previous version only
+      matrices.set(key, new CachedMatrix(key, organization.getId(), projectId, matrix));
+
+      return matrix;
+   }
+
+   public void invalidateOrganization(final String organizationId) {
+      invalidateGroups(organizationId);
+   }
+
+   public void invalidateProject(final String projectId) {
+      matrices.stream().filter(cached -> projectId.equals(cached.projectId())).map(CachedMatrix::key).collect(Collectors.toList()).forEach(matrices::remove);
+   }
+
+   public void invalidateGroups(final String organizationId) {
+      if (organizationId == null) {
+         return;
+      }
+      getGroupsVersion(organizationId).incrementAndGet();
+      matrices.stream().filter(cached -> organizationId.equals(cached.organizationId())).map(CachedMatrix::key).collect(Collectors.toList()).forEach(matrices::remove);
+   }
+
+   public void clear() {
+      groupsVersions.values().forEach(AtomicLong::incrementAndGet);
+      matrices.clear();
+   }
+
+   public long getHits() {
+      return hits.get();
+   }
+
+   public long getLoads() {
+      return loads.get();
+   }
+
+   private AtomicLong getGroupsVersion(final String organizationId) {
+      return groupsVersions.computeIfAbsent(organizationId, key -> new AtomicLong());
+   }
+
+   private record CachedMatrix(String key, String organizationId, String projectId, PermissionMatrix matrix) {
+   }
+}
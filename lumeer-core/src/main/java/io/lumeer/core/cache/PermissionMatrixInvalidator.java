@@ -0,0 +1,79 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.api.model.common.Resource;
+import io.lumeer.engine.api.event.CreateOrUpdateGroup;
+import io.lumeer.engine.api.event.ReloadGroups;
+import io.lumeer.engine.api.event.RemoveGroup;
+import io.lumeer.engine.api.event.RemoveResource;
+import io.lumeer.engine.api.event.RemoveUser;
+import io.lumeer.engine.api.event.UpdateResource;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+/**
+ * Drops matrices from {@link PermissionMatrixCache} when the organization, the project or the groups they were built from change.
+ */
+@ApplicationScoped
+public class PermissionMatrixInvalidator {
+
+   private final PermissionMatrixCache cache = PermissionMatrixCache.getInstance();
+
+   public void updateResource(@Observes final UpdateResource updateResource) {
+      invalidateResource(updateResource.getResource());
+   }
+
+   public void removeResource(@Observes final RemoveResource removeResource) {
+      invalidateResource(removeResource.getResource());
+   }
+
+   public void createOrUpdateGroup(@Observes final CreateOrUpdateGroup createOrUpdateGroup) {
+      cache.invalidateGroups(createOrUpdateGroup.getOrganizationId());
+   }
+
+   public void removeGroup(@Observes final RemoveGroup removeGroup) {
+      cache.invalidateGroups(removeGroup.getOrganizationId());
+   }
+
+   public void reloadGroups(@Observes final ReloadGroups reloadGroups) {
+      cache.invalidateGroups(reloadGroups.getOrganizationId());
+   }
+
+   public void removeUser(@Observes final RemoveUser removeUser) {
+      // the user is removed from all groups of the organization as well
+      if (removeUser.getOrganizationId() != null) {
+         cache.invalidateGroups(removeUser.getOrganizationId());
+      }
+   }
+
+   private void invalidateResource(final Resource resource) {
+      if (resource == null || resource.getId() == null) {
+         return;
+      }
+
+      if (resource.getType() == ResourceType.ORGANIZATION) {
+         cache.invalidateOrganization(resource.getId());
+      } else if (resource.getType() == ResourceType.PROJECT) {
+         cache.invalidateProject(resource.getId());
+      }
+   }
+}
@@ -43,22 +43,21 @@ import org.bson.types.Decimal128;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.text.ParsePosition;
 import java.text.ParseException;
 import java.time.DateTimeException;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -78,12 +77,30 @@ public class ConstraintManager {
     */
    private Pattern numberMatch;
 
-   private Set<DateTimeFormatter> formatters;
+   private List<DateTimeFormatter> formatters;
 
    private DateTimeFormatter dateDecoder;
 
+   /**
+    * Number formats of the current locale, they are not thread safe so every thread gets its own copy.
+    */
+   private ThreadLocal<NumberFormats> numberFormats;
+
    private static final ZoneId utcZone = ZoneId.ofOffset("UTC", ZoneOffset.UTC);
 
+   private static final Pattern leadingZeroMatch = Pattern.compile("^0[^\\.].*");
+
+   private static final ThreadLocal<NumberFormat> integerFormat = ThreadLocal.withInitial(NumberFormat::getIntegerInstance);
+
+   private static final Map<Locale, ThreadLocal<NumberFormats>> numberFormatsByLocale = new ConcurrentHashMap<>();
+
+   private static final Map<Locale, List<DateTimeFormatter>> formattersByLocale = new ConcurrentHashMap<>();
+
+   /**
+    * The shortest date accepted by the formatters, i.e. yyyy-MM-ddTHH:mm:ss.SSSZ.
+    */
+   private static final int MIN_DATE_LENGTH = 24;
+
    /**
     * Obtains a default instance of ConstraintManager configured according to system properties.
     *
@@ -121,6 +138,7 @@ public class ConstraintManager {
       this.locale = locale;
       initNumberMatchPatten(locale);
       initDateTimeFormatters(locale);
+      numberFormats = numberFormatsByLocale.computeIfAbsent(locale, l -> ThreadLocal.withInitial(() -> new NumberFormats(l)));
    }
 
    /**
@@ -136,13 +154,14 @@ public class ConstraintManager {
    }
 
    private void initDateTimeFormatters(final Locale locale) {
-      dateDecoder = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ", locale);
-      formatters = Set.of(
-            dateDecoder,
-            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSO", locale),
-            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSx", locale),
-            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSX", locale)
-      );
+      // formatters are immutable, so they can be shared by all instances
+      formatters = formattersByLocale.computeIfAbsent(locale, l -> List.of(
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ", l),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSO", l),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSx", l),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSX", l)
+      ));
+      dateDecoder = formatters.get(0);
    }
 
    /**
@@ -151,12 +170,10 @@ public class ConstraintManager {
     * @param value The value to try to convert to number.
     * @return The value converted to a number data type or null when the conversion was not possible.
     */
-   private Number encodeNumber(final Locale locale, final Object value) {
-      final DecimalFormat df = (DecimalFormat) DecimalFormat.getNumberInstance(locale);
-      df.setParseBigDecimal(true);
-      final NumberFormat nf = NumberFormat.getNumberInstance(locale);
+   private Number encodeNumber(final Object value) {
+      final NumberFormats formats = numberFormats.get();
 
-      return encodeNumber(nf, df, value);
+      return encodeNumber(formats.numberFormat, formats.bigNumberFormat, value);
    }
 
    /**
@@ -173,19 +190,19 @@ public class ConstraintManager {
       } else if (value instanceof String s) {
          final String trimmed = s.trim();
 
-         if (trimmed.matches("^0[^\\.].*")) { // we need to keep leading and trailing zeros, so no conversion to number
+         if (leadingZeroMatch.matcher(trimmed).matches()) { // we need to keep leading and trailing zeros, so no conversion to number
             return null;
          }
 
          try {
             // figure out whether we need to use BigDecimal
-            final Number n2 = numberFormat.parse(((String) value).trim());
+            final Number n2 = numberFormat.parse(trimmed);
 
             if (bigNumberFormat == null) {
                return n2;
             }
 
-            final Number n1 = bigNumberFormat.parse(((String) value).trim());
+            final Number n1 = bigNumberFormat.parse(trimmed);
 
             if (n1 instanceof BigDecimal bd) {
                try {
@@ -219,13 +236,22 @@ public class ConstraintManager {
       }
 
       if (value instanceof String s && numberMatch.matcher(s).matches()) {
-         final Number n = encodeNumber(locale, s.replaceFirst(",", ".").replace("e", "E"));
+         final Number n = encodeNumber(normalizeNumber(s));
          return n == null ? value : n;
       }
 
       return value;
    }
 
+   /**
+    * Replaces the first decimal comma with a dot and uses the upper case exponent.
+    */
+   private static String normalizeNumber(final String value) {
+      final int comma = value.indexOf(',');
+      final String withDot = comma >= 0 ? value.substring(0, comma) + '.' + value.substring(comma + 1) : value;
+      return withDot.replace('e', 'E');
+   }
+
    public Object encode(final Object value, final Constraint constraint) {
       return encode(value, constraint, false);
    }
@@ -291,19 +317,15 @@ public class ConstraintManager {
             return value;
          }
 
-         DateTimeFormatter dtf;
-         for (final Iterator<DateTimeFormatter> i = formatters.iterator(); i.hasNext(); ) {
-            dtf = i.next();
-            try {
-               return Date.from(ZonedDateTime.from(dtf.parse(value.toString().trim())).toInstant());
-            } catch (DateTimeParseException e) {
-               // no problem, we will try another
-            }
+         final Date date = parseDate(value.toString().trim());
+         if (date != null) {
+            return date;
          }
       }
 
       if (constraint != null && constraint.getType() == ConstraintType.Select) {
-         var numericValue = encodeNumber(NumberFormat.getIntegerInstance(), NumberFormat.getIntegerInstance(), value);
+         final NumberFormat nf = integerFormat.get();
+         var numericValue = encodeNumber(nf, nf, value);
          return numericValue != null && numericValue.toString().equals(String.valueOf(value)) ? numericValue : value;
       }
 
@@ -324,6 +346,29 @@ public class ConstraintManager {
       return tryHard ? encode(value) : value;
    }
 
+   /**
+    * Parses the date with the first formatter that accepts the whole text. The text is checked without
+    * resolving first, so that values that are not dates at all do not throw an exception for every formatter.
+    */
+   private Date parseDate(final String text) {
+      if (text.length() < MIN_DATE_LENGTH) {
+         return null;
+      }
+
+      for (final DateTimeFormatter dtf : formatters) {
+         final ParsePosition position = new ParsePosition(0);
+         if (dtf.parseUnresolved(text, position) != null && position.getIndex() == text.length()) {
+            try {
+               return Date.from(ZonedDateTime.from(dtf.parse(text)).toInstant());
+            } catch (DateTimeException e) {
+               // fields out of range, no problem, we will try another
+            }
+         }
+      }
+
+      return null;
+   }
+
    public Object decode(final Object value, final Constraint constraint) {
       if (value != null) {
          if (value instanceof Date) {
@@ -423,15 +468,26 @@ public class ConstraintManager {
    }
 
    public DataDocument encodeDataTypes(final Collection collection, final DataDocument data) {
-      return processData(data, getConstraints(collection), this::encode);
+      return getCodec(collection).encode(data);
    }
 
    public DataDocument encodeDataTypesForFce(final Collection collection, final DataDocument data) {
-      return processData(data, getConstraints(collection), this::encodeForFce);
+      return getCodec(collection).encodeForFce(data);
    }
 
    public DataDocument decodeDataTypes(final Collection collection, final DataDocument data) {
-      return processData(data, getConstraints(collection), this::decode);
+      return getCodec(collection).decode(data);
+   }
+
+   /**
+    * Gets a codec with the attribute constraints of the collection resolved once, suitable for processing
+    * many documents of the same collection.
+    *
+    * @param collection The collection whose documents will be processed.
+    * @return The codec for documents of the collection.
+    */
+   public DataCodec getCodec(final Collection collection) {
+      return new DataCodec(getConstraints(collection));
    }
 
    private Map<String, Constraint> getConstraints(final LinkType linkType) {
@@ -445,33 +501,112 @@ public class ConstraintManager {
    }
 
    public DataDocument encodeDataTypes(final LinkType linkType, final DataDocument data) {
-      return processData(data, getConstraints(linkType), this::encode);
+      return getCodec(linkType).encode(data);
    }
 
    public DataDocument encodeDataTypesForFce(final LinkType linkType, final DataDocument data) {
-      return processData(data, getConstraints(linkType), this::encodeForFce);
+      return getCodec(linkType).encodeForFce(data);
    }
 
    public DataDocument decodeDataTypes(final LinkType linkType, final DataDocument data) {
-      return processData(data, getConstraints(linkType), this::decode);
+      return getCodec(linkType).decode(data);
    }
 
-   private DataDocument processData(final DataDocument data, final Map<String, Constraint> constraints, final BiFunction<Object, Constraint, Object> processor) {
-      if (data == null) {
-         return null;
+   /**
+    * Gets a codec with the attribute constraints of the link type resolved once, suitable for processing
+    * many link instances of the same link type.
+    *
+    * @param linkType The link type whose link instances will be processed.
+    * @return The codec for link instances of the link type.
+    */
+   public DataCodec getCodec(final LinkType linkType) {
+      return new DataCodec(getConstraints(linkType));
+   }
+
+   /**
+    * Encodes and decodes data of a single resource. The constraints are looked up by attribute id
+    * only once when the codec is created.
+    */
+   public final class DataCodec {
+
+      private final Map<String, Constraint> constraints;
+
+      private DataCodec(final Map<String, Constraint> constraints) {
+         this.constraints = constraints;
+      }
+
+      public DataDocument encode(final DataDocument data) {
+         return processData(data, ConstraintManager.this::encode);
+      }
+
+      public DataDocument encodeForFce(final DataDocument data) {
+         return processData(data, ConstraintManager.this::encodeForFce);
+      }
+
+      public DataDocument decode(final DataDocument data) {
+         return processData(data, ConstraintManager.this::decode);
+      }
+
+      /**
+       * Encodes the data without making a copy. Use only when the document is not shared, e.g. it was just parsed from an import.
+       *
+       * @param data The data to encode.
+       * @return The same instance with encoded values.
+       */
+      public DataDocument encodeInPlace(final DataDocument data) {
+         return processDataInPlace(data, ConstraintManager.this::encode);
+      }
+
+      /**
+       * Decodes the data without making a copy. Use only when the document is not shared, e.g. it was just read from the database.
+       *
+       * @param data The data to decode.
+       * @return The same instance with decoded values.
+       */
+      public DataDocument decodeInPlace(final DataDocument data) {
+         return processDataInPlace(data, ConstraintManager.this::decode);
       }
 
-      final DataDocument newData = new DataDocument();
+      private DataDocument processData(final DataDocument data, final BiFunction<Object, Constraint, Object> processor) {
+         if (data == null) {
+            return null;
+         }
+
+         final DataDocument newData = new DataDocument();
 
-      data.keySet().forEach(key -> {
-         if (!DataDocument.ID.equals(key)) {
-            newData.put(key, processor.apply(data.get(key), constraints.get(key)));
-         } else {
-            newData.put(key, data.get(key));
+         data.forEach((key, value) -> {
+            if (!DataDocument.ID.equals(key)) {
+               newData.put(key, processor.apply(value, constraints.get(key)));
+            } else {
+               newData.put(key, value);
+            }
+         });
+
+         return newData;
+      }
+
+      private DataDocument processDataInPlace(final DataDocument data, final BiFunction<Object, Constraint, Object> processor) {
+         if (data == null) {
+            return null;
          }
-      });
 
-      return newData;
+         data.replaceAll((key, value) -> DataDocument.ID.equals(key) ? value : processor.apply(value, constraints.get(key)));
+
+         return data;
+      }
+   }
+
+   private static final class NumberFormats {
+
+      private final NumberFormat numberFormat;
+
+      private final DecimalFormat bigNumberFormat;
+
+      private NumberFormats(final Locale locale) {
+         numberFormat = NumberFormat.getNumberInstance(locale);
+         bigNumberFormat = (DecimalFormat) DecimalFormat.getNumberInstance(locale);
+         bigNumberFormat.setParseBigDecimal(true);
+      }
    }
 
    public DateTimeFormatter getDateDecoder() {
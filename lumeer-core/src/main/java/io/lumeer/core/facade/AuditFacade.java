@@ -172,7 +172,7 @@ public class AuditFacade extends AbstractFacade {
       PermissionAdapter permissionAdapter = new PermissionAdapter(userDao, groupDao, viewDao, linkTypeDao, collectionDao);
       resourceAdapter = new ResourceAdapter(permissionAdapter, collectionDao, linkTypeDao, viewDao, userDao);
 
-      collectionAdapter = new CollectionAdapter(collectionDao, favoriteItemDao, documentDao);
+      collectionAdapter = new CollectionAdapter(collectionDao, favoriteItemDao, documentDao, workspaceKeeper);
       linkTypeAdapter = new LinkTypeAdapter(linkTypeDao, linkInstanceDao);
 
       pusherAdapter = new PusherAdapter(requestDataKeeper.getAppId(), getFacadeAdapter(), resourceAdapter, permissionAdapter, viewDao, linkTypeDao, collectionDao);
@@ -606,10 +606,6 @@ public class CollectionFacade extends AbstractFacade {
    }
 
    public void runRule(final Collection collection, final String ruleId) {
-      if (adapter.getDocumentsCountByCollection(collection.getId()) > 2_000) {
-         throw new UnsuccessfulOperationException("Too many documents in the source collection");
-      }
-
       final Rule rule = collection.getRules().get(ruleId);
       if (rule != null && rule.getType() == Rule.RuleType.AUTO_LINK) {
          final AutoLinkRule autoLinkRule = new AutoLinkRule(rule);
@@ -621,10 +617,6 @@ public class CollectionFacade extends AbstractFacade {
          final Attribute otherAttribute = otherCollection.getAttributes().stream().filter(a -> a.getId().equals(otherAttributeId)).findFirst().orElse(null);
          final Map<String, AllowedPermissions> permissions = permissionsChecker.getCollectionsPermissions(List.of(collection, otherCollection));
 
-         if (adapter.getDocumentsCountByCollection(otherCollectionId) > 10_000) {
-            throw new UnsuccessfulOperationException("Too many documents in the target collection");
-         }
-
          final LinkType linkType = linkTypeDao.getLinkType(autoLinkRule.getLinkType());
 
          final AutoLinkBatchTask task = taskFactory.getInstance(AutoLinkBatchTask.class);
@@ -632,6 +624,10 @@ public class CollectionFacade extends AbstractFacade {
 
          taskExecutor.submitTask(task);
       } else if (rule != null && rule.getType() == Rule.RuleType.CRON) {
+         if (adapter.getDocumentsCountByCollection(collection.getId()) > 2_000) {
+            throw new UnsuccessfulOperationException("Too many documents in the source collection");
+         }
+
          final CronRule cronRule = new CronRule(rule);
 
          List<Document> documents = new ArrayList<>();
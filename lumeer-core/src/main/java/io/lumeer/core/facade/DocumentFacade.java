@@ -126,7 +126,7 @@ public class DocumentFacade extends AbstractFacade {
    public void init() {
       constraintManager = ConstraintManager.getInstance(configurationProducer);
       adapter = new DocumentAdapter(resourceCommentDao, favoriteItemDao);
-      collectionAdapter = new CollectionAdapter(collectionDao, favoriteItemDao, documentDao);
+      collectionAdapter = new CollectionAdapter(collectionDao, favoriteItemDao, documentDao, workspaceKeeper);
    }
 
    public DocumentAdapter getAdapter() {
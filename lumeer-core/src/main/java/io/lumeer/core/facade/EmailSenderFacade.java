@@ -23,8 +23,9 @@ import io.lumeer.api.model.User;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.core.util.EmailSecurityType;
 import io.lumeer.core.util.EmailService;
+import io.lumeer.core.util.MailOutbox;
+import io.lumeer.core.util.TemplateRegistry;
 
-import com.floreysoft.jmte.Engine;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 
@@ -48,6 +49,9 @@ public class EmailSenderFacade {
    @Inject
    private DefaultConfigurationProducer defaultConfigurationProducer;
 
+   @Inject
+   private MailOutbox mailOutbox;
+
    @Inject
    private Logger log;
 
@@ -58,8 +62,7 @@ public class EmailSenderFacade {
    private static String SMTP_FROM;
 
    private Map<String, String> subjectLines = new HashMap<>();
-   private Map<String, String> templates = new HashMap<>();
-   private Engine templateEngine = Engine.createEngine();
+   private TemplateRegistry templateRegistry = TemplateRegistry.getInstance();
    private EmailService emailService = null;
 
    public enum EmailTemplate {
@@ -79,7 +82,7 @@ public class EmailSenderFacade {
       }
 
       if (isActive()) {
-         emailService = new EmailService(SMTP_SERVER, SMTP_PORT, SMTP_USER, SMTP_PASSWORD, SMTP_FROM, EmailSecurityType.TLS);
+         emailService = new EmailService(SMTP_SERVER, SMTP_PORT, SMTP_USER, SMTP_PASSWORD, SMTP_FROM, EmailSecurityType.TLS, mailOutbox);
          readSubjectLines();
       }
    }
@@ -99,9 +102,9 @@ public class EmailSenderFacade {
    public void sendEmailFromTemplate(final EmailTemplate emailTemplate, final Language language, final String sender, final String from, final String recipient, final String subjectPart, final Map<String, Object> additionalData) {
       if (emailService != null) {
          final String subject = String.format(subjectLines.getOrDefault(emailTemplate.toString().toLowerCase() + "_" + language.toString().toLowerCase(), language == Language.EN ? "Hi" : "Dobrý den"), subjectPart);
-         final String template = loadTemplate(emailTemplate, language);
+         final TemplateRegistry.RenderPlan template = loadTemplate(emailTemplate, language);
 
-         if (StringUtils.isNotEmpty(template)) {
+         if (template != null) {
             final Map<String, Object> values = new HashMap<>();
             values.put("title", subject); // subject line
             values.put("recipient", recipient); // email
@@ -111,7 +114,7 @@ public class EmailSenderFacade {
                values.putAll(additionalData);
             }
 
-            final String body = templateEngine.transform(template, values);
+            final String body = template.render(values);
 
             try {
                emailService.sendEmail(subject, recipient, body, from);
@@ -138,12 +141,13 @@ public class EmailSenderFacade {
       return StringUtils.isNotEmpty(userName) ? userName : userEmail;
    }
 
-   private String loadTemplate(final EmailTemplate emailTemplate, final Language language) {
+   private TemplateRegistry.RenderPlan loadTemplate(final EmailTemplate emailTemplate, final Language language) {
       final String templateName = "/email-templates/" + emailTemplate.toString().toLowerCase() + "." + language.toString().toLowerCase() + ".html";
 
-      return templates.computeIfAbsent(templateName, key -> {
+      return templateRegistry.getTemplate(templateName, language, () -> {
          try {
-            return IOUtils.resourceToString(templateName, StandardCharsets.UTF_8);
+            final String template = IOUtils.resourceToString(templateName, StandardCharsets.UTF_8);
+            return StringUtils.isNotEmpty(template) ? template : null;
          } catch (IOException e) {
             log.log(Level.SEVERE, String.format("Error loading email template '%s': ", emailTemplate.toString().toLowerCase()), e);
          }
@@ -29,8 +29,11 @@ import io.lumeer.api.model.function.FunctionResourceType;
 import io.lumeer.api.model.function.FunctionRow;
 import io.lumeer.api.util.ResourceUtils;
 import io.lumeer.core.adapter.LinkTypeAdapter;
+import io.lumeer.core.cache.CachedFunctionDao;
+import io.lumeer.core.cache.FunctionGraphCache;
 import io.lumeer.core.task.ContextualTaskFactory;
 import io.lumeer.core.task.FunctionTask;
+import io.lumeer.core.util.FunctionGraph;
 import io.lumeer.core.util.FunctionOrder;
 import io.lumeer.core.util.FunctionXmlParser;
 import io.lumeer.core.util.Utils;
@@ -53,6 +56,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.RequestScoped;
@@ -61,6 +66,8 @@ import jakarta.inject.Inject;
 @RequestScoped
 public class FunctionFacade extends AbstractFacade {
 
+   private static final Logger log = Logger.getLogger(FunctionFacade.class.getName());
+
    @Inject
    private FunctionDao functionDao;
 
@@ -80,14 +87,22 @@ public class FunctionFacade extends AbstractFacade {
    private ContextualTaskFactory contextualTaskFactory;
 
    private LinkTypeAdapter linkTypeAdapter;
+   private CachedFunctionDao cachedFunctionDao;
+   private Supplier<String> projectIdSupplier;
 
    @PostConstruct
    public void init() {
       linkTypeAdapter = new LinkTypeAdapter(linkTypeDao, linkInstanceDao);
+
+      if (projectIdSupplier == null) {
+         projectIdSupplier = () -> Utils.computeIfNotNull(getProject(), Resource::getId);
+      }
+      cachedFunctionDao = new CachedFunctionDao(functionDao, FunctionGraphCache.getInstance(), projectIdSupplier);
    }
 
-   public static FunctionFacade getInstance(final FunctionDao functionDao, final CollectionDao collectionDao, final DocumentDao documentDao, final LinkInstanceDao linkInstanceDao, final LinkTypeDao linkTypeDao, final ContextualTaskFactory taskFactory) {
+   public static FunctionFacade getInstance(final String projectId, final FunctionDao functionDao, final CollectionDao collectionDao, final DocumentDao documentDao, final LinkInstanceDao linkInstanceDao, final LinkTypeDao linkTypeDao, final ContextualTaskFactory taskFactory) {
       final FunctionFacade facade = new FunctionFacade();
+      facade.projectIdSupplier = () -> projectId;
       facade.functionDao = functionDao;
       facade.collectionDao = collectionDao;
       facade.documentDao = documentDao;
@@ -102,14 +117,30 @@ public class FunctionFacade extends AbstractFacade {
 
    public FunctionTask createTaskForCreatedFunction(Collection collection, Attribute attribute) {
       List<FunctionRow> functionRows = createCollectionRowsFromXml(collection, attribute);
+      checkDependencyCycle(new FunctionParameter(FunctionResourceType.COLLECTION, collection.getId(), attribute.getId()), functionRows);
       if (!functionRows.isEmpty()) {
-         functionDao.createRows(functionRows);
+         cachedFunctionDao.createRows(functionRows);
       }
 
       Deque<FunctionParameterDocuments> queue = createQueueForCollection(collection, attribute, functionRows);
       return convertQueueToTask(queue);
    }
 
+   /**
+    * Cycles are tolerated by the ordering of the functions, every function is computed at most once per change,
+    * but the results depend on the order of evaluation, so we at least report them when the function is saved.
+    */
+   private void checkDependencyCycle(final FunctionParameter function, final List<FunctionRow> functionRows) {
+      final List<FunctionParameter> cycle = cachedFunctionDao.getGraph().withRows(functionRows).findCycle(function);
+      if (!cycle.isEmpty()) {
+         log.warning("Function " + function + " depends on itself: " + cycle);
+      }
+   }
+
+   public FunctionGraph.FunctionGraphMetrics getFunctionGraphMetrics() {
+      return cachedFunctionDao.getGraph().getMetrics();
+   }
+
    private List<FunctionRow> createCollectionRowsFromXml(Collection collection, Attribute attribute) {
       return FunctionXmlParser.parseFunctionXml(attribute.getFunction().getXml()).stream()
                               .map(reference -> FunctionRow.createForCollection(collection.getId(), attribute.getId(), reference.getCollectionId(), reference.getLinkTypeId(), reference.getAttributeId()))
@@ -148,10 +179,10 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    private void fillParametersMapForCollection(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, FunctionParameterDocuments parentParameter) {
-      List<FunctionRow> functionRows = functionDao.searchByDependentCollection(parentParameter.getResourceId(), parentParameter.getAttributeId());
+      List<FunctionRow> functionRows = cachedFunctionDao.searchByDependentCollection(parentParameter.getResourceId(), parentParameter.getAttributeId());
 
       functionRows.forEach(row -> {
-         List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+         List<FunctionRow> rows = cachedFunctionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
          Set<String> documentIds = parentParameter.getDocuments().stream().map(Document::getId).collect(Collectors.toSet());
 
          FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
@@ -177,10 +208,10 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    private void fillParametersMapForLinkType(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, FunctionParameterDocuments parentParameter) {
-      List<FunctionRow> functionRows = functionDao.searchByDependentLinkType(parentParameter.getResourceId(), parentParameter.getAttributeId());
+      List<FunctionRow> functionRows = cachedFunctionDao.searchByDependentLinkType(parentParameter.getResourceId(), parentParameter.getAttributeId());
 
       functionRows.forEach(row -> {
-         List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+         List<FunctionRow> rows = cachedFunctionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
          Set<String> linkInstanceIds = parentParameter.getLinkInstances().stream().map(LinkInstance::getId).collect(Collectors.toSet());
 
          FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
@@ -262,13 +293,14 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    public void onDeleteCollectionFunction(String collectionId, String attributeId) {
-      functionDao.deleteByCollection(collectionId, attributeId);
+      cachedFunctionDao.deleteByCollection(collectionId, attributeId);
    }
 
    public FunctionTask createTaskForCreatedLinkFunction(LinkType linkType, Attribute attribute) {
       List<FunctionRow> functionRows = createLinkRowsFromXml(linkType, attribute);
+      checkDependencyCycle(new FunctionParameter(FunctionResourceType.LINK, linkType.getId(), attribute.getId()), functionRows);
       if (!functionRows.isEmpty()) {
-         functionDao.createRows(functionRows);
+         cachedFunctionDao.createRows(functionRows);
       }
 
       Deque<FunctionParameterDocuments> queue = createQueueForLinkType(linkType, attribute, functionRows);
@@ -306,7 +338,7 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    public void onDeleteLinkTypeFunction(String collectionId, String attributeId) {
-      functionDao.deleteByLinkType(collectionId, attributeId);
+      cachedFunctionDao.deleteByLinkType(collectionId, attributeId);
    }
 
    public FunctionTask createTaskForCreatedDocument(Collection collection, Document document) {
@@ -326,7 +358,7 @@ public class FunctionFacade extends AbstractFacade {
             parameter.setCollection(collection);
             parameter.setAttribute(attribute);
 
-            List<FunctionRow> functionRows = functionDao.searchByResource(collection.getId(), attribute.getId(), FunctionResourceType.COLLECTION);
+            List<FunctionRow> functionRows = cachedFunctionDao.searchByResource(collection.getId(), attribute.getId(), FunctionResourceType.COLLECTION);
             parametersMap.put(parameter, functionRows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
             fillParametersMapForCollection(parametersMap, parameter);
          }
@@ -377,11 +409,11 @@ public class FunctionFacade extends AbstractFacade {
 
       attributeIds.forEach(attributeId -> {
 
-         List<FunctionRow> functionRows = functionDao.searchByDependentCollection(collectionId, attributeId);
+         List<FunctionRow> functionRows = cachedFunctionDao.searchByDependentCollection(collectionId, attributeId);
 
          functionRows.forEach(row -> {
             FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
-            List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+            List<FunctionRow> rows = cachedFunctionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
             if (!parametersMap.containsKey(parameter)) {
                if (row.getType() == FunctionResourceType.COLLECTION) {
                   Set<Document> documents = findDocumentsForRow(row, Collections.singleton(documentId));
@@ -437,7 +469,7 @@ public class FunctionFacade extends AbstractFacade {
             parameter.setLinkType(linkType);
             parameter.setAttribute(attribute);
 
-            List<FunctionRow> functionRows = functionDao.searchByResource(linkType.getId(), attribute.getId(), FunctionResourceType.LINK);
+            List<FunctionRow> functionRows = cachedFunctionDao.searchByResource(linkType.getId(), attribute.getId(), FunctionResourceType.LINK);
             parametersMap.put(parameter, functionRows.stream().map(this::functionRowToParameter).collect(Collectors.toList()));
             fillParametersMapForLinkType(parametersMap, parameter);
          }
@@ -449,10 +481,10 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    private void fillParametersMapForDependentLinkType(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, LinkType linkType, Set<LinkInstance> linkInstances, List<Document> additionalDocuments, final List<String> skipCollectionIds) {
-      List<FunctionRow> dependentRows = functionDao.searchByDependentLinkType(linkType.getId(), null);
+      List<FunctionRow> dependentRows = cachedFunctionDao.searchByDependentLinkType(linkType.getId(), null);
       dependentRows.forEach(row -> {
          FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
-         List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+         List<FunctionRow> rows = cachedFunctionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
 
          if (!parametersMap.containsKey(parameter)) {
             if (row.getType() == FunctionResourceType.COLLECTION) {
@@ -508,11 +540,11 @@ public class FunctionFacade extends AbstractFacade {
 
    private void fillParametersMapForLinkChanged(Map<FunctionParameterDocuments, List<FunctionParameterDocuments>> parametersMap, String linkTypeId, java.util.Collection<String> attributeIds, String linkInstanceId) {
       attributeIds.forEach(attributeId -> {
-         List<FunctionRow> functionRows = functionDao.searchByDependentLinkType(linkTypeId, attributeId);
+         List<FunctionRow> functionRows = cachedFunctionDao.searchByDependentLinkType(linkTypeId, attributeId);
 
          functionRows.forEach(row -> {
             FunctionParameterDocuments parameter = new FunctionParameterDocuments(row.getType(), row.getResourceId(), row.getAttributeId());
-            List<FunctionRow> rows = functionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
+            List<FunctionRow> rows = cachedFunctionDao.searchByResource(row.getResourceId(), row.getAttributeId(), row.getType());
             if (!parametersMap.containsKey(parameter)) {
                if (row.getType() == FunctionResourceType.COLLECTION) {
                   Set<Document> documents = findDocumentsForRowByLinkInstances(row, Collections.singleton(linkInstanceId));
@@ -546,36 +578,36 @@ public class FunctionFacade extends AbstractFacade {
    }
 
    public void onDeleteCollection(String collectionId) {
-      List<FunctionRow> functionRows = functionDao.searchByAnyCollection(collectionId, null);
+      List<FunctionRow> functionRows = cachedFunctionDao.searchByAnyCollection(collectionId, null);
 
       deleteRowsByResourceId(FunctionResourceType.COLLECTION, functionRows);
    }
 
    public void onDeleteLinkType(String linkTypeId) {
-      List<FunctionRow> functionRows = functionDao.searchByAnyLinkType(linkTypeId, null);
+      List<FunctionRow> functionRows = cachedFunctionDao.searchByAnyLinkType(linkTypeId, null);
 
       deleteRowsByResourceId(FunctionResourceType.LINK, functionRows);
    }
 
    public void onDeleteCollectionAttribute(String collectionId, String attributeId) {
-      List<FunctionRow> functionRows = functionDao.searchByAnyCollection(collectionId, attributeId);
+      List<FunctionRow> functionRows = cachedFunctionDao.searchByAnyCollection(collectionId, attributeId);
 
       deleteRows(functionRows);
    }
 
    public void onDeleteLinkAttribute(String linkTypeId, String attributeId) {
-      List<FunctionRow> functionRows = functionDao.searchByAnyLinkType(linkTypeId, attributeId);
+      List<FunctionRow> functionRows = cachedFunctionDao.searchByAnyLinkType(linkTypeId, attributeId);
 
       deleteRows(functionRows);
    }
 
    private void deleteRowsByResourceId(FunctionResourceType type, List<FunctionRow> functionRows) {
       String[] resourceIdsToDelete = functionRows.stream().map(FunctionRow::getResourceId).toArray(String[]::new);
-      functionDao.deleteByResources(type, resourceIdsToDelete);
+      cachedFunctionDao.deleteByResources(type, resourceIdsToDelete);
    }
 
    private void deleteRows(List<FunctionRow> functionRows) {
-      functionDao.deleteByIds(functionRows.stream().map(FunctionRow::getId).collect(Collectors.toList()));
+      cachedFunctionDao.deleteByIds(functionRows.stream().map(FunctionRow::getId).collect(Collectors.toList()));
    }
 
    private Set<Document> findDocumentsForRow(FunctionRow row, Set<String> documentIds) {
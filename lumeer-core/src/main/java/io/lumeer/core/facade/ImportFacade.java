@@ -20,42 +20,39 @@ package io.lumeer.core.facade;
 
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
-import io.lumeer.api.model.Document;
+import io.lumeer.api.model.ImportJob;
 import io.lumeer.api.model.ImportType;
 import io.lumeer.api.model.ImportedCollection;
 import io.lumeer.api.model.RoleType;
 import io.lumeer.api.util.AttributeUtil;
-import io.lumeer.core.adapter.SearchAdapter;
-import io.lumeer.core.constraint.ConstraintManager;
-import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
-import io.lumeer.core.util.Utils;
-import io.lumeer.engine.api.data.DataDocument;
-import io.lumeer.engine.api.event.ImportCollectionContent;
+import io.lumeer.core.cache.ImportJobCache;
+import io.lumeer.core.exception.BadFormatException;
+import io.lumeer.core.exception.ImportJobNotFoundException;
+import io.lumeer.core.task.ContextualTaskFactory;
+import io.lumeer.core.task.ImportTask;
+import io.lumeer.core.task.TaskExecutor;
+import io.lumeer.core.task.executor.ChangesTracker;
 import io.lumeer.storage.api.dao.CollectionDao;
-import io.lumeer.storage.api.dao.DataDao;
-import io.lumeer.storage.api.dao.DocumentDao;
-import io.lumeer.storage.api.dao.LinkDataDao;
-import io.lumeer.storage.api.dao.LinkInstanceDao;
 
 import com.univocity.parsers.csv.CsvParser;
 import com.univocity.parsers.csv.CsvParserSettings;
-import org.apache.commons.text.translate.CharSequenceTranslator;
-import org.apache.commons.text.translate.EntityArrays;
-import org.apache.commons.text.translate.LookupTranslator;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
-import java.time.ZonedDateTime;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
-import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.RequestScoped;
-import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 
 @RequestScoped
@@ -63,10 +60,6 @@ public class ImportFacade extends AbstractFacade {
 
    public static final String FORMAT_CSV = "csv";
 
-   private static final int MAX_PARSED_DOCUMENTS = 1000;
-
-   private static final CharSequenceTranslator TRANSLATOR = new LookupTranslator(EntityArrays.BASIC_ESCAPE);
-
    @Inject
    private CollectionFacade collectionFacade;
 
@@ -77,31 +70,13 @@ public class ImportFacade extends AbstractFacade {
    private CollectionDao collectionDao;
 
    @Inject
-   private DocumentDao documentDao;
-
-   @Inject
-   private DataDao dataDao;
+   private ContextualTaskFactory contextualTaskFactory;
 
    @Inject
-   private LinkInstanceDao linkInstanceDao;
+   private TaskExecutor taskExecutor;
 
    @Inject
-   private LinkDataDao linkDataDao;
-
-   @Inject
-   private DefaultConfigurationProducer configurationProducer;
-
-   @Inject
-   private Event<ImportCollectionContent> importCollectionContentEvent;
-
-   private SearchAdapter searchAdapter;
-
-   @PostConstruct
-   public void init() {
-      ConstraintManager constraintManager = ConstraintManager.getInstance(configurationProducer);
-
-      searchAdapter = new SearchAdapter(permissionsChecker.getPermissionAdapter(), constraintManager, documentDao, dataDao, linkInstanceDao, linkDataDao);
-   }
+   private ImportJobCache importJobCache;
 
    public Collection importDocuments(String format, ImportedCollection importedCollection) {
       Collection collectionToCreate = importedCollection.getCollection();
@@ -117,7 +92,102 @@ public class ImportFacade extends AbstractFacade {
       return importDocuments(collection, format, importedCollection.getData(), importedCollection.getType(), importedCollection.getMergeAttributeId());
    }
 
+   /**
+    * Starts an import of the data to the collection in background. The data are stored to a temporary file first,
+    * so the import does not need to keep them in memory nor wait for the request to finish.
+    *
+    * @param collectionId     The collection to import to.
+    * @param format           Format of the data.
+    * @param type             How to treat the existing documents.
+    * @param mergeAttributeId The attribute to find documents to update by.
+    * @param data             The imported data.
+    * @return The job to poll the progress of the import by.
+    */
+   public ImportJob startImport(String collectionId, String format, ImportType type, String mergeAttributeId, InputStream data) {
+      if (!FORMAT_CSV.equalsIgnoreCase(format)) {
+         throw new BadFormatException("Unsupported import format: " + format);
+      }
+
+      Collection collection = collectionFacade.getCollection(collectionId);
+      checkImport(collection, type != null ? type : ImportType.APPEND);
+
+      final ImportJob job = importJobCache.createJob(collection.getId(), getCurrentUserId());
+
+      Path file = null;
+      Reader reader = null;
+      boolean submitted = false;
+      try {
+         file = Files.createTempFile("lumeer-import-", ".csv");
+         Files.copy(data, file, StandardCopyOption.REPLACE_EXISTING);
+         reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+
+         final ImportTask task = prepareCSVImport(collection, reader, type, mergeAttributeId, job);
+         if (task == null) {
+            job.finish();
+            return job;
+         }
+
+         task.setSourceFile(file);
+         taskExecutor.submitTask(task);
+         submitted = true;
+      } catch (IOException e) {
+         job.fail(e.getMessage());
+         throw new BadFormatException("Unable to read the imported data", e);
+      } catch (RuntimeException e) {
+         job.fail(e.getMessage());
+         throw e;
+      } finally {
+         // once submitted, the task closes the parser and deletes the file
+         if (!submitted) {
+            closeQuietly(reader);
+            deleteQuietly(file);
+         }
+      }
+
+      return job;
+   }
+
+   public ImportJob getImportJob(String jobId) {
+      final ImportJob job = importJobCache.getJob(jobId);
+      if (job == null || !job.getUserId().equals(getCurrentUserId())) {
+         throw new ImportJobNotFoundException(jobId);
+      }
+
+      return job;
+   }
+
+   private void closeQuietly(Reader reader) {
+      if (reader != null) {
+         try {
+            reader.close();
+         } catch (IOException e) {
+            // nothing to do, the data are not read anymore
+         }
+      }
+   }
+
+   private void deleteQuietly(Path file) {
+      if (file != null) {
+         try {
+            Files.deleteIfExists(file);
+         } catch (IOException e) {
+            // nothing to do, it is a temporary file anyway
+         }
+      }
+   }
+
    private Collection importDocuments(Collection collection, String format, String data, ImportType type, String key) {
+      checkImport(collection, type);
+
+      switch (format.toLowerCase()) {
+         case FORMAT_CSV:
+            return parseCSVFile(collection, data, type, key);
+         default:
+            return collection;
+      }
+   }
+
+   private void checkImport(Collection collection, ImportType type) {
       permissionsChecker.checkCreateDocuments(collection);
 
       switch (type) {
@@ -129,13 +199,6 @@ public class ImportFacade extends AbstractFacade {
             permissionsChecker.checkRole(collection, RoleType.DataWrite);
             break;
       }
-
-      switch (format.toLowerCase()) {
-         case FORMAT_CSV:
-            return parseCSVFile(collection, data, type, key);
-         default:
-            return collection;
-      }
    }
 
    private String generateCollectionName(String collectionName) {
@@ -158,18 +221,35 @@ public class ImportFacade extends AbstractFacade {
       if (data == null || data.trim().isEmpty()) {
          return collection;
       }
+
+      ImportTask task = prepareCSVImport(collection, new StringReader(data), importType, mergeAttributeId, new ImportJob(null, collection.getId(), getCurrentUserId()));
+      if (task == null) {
+         return collection;
+      }
+
+      task.process(taskExecutor, new ChangesTracker());
+      if (task.getFailure() != null) {
+         throw task.getFailure();
+      }
+
+      return task.getCollection();
+   }
+
+   private ImportTask prepareCSVImport(Collection collection, Reader data, ImportType importType, String mergeAttributeId, ImportJob job) {
       CsvParserSettings settings = new CsvParserSettings();
       settings.setMaxCharsPerColumn(16 * 1024);
       settings.detectFormatAutomatically(',', ';');
       settings.setHeaderExtractionEnabled(true);
 
       CsvParser parser = new CsvParser(settings);
-      parser.beginParsing(new StringReader(data));
+      parser.beginParsing(data);
 
-      String[] headers = parseHeaderNames(parser.getRecordMetadata().headers());
+      String[] rawHeaders = parser.getRecordMetadata().headers();
+      String[] headers = parseHeaderNames(rawHeaders != null ? rawHeaders : new String[0]);
 
       if (headers.length == 0) {
-         return collection;
+         parser.stopParsing();
+         return null;
       }
 
       collection = createAttributes(collection, headers);
@@ -177,46 +257,11 @@ public class ImportFacade extends AbstractFacade {
 
       Attribute mergeAttribute = ImportType.UPDATE.equals(importType) ?
             collection.getAttributes().stream().filter(attr -> attr.getId().equals(mergeAttributeId)).findFirst().orElse(null) : null;
-      Map<String, List<Document>> mergeDocuments = getDocumentsByKey(collection, mergeAttribute);
-
-      int[] counts = new int[headers.length];
-      long documentsCount = collection.getDocumentsCount();
-
-      List<Document> documentsToCreate = new ArrayList<>();
-      List<Document> documentsToUpdate = new ArrayList<>();
-      String[] row;
-      while ((row = parser.parseNext()) != null) {
-         Document document = createDocumentFromRow(headerIds, row, counts);
-         Document toMerge = checkMergeDocument(document, mergeAttribute, mergeDocuments);
-         if (toMerge != null) {
-            toMerge.setData(document.getData());
-            documentsToUpdate.add(toMerge);
-         } else {
-            addDocumentMetadata(collection.getId(), document);
-            documentsToCreate.add(document);
-         }
-
-      }
-
-      if (documentsToUpdate.size() > 0) {
-         documentFacade.updateDocumentsMetaData(collection, documentsToUpdate, false);
-         documentFacade.updateDocumentsData(collection, documentsToUpdate, false);
-      }
-
-      while (documentsToCreate.size() > 0) {
-         List<Document> slice = Utils.sublistAndRemove(documentsToCreate, 0, MAX_PARSED_DOCUMENTS);
-         documentsCount += documentFacade.createDocuments(collection.getId(), slice, false).size();
-      }
-
-      parser.stopParsing();
-
-      addCollectionMetadata(collection, headerIds, counts, documentsCount);
 
-      if (importCollectionContentEvent != null) {
-         importCollectionContentEvent.fire(new ImportCollectionContent(collection));
-      }
+      final ImportTask task = contextualTaskFactory.getInstance(ImportTask.class);
+      task.setupImport(collection, parser, headerIds, mergeAttribute, job, permissionsChecker.getDocumentLimits(), permissionsChecker.countDocuments());
 
-      return collection;
+      return task;
    }
 
    private String[] parseHeaderNames(String[] rawHeaders) {
@@ -244,54 +289,6 @@ public class ImportFacade extends AbstractFacade {
                    .toArray(String[]::new);
    }
 
-   private Document checkMergeDocument(Document document, Attribute attribute, Map<String, List<Document>> allDocuments) {
-      if (attribute == null) {
-         return null;
-      }
-
-      String mergeKey = document.getData().getString(attribute.getId());
-      mergeKey = mergeKey != null ? mergeKey : "";
-      List<Document> toMerge = allDocuments.get(mergeKey);
-      if (toMerge != null && toMerge.size() > 0) {
-         return toMerge.remove(0);
-      }
-
-      return null;
-   }
-
-   private Map<String, List<Document>> getDocumentsByKey(Collection collection, Attribute attribute) {
-      if (attribute == null) {
-         return Collections.emptyMap();
-      }
-
-      return searchAdapter.getAllDocuments(collection, null, null)
-                          .stream()
-                          .collect(Collectors.groupingBy(document -> this.getDocumentKey(document, attribute)));
-   }
-
-   private String getDocumentKey(Document document, Attribute attribute) {
-      Object value = document.getData() != null ? document.getData().get(attribute.getId()) : null;
-      if (value != null) {
-         return value.toString();
-      }
-      return "";
-   }
-
-   private void addCollectionMetadata(Collection collection, String[] headersIds, int[] counts, long documentsCount) {
-      final Collection originalCollection = collection.copy();
-      List<String> headerIdsList = Arrays.asList(headersIds);
-      collection.getAttributes().forEach(attr -> {
-         int index = headerIdsList.indexOf(attr.getId());
-         if (index != -1) {
-            attr.setUsageCount(counts[index]);
-         }
-      });
-      collection.setDocumentsCount(documentsCount);
-
-      collection.setLastTimeUsed(ZonedDateTime.now());
-      collectionDao.updateCollection(collection.getId(), collection, originalCollection);
-   }
-
    private Collection createAttributes(Collection collection, String[] headers) {
       Set<String> currentCollectionNames = collection.getAttributes().stream()
                                                      .map(Attribute::getName).collect(Collectors.toSet());
@@ -300,23 +297,4 @@ public class ImportFacade extends AbstractFacade {
                                          .map(Attribute::new).collect(Collectors.toList());
       return collectionFacade.createCollectionAttributes(collection, attributes);
    }
-
-   private void addDocumentMetadata(String collectionId, Document document) {
-      document.setCollectionId(collectionId);
-      document.setCreatedBy(getCurrentUserId());
-      document.setCreationDate(ZonedDateTime.now());
-   }
-
-   private Document createDocumentFromRow(String[] headers, String[] row, int[] counts) {
-      final DataDocument d = new DataDocument();
-
-      for (int i = 0; i < Math.min(headers.length, row.length); i++) {
-         if (row[i] != null) {
-            d.append(headers[i], TRANSLATOR.translate(row[i]));
-            counts[i]++;
-         }
-      }
-
-      return new Document(d);
-   }
 }
@@ -46,7 +46,9 @@ import io.lumeer.core.exception.NoResourcePermissionException;
 import io.lumeer.core.util.CodeGenerator;
 import io.lumeer.core.util.SelectionListUtils;
 import io.lumeer.core.util.Utils;
+import io.lumeer.engine.annotation.UserDataStorage;
 import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.engine.api.data.DataStorage;
 import io.lumeer.storage.api.dao.AuditDao;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DataDao;
@@ -72,6 +74,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -84,6 +87,8 @@ import jakarta.inject.Inject;
 @RequestScoped
 public class ProjectFacade extends AbstractFacade {
 
+   public static final String INDEX_COLLECTION = "collection";
+
    private final static SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssX");
 
    static {
@@ -147,6 +152,10 @@ public class ProjectFacade extends AbstractFacade {
    @Inject
    private RequestDataKeeper requestDataKeeper;
 
+   @Inject
+   @UserDataStorage
+   private DataStorage dataStorage;
+
    void init(final AuthenticatedUser authenticatedUser, final DaoContextSnapshot daoContextSnapshot, final WorkspaceKeeper workspaceKeeper) {
       // IMPORTANT!!!!!!!
       // When injecting a new DAO, please make sure it is also initialized here
@@ -535,6 +544,28 @@ public class ProjectFacade extends AbstractFacade {
       return new ProjectDescription(collections.size(), documentsCount, maxFunctions, maxRules);
    }
 
+   /**
+    * Lists indexes of all database collections belonging to the current project with their usage statistics.
+    */
+   public List<DataDocument> getIndexesUsage() {
+      permissionsChecker.checkSystemPermission();
+      final Project project = getProject();
+      if (project == null) {
+         throw new ResourceNotFoundException(ResourceType.PROJECT);
+      }
+
+      final Set<String> suffixes = new HashSet<>();
+      suffixes.add("_p-" + project.getId());
+      collectionDao.getAllCollectionIds().forEach(id -> suffixes.add("_c-" + id));
+      linkTypeDao.getAllLinkTypes().forEach(linkType -> suffixes.add("_c-" + linkType.getId()));
+
+      return dataStorage.getAllCollections().stream()
+                        .filter(name -> suffixes.stream().anyMatch(name::endsWith))
+                        .sorted()
+                        .flatMap(name -> dataStorage.listIndexesUsage(name).stream().map(index -> index.append(INDEX_COLLECTION, name)))
+                        .collect(Collectors.toList());
+   }
+
    public void emptyTemplateData(final String projectId) {
       Project project = projectDao.getProjectById(projectId);
 
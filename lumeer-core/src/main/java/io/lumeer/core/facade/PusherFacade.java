@@ -53,6 +53,8 @@ import io.lumeer.core.auth.RequestDataKeeper;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.core.util.DocumentUtils;
+import io.lumeer.core.util.PushNotificationDispatcher;
+import io.lumeer.core.util.PushPayload;
 import io.lumeer.core.util.PusherClient;
 import io.lumeer.core.util.Utils;
 import io.lumeer.engine.api.event.AddFavoriteItem;
@@ -140,9 +142,12 @@ public class PusherFacade extends AbstractFacade {
    public static final String REMOVE_EVENT_SUFFIX = ":remove";
    public static final String IMPORT_EVENT_SUFFIX = ":import";
    public static final String RELOAD_EVENT_SUFFIX = ":reload";
+   public static final String DOCUMENT_FAVORITE_PATH = "object.favorite";
 
    private PusherClient pusherClient = null;
 
+   private PushNotificationDispatcher pushNotificationDispatcher = null;
+
    @Inject
    private Logger log;
 
@@ -203,6 +208,7 @@ public class PusherFacade extends AbstractFacade {
    public void init() {
       constraintManager = ConstraintManager.getInstance(configurationProducer);
       pusherClient = pusherHelperFacade.getPusherClient();
+      pushNotificationDispatcher = pusherHelperFacade.getPushNotificationDispatcher();
       permissionAdapter = permissionsChecker.getPermissionAdapter();
       collectionAdapter = new CollectionAdapter(collectionDao, favoriteItemDao, documentDao);
       resourceAdapter = new ResourceAdapter(permissionAdapter, collectionDao, linkTypeDao, viewDao, userDao);
@@ -422,6 +428,10 @@ public class PusherFacade extends AbstractFacade {
       return pusherAdapter.createEventForObjectWithParent(objectWithParent, event, userId);
    }
 
+   private static List<String> eventChannels(final Set<String> userIds) {
+      return userIds.stream().map(PusherFacade::eventChannel).collect(Collectors.toList());
+   }
+
    public static String eventChannel(String userId) {
       return PusherAdapter.eventChannel(userId);
    }
@@ -518,17 +528,20 @@ public class PusherFacade extends AbstractFacade {
             document.setData(constraintManager.decodeDataTypes(collection, document.getData()));
             Set<String> userIds = resourceAdapter.getDocumentReaders(getOrganization(), getProject(), collection, document);
 
-            sendNotificationsBatch(userIds.stream()
-                                          .map(userId -> createEvent(createDocumentForUser(document, userId), eventSuffix, userId))
-                                          .collect(Collectors.toList()));
+            if (!REMOVE_EVENT_SUFFIX.equals(eventSuffix)) {
+               document.setCommentsCount(documentAdapter.getCommentsCount(document.getId()));
+            }
+            sendNotificationsBatch(createDocumentEvents(document, userIds, eventSuffix));
          } catch (Exception e) {
             log.log(Level.WARNING, "Unable to send push notification: ", e);
          }
       }
    }
 
-   private Document createDocumentForUser(final Document document, final String userId) {
-      return documentAdapter.mapDocumentData(document, userId, workspaceKeeper.getProjectId());
+   private List<Event> createDocumentEvents(final Document document, final Set<String> userIds, final String eventSuffix) {
+      final String projectId = workspaceKeeper.getProjectId();
+      return pusherAdapter.createEventsForWorkspaceObject(getOrganization(), getProject(), document, document.getId(), eventSuffix, userIds,
+            userId -> Collections.singletonMap(DOCUMENT_FAVORITE_PATH, documentAdapter.isFavorite(document.getId(), userId, projectId)));
    }
 
    public void createLinkInstance(@Observes final CreateLinkInstance createLinkInstance) {
@@ -876,8 +889,7 @@ public class PusherFacade extends AbstractFacade {
             Project project = projectDao.getProjectById(reloadResourceVariables.getProjectId());
             ObjectWithParent object = new ObjectWithParent(getAppId(), organization.getId(), organization.getId(), project.getId());
             Set<String> users = permissionAdapter.getProjectUsersByRole(organization, project, RoleType.TechConfig);
-            List<Event> events = users.stream().map(userId -> new Event(eventChannel(userId), ResourceVariable.class.getSimpleName() + RELOAD_EVENT_SUFFIX, object)).collect(Collectors.toList());
-            sendNotificationsBatch(events);
+            sendNotificationsBatch(PusherClient.createEvents(eventChannels(users), ResourceVariable.class.getSimpleName() + RELOAD_EVENT_SUFFIX, object));
          } catch (Exception e) {
             log.log(Level.WARNING, "Unable to send push notification: ", e);
          }
@@ -891,8 +903,7 @@ public class PusherFacade extends AbstractFacade {
             Project project = projectDao.getProjectById(reloadSelectionLists.getProjectId());
             ObjectWithParent object = new ObjectWithParent(getAppId(), organization.getId(), organization.getId(), project.getId());
             Set<String> users = resourceAdapter.getProjectReaders(organization, project);
-            List<Event> events = users.stream().map(userId -> new Event(eventChannel(userId), SelectionList.class.getSimpleName() + RELOAD_EVENT_SUFFIX, object)).collect(Collectors.toList());
-            sendNotificationsBatch(events);
+            sendNotificationsBatch(PusherClient.createEvents(eventChannels(users), SelectionList.class.getSimpleName() + RELOAD_EVENT_SUFFIX, object));
          } catch (Exception e) {
             log.log(Level.WARNING, "Unable to send push notification: ", e);
          }
@@ -919,8 +930,7 @@ public class PusherFacade extends AbstractFacade {
             ObjectWithParent object = new ObjectWithParent(getAppId(), reloadGroups.getOrganizationId(), reloadGroups.getOrganizationId());
             Organization organization = organizationDao.getOrganizationById(reloadGroups.getOrganizationId());
             Set<String> users = resourceAdapter.getOrganizationReaders(organization);
-            List<Event> events = users.stream().map(userId -> new Event(eventChannel(userId), Group.class.getSimpleName() + RELOAD_EVENT_SUFFIX, object)).collect(Collectors.toList());
-            sendNotificationsBatch(events);
+            sendNotificationsBatch(PusherClient.createEvents(eventChannels(users), Group.class.getSimpleName() + RELOAD_EVENT_SUFFIX, object));
          } catch (Exception e) {
             log.log(Level.WARNING, "Unable to send push notification: ", e);
          }
@@ -945,8 +955,7 @@ public class PusherFacade extends AbstractFacade {
          try {
             Set<String> users = resourceAdapter.getProjectReaders(getOrganization(), getProject());
             ObjectWithParent object = new ObjectWithParent(getAppId(), createDocumentsAndLinks, getOrganization().getId(), getProject().getId());
-            List<Event> events = users.stream().map(userId -> new Event(eventChannel(userId), "DocumentsAndLinks" + CREATE_EVENT_SUFFIX, object)).collect(Collectors.toList());
-            sendNotificationsBatch(events);
+            sendNotificationsBatch(PusherClient.createEvents(eventChannels(users), "DocumentsAndLinks" + CREATE_EVENT_SUFFIX, object));
          } catch (Exception e) {
             log.log(Level.WARNING, "Unable to send push notification: ", e);
          }
@@ -958,8 +967,7 @@ public class PusherFacade extends AbstractFacade {
          try {
             Set<String> users = resourceAdapter.getProjectReaders(getOrganization(), getProject());
             ObjectWithParent object = new ObjectWithParent(getAppId(), setDocumentLinks, getOrganization().getId(), getProject().getId());
-            List<Event> events = users.stream().map(userId -> new Event(eventChannel(userId), "SetDocumentLinks" + CREATE_EVENT_SUFFIX, object)).collect(Collectors.toList());
-            sendNotificationsBatch(events);
+            sendNotificationsBatch(PusherClient.createEvents(eventChannels(users), "SetDocumentLinks" + CREATE_EVENT_SUFFIX, object));
          } catch (Exception e) {
             log.log(Level.WARNING, "Unable to send push notification: ", e);
          }
@@ -1005,13 +1013,35 @@ public class PusherFacade extends AbstractFacade {
    private void sendNotificationsBatch(List<Event> notifications) {
       if (isEnabled() && notifications != null && notifications.size() > 0) {
          notifications.forEach(event -> {
-            if (event.getData() instanceof ObjectWithParent) {
-               ((ObjectWithParent) event.getData()).setCorrelationId(requestDataKeeper.getCorrelationId());
+            final Object data = event.getData() instanceof PushPayload ? ((PushPayload) event.getData()).getData() : event.getData();
+            if (data instanceof ObjectWithParent) {
+               ((ObjectWithParent) data).setCorrelationId(requestDataKeeper.getCorrelationId());
             }
          });
 
-         pusherClient.trigger(notifications);
+         pushNotificationDispatcher.submit(notifications);
+      }
+   }
+
+   /**
+    * Updates of the same object sent to the same channel can replace each other, only the latest one needs to be delivered.
+    *
+    * @param event
+    *       push event
+    * @return key identifying the updated object on the channel or null when the event cannot be replaced
+    */
+   public static String getCoalescingKey(final Event event) {
+      if (event.getName() == null || !event.getName().endsWith(UPDATE_EVENT_SUFFIX)) {
+         return null;
+      }
+
+      final Object payload = event.getData() instanceof PushPayload ? ((PushPayload) event.getData()).getData() : event.getData();
+      final Object data = payload instanceof ObjectWithParent ? ((ObjectWithParent) payload).getObject() : payload;
+      if (data instanceof WithId && ((WithId) data).getId() != null) {
+         return event.getChannel() + "/" + event.getName() + "/" + ((WithId) data).getId();
       }
+
+      return null;
    }
 
    private boolean isEnabled() {
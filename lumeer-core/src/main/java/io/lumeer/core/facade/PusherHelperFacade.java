@@ -20,30 +20,62 @@ package io.lumeer.core.facade;
 
 import io.lumeer.core.action.DelayedActionProcessor;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.core.util.PushNotificationDispatcher;
 import io.lumeer.core.util.PusherClient;
 
+import org.apache.commons.lang3.math.NumberUtils;
+
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 @ApplicationScoped
 public class PusherHelperFacade {
 
+   private static final int DEFAULT_PUSH_QUEUE_SIZE = 10000;
+   private static final long DEFAULT_PUSH_WINDOW_MILLIS = 50;
+   private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
    private PusherClient pusherClient = null;
 
+   private PushNotificationDispatcher pushNotificationDispatcher = null;
+
    @Inject
    private DelayedActionProcessor delayedActionProcessor;
 
    @Inject
    private DefaultConfigurationProducer configurationProducer;
 
+   @Resource
+   private ManagedThreadFactory managedThreadFactory;
+
    @PostConstruct
    public void init() {
       pusherClient = PusherClient.getInstance(configurationProducer);
       delayedActionProcessor.setPusherClient(pusherClient);
+
+      if (pusherClient != null) {
+         final int queueSize = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.PUSH_QUEUE_SIZE), DEFAULT_PUSH_QUEUE_SIZE);
+         final long window = NumberUtils.toLong(configurationProducer.get(DefaultConfigurationProducer.PUSH_WINDOW), DEFAULT_PUSH_WINDOW_MILLIS);
+         pushNotificationDispatcher = new PushNotificationDispatcher(pusherClient::trigger, PusherFacade::getCoalescingKey, queueSize, window, managedThreadFactory);
+      }
+   }
+
+   @PreDestroy
+   public void destroy() {
+      if (pushNotificationDispatcher != null) {
+         pushNotificationDispatcher.shutdown(SHUTDOWN_TIMEOUT_MILLIS);
+      }
    }
 
    public PusherClient getPusherClient() {
       return pusherClient;
    }
+
+   public PushNotificationDispatcher getPushNotificationDispatcher() {
+      return pushNotificationDispatcher;
+   }
 }
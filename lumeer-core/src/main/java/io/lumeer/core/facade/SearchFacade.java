@@ -31,6 +31,7 @@ import io.lumeer.api.model.Document;
 import io.lumeer.api.model.Language;
 import io.lumeer.api.model.LinkInstance;
 import io.lumeer.api.model.LinkType;
+import io.lumeer.api.model.Pagination;
 import io.lumeer.api.model.Query;
 import io.lumeer.api.model.QueryStem;
 import io.lumeer.api.model.RoleType;
@@ -38,6 +39,7 @@ import io.lumeer.api.model.View;
 import io.lumeer.api.model.common.Resource;
 import io.lumeer.api.util.ResourceUtils;
 import io.lumeer.core.adapter.DocumentAdapter;
+import io.lumeer.core.adapter.KeysetPage;
 import io.lumeer.core.adapter.LinkInstanceAdapter;
 import io.lumeer.core.adapter.SearchAdapter;
 import io.lumeer.core.auth.RequestDataKeeper;
@@ -45,9 +47,11 @@ import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.core.facade.translate.TranslationManager;
 import io.lumeer.core.util.CollectionPurposeUtils;
+import io.lumeer.core.util.LinkedDocumentsLoader;
 import io.lumeer.core.util.QueryUtils;
 import io.lumeer.core.util.Tuple;
 import io.lumeer.core.util.Utils;
+import io.lumeer.core.util.filter.FilterPushdownPlanner;
 import io.lumeer.core.util.js.DataFilter;
 import io.lumeer.storage.api.dao.CollectionDao;
 import io.lumeer.storage.api.dao.DataDao;
@@ -60,6 +64,7 @@ import io.lumeer.storage.api.dao.LinkTypeDao;
 import io.lumeer.storage.api.dao.ResourceCommentDao;
 import io.lumeer.storage.api.dao.SelectionListDao;
 import io.lumeer.storage.api.dao.UserDao;
+import io.lumeer.storage.api.filter.CollectionSearchAttributeFilter;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -72,6 +77,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.RequestScoped;
@@ -122,9 +128,13 @@ public class SearchFacade extends AbstractFacade {
    @Inject
    private RequestDataKeeper requestDataKeeper;
 
+   @Inject
+   private Logger log;
+
    private ConstraintManager constraintManager;
    private Language language;
    private String timezone;
+   private boolean nativeFilters;
 
    private DocumentAdapter documentAdapter;
    private LinkInstanceAdapter linkInstanceAdapter;
@@ -135,6 +145,7 @@ public class SearchFacade extends AbstractFacade {
       constraintManager = ConstraintManager.getInstance(configurationProducer);
       language = requestDataKeeper.getUserLanguage();
       timezone = requestDataKeeper.getTimezone();
+      nativeFilters = NATIVE_FILTER_ENGINE.equalsIgnoreCase(configurationProducer.get(DefaultConfigurationProducer.SEARCH_FILTER_ENGINE));
 
       documentAdapter = new DocumentAdapter(resourceCommentDao, favoriteItemDao);
       linkInstanceAdapter = new LinkInstanceAdapter(resourceCommentDao);
@@ -142,6 +153,7 @@ public class SearchFacade extends AbstractFacade {
    }
 
    private static final Integer FETCH_SIZE = 200;
+   private static final String NATIVE_FILTER_ENGINE = "native";
 
    public void setLanguage(final Language language) {
       this.language = language;
@@ -251,9 +263,10 @@ public class SearchFacade extends AbstractFacade {
 
       if (encodedQuery.containsStems()) {
          ConstraintData constraintData = createConstraintData();
+         LinkedDocumentsLoader linkedDocumentsLoader = new LinkedDocumentsLoader(this::getDocumentsByIds);
          encodedQuery.getStems().forEach(stem -> {
             var result = stem.containsAnyFilter() || encodedQuery.getFulltexts().size() > 0
-                  ? searchDocumentsAndLinksInStem(stem, encodedQuery.getFulltexts(), collectionsMap, linkTypesMap, documentFilter, constraintData, includeChildDocuments)
+                  ? searchDocumentsAndLinksInStem(stem, encodedQuery.getFulltexts(), collectionsMap, linkTypesMap, documentFilter, constraintData, includeChildDocuments, linkedDocumentsLoader)
                   : searchDocumentsAndLinksInStemWithoutFilters(stem, collectionsMap, linkTypesMap, documentFilter, isPublic);
             allDocuments.addAll(result.getFirst());
             allLinkInstances.addAll(result.getSecond());
@@ -287,7 +300,7 @@ public class SearchFacade extends AbstractFacade {
    }
 
    private Tuple<? extends java.util.Collection<Document>, ? extends java.util.Collection<LinkInstance>> searchDocumentsAndLinksInStem(final QueryStem stem, final Set<String> fulltexts, final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap, @Nullable final Function<Document, Boolean> documentFilter, final ConstraintData constraintData,
-         boolean includeChildDocuments) {
+         boolean includeChildDocuments, final LinkedDocumentsLoader linkedDocumentsLoader) {
       final Set<Document> allDocuments = new HashSet<>();
       final Set<LinkInstance> allLinkInstances = new HashSet<>();
 
@@ -302,13 +315,16 @@ public class SearchFacade extends AbstractFacade {
       final Map<String, AllowedPermissions> collectionsPermissions = permissionsChecker.getCollectionsPermissions(allCollections);
       final Map<String, AllowedPermissions> linkTypesPermissions = permissionsChecker.getLinkTypesPermissions(allLinkTypes);
       final Query query = new Query(Collections.singletonList(stem), fulltexts, null, null);
+      // child documents are included regardless of the filters, so we can't skip any document in that case
+      final Set<CollectionSearchAttributeFilter> prefilters = includeChildDocuments ? Collections.emptySet() : new FilterPushdownPlanner(constraintManager, constraintData).plan(stem, allCollections.get(0));
 
       var hasMoreDocuments = true;
-      var page = 0;
+      var pagination = Pagination.keyset(null, FETCH_SIZE);
 
       while (hasMoreDocuments) {
          var previousCollection = allCollections.get(0);
-         var firstCollectionDocuments = getDocumentsByCollection(previousCollection, page, FETCH_SIZE);
+         var page = getDocumentsByCollection(previousCollection, prefilters, pagination);
+         var firstCollectionDocuments = page.getEntities();
          var previousDocuments = filterDocumentsByDocumentFilter(firstCollectionDocuments, documentFilter);
          final Set<Document> currentDocuments = new HashSet<>(previousDocuments);
          final Set<LinkInstance> currentLinkInstances = new HashSet<>();
@@ -316,9 +332,12 @@ public class SearchFacade extends AbstractFacade {
          for (String linkTypeId : stem.getLinkTypeIds()) {
             var linkType = linkTypesMap.get(linkTypeId);
             var collection = getOtherCollection(linkType, collectionsMap, Utils.computeIfNotNull(previousCollection, Collection::getId));
-            if (linkType != null && previousCollection != null) {
-               var links = getLinkInstancesByLinkType(linkType, getDocumentsIds(previousDocuments));
-               var documents = getDocumentsByCollection(collection, documentFilter, false);
+            if (linkType != null && previousCollection != null && collection != null) {
+               var previousDocumentsIds = getDocumentsIds(previousDocuments);
+               var links = getLinkInstancesByLinkType(linkType, previousDocumentsIds);
+               // documents on the other side of a link to the same collection may be in the same collection
+               var excludedIds = collection.getId().equals(previousCollection.getId()) ? Collections.<String>emptySet() : previousDocumentsIds;
+               var documents = filterDocumentsByDocumentFilter(linkedDocumentsLoader.loadLinkedDocuments(collection, links, excludedIds), documentFilter);
 
                currentDocuments.addAll(documents);
                currentLinkInstances.addAll(links);
@@ -329,17 +348,44 @@ public class SearchFacade extends AbstractFacade {
          }
 
          if (!currentDocuments.isEmpty()) {
-            var result = DataFilter.filterDocumentsAndLinksByQueryFromJson(new ArrayList<>(currentDocuments), allCollections, allLinkTypes, new ArrayList<>(currentLinkInstances), query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildDocuments, true, language);
+            var result = filterDocumentsAndLinksByQuery(new ArrayList<>(currentDocuments), allCollections, allLinkTypes, new ArrayList<>(currentLinkInstances), query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildDocuments, true, language);
             allDocuments.addAll(result.getFirst());
             allLinkInstances.addAll(result.getSecond());
          }
-         page++;
-         hasMoreDocuments = !firstCollectionDocuments.isEmpty();
+         pagination = pagination.next(page.getLastId());
+         hasMoreDocuments = page.getHasMore();
       }
 
+      // documents of the linked collections are part of the result even when they are not linked to the root documents
+      allCollections.stream().skip(1).map(Collection::getId).distinct().forEach(collectionId -> {
+         var collection = collectionsMap.get(collectionId);
+         var collectionHasMoreDocuments = true;
+         var collectionPagination = Pagination.keyset(null, FETCH_SIZE);
+         while (collectionHasMoreDocuments) {
+            var page = getDocumentsByCollection(collection, collectionPagination);
+            var filteredDocuments = filterDocumentsByDocumentFilter(page.getEntities(), documentFilter);
+            if (!filteredDocuments.isEmpty()) {
+               var result = filterDocumentsAndLinksByQuery(new ArrayList<>(filteredDocuments), allCollections, allLinkTypes, new ArrayList<>(), query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildDocuments, true, language);
+               allDocuments.addAll(result.getFirst());
+            }
+            collectionPagination = collectionPagination.next(page.getLastId());
+            collectionHasMoreDocuments = page.getHasMore();
+         }
+      });
+
+      log.fine(() -> String.format("Stem search loaded %d linked documents, %d were reused.", linkedDocumentsLoader.getLoadedCount(), linkedDocumentsLoader.getCachedCount()));
+
       return new Tuple<>(allDocuments, allLinkInstances);
    }
 
+   private Tuple<List<Document>, List<LinkInstance>> filterDocumentsAndLinksByQuery(final List<Document> documents, final List<Collection> collections, final List<LinkType> linkTypes, final List<LinkInstance> linkInstances, final Query query,
+         final Map<String, AllowedPermissions> collectionsPermissions, final Map<String, AllowedPermissions> linkTypesPermissions, final ConstraintData constraintData, final boolean includeChildren, final boolean includeNonLinkedDocuments, final Language language) {
+      if (nativeFilters) {
+         return DataFilter.filterDocumentsAndLinksByQueryNative(documents, collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildren, includeNonLinkedDocuments, language);
+      }
+      return DataFilter.filterDocumentsAndLinksByQueryFromJson(documents, collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildren, includeNonLinkedDocuments, language);
+   }
+
    private Tuple<List<Collection>, List<LinkType>> getResourcesFromStem(final QueryStem stem, final Map<String, Collection> collectionsMap, final Map<String, LinkType> linkTypesMap) {
       var previousCollection = collectionsMap.get(stem.getCollectionId());
       if (previousCollection == null) {
@@ -403,16 +449,16 @@ public class SearchFacade extends AbstractFacade {
          final Map<String, AllowedPermissions> linkTypesPermissions = Collections.emptyMap();
          final Query query = new Query(Collections.emptyList(), fulltexts, null, null);
          var hasMoreDocuments = true;
-         var page = 0;
+         var pagination = Pagination.keyset(null, fetchSize);
          while (hasMoreDocuments) {
-            final List<Document> pagedDocuments = getDocumentsByCollection(collection, page, fetchSize);
-            final List<Document> filteredDocuments = filterDocumentsByDocumentFilter(pagedDocuments, documentFilter);
+            final KeysetPage<Document> page = getDocumentsByCollection(collection, pagination);
+            final List<Document> filteredDocuments = filterDocumentsByDocumentFilter(page.getEntities(), documentFilter);
             if (!filteredDocuments.isEmpty()) {
-               var result = DataFilter.filterDocumentsAndLinksByQueryFromJson(new ArrayList<>(filteredDocuments), collections, Collections.emptyList(), new ArrayList<>(), query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildDocuments, false, language);
+               var result = filterDocumentsAndLinksByQuery(new ArrayList<>(filteredDocuments), collections, Collections.emptyList(), new ArrayList<>(), query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildDocuments, false, language);
                allDocuments.addAll(result.getFirst());
             }
-            hasMoreDocuments = !pagedDocuments.isEmpty();
-            page++;
+            hasMoreDocuments = page.getHasMore();
+            pagination = pagination.next(page.getLastId());
          }
       });
 
@@ -423,15 +469,16 @@ public class SearchFacade extends AbstractFacade {
          final Map<String, AllowedPermissions> linkTypesPermissions = permissionsChecker.getLinkTypesPermissions(linkTypes);
          final Query query = new Query(Collections.emptyList(), fulltexts, null, null);
          var hasMoreLinks = true;
-         var page = 0;
+         var pagination = Pagination.keyset(null, fetchSize);
          while (hasMoreLinks) {
-            final List<LinkInstance> linkInstances = getLinkInstancesByLinkType(linkType, page, fetchSize);
+            final KeysetPage<LinkInstance> page = getLinkInstancesByLinkType(linkType, pagination);
+            final List<LinkInstance> linkInstances = page.getEntities();
             if (!linkInstances.isEmpty()) {
-               var result = DataFilter.filterDocumentsAndLinksByQueryFromJson(new ArrayList<>(), collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, true, false, language);
+               var result = filterDocumentsAndLinksByQuery(new ArrayList<>(), collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, true, false, language);
                allLinkInstances.addAll(result.getSecond());
             }
-            hasMoreLinks = !linkInstances.isEmpty();
-            page++;
+            hasMoreLinks = page.getHasMore();
+            pagination = pagination.next(page.getLastId());
          }
       });
 
@@ -515,12 +562,20 @@ public class SearchFacade extends AbstractFacade {
    }
 
    private List<Document> getDocumentsByCollection(Collection collection, @Nullable final Function<Document, Boolean> documentFilter, boolean isPublic) {
-      var documents = isPublic ? searchAdapter.getAllDocuments(collection, null, null) : searchAdapter.getDocuments(getOrganization(), getProject(), collection, authenticatedUser.getCurrentUserId());
+      var documents = isPublic ? searchAdapter.getAllDocuments(collection, null) : searchAdapter.getDocuments(getOrganization(), getProject(), collection, authenticatedUser.getCurrentUserId());
       return filterDocumentsByDocumentFilter(documents, documentFilter);
    }
 
-   private List<Document> getDocumentsByCollection(Collection collection, Integer page, Integer limit) {
-      return searchAdapter.getDocuments(getOrganization(), getProject(), collection, page, limit, authenticatedUser.getCurrentUserId());
+   private List<Document> getDocumentsByIds(Collection collection, Set<String> documentIds) {
+      return searchAdapter.getDocuments(getOrganization(), getProject(), collection, documentIds, authenticatedUser.getCurrentUserId());
+   }
+
+   private KeysetPage<Document> getDocumentsByCollection(Collection collection, Pagination pagination) {
+      return searchAdapter.getDocumentsPage(getOrganization(), getProject(), collection, pagination, authenticatedUser.getCurrentUserId());
+   }
+
+   private KeysetPage<Document> getDocumentsByCollection(Collection collection, Set<CollectionSearchAttributeFilter> prefilters, Pagination pagination) {
+      return searchAdapter.getDocumentsPage(getOrganization(), getProject(), collection, prefilters, pagination, authenticatedUser.getCurrentUserId());
    }
 
    private List<Document> filterDocumentsByDocumentFilter(final List<Document> documents, @Nullable final Function<Document, Boolean> documentFilter) {
@@ -532,7 +587,7 @@ public class SearchFacade extends AbstractFacade {
 
    private List<LinkInstance> getLinkInstancesByLinkType(LinkType linkType, boolean isPublic) {
       if (isPublic) {
-         return searchAdapter.getAllLinkInstances(linkType, null, null);
+         return searchAdapter.getAllLinkInstances(linkType, null);
       }
       return searchAdapter.getLinkInstances(getOrganization(), getProject(), linkType, authenticatedUser.getCurrentUserId());
    }
@@ -541,7 +596,7 @@ public class SearchFacade extends AbstractFacade {
       return searchAdapter.getLinkInstances(getOrganization(), getProject(), linkType, documentIds, authenticatedUser.getCurrentUserId());
    }
 
-   private List<LinkInstance> getLinkInstancesByLinkType(LinkType linkType, Integer page, Integer limit) {
-      return searchAdapter.getLinkInstances(getOrganization(), getProject(), linkType, page, limit, authenticatedUser.getCurrentUserId());
+   private KeysetPage<LinkInstance> getLinkInstancesByLinkType(LinkType linkType, Pagination pagination) {
+      return searchAdapter.getLinkInstancesPage(getOrganization(), getProject(), linkType, pagination, authenticatedUser.getCurrentUserId());
    }
 }
@@ -100,6 +100,54 @@ public class DefaultConfigurationProducer implements Serializable {
 
    public static final String PRODUCTION_REST_URL = "production_rest_url";
 
+   public static final String SEARCH_FILTER_ENGINE = "search_filter_engine";
+
+   public static final String ENSURE_INDEXES = "ensure_indexes";
+
+   public static final String SEQUENCE_BLOCK_SIZE = "sequence_block_size";
+
+   public static final String CACHE_WORKSPACES = "cache_workspaces";
+
+   public static final String PUSH_QUEUE_SIZE = "push_queue_size";
+   public static final String PUSH_WINDOW = "push_window";
+
+   public static final String JS_AUTOMATIONS_POOL_SIZE = "js_automations_pool_size";
+   public static final String JS_AUTOMATIONS_MAX_USES = "js_automations_max_uses";
+   public static final String JS_AUTOMATIONS_WAIT_TIMEOUT = "js_automations_wait_timeout";
+   public static final String JS_AUTOMATIONS_ORGANIZATIONS = "js_automations_organizations";
+
+   public static final String JS_FILTERS_POOL_SIZE = "js_filters_pool_size";
+   public static final String JS_FILTERS_MAX_USES = "js_filters_max_uses";
+   public static final String JS_FILTERS_WAIT_TIMEOUT = "js_filters_wait_timeout";
+
+   public static final String FUNCTIONS_GRAPH_PROJECTS = "functions_graph_projects";
+
+   public static final String PERMISSIONS_MATRIX_SIZE = "permissions_matrix_size";
+   public static final String PERMISSIONS_MATRIX_EXPIRATION = "permissions_matrix_expiration";
+
+   public static final String COLLECTION_METADATA_FLUSH_WRITES = "collection_metadata_flush_writes";
+
+   public static final String IMPORT_CHUNK_SIZE = "import_chunk_size";
+   public static final String IMPORT_JOB_RETENTION = "import_job_retention";
+
+   public static final String CRON_WORKERS = "cron_workers";
+   public static final String CRON_CLAIM_TIMEOUT = "cron_claim_timeout";
+
+   public static final String DELAYED_ACTIONS_WORKERS = "delayed_actions_workers";
+   public static final String DELAYED_ACTIONS_WORK_BATCH_SIZE = "delayed_actions_work_batch_size";
+   public static final String DELAYED_ACTIONS_CLAIM_BATCH_SIZE = "delayed_actions_claim_batch_size";
+
+   public static final String TEMPLATES_CACHE_SIZE = "templates_cache_size";
+   public static final String TEMPLATES_IDLE_INSTANCES = "templates_idle_instances";
+
+   public static final String MAIL_SENDERS = "mail_senders";
+   public static final String MAIL_QUEUE_BYTES = "mail_queue_bytes";
+   public static final String MAIL_MAX_ATTEMPTS = "mail_max_attempts";
+   public static final String MAIL_RETRY_DELAY = "mail_retry_delay";
+   public static final String MAIL_MESSAGES_PER_CONNECTION = "mail_messages_per_connection";
+   public static final String MAIL_CONNECTION_IDLE = "mail_connection_idle";
+   public static final String MAIL_DRAIN_TIMEOUT = "mail_drain_timeout";
+
    public DefaultConfigurationProducer() {
       synchronized (this) {
          if (defaultConfiguration == null) {
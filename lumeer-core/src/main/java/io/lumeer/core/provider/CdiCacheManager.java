@@ -19,28 +19,47 @@
 package io.lumeer.core.provider;
 
 import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.engine.api.cache.Cache;
 import io.lumeer.engine.api.cache.CacheFactory;
 import io.lumeer.engine.api.cache.CacheManager;
 import io.lumeer.engine.api.cache.CacheProvider;
+import io.lumeer.engine.api.cache.CacheSettings;
+
+import org.apache.commons.lang3.math.NumberUtils;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 @ApplicationScoped
 public class CdiCacheManager implements CacheManager, Serializable {
 
+   private static final int CACHE_SIZE = 10000;
+   private static final Duration CACHE_EXPIRATION = Duration.ofHours(1);
+
    @Inject
    private CacheFactory cacheFactory;
 
-   private Map<String, Map<String, Cache>> caches = new ConcurrentHashMap<>();
+   // caches of the least recently used workspaces are dropped once there are too many of them
+   private Cache<Map<String, Cache>> caches;
 
    @Inject
    private WorkspaceKeeper workspaceKeeper;
 
+   @Inject
+   private DefaultConfigurationProducer configurationProducer;
+
+   @PostConstruct
+   public void init() {
+      final int workspaces = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.CACHE_WORKSPACES), 1000);
+      caches = cacheFactory.getCache(CacheSettings.<Map<String, Cache>>maximumSize(workspaces));
+   }
+
    @Override
    public CacheProvider getCacheProvider(final String namespace) {
       final CacheProvider provider = new DefaultCacheProvider();
@@ -52,7 +71,7 @@ public class CdiCacheManager implements CacheManager, Serializable {
    public <T> Cache<T> getCache(final String cacheName) {
       final String key = getKey();
       final Map<String, Cache> localCaches = caches.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
-      final Cache<T> cache = localCaches.computeIfAbsent(cacheName, k -> cacheFactory.getCache());
+      final Cache<T> cache = localCaches.computeIfAbsent(cacheName, k -> cacheFactory.getCache(CacheSettings.<T>maximumSize(CACHE_SIZE).expireAfterWrite(CACHE_EXPIRATION)));
 
       return cache;
    }
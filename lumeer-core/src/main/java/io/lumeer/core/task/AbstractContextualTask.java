@@ -53,8 +53,10 @@ import io.lumeer.core.task.executor.ChangesTracker;
 import io.lumeer.core.task.executor.request.GenericPrintRequest;
 import io.lumeer.core.task.executor.request.NavigationRequest;
 import io.lumeer.core.task.executor.request.SendEmailRequest;
+import io.lumeer.core.task.executor.request.TaskProgressRequest;
 import io.lumeer.core.task.executor.request.UserMessageRequest;
 import io.lumeer.core.util.LumeerS3Client;
+import io.lumeer.core.util.PushPayload;
 import io.lumeer.core.util.PusherClient;
 import io.lumeer.core.util.Utils;
 import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
@@ -64,6 +66,8 @@ import org.marvec.pusher.data.BackupDataEvent;
 import org.marvec.pusher.data.Event;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -74,7 +78,7 @@ import java.util.stream.Collectors;
 
 public abstract class AbstractContextualTask implements ContextualTask {
 
-   private static final int RELOAD_EVENT_THRESHOLD = 50;
+   static final int RELOAD_EVENT_THRESHOLD = 50;
 
    private static final Logger log = Logger.getLogger(AbstractConstraintConverter.class.getName());
 
@@ -263,18 +267,20 @@ public abstract class AbstractContextualTask implements ContextualTask {
       return new BackupDataEvent(PusherFacade.PRIVATE_CHANNEL_PREFIX + userId, View.class.getSimpleName() + suffix, message, getResourceId(mappedView, null), null);
    }
 
-   private Event createEventForDocument(final Document document, final String userId, final String suffix) {
-      final String projectId = daoContextSnapshot.getSelectedWorkspace().getProject().map(Project::getId).orElse("");
-
-      final Document mappedDocument = documentAdapter.mapDocumentData(new Document(document), userId, projectId);
+   private List<Event> createEventsForDocument(final Document document, final Set<String> userIds, final Map<String, Set<String>> favoriteDocumentIds, final String suffix) {
+      final PushPayload resourceId = new PushPayload(getResourceId(document, document.getCollectionId()));
 
       if (PusherFacade.REMOVE_EVENT_SUFFIX.equals(suffix)) {
-         return createEventForRemove(Document.class.getSimpleName(), getResourceId(mappedDocument, mappedDocument.getCollectionId()), userId);
+         return PusherClient.createEvents(eventChannels(userIds), Document.class.getSimpleName() + PusherFacade.REMOVE_EVENT_SUFFIX, resourceId);
       }
 
-      final PusherFacade.ObjectWithParent message = new PusherFacade.ObjectWithParent(getAppId(), mappedDocument, getDaoContextSnapshot().getOrganizationId(), getDaoContextSnapshot().getProjectId());
+      final PusherFacade.ObjectWithParent message = new PusherFacade.ObjectWithParent(getAppId(), document, getDaoContextSnapshot().getOrganizationId(), getDaoContextSnapshot().getProjectId());
       injectCorrelationId(message);
-      return new BackupDataEvent(PusherFacade.PRIVATE_CHANNEL_PREFIX + userId, Document.class.getSimpleName() + suffix, message, getResourceId(mappedDocument, mappedDocument.getCollectionId()), null);
+      final PushPayload payload = new PushPayload(message);
+      return userIds.stream().map(userId -> {
+         final boolean favorite = favoriteDocumentIds.getOrDefault(userId, Collections.emptySet()).contains(document.getId());
+         return new BackupDataEvent(eventChannel(userId), Document.class.getSimpleName() + suffix, payload.withOverrides(Collections.singletonMap(PusherFacade.DOCUMENT_FAVORITE_PATH, favorite)), resourceId, null);
+      }).collect(Collectors.toList());
    }
 
    private Event createEventForLinkType(final LinkType linkType, final String userId) {
@@ -289,16 +295,17 @@ public abstract class AbstractContextualTask implements ContextualTask {
       return new BackupDataEvent(PusherFacade.PRIVATE_CHANNEL_PREFIX + userId, LinkType.class.getSimpleName() + suffix, message, getResourceId(linkType, null), null);
    }
 
-   private Event createEventForLinkInstance(final LinkInstance linkInstance, final String userId, final String suffix) {
-      linkInstanceAdapter.mapLinkInstanceData(linkInstance);
+   private List<Event> createEventsForLinkInstance(final LinkInstance linkInstance, final Set<String> userIds, final String suffix) {
+      final PushPayload resourceId = new PushPayload(getResourceId(linkInstance, linkInstance.getLinkTypeId()));
 
       if (PusherFacade.REMOVE_EVENT_SUFFIX.equals(suffix)) {
-         return createEventForRemove(LinkInstance.class.getSimpleName(), getResourceId(linkInstance, linkInstance.getLinkTypeId()), userId);
-      } else {
-         final PusherFacade.ObjectWithParent message = new PusherFacade.ObjectWithParent(getAppId(), linkInstance, getDaoContextSnapshot().getOrganizationId(), getDaoContextSnapshot().getProjectId());
-         injectCorrelationId(message);
-         return new BackupDataEvent(PusherFacade.PRIVATE_CHANNEL_PREFIX + userId, LinkInstance.class.getSimpleName() + suffix, message, getResourceId(linkInstance, linkInstance.getLinkTypeId()), null);
+         return PusherClient.createEvents(eventChannels(userIds), LinkInstance.class.getSimpleName() + PusherFacade.REMOVE_EVENT_SUFFIX, resourceId);
       }
+
+      final PusherFacade.ObjectWithParent message = new PusherFacade.ObjectWithParent(getAppId(), linkInstance, getDaoContextSnapshot().getOrganizationId(), getDaoContextSnapshot().getProjectId());
+      injectCorrelationId(message);
+      final PushPayload payload = new PushPayload(message);
+      return userIds.stream().map(userId -> new BackupDataEvent(eventChannel(userId), LinkInstance.class.getSimpleName() + suffix, payload, resourceId, null)).collect(Collectors.toList());
    }
 
    private Event createEventForSequence(final Sequence sequence, final String userId) {
@@ -319,6 +326,12 @@ public abstract class AbstractContextualTask implements ContextualTask {
       return new Event(PusherFacade.PRIVATE_CHANNEL_PREFIX + userId, printRequest.getClass().getSimpleName(), message, null);
    }
 
+   private Event createEventForTaskProgressRequest(final TaskProgressRequest progressRequest, final String userId) {
+      final PusherFacade.ObjectWithParent message = new PusherFacade.ObjectWithParent(getAppId(), progressRequest, getDaoContextSnapshot().getOrganizationId(), getDaoContextSnapshot().getProjectId());
+      injectCorrelationId(message);
+      return new Event(PusherFacade.PRIVATE_CHANNEL_PREFIX + userId, TaskProgressRequest.class.getSimpleName(), message, null);
+   }
+
    private Event createEventForNavigationRequest(final NavigationRequest navigationRequest, final String userId) {
       final PusherFacade.ObjectWithParent message = new PusherFacade.ObjectWithParent(getAppId(), navigationRequest, getDaoContextSnapshot().getOrganizationId(), getDaoContextSnapshot().getProjectId());
       injectCorrelationId(message);
@@ -339,8 +352,8 @@ public abstract class AbstractContextualTask implements ContextualTask {
       return new PusherFacade.ResourceId(getAppId(), null, getDaoContextSnapshot().getOrganizationId(), getDaoContextSnapshot().getProjectId(), null, true);
    }
 
-   private Event createEventForRemove(final String className, final PusherFacade.ResourceId object, final String userId) {
-      return new Event(eventChannel(userId), className + PusherFacade.REMOVE_EVENT_SUFFIX, object, null);
+   private static List<String> eventChannels(final Set<String> userIds) {
+      return userIds.stream().map(AbstractContextualTask::eventChannel).collect(Collectors.toList());
    }
 
    public static String eventChannel(String userId) {
@@ -352,12 +365,23 @@ public abstract class AbstractContextualTask implements ContextualTask {
       final List<Event> events = new ArrayList<>();
       final List<Event> collectionEvents = new ArrayList<>();
 
-      users.forEach(userId -> {
-         documents.forEach(doc -> events.add(createEventForDocument(doc, userId, suffix)));
-         if (collectionChanged) {
-            collectionEvents.add(createEventForCollection(collection, userId));
-         }
-      });
+      // documents are serialized once for all the users, only the favorite flag differs
+      final String projectId = daoContextSnapshot.getSelectedWorkspace().getProject().map(Project::getId).orElse("");
+      final Map<String, Set<String>> favoriteDocumentIds = new HashMap<>();
+      if (!PusherFacade.REMOVE_EVENT_SUFFIX.equals(suffix) && documents.size() > 0) {
+         users.forEach(userId -> favoriteDocumentIds.put(userId, documentAdapter.getFavoriteDocumentIds(userId, projectId)));
+         final Map<String, Integer> commentsCounts = documentAdapter.getCommentsCounts(documents.stream().map(Document::getId).collect(Collectors.toSet()));
+         documents.forEach(doc -> {
+            final Document mappedDocument = new Document(doc);
+            mappedDocument.setCommentsCount((long) commentsCounts.getOrDefault(doc.getId(), 0));
+            events.addAll(createEventsForDocument(mappedDocument, users, favoriteDocumentIds, suffix));
+         });
+      } else {
+         documents.forEach(doc -> events.addAll(createEventsForDocument(doc, users, favoriteDocumentIds, suffix)));
+      }
+      if (collectionChanged) {
+         users.forEach(userId -> collectionEvents.add(createEventForCollection(collection, userId)));
+      }
 
       getPusherClient().trigger(events);
       getPusherClient().trigger(collectionEvents);
@@ -371,12 +395,13 @@ public abstract class AbstractContextualTask implements ContextualTask {
          final List<Event> events = new ArrayList<>();
          final List<Event> linkInstanceEvents = new ArrayList<>();
 
-         users.forEach(userId -> {
-            linkInstances.forEach(link -> events.add(createEventForLinkInstance(link, userId, suffix)));
-            if (linkTypeChanged) {
-               linkInstanceEvents.add(createEventForLinkType(linkType, userId));
-            }
-         });
+         if (!PusherFacade.REMOVE_EVENT_SUFFIX.equals(suffix)) {
+            linkInstanceAdapter.mapLinkInstancesData(linkInstances);
+         }
+         linkInstances.forEach(link -> events.addAll(createEventsForLinkInstance(link, users, suffix)));
+         if (linkTypeChanged) {
+            users.forEach(userId -> linkInstanceEvents.add(createEventForLinkType(linkType, userId)));
+         }
 
          getPusherClient().trigger(events);
          getPusherClient().trigger(linkInstanceEvents);
@@ -414,6 +439,10 @@ public abstract class AbstractContextualTask implements ContextualTask {
       getPusherClient().trigger(events);
    }
 
+   public void sendTaskProgressPushNotification(final TaskProgressRequest progressRequest) {
+      getPusherClient().trigger(List.of(createEventForTaskProgressRequest(progressRequest, initiator.getId())));
+   }
+
    public void sendNavigationRequestPushNotifications(final List<NavigationRequest> navigationRequests) {
       final List<Event> events = new ArrayList<>();
 
@@ -612,6 +641,7 @@ public abstract class AbstractContextualTask implements ContextualTask {
    @Override
    public FunctionFacade getFunctionFacade() {
       return FunctionFacade.getInstance(
+            getDaoContextSnapshot().getProjectId(),
             getDaoContextSnapshot().getFunctionDao(),
             getDaoContextSnapshot().getCollectionDao(),
             getDaoContextSnapshot().getDocumentDao(),
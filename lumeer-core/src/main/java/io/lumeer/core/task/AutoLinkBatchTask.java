@@ -21,53 +21,50 @@ package io.lumeer.core.task;
 import io.lumeer.api.model.AllowedPermissions;
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
-import io.lumeer.api.model.ConstraintData;
-import io.lumeer.api.model.CurrencyData;
 import io.lumeer.api.model.Document;
-import io.lumeer.api.model.Language;
 import io.lumeer.api.model.LinkInstance;
 import io.lumeer.api.model.LinkType;
-import io.lumeer.api.model.Query;
+import io.lumeer.api.model.RoleType;
 import io.lumeer.api.model.User;
 import io.lumeer.api.model.rule.AutoLinkRule;
-import io.lumeer.core.facade.translate.TranslationManager;
+import io.lumeer.api.util.AttributeUtil;
 import io.lumeer.core.task.executor.ChangesTracker;
-import io.lumeer.core.task.executor.matcher.MatchQueryFactory;
-import io.lumeer.core.util.Tuple;
-import io.lumeer.core.util.js.DataFilter;
+import io.lumeer.core.task.executor.matcher.AutoLinkIndex;
+import io.lumeer.core.task.executor.request.TaskProgressRequest;
+import io.lumeer.engine.api.data.DataDocument;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TimeZone;
-import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+/**
+ * Links all documents of two collections matching an auto-link rule. The smaller collection is indexed by the match keys,
+ * the larger one is streamed in batches and the links missing in each batch are created. Existing links are never removed,
+ * the batch knows no previous values and cannot tell the links created by the rule from the manual ones.
+ */
 public class AutoLinkBatchTask extends AbstractContextualTask {
 
    private static final Logger log = Logger.getLogger(AutoLinkBatchTask.class.getName());
 
+   private static final int BATCH_SIZE = 1000;
+   private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
    private AutoLinkRule rule;
    private LinkType linkType;
    private Collection collection;
    private Attribute attribute;
    private Collection otherCollection;
    private Attribute otherAttribute;
-   private List<Document> sourceDocuments;
-   private List<Document> targetDocuments;
-   private List<LinkInstance> existingLinks;
-   private ConstraintData constraintData;
-   private Language language;
    private Map<String, AllowedPermissions> permissions;
    private User user;
-   private Function<Object, Query> matchQuery;
 
    public void setupBatch(final AutoLinkRule rule, final LinkType linkType,
          final Collection collection, final Attribute attribute,
@@ -82,108 +79,156 @@ public class AutoLinkBatchTask extends AbstractContextualTask {
       this.otherAttribute = otherAttribute;
       this.permissions = permissions;
       this.user = user;
-
-      sourceDocuments = daoContextSnapshot.getDocumentDao().getDocumentsByCollection(collection.getId());
-      targetDocuments = daoContextSnapshot.getDocumentDao().getDocumentsByCollection(otherCollection.getId());
-      existingLinks = daoContextSnapshot.getLinkInstanceDao().getLinkInstancesByLinkType(linkType.getId());
-
-      language = requestDataKeeper.getUserLanguage();
-      timeZone = requestDataKeeper.getTimezone();
-      final TranslationManager translationManager = new TranslationManager();
-      final String organizationId = daoContextSnapshot.getSelectedWorkspace().getOrganization().get().getId();
-      final String projectId = daoContextSnapshot.getSelectedWorkspace().getProject().get().getId();
-      constraintData = new ConstraintData(
-            daoContextSnapshot.getUserDao().getAllUsers(organizationId),
-            user,
-            translationManager.translateDurationUnitsMap(language),
-            new CurrencyData(translationManager.translateAbbreviations(language), translationManager.translateOrdinals(language)),
-            timeZone != null ? timeZone : TimeZone.getDefault().getID(),
-            daoContextSnapshot.getGroupDao().getAllGroups(organizationId),
-            daoContextSnapshot.getSelectionListDao().getAllLists(Collections.singletonList(projectId))
-      );
-
-      matchQuery = MatchQueryFactory.getMatchQuery(attribute, otherCollection, otherAttribute);
    }
 
    @Override
    public void process(final TaskExecutor executor, final ChangesTracker changesTracker) {
       try {
-         List<LinkInstance> linksForCreation = new ArrayList<>();
-
-         final Map<String, Document> sourceDocumentsById = sourceDocuments.stream().collect(Collectors.toMap(Document::getId, Function.identity()));
+         final long sourceCount = daoContextSnapshot.getDocumentDao().getDocumentsCountByCollection(collection.getId());
+         final long targetCount = daoContextSnapshot.getDocumentDao().getDocumentsCountByCollection(otherCollection.getId());
+         final boolean indexedSource = sourceCount <= targetCount;
+         final boolean allSourceValues = AttributeUtil.isMultiselect(attribute) && AttributeUtil.isMultiselect(otherAttribute);
+
+         final Collection indexedCollection = indexedSource ? collection : otherCollection;
+         final Attribute indexedAttribute = indexedSource ? attribute : otherAttribute;
+         final Collection streamedCollection = indexedSource ? otherCollection : collection;
+         final Attribute streamedAttribute = indexedSource ? otherAttribute : attribute;
+
+         final AutoLinkIndex index = new AutoLinkIndex(allSourceValues, indexedSource);
+         daoContextSnapshot.getDataDao().getDataStream(indexedCollection.getId()).forEach(data ->
+               index.add(data.getId(), AutoLinkIndex.getMatchKeys(data.get(indexedAttribute.getId()), getConstraintManager()))
+         );
+
+         final BatchResult result = new BatchResult();
+         final int total = (int) (indexedSource ? targetCount : sourceCount);
+         final Map<String, Set<String>> batch = new LinkedHashMap<>();
+         long lastProgress = System.currentTimeMillis();
+
+         for (final DataDocument data : (Iterable<DataDocument>) daoContextSnapshot.getDataDao().getDataStream(streamedCollection.getId())::iterator) {
+            batch.put(data.getId(), AutoLinkIndex.getMatchKeys(data.get(streamedAttribute.getId()), getConstraintManager()));
+
+            if (batch.size() >= BATCH_SIZE) {
+               processBatch(index, indexedSource, batch, result);
+               batch.clear();
+
+               if (System.currentTimeMillis() - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                  sendProgress(result.processed, total);
+                  lastProgress = System.currentTimeMillis();
+               }
+            }
+         }
+         processBatch(index, indexedSource, batch, result);
 
-         // group source documents by matching attribute value
-         final Map<Object, Set<String>> source = new HashMap<>();
-         daoContextSnapshot.getDataDao().getDataStream(collection.getId()).forEach(dd -> {
-            sourceDocumentsById.get(dd.getId()).setData(getConstraintManager().decodeDataTypes(collection, dd));
-            final Object o = sourceDocumentsById.get(dd.getId()).getData().getObject(attribute.getId());
+         if (result.processed > BATCH_SIZE) {
+            sendProgress(result.processed, total);
+         }
 
-            if (o != null) {
-               source.computeIfAbsent(o, key -> new HashSet<>()).add(dd.getId());
-            }
-         });
-
-         if (source.size() > 0) {
-            // read data for all target documents
-            final Map<String, Document> targetDocumentsById = targetDocuments.stream().collect(Collectors.toMap(Document::getId, Function.identity()));
-            daoContextSnapshot.getDataDao().getDataStream(otherCollection.getId()).forEach(dd -> {
-               targetDocumentsById.get(dd.getId()).setData(getConstraintManager().decodeDataTypes(otherCollection, dd));
-            });
-
-            // for every unique source value and all source documents sharing the value
-            source.forEach((value, documentIds) -> {
-               // find target documents matching this value
-               final List<Document> matchingDocuments = findMatchingDocuments(targetDocuments, value);
-
-               // for all source documents
-               documentIds.forEach(sourceDocumentId -> {
-                  // filter out the matching documents to which the source document is already linked, and create new links for the rest
-                  final List<Document> linkingDocuments = filterExistingLinks(sourceDocumentId, matchingDocuments, existingLinks);
-                  linksForCreation.addAll(linkingDocuments.stream().map(doc -> {
-                     var l = new LinkInstance(linkType.getId(), List.of(sourceDocumentId, doc.getId()));
-                     l.setCreatedBy(user.getId());
-                     l.setCreationDate(ZonedDateTime.now());
-                     return l;
-                  }).collect(Collectors.toList()));
-               });
-            });
-
-            // submit changes
-            if (linksForCreation.size() > 0) {
-               final List<LinkInstance> newLinks = daoContextSnapshot.getLinkInstanceDao().createLinkInstances(linksForCreation, false);
-               linkTypeAdapter.mapLinkTypeComputedProperties(linkType);
-               changesTracker.addLinkTypes(Set.of(linkType));
-               changesTracker.updateLinkTypesMap(Map.of(linkType.getId(), linkType));
-               changesTracker.addCreatedLinkInstances(newLinks);
-            }
+         if (result.createdCount > 0) {
+            linkTypeAdapter.mapLinkTypeComputedProperties(linkType);
+            changesTracker.addLinkTypes(Set.of(linkType));
+            changesTracker.updateLinkTypesMap(Map.of(linkType.getId(), linkType));
+            changesTracker.addCreatedLinkInstances(result.created);
          }
+
+         log.fine(() -> String.format("Auto-link batch %s indexed %d keys, processed %d documents, created %d links.",
+               rule.getRule().getName(), index.getKeysCount(), result.processed, result.createdCount));
       } catch (Exception e) {
          log.log(Level.SEVERE, "Error running auto-link batch: ", e);
       }
    }
 
+   private void processBatch(final AutoLinkIndex index, final boolean indexedSource, final Map<String, Set<String>> batch, final BatchResult result) {
+      if (batch.isEmpty()) {
+         return;
+      }
+
+      // matching pairs of source and target document ids
+      final Set<List<String>> matches = new HashSet<>();
+      batch.forEach((documentId, keys) -> index.match(keys).forEach(indexedId -> {
+         if (!indexedId.equals(documentId)) {
+            matches.add(getPair(indexedSource ? indexedId : documentId, indexedSource ? documentId : indexedId));
+         }
+      }));
+
+      final Set<List<String>> existingPairs = new HashSet<>();
+      daoContextSnapshot.getLinkInstanceDao().getLinkInstancesByDocumentIds(batch.keySet(), linkType.getId()).forEach(link -> {
+         final String streamedId = batch.containsKey(link.getDocumentIds().get(0)) ? link.getDocumentIds().get(0) : link.getDocumentIds().get(1);
+         final String otherId = streamedId.equals(link.getDocumentIds().get(0)) ? link.getDocumentIds().get(1) : link.getDocumentIds().get(0);
+         existingPairs.add(getPair(indexedSource ? otherId : streamedId, indexedSource ? streamedId : otherId));
+      });
+
+      matches.removeAll(existingPairs);
+
+      final Set<String> targetIds = new HashSet<>();
+      matches.forEach(targetIds::addAll);
+      final Predicate<String> targetVisible = getTargetVisibility(targetIds);
+      final Predicate<List<String>> pairVisible = pair -> targetVisible.test(pair.get(1)) || (isSelfLink() && targetVisible.test(pair.get(0)));
+
+      final List<LinkInstance> linksForCreation = matches.stream()
+                                                        .filter(pairVisible)
+                                                        .map(this::createLinkInstance)
+                                                        .collect(Collectors.toList());
+
+      if (linksForCreation.size() > 0) {
+         result.addCreated(daoContextSnapshot.getLinkInstanceDao().createLinkInstances(linksForCreation, false));
+      }
+
+      result.processed += batch.size();
+   }
+
+   private List<String> getPair(final String sourceId, final String targetId) {
+      // links between documents of the same collection have no direction
+      if (isSelfLink() && sourceId.compareTo(targetId) > 0) {
+         return List.of(targetId, sourceId);
+      }
+      return List.of(sourceId, targetId);
+   }
+
+   private boolean isSelfLink() {
+      return collection.getId().equals(otherCollection.getId());
+   }
+
+   private Predicate<String> getTargetVisibility(final Set<String> targetIds) {
+      final AllowedPermissions targetPermissions = permissions != null ? permissions.get(otherCollection.getId()) : null;
+      if (targetPermissions == null || Boolean.TRUE.equals(targetPermissions.getRoles().get(RoleType.DataRead))) {
+         return documentId -> true;
+      }
+      if (!Boolean.TRUE.equals(targetPermissions.getRoles().get(RoleType.DataContribute)) || targetIds.isEmpty()) {
+         return documentId -> false;
+      }
+
+      // contributors can see only their own documents
+      final Set<String> ownIds = daoContextSnapshot.getDocumentDao().getDocumentsByCreator(otherCollection.getId(), user.getId(), targetIds)
+                                                   .stream().map(Document::getId).collect(Collectors.toSet());
+      return ownIds::contains;
+   }
+
+   private LinkInstance createLinkInstance(final List<String> pair) {
+      final LinkInstance linkInstance = new LinkInstance(linkType.getId(), pair);
+      linkInstance.setCreatedBy(user.getId());
+      linkInstance.setCreationDate(ZonedDateTime.now());
+      return linkInstance;
+   }
+
+   private void sendProgress(final int processed, final int total) {
+      if (getPusherClient() != null) {
+         sendTaskProgressPushNotification(new TaskProgressRequest(AutoLinkBatchTask.class.getSimpleName(), collection.getId(), attribute.getId(), processed, total));
+      }
+   }
+
    public AutoLinkRule getRule() {
       return rule;
    }
 
-   private List<Document> findMatchingDocuments(final List<Document> allDocuments, final Object value) {
-      final Tuple<List<Document>, List<LinkInstance>> tuple =
-            DataFilter.filterDocumentsAndLinksByQueryDecodingFromJson(
-               allDocuments, List.of(otherCollection), List.of(), List.of(), matchQuery.apply(value),
-               permissions, Map.of(),
-               constraintData,
-               true,
-               language
-      );
-      return tuple.getFirst();
-   }
+   private static class BatchResult {
+      // only the links needed for the push notifications are kept, more of them result in a reload event anyway
+      private final List<LinkInstance> created = new ArrayList<>();
+      private int createdCount;
+      private int processed;
 
-   private List<Document> filterExistingLinks(final String sourceDocumentId, final List<Document> documents, final List<LinkInstance> links) {
-      final Set<String> linkedDocumentIds = links
-            .stream()
-            .filter(link -> link.getDocumentIds().contains(sourceDocumentId))
-            .map(link -> link.getDocumentIds().get(0).equals(sourceDocumentId) ? link.getDocumentIds().get(1) : link.getDocumentIds().get(0))
-            .collect(Collectors.toSet());
-      return documents.stream().filter(document -> !linkedDocumentIds.contains(document.getId())).collect(Collectors.toList());
+      private void addCreated(final List<LinkInstance> links) {
+         createdCount += links.size();
+         links.stream().limit(Math.max(0, RELOAD_EVENT_THRESHOLD + 1 - created.size())).forEach(created::add);
+      }
    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import io.lumeer.core.WorkspaceContext;
+import io.lumeer.core.cache.CollectionMetadataBuffer;
+import io.lumeer.core.task.executor.ChangesTracker;
+import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
+import io.lumeer.storage.api.exception.ResourceNotFoundException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.inject.Inject;
+
+/**
+ * Writes collection usage metadata accumulated in {@link CollectionMetadataBuffer}.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class CollectionMetadataFlusher extends WorkspaceContext {
+
+   private static final Logger log = Logger.getLogger(CollectionMetadataFlusher.class.getName());
+
+   @Inject
+   private TaskExecutor taskExecutor;
+
+   private final CollectionMetadataBuffer buffer = CollectionMetadataBuffer.getInstance();
+
+   @PostConstruct
+   public void init() {
+      buffer.setFlushTrigger(() -> taskExecutor.getExecutorService().submit(this::flush));
+   }
+
+   @PreDestroy
+   public void destroy() {
+      buffer.setFlushTrigger(null);
+      flush();
+   }
+
+   @Schedule(hour = "*", minute = "*", second = "*/5", persistent = false) // every 5 seconds
+   public void flush() {
+      final Map<String, List<CollectionMetadataBuffer.PendingMetadata>> metadataByProject = buffer.drain().stream()
+            .collect(Collectors.groupingBy(metadata -> metadata.getOrganization().getId() + "/" + metadata.getProject().getId()));
+
+      metadataByProject.values().forEach(this::flushProject);
+   }
+
+   private void flushProject(final List<CollectionMetadataBuffer.PendingMetadata> metadata) {
+      final CollectionMetadataBuffer.PendingMetadata first = metadata.get(0);
+
+      try {
+         final DataStorage userDataStorage = getDataStorage(first.getOrganization().getId());
+         final DaoContextSnapshot dao = getDaoContextSnapshot(userDataStorage, new Workspace(first.getOrganization(), first.getProject()));
+
+         final CollectionMetadataTask task = getTaskFactory(dao).getInstance(CollectionMetadataTask.class);
+         task.setMetadata(metadata);
+         task.process(taskExecutor, new ChangesTracker());
+      } catch (ResourceNotFoundException e) {
+         // the organization or project has been removed in the meantime
+      } catch (RuntimeException e) {
+         log.log(Level.WARNING, "Unable to write collections metadata in project " + first.getProject().getCode(), e);
+         metadata.forEach(buffer::restore);
+      }
+   }
+}
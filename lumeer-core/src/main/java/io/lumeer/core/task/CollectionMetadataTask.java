@@ -0,0 +1,57 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import io.lumeer.api.model.Collection;
+import io.lumeer.core.cache.CollectionMetadataBuffer;
+import io.lumeer.core.task.executor.ChangesTracker;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes accumulated usage metadata of collections in a single project and notifies the clients once per collection.
+ */
+public class CollectionMetadataTask extends AbstractContextualTask {
+
+   private static final Logger log = Logger.getLogger(CollectionMetadataTask.class.getName());
+
+   private List<CollectionMetadataBuffer.PendingMetadata> metadata;
+
+   public void setMetadata(final List<CollectionMetadataBuffer.PendingMetadata> metadata) {
+      this.metadata = metadata;
+   }
+
+   @Override
+   public void process(final TaskExecutor executor, final ChangesTracker changesTracker) {
+      metadata.forEach(pending -> {
+         try {
+            final Collection collection = daoContextSnapshot.getCollectionDao().updateCollectionMetadata(pending.getCollectionId(), pending.getAttributesUsageDeltas(), pending.getLastTimeUsed());
+            // the collection has been removed in the meantime
+            if (collection != null) {
+               sendPushNotifications(collection);
+            }
+         } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Unable to write metadata of collection " + pending.getCollectionId(), e);
+            CollectionMetadataBuffer.getInstance().restore(pending);
+         }
+      });
+   }
+}
@@ -20,6 +20,7 @@ package io.lumeer.core.task;
 
 import io.lumeer.api.model.AllowedPermissions;
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.CronWorkItem;
 import io.lumeer.api.model.Document;
 import io.lumeer.api.model.Organization;
 import io.lumeer.api.model.Project;
@@ -29,20 +30,33 @@ import io.lumeer.api.model.View;
 import io.lumeer.api.model.rule.CronRule;
 import io.lumeer.core.WorkspaceContext;
 import io.lumeer.core.auth.AuthenticatedUser;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.core.util.CronTaskChecker;
 import io.lumeer.core.util.DocumentUtils;
 import io.lumeer.engine.api.data.DataStorage;
+import io.lumeer.storage.api.dao.CronWorkItemDao;
 import io.lumeer.storage.api.dao.OrganizationDao;
 import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
 import io.lumeer.storage.api.exception.ResourceNotFoundException;
 
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
 import jakarta.ejb.Schedule;
 import jakarta.ejb.Singleton;
 import jakarta.ejb.Startup;
@@ -50,11 +64,21 @@ import jakarta.inject.Inject;
 
 @Singleton
 @Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
 public class CronTaskProcessor extends WorkspaceContext {
 
+   private static final int TICK_SECONDS = 15 * 60;
+   private static final int DEFAULT_WORKERS = 4;
+
+   // a worker returns its executor thread after this number of items and continues as a new task
+   private static final int WORKER_BATCH = 10;
+
    @Inject
    private OrganizationDao organizationDao;
 
+   @Inject
+   private CronWorkItemDao cronWorkItemDao;
+
    @Inject
    private TaskExecutor taskExecutor;
 
@@ -62,22 +86,169 @@ public class CronTaskProcessor extends WorkspaceContext {
 
    private final CronTaskChecker checker = new CronTaskChecker();
 
+   private final String nodeSignature = UUID.randomUUID().toString();
+   private final AtomicInteger activeWorkers = new AtomicInteger();
+   private final AtomicInteger planningTicks = new AtomicInteger();
+   private volatile CronTickMetrics tickMetrics = new CronTickMetrics(null);
+
+   private int workers;
+
+   // rules running longer than this are claimed again by another worker
+   private int claimTimeout;
+
+   @PostConstruct
+   public void init() {
+      workers = Math.max(1, NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.CRON_WORKERS), DEFAULT_WORKERS));
+      claimTimeout = Math.max(1, NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.CRON_CLAIM_TIMEOUT), CronWorkItemDao.PROCESSING_TIMEOUT_MINUTES));
+   }
+
    @Schedule(hour = "*", minute = "*/15") // every 15 minutes
    public void process() {
-      final List<Organization> organizations = organizationDao.getAllOrganizations();
+      final ZonedDateTime tickTime = getTickTime(ZonedDateTime.now());
+      final String tick = tickTime.toInstant().toString();
+      final CronTickMetrics metrics = new CronTickMetrics(tick);
+      tickMetrics = metrics;
 
-      organizations.forEach(organization -> {
-         final DataStorage userDataStorage = getDataStorage(organization.getId());
+      cronWorkItemDao.deleteProcessedItems();
+
+      // only one node in cluster plans the tick, the others just help with processing
+      if (cronWorkItemDao.claimTick(tick, nodeSignature)) {
+         planningTicks.incrementAndGet();
+         try {
+            taskExecutor.getExecutorService().submit(() -> {
+               try {
+                  metrics.planned(planTick(tick, tickTime));
+               } finally {
+                  planningTicks.decrementAndGet();
+                  startWorkers();
+               }
+            });
+         } catch (RuntimeException e) {
+            planningTicks.decrementAndGet();
+            log.log(Level.WARNING, "Unable to start planning of cron tick " + tick, e);
+         }
+      }
+
+      startWorkers();
+   }
+
+   @Schedule(hour = "*", minute = "*") // every minute
+   public void drain() {
+      cronWorkItemDao.resetTimeoutedItems(claimTimeout);
+      startWorkers();
+   }
+
+   public CronTickMetrics getTickMetrics() {
+      return tickMetrics;
+   }
+
+   static ZonedDateTime getTickTime(final ZonedDateTime now) {
+      // round to the closest tick so that small clock differences among nodes do not produce different ticks
+      final long tick = Math.round(now.toEpochSecond() / (double) TICK_SECONDS);
+      return ZonedDateTime.ofInstant(Instant.ofEpochSecond(tick * TICK_SECONDS), ZoneOffset.UTC);
+   }
+
+   private int planTick(final String tick, final ZonedDateTime tickTime) {
+      final ZonedDateTime now = ZonedDateTime.now();
+      int planned = 0;
+
+      for (final Organization organization : organizationDao.getAllOrganizations()) {
+         try {
+            final DataStorage userDataStorage = getDataStorage(organization.getId());
+            final DaoContextSnapshot orgDao = getDaoContextSnapshot(userDataStorage, new Workspace(organization, null));
+            final List<CronWorkItem> items = new ArrayList<>();
 
+            orgDao.getProjectDao().getAllProjects().stream().filter(this::isTimerAllowedInProject).forEach(project -> {
+               final DaoContextSnapshot projDao = getDaoContextSnapshot(userDataStorage, new Workspace(organization, project));
+               projDao.getCollectionDao().getAllCollections().stream()
+                      .filter(collection -> hasDueRules(collection, now))
+                      // priority is the order within organization, so the workers interleave organizations
+                      .forEach(collection -> items.add(new CronWorkItem(tick, organization.getId(), project.getId(), collection.getId(), items.size(), tickTime)));
+            });
+
+            cronWorkItemDao.scheduleItems(items);
+            planned += items.size();
+
+            // the items of planned organizations are processed while the others are being planned
+            startWorkers();
+         } catch (RuntimeException e) {
+            log.log(Level.WARNING, String.format("Unable to plan cron rules in organization %s.", organization.getCode()), e);
+         }
+      }
+
+      return planned;
+   }
+
+   private boolean hasDueRules(final Collection collection, final ZonedDateTime now) {
+      return collection.getRules().values().stream()
+                       .filter(rule -> rule.getType() == Rule.RuleType.CRON)
+                       .anyMatch(rule -> checker.shouldExecute(new CronRule(rule), now));
+   }
+
+   private void startWorkers() {
+      int active;
+      while ((active = activeWorkers.get()) < workers) {
+         if (activeWorkers.compareAndSet(active, active + 1)) {
+            try {
+               taskExecutor.getExecutorService().submit(this::runWorker);
+            } catch (RuntimeException e) {
+               activeWorkers.decrementAndGet();
+               log.log(Level.WARNING, "Unable to start cron worker.", e);
+               return;
+            }
+         }
+      }
+   }
+
+   private void runWorker() {
+      boolean resubmitted = false;
+      try {
+         int processed = 0;
+         CronWorkItem item;
+         while (processed < WORKER_BATCH && (item = cronWorkItemDao.claimItem(nodeSignature)) != null) {
+            processItem(item);
+            processed++;
+         }
+
+         // there are probably more items, continue later so that other tasks get the executor thread in the meantime
+         if (processed == WORKER_BATCH) {
+            taskExecutor.getExecutorService().submit(this::runWorker);
+            resubmitted = true;
+         }
+      } catch (RuntimeException e) {
+         log.log(Level.WARNING, "Cron worker stopped unexpectedly.", e);
+      } finally {
+         if (!resubmitted && activeWorkers.decrementAndGet() == 0 && planningTicks.get() == 0) {
+            final CronTickMetrics metrics = tickMetrics;
+            if (metrics.getTick() != null && metrics.getDurationMillis() < 0) {
+               metrics.finished();
+               log.info("Cron tick finished: " + metrics);
+            }
+         }
+      }
+   }
+
+   private void processItem(final CronWorkItem item) {
+      final long lag = item.getDueAt() != null && item.getStartedProcessing() != null ? Duration.between(item.getDueAt(), item.getStartedProcessing()).toMillis() : 0;
+      boolean failed = false;
+
+      try {
+         final Organization organization = organizationDao.getOrganizationById(item.getOrganizationId());
+         final DataStorage userDataStorage = getDataStorage(organization.getId());
          final DaoContextSnapshot orgDao = getDaoContextSnapshot(userDataStorage, new Workspace(organization, null));
-         final List<Project> projects = orgDao.getProjectDao().getAllProjects();
+         final Project project = orgDao.getProjectDao().getProjectById(item.getProjectId());
+         final DaoContextSnapshot projDao = getDaoContextSnapshot(userDataStorage, new Workspace(organization, project));
 
-         projects.stream().filter(this::isTimerAllowedInProject).forEach(project -> {
-            final DaoContextSnapshot projDao = getDaoContextSnapshot(userDataStorage, new Workspace(organization, project));
-            final List<Collection> collections = projDao.getCollectionDao().getAllCollections();
-            collections.forEach(collection -> processRules(projDao, collection));
-         });
-      });
+         processRules(projDao, projDao.getCollectionDao().getCollectionById(item.getCollectionId()));
+      } catch (ResourceNotFoundException e) {
+         // the resource has been removed since the tick was planned
+      } catch (RuntimeException e) {
+         failed = true;
+         log.log(Level.WARNING, "Unable to process cron work item " + item, e);
+      } finally {
+         cronWorkItemDao.completeItem(item);
+         tickMetrics.itemProcessed(Math.max(lag, 0), failed);
+      }
    }
 
    private boolean isTimerAllowedInProject(Project project) {
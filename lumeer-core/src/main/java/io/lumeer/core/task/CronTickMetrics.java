@@ -0,0 +1,114 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timing of a single cron tick as seen by this node.
+ */
+public class CronTickMetrics {
+
+   private final String tick;
+   private final long startedAt;
+   private volatile long planningMillis = -1;
+   private volatile long durationMillis = -1;
+   private final AtomicInteger plannedItems = new AtomicInteger();
+   private final AtomicInteger processedItems = new AtomicInteger();
+   private final AtomicInteger failedItems = new AtomicInteger();
+   private final AtomicLong totalLagMillis = new AtomicLong();
+   private final AtomicLong maxLagMillis = new AtomicLong();
+
+   public CronTickMetrics(final String tick) {
+      this.tick = tick;
+      this.startedAt = System.currentTimeMillis();
+   }
+
+   void planned(final int items) {
+      plannedItems.set(items);
+      planningMillis = System.currentTimeMillis() - startedAt;
+   }
+
+   void itemProcessed(final long lagMillis, final boolean failed) {
+      processedItems.incrementAndGet();
+      if (failed) {
+         failedItems.incrementAndGet();
+      }
+      totalLagMillis.addAndGet(lagMillis);
+      maxLagMillis.accumulateAndGet(lagMillis, Math::max);
+   }
+
+   void finished() {
+      durationMillis = System.currentTimeMillis() - startedAt;
+   }
+
+   public String getTick() {
+      return tick;
+   }
+
+   /**
+    * @return time spent planning the work items, -1 when the tick was planned by another node.
+    */
+   public long getPlanningMillis() {
+      return planningMillis;
+   }
+
+   /**
+    * @return time from the start of the tick until this node drained the queue, -1 while still running.
+    */
+   public long getDurationMillis() {
+      return durationMillis;
+   }
+
+   public int getPlannedItems() {
+      return plannedItems.get();
+   }
+
+   public int getProcessedItems() {
+      return processedItems.get();
+   }
+
+   public int getFailedItems() {
+      return failedItems.get();
+   }
+
+   public long getMaxLagMillis() {
+      return maxLagMillis.get();
+   }
+
+   public long getAverageLagMillis() {
+      final int processed = processedItems.get();
+      return processed > 0 ? totalLagMillis.get() / processed : 0;
+   }
+
+   @Override
+   public String toString() {
+      return "CronTickMetrics{" +
+            "tick='" + tick + '\'' +
+            ", planningMillis=" + planningMillis +
+            ", durationMillis=" + durationMillis +
+            ", plannedItems=" + plannedItems +
+            ", processedItems=" + processedItems +
+            ", failedItems=" + failedItems +
+            ", averageLagMillis=" + getAverageLagMillis() +
+            ", maxLagMillis=" + maxLagMillis +
+            '}';
+   }
+}
@@ -27,15 +27,19 @@ import io.lumeer.api.model.function.Function;
 import io.lumeer.core.constraint.ConstraintManager;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.core.task.executor.ChangesTracker;
+import io.lumeer.core.task.executor.FunctionBatchExecutor;
 import io.lumeer.core.task.executor.FunctionTaskExecutor;
+import io.lumeer.core.task.executor.request.TaskProgressRequest;
 import io.lumeer.engine.api.data.DataDocument;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.IntConsumer;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -51,6 +55,9 @@ public class FunctionTask extends AbstractContextualTask {
    private Map<String, Document> originalDocuments;
    private Map<String, LinkInstance> originalLinkInstances;
 
+   // smaller sets are evaluated and committed one by one
+   private static final int BATCH_THRESHOLD = 10;
+
    private static DefaultConfigurationProducer configurationProducer = new DefaultConfigurationProducer();
    private static ConstraintManager constraintManager = ConstraintManager.getInstance(configurationProducer);
 
@@ -130,17 +137,19 @@ public class FunctionTask extends AbstractContextualTask {
          );
       }
       if (documents != null && collection != null) {
+         final List<FunctionTaskExecutor> executors = new ArrayList<>();
          getDocumentsWithData(collection, documents).forEach(document -> {
             originalDocuments.put(document.getId(), new Document(document));
-            final FunctionTaskExecutor executor = new FunctionTaskExecutor(this, collection, document);
-            changesTracker.merge(executor.execute(taskExecutor));
+            executors.add(new FunctionTaskExecutor(this, collection, document));
          });
+         changesTracker.merge(execute(taskExecutor, executors, collection.getId()));
       } else if (linkType != null && linkInstances != null) {
+         final List<FunctionTaskExecutor> executors = new ArrayList<>();
          getLinkInstancesWithData(linkType, linkInstances).forEach(linkInstance -> {
             originalLinkInstances.put(linkInstance.getId(), new LinkInstance(linkInstance));
-            final FunctionTaskExecutor executor = new FunctionTaskExecutor(this, linkType, linkInstance);
-            changesTracker.merge(executor.execute(taskExecutor));
+            executors.add(new FunctionTaskExecutor(this, linkType, linkInstance));
          });
+         changesTracker.merge(execute(taskExecutor, executors, linkType.getId()));
       }
 
       if (parent != null) {
@@ -148,6 +157,21 @@ public class FunctionTask extends AbstractContextualTask {
       }
    }
 
+   private ChangesTracker execute(final TaskExecutor taskExecutor, final List<FunctionTaskExecutor> executors, final String resourceId) {
+      if (executors.size() <= BATCH_THRESHOLD) {
+         final ChangesTracker changesTracker = new ChangesTracker();
+         executors.forEach(executor -> changesTracker.merge(executor.execute(taskExecutor)));
+         return changesTracker;
+      }
+
+      // large recomputations (e.g. after the function was changed) are evaluated in parallel and committed at once
+      final int total = executors.size();
+      final IntConsumer progressListener = getPusherClient() != null && getInitiator() != null ?
+            processed -> sendTaskProgressPushNotification(new TaskProgressRequest(FunctionTask.class.getSimpleName(), resourceId, attribute.getId(), processed, total)) : null;
+
+      return new FunctionBatchExecutor(this, executors).execute(taskExecutor, progressListener);
+   }
+
    private Set<Document> getDocumentsWithData(final Collection collection, final Set<Document> documents) {
       if (documents.isEmpty()) {
          return Collections.emptySet();
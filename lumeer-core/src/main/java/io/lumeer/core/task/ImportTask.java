@@ -0,0 +1,298 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import io.lumeer.api.model.Attribute;
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Document;
+import io.lumeer.api.model.ImportJob;
+import io.lumeer.core.constraint.ConstraintManager;
+import io.lumeer.core.exception.ServiceLimitsExceededException;
+import io.lumeer.core.facade.PusherFacade;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.core.task.executor.ChangesTracker;
+import io.lumeer.engine.api.data.DataDocument;
+
+import com.univocity.parsers.csv.CsvParser;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.text.translate.CharSequenceTranslator;
+import org.apache.commons.text.translate.EntityArrays;
+import org.apache.commons.text.translate.LookupTranslator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Imports the rows of a CSV parser to a collection. The rows are read one by one and written in chunks with bulk inserts,
+ * so the memory needed does not depend on the size of the import. Documents to merge with are looked up in a map built
+ * from a single scan of the merge attribute.
+ */
+public class ImportTask extends AbstractContextualTask {
+
+   private static final Logger log = Logger.getLogger(ImportTask.class.getName());
+
+   private static final DefaultConfigurationProducer configurationProducer = new DefaultConfigurationProducer();
+   private static final int CHUNK_SIZE = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.IMPORT_CHUNK_SIZE), 1000);
+
+   private static final CharSequenceTranslator TRANSLATOR = new LookupTranslator(EntityArrays.BASIC_ESCAPE);
+
+   private Collection collection;
+   private CsvParser parser;
+   private String[] headerIds;
+   private Attribute mergeAttribute;
+   private ImportJob job;
+   private long documentsLimit;
+   private long documentsCount;
+   private Path sourceFile;
+   private RuntimeException failure;
+
+   /**
+    * Sets up the import.
+    *
+    * @param collection     The collection to import to, its attributes must already contain all the imported columns.
+    * @param parser         Parser with the header already read.
+    * @param headerIds      Ids of the attributes in the order of the columns.
+    * @param mergeAttribute The attribute to find documents to update by, null to create new documents only.
+    * @param job            The job to report the progress to.
+    * @param documentsLimit Maximal number of documents in the project, zero or less for no limit.
+    * @param documentsCount The current number of documents in the project.
+    */
+   public void setupImport(final Collection collection, final CsvParser parser, final String[] headerIds, final Attribute mergeAttribute,
+         final ImportJob job, final long documentsLimit, final long documentsCount) {
+      this.collection = collection;
+      this.parser = parser;
+      this.headerIds = headerIds;
+      this.mergeAttribute = mergeAttribute;
+      this.job = job;
+      this.documentsLimit = documentsLimit;
+      this.documentsCount = documentsCount;
+   }
+
+   /**
+    * Sets the file with the imported data which is deleted once the import is over.
+    */
+   public void setSourceFile(final Path sourceFile) {
+      this.sourceFile = sourceFile;
+   }
+
+   public Collection getCollection() {
+      return collection;
+   }
+
+   public RuntimeException getFailure() {
+      return failure;
+   }
+
+   @Override
+   public void process(final TaskExecutor executor, final ChangesTracker changesTracker) {
+      try {
+         importRows();
+         job.finish();
+      } catch (RuntimeException e) {
+         log.log(Level.WARNING, String.format("Unable to import data to collection %s: ", collection.getId()), e);
+         failure = e;
+         job.fail(e.getMessage());
+      } finally {
+         parser.stopParsing();
+         deleteSourceFile();
+      }
+   }
+
+   private void importRows() {
+      final ConstraintManager.DataCodec codec = constraintManager.getCodec(collection);
+      final Map<String, Deque<String>> mergeDocumentIds = getDocumentIdsByKey(codec);
+      final int[] counts = new int[headerIds.length];
+      long createdDocuments = 0;
+
+      final List<DataDocument> dataToCreate = new ArrayList<>();
+      final Map<String, DataDocument> dataToUpdate = new LinkedHashMap<>();
+      String[] row;
+      while ((row = parser.parseNext()) != null) {
+         final DataDocument data = createDataFromRow(row, counts);
+         final String documentId = findMergeDocumentId(data, mergeDocumentIds);
+         if (documentId != null) {
+            dataToUpdate.put(documentId, data);
+         } else {
+            dataToCreate.add(data);
+         }
+
+         if (dataToCreate.size() + dataToUpdate.size() >= CHUNK_SIZE) {
+            createdDocuments += importChunk(codec, dataToCreate, dataToUpdate);
+         }
+      }
+
+      createdDocuments += importChunk(codec, dataToCreate, dataToUpdate);
+
+      updateCollectionMetadata(counts, createdDocuments);
+   }
+
+   private long importChunk(final ConstraintManager.DataCodec codec, final List<DataDocument> dataToCreate, final Map<String, DataDocument> dataToUpdate) {
+      final int updated = dataToUpdate.isEmpty() ? 0 : updateDocuments(codec, dataToUpdate, dataToCreate);
+      final int created = dataToCreate.size();
+
+      if (created > 0) {
+         createDocuments(codec, dataToCreate);
+      }
+
+      job.addProgress(created + updated, created, updated);
+      dataToCreate.clear();
+      dataToUpdate.clear();
+
+      return created;
+   }
+
+   private void createDocuments(final ConstraintManager.DataCodec codec, final List<DataDocument> dataToCreate) {
+      if (documentsLimit > 0 && documentsCount + dataToCreate.size() > documentsLimit) {
+         throw new ServiceLimitsExceededException(documentsLimit, documentsCount, dataToCreate.size());
+      }
+
+      final ZonedDateTime now = ZonedDateTime.now();
+      final List<Document> documents = dataToCreate.stream()
+                                                   .map(data -> new Document(collection.getId(), now, initiator.getId()))
+                                                   .collect(Collectors.toList());
+
+      // the documents are stored in the same order, so the data can be paired by their position
+      final List<Document> storedDocuments = daoContextSnapshot.getDocumentDao().createDocuments(documents);
+      for (int i = 0; i < storedDocuments.size(); i++) {
+         codec.encodeInPlace(dataToCreate.get(i)).setId(storedDocuments.get(i).getId());
+      }
+
+      daoContextSnapshot.getDataDao().createData(collection.getId(), dataToCreate);
+      documentsCount += dataToCreate.size();
+   }
+
+   /**
+    * Replaces the data of the existing documents, the rows of documents removed since the merge attribute was scanned
+    * are moved to the data to create.
+    *
+    * @return number of updated documents.
+    */
+   private int updateDocuments(final ConstraintManager.DataCodec codec, final Map<String, DataDocument> dataToUpdate, final List<DataDocument> dataToCreate) {
+      final ZonedDateTime now = ZonedDateTime.now();
+      final List<Document> documents = daoContextSnapshot.getDocumentDao().getDocumentsByIds(dataToUpdate.keySet());
+      documents.forEach(document -> {
+         document.setUpdatedBy(initiator.getId());
+         document.setUpdateDate(now);
+      });
+      daoContextSnapshot.getDocumentDao().updateDocuments(documents);
+
+      final Set<String> existingDocumentIds = documents.stream().map(Document::getId).collect(Collectors.toSet());
+      final List<DataDocument> newData = new ArrayList<>();
+      dataToUpdate.forEach((documentId, data) -> {
+         if (existingDocumentIds.contains(documentId)) {
+            codec.encodeInPlace(data).setId(documentId);
+            newData.add(data);
+         } else {
+            dataToCreate.add(data);
+         }
+      });
+
+      // imported rows replace the whole data of the documents
+      if (!newData.isEmpty()) {
+         daoContextSnapshot.getDataDao().deleteData(collection.getId(), existingDocumentIds);
+         daoContextSnapshot.getDataDao().createData(collection.getId(), newData);
+      }
+
+      return newData.size();
+   }
+
+   private Map<String, Deque<String>> getDocumentIdsByKey(final ConstraintManager.DataCodec codec) {
+      if (mergeAttribute == null) {
+         return Collections.emptyMap();
+      }
+
+      final Map<String, Deque<String>> documentIds = new HashMap<>();
+      try (Stream<DataDocument> data = daoContextSnapshot.getDataDao().getDataStream(collection.getId(), Set.of(mergeAttribute.getId()))) {
+         data.forEach(dataDocument -> {
+            final Object value = codec.decodeInPlace(dataDocument).get(mergeAttribute.getId());
+            documentIds.computeIfAbsent(value != null ? value.toString() : "", key -> new ArrayDeque<>()).add(dataDocument.getId());
+         });
+      }
+
+      return documentIds;
+   }
+
+   private String findMergeDocumentId(final DataDocument data, final Map<String, Deque<String>> mergeDocumentIds) {
+      if (mergeAttribute == null) {
+         return null;
+      }
+
+      final String mergeKey = data.getString(mergeAttribute.getId());
+      final Deque<String> documentIds = mergeDocumentIds.get(mergeKey != null ? mergeKey : "");
+
+      return documentIds != null ? documentIds.poll() : null;
+   }
+
+   private DataDocument createDataFromRow(final String[] row, final int[] counts) {
+      final DataDocument data = new DataDocument();
+
+      for (int i = 0; i < Math.min(headerIds.length, row.length); i++) {
+         if (row[i] != null) {
+            data.append(headerIds[i], TRANSLATOR.translate(row[i]));
+            counts[i]++;
+         }
+      }
+
+      return data;
+   }
+
+   private void updateCollectionMetadata(final int[] counts, final long createdDocuments) {
+      final Collection storedCollection = daoContextSnapshot.getCollectionDao().getCollectionById(collection.getId());
+      final Collection originalCollection = storedCollection.copy();
+      final List<String> headerIdsList = Arrays.asList(headerIds);
+      storedCollection.getAttributes().forEach(attribute -> {
+         int index = headerIdsList.indexOf(attribute.getId());
+         if (index != -1) {
+            attribute.setUsageCount(counts[index]);
+         }
+      });
+      storedCollection.setDocumentsCount(originalCollection.getDocumentsCount() + createdDocuments);
+      storedCollection.setLastTimeUsed(ZonedDateTime.now());
+
+      collection = daoContextSnapshot.getCollectionDao().updateCollection(storedCollection.getId(), storedCollection, originalCollection);
+
+      sendPushNotifications(collection, PusherFacade.IMPORT_EVENT_SUFFIX);
+   }
+
+   private void deleteSourceFile() {
+      if (sourceFile != null) {
+         try {
+            Files.deleteIfExists(sourceFile);
+         } catch (IOException e) {
+            log.log(Level.WARNING, String.format("Unable to delete imported file %s: ", sourceFile), e);
+         }
+      }
+   }
+}
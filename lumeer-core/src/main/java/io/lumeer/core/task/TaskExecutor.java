@@ -19,6 +19,7 @@
 package io.lumeer.core.task;
 
 import io.lumeer.core.task.executor.ChangesTracker;
+import io.lumeer.core.util.MailOutbox;
 
 import jakarta.enterprise.concurrent.ManagedExecutorService;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -33,6 +34,9 @@ public class TaskExecutor {
    @Inject
    private ManagedExecutorService executorService;
 
+   @Inject
+   private MailOutbox mailOutbox;
+
    public void submitTask(final Task task) {
       executorService.submit(() -> {
          final ChangesTracker changesTracker = new ChangesTracker();
@@ -40,4 +44,12 @@ public class TaskExecutor {
          task.processChanges(changesTracker);
       });
    }
+
+   public ManagedExecutorService getExecutorService() {
+      return executorService;
+   }
+
+   public MailOutbox getMailOutbox() {
+      return mailOutbox;
+   }
 }
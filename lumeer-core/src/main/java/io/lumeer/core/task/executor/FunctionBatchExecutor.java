@@ -0,0 +1,155 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor;
+
+import io.lumeer.core.task.FunctionTask;
+import io.lumeer.core.task.TaskExecutor;
+import io.lumeer.core.task.executor.operation.Operation;
+import io.lumeer.core.task.executor.operation.OperationExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Evaluates a function for many documents or link instances at once. The function is evaluated in chunks which are shared
+ * between the calling thread and helpers submitted to the executor, the resulting operations of all the evaluations
+ * are then committed by a single {@link OperationExecutor}.
+ *
+ * Helpers only take chunks nobody has started yet, so the calling thread never waits for a helper which was not scheduled.
+ */
+public class FunctionBatchExecutor {
+
+   private static final Logger log = Logger.getLogger(FunctionBatchExecutor.class.getName());
+
+   static final int CHUNK_SIZE = 100;
+   private static final int MAX_HELPERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+   private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
+   private final FunctionTask task;
+   private final List<FunctionTaskExecutor> executors;
+
+   public FunctionBatchExecutor(final FunctionTask task, final List<FunctionTaskExecutor> executors) {
+      this.task = task;
+      this.executors = executors;
+   }
+
+   /**
+    * Evaluates all the executors and commits their results.
+    *
+    * @param taskExecutor
+    *       task executor used to commit the operations, its executor service (if any) runs the helpers
+    * @param progressListener
+    *       receives the number of already evaluated executors
+    * @return changes made by the function
+    */
+   public ChangesTracker execute(final TaskExecutor taskExecutor, final IntConsumer progressListener) {
+      final List<List<Operation<?>>> results = evaluate(taskExecutor != null ? taskExecutor.getExecutorService() : null, progressListener);
+
+      final List<Operation<?>> operations = new ArrayList<>();
+      results.stream().filter(Objects::nonNull).forEach(operations::addAll);
+
+      final ChangesTracker changesTracker = new OperationExecutor(taskExecutor, task, operations).call();
+
+      final Optional<FunctionTaskExecutor> failed = executors.stream().filter(FunctionTaskExecutor::hasFailed).findFirst();
+      if (failed.isPresent()) {
+         changesTracker.merge(failed.get().writeTaskError());
+      } else if (executors.size() > 0) {
+         executors.get(0).checkErrorErasure();
+      }
+
+      return changesTracker;
+   }
+
+   List<List<Operation<?>>> evaluate(final Executor executor, final IntConsumer progressListener) {
+      final int chunks = (executors.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+      final List<List<Operation<?>>> results = new ArrayList<>(executors.size());
+      executors.forEach(e -> results.add(null));
+
+      final ConcurrentLinkedQueue<Integer> pendingChunks = new ConcurrentLinkedQueue<>();
+      for (int i = 0; i < chunks; i++) {
+         pendingChunks.add(i);
+      }
+      final CountDownLatch finishedChunks = new CountDownLatch(chunks);
+      final AtomicInteger evaluated = new AtomicInteger();
+      final AtomicLong lastProgress = new AtomicLong(System.currentTimeMillis());
+
+      final Runnable worker = () -> {
+         Integer chunk;
+         while ((chunk = pendingChunks.poll()) != null) {
+            try {
+               final int from = chunk * CHUNK_SIZE;
+               final int to = Math.min(from + CHUNK_SIZE, executors.size());
+               for (int i = from; i < to; i++) {
+                  results.set(i, executors.get(i).evaluate());
+               }
+               reportProgress(progressListener, evaluated.addAndGet(to - from), lastProgress);
+            } finally {
+               finishedChunks.countDown();
+            }
+         }
+      };
+
+      if (executor != null) {
+         for (int i = 0; i < Math.min(MAX_HELPERS, chunks - 1); i++) {
+            try {
+               executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+               break;
+            }
+         }
+      }
+      worker.run();
+
+      try {
+         finishedChunks.await();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while evaluating functions: ", e);
+      }
+
+      return results;
+   }
+
+   private void reportProgress(final IntConsumer progressListener, final int evaluated, final AtomicLong lastProgress) {
+      if (progressListener == null) {
+         return;
+      }
+
+      final long now = System.currentTimeMillis();
+      final long last = lastProgress.get();
+      if (evaluated == executors.size() || (now - last >= PROGRESS_INTERVAL_MILLIS && lastProgress.compareAndSet(last, now))) {
+         try {
+            progressListener.accept(evaluated);
+         } catch (Exception e) {
+            log.log(Level.FINE, "Unable to report function progress: ", e);
+         }
+      }
+   }
+}
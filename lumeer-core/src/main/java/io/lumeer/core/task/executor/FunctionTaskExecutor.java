@@ -26,7 +26,11 @@ import io.lumeer.core.task.FunctionTask;
 import io.lumeer.core.task.TaskExecutor;
 import io.lumeer.core.task.executor.bridge.DocumentBridge;
 import io.lumeer.core.task.executor.bridge.LinkBridge;
+import io.lumeer.core.task.executor.operation.DocumentOperation;
+import io.lumeer.core.task.executor.operation.LinkOperation;
+import io.lumeer.core.task.executor.operation.Operation;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
@@ -42,6 +46,8 @@ public class FunctionTaskExecutor {
    private final LinkType linkType;
    private final LinkInstance linkInstance;
    private ChangesTracker changesTracker;
+   private Exception error;
+   private Exception errorCause;
 
    public FunctionTaskExecutor(final FunctionTask functionTask, final Collection collection, final Document document) {
       this.task = functionTask;
@@ -59,16 +65,51 @@ public class FunctionTaskExecutor {
       this.linkType = linkType;
    }
 
-   public ChangesTracker execute(final TaskExecutor taskExecutor) {
-      changesTracker = new ChangesTracker();
+   private Map<String, Object> getBindings() {
       final DocumentBridge thisDocument = new DocumentBridge(document);
       final LinkBridge thisLink = new LinkBridge(linkInstance);
-      final Map<String, Object> bindings = linkInstance == null ? Map.of("thisRecord", thisDocument, "thisDocument", thisDocument) : Map.of("thisLink", thisLink);
+      return linkInstance == null ? Map.of("thisRecord", thisDocument, "thisDocument", thisDocument) : Map.of("thisLink", thisLink);
+   }
+
+   /**
+    * Evaluates the function without committing its results, so that they can be committed together with results of other executors.
+    *
+    * @return operations produced by the function or an operation setting the error value when the evaluation failed
+    */
+   List<Operation<?>> evaluate() {
+      changesTracker = new ChangesTracker();
+      final JsExecutor jsExecutor = new JsExecutor();
+
+      try {
+         jsExecutor.execute(getBindings(), task, task.getFunction().getJs());
+         return jsExecutor.getOperations();
+      } catch (Exception e) {
+         log.log(Level.WARNING, "Unable to execute function: ", e);
+         error = e;
+         errorCause = jsExecutor.getCause();
+         final String attributeId = task.getAttribute().getId();
+         return List.of(document != null ? new DocumentOperation(document, attributeId, JsExecutor.ERROR_VALUE) : new LinkOperation(linkInstance, attributeId, JsExecutor.ERROR_VALUE));
+      }
+   }
+
+   boolean hasFailed() {
+      return error != null;
+   }
 
+   /**
+    * Stores the error of the last evaluation in the function.
+    */
+   ChangesTracker writeTaskError() {
+      writeTaskError(error, errorCause);
+      return changesTracker;
+   }
+
+   public ChangesTracker execute(final TaskExecutor taskExecutor) {
+      changesTracker = new ChangesTracker();
       final JsExecutor jsExecutor = new JsExecutor();
 
       try {
-         jsExecutor.execute(bindings, task, task.getFunction().getJs());
+         jsExecutor.execute(getBindings(), task, task.getFunction().getJs());
          final ChangesTracker tracker = jsExecutor.commitOperations(taskExecutor);
          checkErrorErasure();
 
@@ -82,7 +123,7 @@ public class FunctionTaskExecutor {
       return null;
    }
 
-   private void checkErrorErasure() {
+   void checkErrorErasure() {
       if (task.getFunction().getTimestamp() > 0 && System.currentTimeMillis() - task.getFunction().getTimestamp() > 3600_000) {
          task.getFunction().setErrorReport("");
          task.getFunction().setTimestamp(0L);
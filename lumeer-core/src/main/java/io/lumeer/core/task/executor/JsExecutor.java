@@ -19,41 +19,83 @@
 package io.lumeer.core.task.executor;
 
 import io.lumeer.api.model.Document;
-import io.lumeer.core.js.JsEngineFactory;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.core.js.JsAutomationRuntime;
+import io.lumeer.core.js.JsAutomationRuntimeStats;
 import io.lumeer.core.task.ContextualTask;
 import io.lumeer.core.task.TaskExecutor;
 import io.lumeer.core.task.executor.bridge.LumeerBridge;
 import io.lumeer.core.task.executor.operation.DocumentOperation;
+import io.lumeer.core.task.executor.operation.Operation;
 import io.lumeer.core.task.executor.operation.OperationExecutor;
 import io.lumeer.core.util.JsFunctionsParser;
 
-import org.graalvm.polyglot.Context;
-import org.graalvm.polyglot.Engine;
+import org.apache.commons.lang3.math.NumberUtils;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class JsExecutor {
 
-   private static final String MOMENT_JS_SIGNATURE = "/** MomentJs **/";
-   private static final String HE_JS_SIGNATURE = "/** he.js **/";
-   private static final String NUMBRO_JS_SIGNATURE = "/** numbro.js **/";
+   private static final Logger log = Logger.getLogger(JsExecutor.class.getName());
+
+   public static final String ERROR_VALUE = "ERR!";
+   private static final String LUMEER_BRIDGE = "lumeer";
 
    private LumeerBridge lumeerBridge;
    private ContextualTask task;
    private boolean dryRun = false;
-   private static final Engine engine = JsEngineFactory.getEngine();
-   private static final String momentJsCode = JsFunctionsParser.getMomentJsCode();
-   private static final String heJsCode = JsFunctionsParser.getHeJsCode();
-   private static final String numbroJsCode = JsFunctionsParser.getNumbroJsCode();
 
-   private String getJsLib() {
+   private static final String RESET_JS = "if (typeof moment !== 'undefined') { moment.locale('en'); } if (typeof numbro !== 'undefined') { numbro.setLanguage('en-US'); }";
+
+   private static final DefaultConfigurationProducer configurationProducer = new DefaultConfigurationProducer();
+   private static final int POOL_SIZE = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.JS_AUTOMATIONS_POOL_SIZE), Runtime.getRuntime().availableProcessors());
+   private static final int MAX_USES = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.JS_AUTOMATIONS_MAX_USES), 500);
+   private static final long WAIT_TIMEOUT = NumberUtils.toLong(configurationProducer.get(DefaultConfigurationProducer.JS_AUTOMATIONS_WAIT_TIMEOUT), 60_000L);
+   private static final int MAX_ORGANIZATIONS = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.JS_AUTOMATIONS_ORGANIZATIONS), 32);
+
+   private static final String jsLib = getJsLib();
+
+   // contexts are never shared by organizations, runtimes of the least recently active organizations are closed
+   private static final Map<String, JsAutomationRuntime> runtimes = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, JsAutomationRuntime> eldest) {
+         if (size() > MAX_ORGANIZATIONS) {
+            eldest.getValue().close();
+            return true;
+         }
+         return false;
+      }
+   };
+
+   private static String getJsLib() {
       return "function lumeer_numbro(locale, decimals, num) { numbro.setLanguage(locale); return numbro(num).formatCurrency({mantissa: decimals, thousandSeparated: true}); } "
             + "function lumeer_isEmpty(v) {\n"
             + "  return (v === null || v === undefined || v === '' || (Array.isArray(v) && (v.length === 0 || (v.length === 1 && lumeer_isEmpty(v[0])))) || (typeof v === 'object' && !!v && Object.keys(v).length === 0 && v.constructor === Object));\n"
-            + "}\n";
+            + "}\n"
+            + Objects.toString(JsFunctionsParser.getHeJsCode(), "") + ";\n"
+            + Objects.toString(JsFunctionsParser.getNumbroJsCode(), "") + ";\n"
+            + Objects.toString(JsFunctionsParser.getMomentJsCode(), "") + ";\n";
+   }
+
+   public static Map<String, JsAutomationRuntimeStats> getRuntimeStats() {
+      synchronized (runtimes) {
+         final Map<String, JsAutomationRuntimeStats> stats = new HashMap<>();
+         runtimes.forEach((organizationId, runtime) -> stats.put(organizationId, runtime.getStats()));
+         return stats;
+      }
+   }
+
+   static JsAutomationRuntime getRuntime(final String organizationId) {
+      synchronized (runtimes) {
+         return runtimes.computeIfAbsent(Objects.toString(organizationId, ""), id ->
+               new JsAutomationRuntime("automations-" + id, POOL_SIZE, MAX_USES, WAIT_TIMEOUT, jsLib, RESET_JS));
+      }
    }
 
    public void execute(final Map<String, Object> bindings, final ContextualTask task, final String js) {
@@ -61,30 +103,14 @@ public class JsExecutor {
       lumeerBridge = new LumeerBridge(task);
       lumeerBridge.setDryRun(dryRun);
 
-      Context context = Context
-            .newBuilder("js")
-            .engine(engine)
-            .allowAllAccess(true)
-            .build();
-      context.initialize("js");
-      context.getPolyglotBindings().putMember("lumeer", lumeerBridge);
-
-      bindings.forEach((k, v) -> context.getBindings("js").putMember(k, v));
-
-      Timer timer = new Timer(true);
-      timer.schedule(new TimerTask() {
-         @Override
-         public void run() {
-            context.close(true);
+      try {
+         getRuntime(task.getDaoContextSnapshot().getOrganizationId()).execute(bindings, Map.of(LUMEER_BRIDGE, lumeerBridge), js, lumeerBridge.getAutomationTimeout());
+      } finally {
+         if (log.isLoggable(Level.FINE)) {
+            log.fine(String.format("Automation run read %d resources from cache and made %d database reads.",
+                  lumeerBridge.getReadCache().getHits(), lumeerBridge.getReadCache().getReads()));
          }
-      }, lumeerBridge.getAutomationTimeout());
-
-      final String jsCode = getJsLib() +
-            (js.contains(HE_JS_SIGNATURE) ? heJsCode : "") +
-            (js.contains(NUMBRO_JS_SIGNATURE) ? numbroJsCode : "") +
-            (js.contains(JsFunctionsParser.FORMAT_JS_DATE) || js.contains(JsFunctionsParser.PARSE_JS_DATE) || js.contains(MOMENT_JS_SIGNATURE) ? momentJsCode + ";\n" : "") + js;
-
-      context.eval("js", jsCode);
+      }
    }
 
    public ChangesTracker commitOperations(final TaskExecutor taskExecutor) {
@@ -96,12 +122,16 @@ public class JsExecutor {
       return lumeerBridge.commitDryRunOperations(taskExecutor);
    }
 
+   public List<Operation<?>> getOperations() {
+      return lumeerBridge.getOperations();
+   }
+
    public String getOperationsDescription() {
       return lumeerBridge.getOperationsDescription();
    }
 
    public void setErrorInAttribute(final Document document, final String attributeId, final TaskExecutor taskExecutor) {
-      final OperationExecutor operationExecutor = new OperationExecutor(taskExecutor, task, List.of(new DocumentOperation(document, attributeId, "ERR!")));
+      final OperationExecutor operationExecutor = new OperationExecutor(taskExecutor, task, List.of(new DocumentOperation(document, attributeId, ERROR_VALUE)));
       operationExecutor.call();
    }
 
@@ -0,0 +1,436 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor.bridge;
+
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Document;
+import io.lumeer.api.model.LinkInstance;
+import io.lumeer.api.model.LinkType;
+import io.lumeer.core.constraint.ConstraintManager;
+import io.lumeer.core.util.DocumentUtils;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
+import io.lumeer.storage.api.query.SearchQuery;
+import io.lumeer.storage.api.query.SearchQueryStem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Identity map and read-through cache of the resources read by a single automation run. Every document and link instance
+ * is loaded at most once and the scripts then work with the very same instances, so the attribute changes they make are
+ * visible in all subsequent reads. Changes of resources that were not loaded through the cache are remembered and applied
+ * once the resources are loaded. Documents and links created or removed by the run are reflected in the cached children
+ * and links, although the operations are not committed yet.
+ * A run is evaluated by a single thread, so the cache is not thread-safe.
+ */
+public class BridgeReadCache {
+
+   private final DaoContextSnapshot dao;
+   private final ConstraintManager constraintManager;
+
+   private final Map<String, Collection> collections = new HashMap<>();
+   private final Map<String, LinkType> linkTypes = new HashMap<>();
+   private final Map<String, Document> documents = new HashMap<>();
+   private final Map<String, List<String>> childDocumentIds = new HashMap<>();
+   private final Map<String, LinkInstance> linkInstances = new HashMap<>();
+   private final Map<DocumentLinksKey, List<String>> documentLinkIds = new HashMap<>();
+   private final Set<String> linkInstancesWithData = new HashSet<>();
+   private final Map<String, DataDocument> pendingDocumentChanges = new HashMap<>();
+   private final Map<String, DataDocument> pendingLinkChanges = new HashMap<>();
+   private final Set<String> createdDocumentIds = new HashSet<>();
+   private final Set<String> removedDocumentIds = new HashSet<>();
+   private final List<LinkInstance> createdLinks = new ArrayList<>();
+   private final Set<String> removedLinkIds = new HashSet<>();
+
+   private long hits = 0;
+   private long reads = 0;
+
+   public BridgeReadCache(final DaoContextSnapshot dao, final ConstraintManager constraintManager) {
+      this.dao = dao;
+      this.constraintManager = constraintManager;
+   }
+
+   public Collection getCollection(final String collectionId) {
+      final Collection cached = collections.get(collectionId);
+      if (cached != null) {
+         hits++;
+         return cached;
+      }
+
+      reads++;
+      final Collection collection = dao.getCollectionDao().getCollectionById(collectionId);
+      if (collection != null) {
+         collections.put(collectionId, collection);
+      }
+
+      return collection;
+   }
+
+   public LinkType getLinkType(final String linkTypeId) {
+      final LinkType cached = linkTypes.get(linkTypeId);
+      if (cached != null) {
+         hits++;
+         return cached;
+      }
+
+      reads++;
+      final LinkType linkType = dao.getLinkTypeDao().getLinkType(linkTypeId);
+      if (linkType != null) {
+         linkTypes.put(linkTypeId, linkType);
+      }
+
+      return linkType;
+   }
+
+   /**
+    * Gets documents with their data encoded for functions.
+    *
+    * @param collection  collection the documents belong to.
+    * @param documentIds ids of the documents.
+    * @return the documents that exist.
+    */
+   public List<Document> getDocuments(final Collection collection, final Set<String> documentIds) {
+      final Set<String> missingIds = documentIds.stream().filter(id -> !documents.containsKey(id) && !removedDocumentIds.contains(id)).collect(Collectors.toSet());
+      hits += documentIds.size() - missingIds.size();
+
+      final Map<String, Document> loaded = new HashMap<>();
+      if (!missingIds.isEmpty()) {
+         reads++;
+         final List<Document> storedDocuments = dao.getDocumentDao().getDocumentsByIds(missingIds);
+         if (!storedDocuments.isEmpty()) {
+            reads++;
+            DocumentUtils.loadDocumentsData(dao, collection, storedDocuments, constraintManager, true)
+                         .forEach(document -> loaded.put(document.getId(), register(collection, document)));
+         }
+      }
+
+      final List<Document> result = new ArrayList<>(documentIds.size());
+      documentIds.forEach(id -> {
+         final Document document = documents.containsKey(id) ? documents.get(id) : loaded.get(id);
+         if (document != null && !removedDocumentIds.contains(id)) {
+            result.add(document);
+         }
+      });
+
+      return result;
+   }
+
+   /**
+    * Gets child documents with their data encoded for functions.
+    *
+    * @param collection collection the documents belong to.
+    * @param parentId   id of the parent document.
+    * @return the child documents.
+    */
+   public List<Document> getChildDocuments(final Collection collection, final String parentId) {
+      final List<String> cachedIds = childDocumentIds.get(parentId);
+      if (cachedIds != null) {
+         hits++;
+         return getDocuments(collection, new LinkedHashSet<>(cachedIds));
+      }
+
+      reads++;
+      final List<Document> children = dao.getDocumentDao().getDocumentsByParentId(parentId).stream()
+                                         .filter(document -> !removedDocumentIds.contains(document.getId()))
+                                         .collect(Collectors.toList());
+      childDocumentIds.put(parentId, children.stream().map(Document::getId).collect(Collectors.toList()));
+
+      final List<Document> missing = children.stream().filter(document -> !documents.containsKey(document.getId())).collect(Collectors.toList());
+      hits += children.size() - missing.size();
+      if (!missing.isEmpty()) {
+         reads++;
+         DocumentUtils.loadDocumentsData(dao, collection, missing, constraintManager, true).forEach(document -> register(collection, document));
+      }
+
+      return children.stream().map(document -> documents.getOrDefault(document.getId(), document)).collect(Collectors.toList());
+   }
+
+   /**
+    * Gets a document of the given link instance.
+    *
+    * @param linkInstance the link instance.
+    * @param collectionId collection of the requested document.
+    * @return the document with its data encoded for functions or null when the link is not complete.
+    */
+   public Document getLinkDocument(final LinkInstance linkInstance, final String collectionId) {
+      final List<String> documentIds = linkInstance.getDocumentIds();
+      if (documentIds.stream().anyMatch(removedDocumentIds::contains)) {
+         hits++;
+         return null;
+      }
+
+      final Document cached = documentIds.stream().map(documents::get).filter(document -> document != null && collectionId.equals(document.getCollectionId())).findFirst().orElse(null);
+      if (cached != null) {
+         hits++;
+         return cached;
+      }
+
+      reads++;
+      final List<Document> linkedDocuments = dao.getDocumentDao().getDocumentsByIds(documentIds.toArray(new String[0]));
+      if (linkedDocuments.size() == 2) {
+         final Document document = linkedDocuments.get(0).getCollectionId().equals(collectionId) ? linkedDocuments.get(0) : linkedDocuments.get(1);
+
+         final Collection collection = getCollection(collectionId);
+         reads++;
+         document.setData(constraintManager.encodeDataTypesForFce(collection, dao.getDataDao().getData(document.getCollectionId(), document.getId())));
+
+         return register(collection, document);
+      }
+
+      return null;
+   }
+
+   /**
+    * Gets link instances of the given documents. The data of the instances are encoded for functions only when
+    * they were not loaded by {@link #loadLinkData(String, List)} yet.
+    *
+    * @param documentIds ids of the documents.
+    * @param linkTypeId  the link type.
+    * @return link instances connected to any of the documents.
+    */
+   public List<LinkInstance> getLinkInstances(final Set<String> documentIds, final String linkTypeId) {
+      final Set<String> missingIds = documentIds.stream().filter(id -> !documentLinkIds.containsKey(new DocumentLinksKey(id, linkTypeId))).collect(Collectors.toSet());
+      hits += documentIds.size() - missingIds.size();
+
+      missingIds.forEach(id -> documentLinkIds.put(new DocumentLinksKey(id, linkTypeId), new ArrayList<>()));
+
+      // documents created by the run have no stored links
+      final Set<String> storedIds = missingIds.stream().filter(id -> !createdDocumentIds.contains(id)).collect(Collectors.toSet());
+      if (!storedIds.isEmpty()) {
+         final SearchQuery query = SearchQuery
+               .createBuilder()
+               .stems(Collections.singletonList(
+                     SearchQueryStem
+                           .createBuilder("")
+                           .linkTypeIds(Collections.singletonList(linkTypeId))
+                           .documentIds(storedIds)
+                           .build()))
+               .build();
+
+         reads++;
+         final List<LinkInstance> loaded = dao.getLinkInstanceDao().searchLinkInstances(query).stream()
+                                              .filter(linkInstance -> !isRemoved(linkInstance))
+                                              .collect(Collectors.toList());
+         final LinkType linkType = loaded.isEmpty() ? null : getLinkType(linkTypeId);
+
+         loaded.forEach(linkInstance -> {
+            final LinkInstance registered = linkInstances.computeIfAbsent(linkInstance.getId(), id -> {
+               linkInstance.setData(constraintManager.encodeDataTypesForFce(linkType, linkInstance.getData()));
+               applyPendingChanges(linkInstance);
+               return linkInstance;
+            });
+            addDocumentLink(registered, storedIds);
+         });
+      }
+
+      if (!missingIds.isEmpty()) {
+         createdLinks.stream()
+                     .filter(linkInstance -> linkTypeId.equals(linkInstance.getLinkTypeId()) && !isRemoved(linkInstance))
+                     .forEach(linkInstance -> addDocumentLink(linkInstance, missingIds));
+      }
+
+      final Map<String, LinkInstance> result = new LinkedHashMap<>();
+      documentIds.forEach(id -> documentLinkIds.get(new DocumentLinksKey(id, linkTypeId)).forEach(linkId -> result.putIfAbsent(linkId, linkInstances.get(linkId))));
+
+      return new ArrayList<>(result.values());
+   }
+
+   /**
+    * Replaces the data of link instances by their stored data, only once per instance.
+    *
+    * @param linkTypeId    link type of the instances.
+    * @param linkInstances link instances obtained from {@link #getLinkInstances(Set, String)}.
+    */
+   public void loadLinkData(final String linkTypeId, final List<LinkInstance> linkInstances) {
+      final Set<String> missingIds = linkInstances.stream().map(BridgeReadCache::linkKey).filter(id -> !linkInstancesWithData.contains(id)).collect(Collectors.toSet());
+      hits += linkInstances.size() - missingIds.size();
+
+      if (!missingIds.isEmpty()) {
+         reads++;
+         final Map<String, DataDocument> linkData = dao.getLinkDataDao().getData(linkTypeId, missingIds).stream()
+                                                        .collect(Collectors.toMap(DataDocument::getId, data -> data));
+
+         linkInstances.stream().filter(linkInstance -> missingIds.contains(linkInstance.getId())).forEach(linkInstance -> {
+            linkInstance.setData(linkData.get(linkInstance.getId()));
+            applyPendingChanges(linkInstance);
+         });
+         linkInstancesWithData.addAll(missingIds);
+      }
+   }
+
+   /**
+    * Records a pending change of a document attribute so that all instances of the document read during the run see it.
+    */
+   public void documentChanged(final Document document, final String attrId, final Object value) {
+      if (document == null || document.getId() == null) {
+         return;
+      }
+
+      pendingDocumentChanges.computeIfAbsent(document.getId(), id -> new DataDocument()).append(attrId, value);
+
+      final Document cached = documents.get(document.getId());
+      if (cached != null && cached != document) {
+         cached.setData(appendValue(cached.getData(), attrId, value));
+      }
+   }
+
+   /**
+    * Records a pending change of a link attribute so that all instances of the link read during the run see it.
+    */
+   public void linkChanged(final LinkInstance linkInstance, final String attrId, final Object value) {
+      if (linkInstance == null || linkInstance.getId() == null) {
+         return;
+      }
+
+      pendingLinkChanges.computeIfAbsent(linkInstance.getId(), id -> new DataDocument()).append(attrId, value);
+
+      final LinkInstance cached = linkInstances.get(linkInstance.getId());
+      if (cached != null) {
+         cached.setData(appendValue(cached.getData(), attrId, value));
+      }
+   }
+
+   /**
+    * Registers a document created by the run, so it can be found by its correlation id.
+    */
+   public void documentCreated(final Document document) {
+      final String id = documentKey(document);
+      createdDocumentIds.add(id);
+      documents.put(id, document);
+      childDocumentIds.put(id, new ArrayList<>());
+   }
+
+   /**
+    * Excludes a document removed by the run and its links from all subsequent reads.
+    */
+   public void documentRemoved(final Document document) {
+      final String id = documentKey(document);
+      removedDocumentIds.add(id);
+      documents.remove(id);
+      childDocumentIds.values().forEach(ids -> ids.remove(id));
+      documentLinkIds.values().forEach(ids -> ids.removeIf(linkId -> linkInstances.get(linkId).getDocumentIds().contains(id)));
+   }
+
+   /**
+    * Adds a link created by the run to the links of both its documents.
+    */
+   public void linkCreated(final LinkInstance linkInstance) {
+      final String id = linkKey(linkInstance);
+      linkInstances.put(id, linkInstance);
+      linkInstancesWithData.add(id);
+      createdLinks.add(linkInstance);
+      linkInstance.getDocumentIds().stream().distinct().forEach(documentId -> {
+         final List<String> ids = documentLinkIds.get(new DocumentLinksKey(documentId, linkInstance.getLinkTypeId()));
+         if (ids != null) {
+            ids.add(id);
+         }
+      });
+   }
+
+   /**
+    * Excludes a link removed by the run from all subsequent reads.
+    */
+   public void linkRemoved(final LinkInstance linkInstance) {
+      final String id = linkKey(linkInstance);
+      removedLinkIds.add(id);
+      documentLinkIds.values().forEach(ids -> ids.remove(id));
+   }
+
+   public long getHits() {
+      return hits;
+   }
+
+   public long getReads() {
+      return reads;
+   }
+
+   private Document register(final Collection collection, final Document document) {
+      final Document cached = documents.get(document.getId());
+      if (cached != null) {
+         return cached;
+      }
+
+      final DataDocument pending = pendingDocumentChanges.get(document.getId());
+      if (pending != null) {
+         pending.forEach((attrId, value) -> document.setData(appendValue(document.getData(), attrId, value)));
+      }
+
+      // documents loaded through a foreign collection have no data, they cannot be reused
+      if (collection != null && collection.getId().equals(document.getCollectionId())) {
+         documents.put(document.getId(), document);
+      }
+
+      return document;
+   }
+
+   private void addDocumentLink(final LinkInstance linkInstance, final Set<String> documentIds) {
+      linkInstance.getDocumentIds().stream()
+                  .distinct()
+                  .filter(documentIds::contains)
+                  .forEach(id -> documentLinkIds.get(new DocumentLinksKey(id, linkInstance.getLinkTypeId())).add(linkKey(linkInstance)));
+   }
+
+   private boolean isRemoved(final LinkInstance linkInstance) {
+      return removedLinkIds.contains(linkKey(linkInstance)) || linkInstance.getDocumentIds().stream().anyMatch(removedDocumentIds::contains);
+   }
+
+   /**
+    * Documents created by the run have no id yet, they are referenced by their correlation id.
+    */
+   static String documentKey(final Document document) {
+      return document.getId() != null ? document.getId() : document.createIfAbsentMetaData().getString(Document.META_CORRELATION_ID);
+   }
+
+   private static String linkKey(final LinkInstance linkInstance) {
+      return linkInstance.getId() != null ? linkInstance.getId() : linkInstance.getTemplateId();
+   }
+
+   private void applyPendingChanges(final LinkInstance linkInstance) {
+      final DataDocument pending = pendingLinkChanges.get(linkInstance.getId());
+      if (pending != null) {
+         pending.forEach((attrId, value) -> linkInstance.setData(appendValue(linkInstance.getData(), attrId, value)));
+      }
+   }
+
+   private static DataDocument appendValue(final DataDocument data, final String attrId, final Object value) {
+      return data != null ? data.append(attrId, value) : new DataDocument().append(attrId, value);
+   }
+
+   @Override
+   public String toString() {
+      return "BridgeReadCache{" +
+            "hits=" + hits +
+            ", reads=" + reads +
+            ", documents=" + documents.size() +
+            ", linkInstances=" + linkInstances.size() +
+            '}';
+   }
+
+   private record DocumentLinksKey(String documentId, String linkTypeId) {
+   }
+}
@@ -82,11 +82,9 @@ import io.lumeer.core.task.executor.request.TextPrintRequest;
 import io.lumeer.core.task.executor.request.UserMessageRequest;
 import io.lumeer.core.util.DocumentUtils;
 import io.lumeer.core.util.EmailSecurityType;
+import io.lumeer.core.util.TemplateRegistry;
 import io.lumeer.engine.api.data.DataDocument;
-import io.lumeer.storage.api.query.SearchQuery;
-import io.lumeer.storage.api.query.SearchQueryStem;
 
-import com.floreysoft.jmte.Engine;
 import org.apache.commons.lang3.StringUtils;
 import org.graalvm.polyglot.Value;
 
@@ -117,15 +115,16 @@ public class LumeerBridge {
    private final ContextualTask task;
    private final ServiceLimits serviceLimits;
    private final ChangesTracker changesTracker = new ChangesTracker();
+   private final BridgeReadCache readCache;
    private List<Operation<?>> operations = new ArrayList<>();
    private Exception cause = null;
    private boolean dryRun = false;
    private boolean printed = false;
 
-   private Engine templateEngine = null;
 
    public LumeerBridge(final ContextualTask task) {
       this.task = task;
+      this.readCache = new BridgeReadCache(task.getDaoContextSnapshot(), constraintManager);
       PaymentAdapter paymentAdapter = new PaymentAdapter(task.getDaoContextSnapshot().getPaymentDao(), null);
       serviceLimits = paymentAdapter.computeServiceLimits(task.getDaoContextSnapshot().getOrganization(), false);
    }
@@ -229,8 +228,8 @@ public class LumeerBridge {
             }
          }
 
-         final Collection fromCollection = task.getDaoContextSnapshot().getCollectionDao().getCollectionById(from.getDocument().getCollectionId());
-         final Collection toCollection = from.getDocument().getCollectionId().equals(to.getDocument().getCollectionId()) ? fromCollection : task.getDaoContextSnapshot().getCollectionDao().getCollectionById(to.getDocument().getCollectionId());
+         final Collection fromCollection = readCache.getCollection(from.getDocument().getCollectionId());
+         final Collection toCollection = readCache.getCollection(to.getDocument().getCollectionId());
          final Map<String, String> attributesToCopy = new HashMap<>();
 
          fromCollection.getAttributes()
@@ -262,6 +261,7 @@ public class LumeerBridge {
             d.setData(new DataDocument());
 
             operations.add(new DocumentCreationOperation(d));
+            readCache.documentCreated(d);
 
             return new DocumentBridge(d);
          } catch (Exception e) {
@@ -279,8 +279,8 @@ public class LumeerBridge {
          final String parentId = sourceDocument.getDocument().createIfAbsentMetaData().getString(Document.META_PARENT_ID);
 
          if (StringUtils.isNotEmpty(parentId)) {
-            final Collection collection = task.getDaoContextSnapshot().getCollectionDao().getCollectionById(sourceDocument.getDocument().getCollectionId());
-            final List<Document> documents = DocumentUtils.loadDocumentsWithData(task.getDaoContextSnapshot(), collection, Set.of(parentId), constraintManager, true);
+            final Collection collection = readCache.getCollection(sourceDocument.getDocument().getCollectionId());
+            final List<Document> documents = readCache.getDocuments(collection, Set.of(parentId));
 
             if (documents.size() == 1) {
                return new DocumentBridge(documents.get(0));
@@ -298,16 +298,9 @@ public class LumeerBridge {
    public List<DocumentBridge> getChildDocuments(final DocumentBridge sourceDocument) {
       try {
          final String parentId = sourceDocument.getDocument().getId();
-         final List<Document> documents = task.getDaoContextSnapshot().getDocumentDao().getDocumentsByParentId(parentId);
+         final Collection collection = readCache.getCollection(sourceDocument.getDocument().getCollectionId());
 
-         if (!documents.isEmpty()) {
-            final Collection collection = task.getDaoContextSnapshot().getCollectionDao().getCollectionById(sourceDocument.getDocument().getCollectionId());
-            final List<Document> documentsWithData = DocumentUtils.loadDocumentsData(task.getDaoContextSnapshot(), collection, documents, constraintManager, true);
-
-            return documentsWithData.stream().map(DocumentBridge::new).collect(toList());
-         }
-
-         return List.of();
+         return readCache.getChildDocuments(collection, parentId).stream().map(DocumentBridge::new).collect(toList());
       } catch (Exception e) {
          cause = e;
          throw e;
@@ -349,8 +342,8 @@ public class LumeerBridge {
             documentIds.remove(sourceDocumentId);
 
             if (!documentIds.isEmpty()) {
-               final Collection collection = task.getDaoContextSnapshot().getCollectionDao().getCollectionById(sourceDocument.getDocument().getCollectionId());
-               final List<Document> documents = DocumentUtils.loadDocumentsWithData(task.getDaoContextSnapshot(), collection, documentIds, constraintManager, true);
+               final Collection collection = readCache.getCollection(sourceDocument.getDocument().getCollectionId());
+               final List<Document> documents = readCache.getDocuments(collection, documentIds);
 
                return documents.stream().map(DocumentBridge::new).collect(toList());
             }
@@ -417,8 +410,10 @@ public class LumeerBridge {
    @SuppressWarnings("unused")
    public LinkOperation setLinkAttribute(final LinkBridge l, final String attrId, final Value value) {
       try {
-         final LinkOperation operation = new LinkOperation(l.getLink(), attrId, convertValue(value));
+         final Object convertedValue = convertValue(value);
+         final LinkOperation operation = new LinkOperation(l.getLink(), attrId, convertedValue);
          operations.add(operation);
+         readCache.linkChanged(l.getLink(), attrId, convertedValue);
 
          return operation;
       } catch (Exception e) {
@@ -622,15 +617,11 @@ public class LumeerBridge {
    }
 
    @SuppressWarnings("unused")
-   public synchronized String formatTemplate(final String template, final Value replacements, final String splitter) {
+   public String formatTemplate(final String template, final Value replacements, final String splitter) {
       if (replacements == null) {
          return "";
       }
 
-      if (templateEngine == null) {
-         templateEngine = Engine.createEngine();
-      }
-
       final Map<String, Object> patterns = new HashMap<>();
 
       if (replacements.hasArrayElements()) {
@@ -644,7 +635,7 @@ public class LumeerBridge {
       }
 
       try {
-         return templateEngine.transform(template, patterns);
+         return TemplateRegistry.getInstance().getTemplate(template).render(patterns);
       } catch (Exception e) {
          cause = e;
          throw e;
@@ -676,6 +667,7 @@ public class LumeerBridge {
    private DocumentOperation setDocumentAttributeInternal(final DocumentBridge d, final String attrId, final Object value) {
       final DocumentOperation operation = new DocumentOperation(d.getDocument(), attrId, value);
       operations.add(operation);
+      readCache.documentChanged(d.getDocument(), attrId, value);
 
       if (d.getDocument() != null) {
          if (d.getDocument().getData() != null) {
@@ -691,8 +683,10 @@ public class LumeerBridge {
    public void copyDocumentAttributes(final DocumentBridge source, final DocumentBridge target) {
       try {
          source.getDocument().getData().forEach((key, val) -> {
-            if (StringUtils.isNotEmpty(key) && !"_id".equals(key))
-            operations.add(new DocumentOperation(target.getDocument(), key, val));
+            if (StringUtils.isNotEmpty(key) && !"_id".equals(key)) {
+               operations.add(new DocumentOperation(target.getDocument(), key, val));
+               readCache.documentChanged(target.getDocument(), key, val);
+            }
 
             if (target.getDocument() != null) {
                if (target.getDocument().getData() != null) {
@@ -713,6 +707,7 @@ public class LumeerBridge {
       if (task.getDaoContextSnapshot().increaseDeletionCounter() <= getMaxCreatedRecords()) {
          try {
             operations.add(new DocumentRemovalOperation(d.getDocument()));
+            readCache.documentRemoved(d.getDocument());
          } catch (Exception e) {
             cause = e;
             throw e;
@@ -725,6 +720,7 @@ public class LumeerBridge {
       if (task.getDaoContextSnapshot().increaseDeletionCounter() <= getMaxCreatedRecords()) {
          try {
             operations.add(new LinkRemovalOperation(l.getLink()));
+            readCache.linkRemoved(l.getLink());
          } catch (Exception e) {
             cause = e;
             throw e;
@@ -746,7 +742,10 @@ public class LumeerBridge {
 
          documents.stream()
                  .filter(d -> task.getDaoContextSnapshot().increaseDeletionCounter() <= getMaxCreatedRecords())
-                 .forEach(d -> operations.add(new DocumentRemovalOperation(d)));
+                 .forEach(d -> {
+                    operations.add(new DocumentRemovalOperation(d));
+                    readCache.documentRemoved(d);
+                 });
       } catch (Exception e) {
          cause = e;
          throw e;
@@ -765,6 +764,7 @@ public class LumeerBridge {
             link.setData(new DataDocument());
 
             operations.add(new LinkCreationOperation(link));
+            readCache.linkCreated(link);
 
             return new LinkBridge(link);
          } catch (Exception e) {
@@ -898,39 +898,18 @@ public class LumeerBridge {
    }
 
    private List<LinkInstance> getLinkInstances(final Set<String> documentIds, final String linkTypeId) {
-      final SearchQuery query = SearchQuery
-            .createBuilder()
-            .stems(Collections.singletonList(
-                  SearchQueryStem
-                        .createBuilder("")
-                        .linkTypeIds(Collections.singletonList(linkTypeId))
-                        .documentIds(documentIds)
-                        .build()))
-            .build();
-
-      final List<LinkInstance> result = task.getDaoContextSnapshot().getLinkInstanceDao()
-                                            .searchLinkInstances(query);
-      result.forEach(linkInstance ->
-            linkInstance.setData(constraintManager.encodeDataTypesForFce(task.getDaoContextSnapshot().getLinkTypeDao().getLinkType(linkTypeId), linkInstance.getData()))
-      );
-
-      return result;
+      return readCache.getLinkInstances(documentIds, linkTypeId);
    }
 
    public List<LinkBridge> getLinks(DocumentBridge d, String linkTypeId) {
       try {
-         final List<LinkInstance> links = getLinkInstances(d.getDocument().getId(), linkTypeId);
+         final List<LinkInstance> links = getLinkInstances(BridgeReadCache.documentKey(d.getDocument()), linkTypeId);
 
          // load link data
          if (links.size() > 0) {
-            final Map<String, DataDocument> linkData = task.getDaoContextSnapshot().getLinkDataDao().getData(linkTypeId, links.stream().map(LinkInstance::getId).collect(toSet())).stream()
-                                                           .collect(Collectors.toMap(DataDocument::getId, data -> data));
-
-            // match link instances with their data and convert to bridge
-            return links.stream().map(linkInstance -> {
-               linkInstance.setData(linkData.get(linkInstance.getId()));
-               return new LinkBridge(linkInstance);
-            }).collect(toList());
+            readCache.loadLinkData(linkTypeId, links);
+
+            return links.stream().map(LinkBridge::new).collect(toList());
          } else {
             return Collections.emptyList();
          }
@@ -943,18 +922,9 @@ public class LumeerBridge {
    @SuppressWarnings("unused")
    public DocumentBridge getLinkDocument(final LinkBridge l, final String collectionId) {
       try {
-         List<Document> documents = task.getDaoContextSnapshot().getDocumentDao().getDocumentsByIds(l.getLink().getDocumentIds().toArray(new String[0]));
-         if (documents.size() == 2) {
-            final Document doc = documents.get(0).getCollectionId().equals(collectionId) ? documents.get(0) : documents.get(1);
-
-            DataDocument data = task.getDaoContextSnapshot().getDataDao().getData(doc.getCollectionId(), doc.getId());
-            data = constraintManager.encodeDataTypesForFce(task.getDaoContextSnapshot().getCollectionDao().getCollectionById(collectionId), data);
-            doc.setData(data);
-
-            return new DocumentBridge(doc);
-         }
+         final Document document = readCache.getLinkDocument(l.getLink(), collectionId);
 
-         return null;
+         return document != null ? new DocumentBridge(document) : null;
       } catch (Exception e) {
          cause = e;
          throw e;
@@ -1016,8 +986,9 @@ public class LumeerBridge {
 
    public List<DocumentBridge> getLinkedDocuments(DocumentBridge d, String linkTypeId) {
       try {
-         final LinkType linkType = task.getDaoContextSnapshot().getLinkTypeDao().getLinkType(linkTypeId);
-         final List<LinkInstance> links = getLinkInstances(d.getDocument().getId(), linkTypeId);
+         final LinkType linkType = readCache.getLinkType(linkTypeId);
+         final String documentId = BridgeReadCache.documentKey(d.getDocument());
+         final List<LinkInstance> links = getLinkInstances(documentId, linkTypeId);
          final String otherCollectionId = linkType.getCollectionIds().get(0).equals(d.getDocument().getCollectionId()) ?
                linkType.getCollectionIds().get(1) : linkType.getCollectionIds().get(0);
 
@@ -1027,24 +998,11 @@ public class LumeerBridge {
                                                  .map(LinkInstance::getDocumentIds)
                                                  .flatMap(java.util.Collection::stream)
                                                  .collect(Collectors.toSet());
-            documentIds.remove(d.getDocument().getId());
-
-            // load document data
-            final Map<String, DataDocument> data = new HashMap<>();
-            task.getDaoContextSnapshot().getDataDao()
-                .getData(otherCollectionId, documentIds)
-                .forEach(dd -> data.put(dd.getId(), dd));
-
-            // load document meta data and match them with user data
-            return task.getDaoContextSnapshot().getDocumentDao()
-                       .getDocumentsByIds(documentIds.toArray(new String[0]))
-                       .stream().map(document -> {
-                     DataDocument dd = data.get(document.getId());
-                     dd = constraintManager.encodeDataTypesForFce(task.getDaoContextSnapshot().getCollectionDao().getCollectionById(otherCollectionId), dd);
-                     document.setData(dd);
-
-                     return new DocumentBridge(document);
-                  }).collect(toList());
+            documentIds.remove(documentId);
+
+            // load documents with data
+            return readCache.getDocuments(readCache.getCollection(otherCollectionId), documentIds)
+                            .stream().map(DocumentBridge::new).collect(toList());
          } else {
             return Collections.emptyList();
          }
@@ -1287,6 +1245,10 @@ public class LumeerBridge {
       }
    }
 
+   public BridgeReadCache getReadCache() {
+      return readCache;
+   }
+
    public Exception getCause() {
       return cause;
    }
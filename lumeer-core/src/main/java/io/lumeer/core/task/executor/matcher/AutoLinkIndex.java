@@ -0,0 +1,166 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor.matcher;
+
+import io.lumeer.core.constraint.ConstraintManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hash index of the match keys of the documents on one side of an auto-link rule. Documents of the other side are then
+ * streamed against it, so only the smaller side needs to be kept in memory.
+ *
+ * Documents match when their values share a key, except for the rules between two multi-select attributes, where all the
+ * source values must be present in the target value.
+ */
+public class AutoLinkIndex {
+
+   private final boolean allSourceValues;
+   private final boolean indexedSource;
+
+   private final Map<String, List<String>> documentsByKey = new HashMap<>();
+   private final Map<String, Set<String>> keysByDocument = new HashMap<>();
+
+   /**
+    * @param allSourceValues
+    *       whether the target value must contain all the source values
+    * @param indexedSource
+    *       whether the indexed documents are on the source side of the rule
+    */
+   public AutoLinkIndex(final boolean allSourceValues, final boolean indexedSource) {
+      this.allSourceValues = allSourceValues;
+      this.indexedSource = indexedSource;
+   }
+
+   public void add(final String documentId, final Set<String> keys) {
+      if (keys.isEmpty()) {
+         return;
+      }
+
+      keys.forEach(key -> documentsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(documentId));
+      if (allSourceValues && indexedSource) {
+         keysByDocument.put(documentId, keys);
+      }
+   }
+
+   /**
+    * Finds the indexed documents matching a document from the other side.
+    *
+    * @param keys
+    *       match keys of the document
+    * @return ids of the matching indexed documents
+    */
+   public Set<String> match(final Set<String> keys) {
+      if (keys.isEmpty()) {
+         return Collections.emptySet();
+      }
+
+      if (allSourceValues && !indexedSource) {
+         // the indexed targets must contain all the keys of the source
+         Set<String> result = null;
+         for (final String key : keys) {
+            final List<String> documentIds = documentsByKey.get(key);
+            if (documentIds == null) {
+               return Collections.emptySet();
+            }
+            if (result == null) {
+               result = new LinkedHashSet<>(documentIds);
+            } else {
+               result.retainAll(documentIds);
+            }
+         }
+         return result;
+      }
+
+      final Set<String> result = new LinkedHashSet<>();
+      keys.forEach(key -> result.addAll(documentsByKey.getOrDefault(key, Collections.emptyList())));
+
+      if (allSourceValues) {
+         // the indexed sources must have all their keys in the target
+         result.removeIf(documentId -> !keys.containsAll(keysByDocument.get(documentId)));
+      }
+
+      return result;
+   }
+
+   public int getKeysCount() {
+      return documentsByKey.size();
+   }
+
+   /**
+    * Computes the match keys of a stored value. The keys follow the equality used by the data filter for the auto-link
+    * queries, i.e. the decoded values are compared as trimmed lower case texts.
+    *
+    * @param value
+    *       value of the attribute as stored in the database
+    * @param constraintManager
+    *       constraint manager used to decode the value
+    * @return match keys of all the values, empty when there is no value
+    */
+   public static Set<String> getMatchKeys(final Object value, final ConstraintManager constraintManager) {
+      if (value == null) {
+         return Collections.emptySet();
+      }
+
+      if (value instanceof java.util.Collection) {
+         final Set<String> keys = new HashSet<>();
+         ((java.util.Collection<?>) value).forEach(item -> {
+            final String key = getMatchKey(item, constraintManager);
+            if (key != null) {
+               keys.add(key);
+            }
+         });
+         return keys;
+      }
+
+      final String key = getMatchKey(value, constraintManager);
+      return key != null ? Set.of(key) : Collections.emptySet();
+   }
+
+   static String getMatchKey(final Object value, final ConstraintManager constraintManager) {
+      final Object decoded = constraintManager.decode(value, null);
+
+      // the filter formats false the same way as a missing value
+      if (decoded == null || Boolean.FALSE.equals(decoded)) {
+         return null;
+      }
+
+      final String key = formatNumber(decoded).toLowerCase(Locale.ROOT).strip();
+      return key.isEmpty() ? null : key;
+   }
+
+   private static String formatNumber(final Object value) {
+      // whole floating point numbers are passed to the filter without the fraction
+      if ((value instanceof Double || value instanceof Float) && Double.isFinite(((Number) value).doubleValue())) {
+         final double number = ((Number) value).doubleValue();
+         if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+            return Long.toString((long) number);
+         }
+      }
+      return value.toString();
+   }
+}
@@ -165,6 +165,7 @@ public class SingleStage extends Stage {
          auditAdapter.registerCreate(collection.getId(), ResourceType.DOCUMENT, document.getId(), task.getInitiator(), automationName, null, newDataDecoded);
       });
 
+      final List<DocumentChange> documentChanges = new ArrayList<>();
       changesByDocumentId.forEach((id, changeList) -> {
          unprocessedCreatedDocuments.remove(id);
          final Document document = changeList.get(0).getEntity();
@@ -192,13 +193,43 @@ public class SingleStage extends Stage {
          document.setUpdatedBy(task.getInitiator().getId());
          document.setUpdateDate(ZonedDateTime.now());
 
-         final DataDocument beforePatch = task.getDaoContextSnapshot().getDataDao().getData(document.getCollectionId(), document.getId());
+         documentChanges.add(new DocumentChange(document, originalDocument, collection, aggregatedUpdate, newData));
+      });
 
-         DataDocument patchedData = task.getDaoContextSnapshot().getDataDao()
-                                        .patchData(document.getCollectionId(), document.getId(), newData);
+      // the documents could have been removed in the meantime, e.g. by another rule
+      final Set<String> existingDocumentIds = task.getDaoContextSnapshot().getDocumentDao()
+                                                  .getDocumentsByIds(documentChanges.stream().map(change -> change.document.getId()).collect(toSet()))
+                                                  .stream().map(Document::getId).collect(toSet());
+      final List<DocumentChange> existingDocumentChanges = documentChanges.stream().filter(change -> existingDocumentIds.contains(change.document.getId())).collect(toList());
+
+      // read the old data and write all the changes in bulk, per collection
+      final Map<String, DataDocument> dataBeforePatch = new HashMap<>();
+      final Map<String, DataDocument> dataAfterPatch = new HashMap<>();
+      Utils.categorize(existingDocumentChanges.stream(), change -> change.document.getCollectionId()).forEach((collectionId, collectionChanges) -> {
+         final Set<String> documentIds = collectionChanges.stream().map(change -> change.document.getId()).collect(toSet());
+         task.getDaoContextSnapshot().getDataDao().getData(collectionId, documentIds).forEach(data -> dataBeforePatch.put(data.getId(), data));
+
+         final Map<String, DataDocument> patches = collectionChanges.stream().collect(toMap(change -> change.document.getId(), change -> change.newData));
+         task.getDaoContextSnapshot().getDataDao().patchData(collectionId, patches).forEach(data -> dataAfterPatch.put(data.getId(), data));
+      });
+      final Map<String, Document> storedDocuments = task.getDaoContextSnapshot().getDocumentDao()
+                                                        .updateDocuments(existingDocumentChanges.stream().map(change -> change.document).collect(toList()))
+                                                        .stream().collect(toMap(Document::getId, Function.identity()));
+
+      existingDocumentChanges.forEach(change -> {
+         final Document document = change.document;
+         final Document originalDocument = change.originalDocument;
+         final Collection collection = change.collection;
+         final DataDocument aggregatedUpdate = change.aggregatedUpdate;
+         final Document updatedDocument = storedDocuments.get(document.getId());
+
+         // the document could have been removed in the meantime
+         if (updatedDocument == null) {
+            return;
+         }
 
-         Document updatedDocument = task.getDaoContextSnapshot().getDocumentDao()
-                                        .updateDocument(document.getId(), document);
+         final DataDocument beforePatch = dataBeforePatch.getOrDefault(document.getId(), new DataDocument());
+         DataDocument patchedData = dataAfterPatch.getOrDefault(document.getId(), new DataDocument());
 
          updatedDocument.setData(patchedData);
 
@@ -323,6 +354,7 @@ public class SingleStage extends Stage {
 
       final Set<String> unprocessedCreatedLinks = createdLinks.stream().map(LinkInstance::getId).collect(toSet());
 
+      final List<LinkChange> linkChanges = new ArrayList<>();
       changesByLinkTypeId.forEach((id, changeList) -> {
          unprocessedCreatedLinks.remove(id);
          final LinkInstance linkInstance = changeList.get(0).getEntity();
@@ -348,64 +380,93 @@ public class SingleStage extends Stage {
          linkInstance.setUpdatedBy(task.getInitiator().getId());
          linkInstance.setUpdateDate(ZonedDateTime.now());
 
-         final DataDocument beforePatch = task.getDaoContextSnapshot().getLinkDataDao().getData(linkInstance.getLinkTypeId(), linkInstance.getId());
+         linkChanges.add(new LinkChange(linkInstance, originalLinkInstance, linkType, aggregatedUpdate, newData));
+      });
 
-         // thanks to an auto-link rule, the link could have ceased to exist
-         if (task.getDaoContextSnapshot().getLinkInstanceDao().getLinkInstances(Set.of(linkInstance.getId())).size() > 0){
-            DataDocument patchedData = task.getDaoContextSnapshot().getLinkDataDao()
-                 .patchData(linkInstance.getLinkTypeId(), linkInstance.getId(), newData);
+      // thanks to an auto-link rule, the links could have ceased to exist
+      final Set<String> existingLinkIds = task.getDaoContextSnapshot().getLinkInstanceDao()
+                                              .getLinkInstances(linkChanges.stream().map(change -> change.linkInstance.getId()).collect(toSet()))
+                                              .stream().map(LinkInstance::getId).collect(toSet());
+      final List<LinkChange> existingLinkChanges = linkChanges.stream().filter(change -> existingLinkIds.contains(change.linkInstance.getId())).collect(toList());
+
+      // read the old data and write all the changes in bulk, per link type
+      final Map<String, DataDocument> dataBeforePatch = new HashMap<>();
+      final Map<String, DataDocument> dataAfterPatch = new HashMap<>();
+      Utils.categorize(linkChanges.stream(), change -> change.linkInstance.getLinkTypeId()).forEach((linkTypeId, linkTypeChanges) -> {
+         final Set<String> linkInstanceIds = linkTypeChanges.stream().map(change -> change.linkInstance.getId()).collect(toSet());
+         task.getDaoContextSnapshot().getLinkDataDao().getData(linkTypeId, linkInstanceIds).forEach(data -> dataBeforePatch.put(data.getId(), data));
+
+         final Map<String, DataDocument> patches = linkTypeChanges.stream().filter(change -> existingLinkIds.contains(change.linkInstance.getId()))
+                                                          .collect(toMap(change -> change.linkInstance.getId(), change -> change.newData));
+         if (patches.size() > 0) {
+            task.getDaoContextSnapshot().getLinkDataDao().patchData(linkTypeId, patches).forEach(data -> dataAfterPatch.put(data.getId(), data));
+         }
+      });
+      final Map<String, LinkInstance> storedLinks = task.getDaoContextSnapshot().getLinkInstanceDao()
+                                                        .updateLinkInstances(existingLinkChanges.stream().map(change -> change.linkInstance).collect(toList()))
+                                                        .stream().collect(toMap(LinkInstance::getId, Function.identity()));
+
+      existingLinkChanges.forEach(change -> {
+         final LinkInstance linkInstance = change.linkInstance;
+         final LinkInstance originalLinkInstance = change.originalLinkInstance;
+         final LinkType linkType = change.linkType;
+         final DataDocument aggregatedUpdate = change.aggregatedUpdate;
+         final LinkInstance updatedLink = storedLinks.get(linkInstance.getId());
+
+         if (updatedLink == null) {
+            return;
+         }
 
-            LinkInstance updatedLink = task.getDaoContextSnapshot().getLinkInstanceDao()
-                    .updateLinkInstance(linkInstance.getId(), linkInstance);
+         final DataDocument beforePatch = dataBeforePatch.getOrDefault(linkInstance.getId(), new DataDocument());
+         DataDocument patchedData = dataAfterPatch.getOrDefault(linkInstance.getId(), new DataDocument());
 
-            updatedLink.setData(patchedData);
+         updatedLink.setData(patchedData);
 
-            var oldDataDecoded = constraintManager.decodeDataTypes(linkType, beforePatch);
-            var patchedDataDecoded = constraintManager.decodeDataTypes(linkType, patchedData);
+         var oldDataDecoded = constraintManager.decodeDataTypes(linkType, beforePatch);
+         var patchedDataDecoded = constraintManager.decodeDataTypes(linkType, patchedData);
 
-            auditAdapter.registerDataChange(updatedLink.getLinkTypeId(), ResourceType.LINK, updatedLink.getId(),
-                    task.getInitiator(), automationName, null, beforePatch, oldDataDecoded, patchedData, patchedDataDecoded);
+         auditAdapter.registerDataChange(updatedLink.getLinkTypeId(), ResourceType.LINK, updatedLink.getId(),
+                 task.getInitiator(), automationName, null, beforePatch, oldDataDecoded, patchedData, patchedDataDecoded);
 
-            // add patched data to new links
-            boolean created = false;
-            if (StringUtils.isNotEmpty(linkInstance.getTemplateId())) {
-               final LinkInstance link = linksByCorrelationId.get(linkInstance.getTemplateId());
+         // add patched data to new links
+         boolean created = false;
+         if (StringUtils.isNotEmpty(linkInstance.getTemplateId())) {
+            final LinkInstance link = linksByCorrelationId.get(linkInstance.getTemplateId());
 
-               if (link != null) {
-                  link.setData(patchedData);
-                  created = true;
-               }
+            if (link != null) {
+               link.setData(patchedData);
+               created = true;
             }
+         }
 
-            if (task instanceof RuleTask) {
-               if (created) {
-                  taskProcessingFacade.onCreateLink(new CreateLinkInstance(updatedLink));
+         if (task instanceof RuleTask) {
+            if (created) {
+               taskProcessingFacade.onCreateLink(new CreateLinkInstance(updatedLink));
+            } else {
+               if (task.getRecursionDepth() == 0) {
+                  // there are now 3 versions of the document:
+                  // 1) the document before user triggered an update - original document (null when triggered by action button)
+                  // 2) the document with the new user entered value - before patch
+                  // 3) the document with the value computed by the rule based on the previous two - updated document
+                  // this rule got executed because of change from 1 to 2
+                  // for the recursive rules, we need to trigger rules for changes between 2 and 3
+                  final UpdateLinkInstance updateLinkInstanceEvent;
+                  final LinkInstance orig = new LinkInstance(linkInstance);
+                  orig.setData(beforePatch);
+                  updateLinkInstanceEvent = new UpdateLinkInstance(updatedLink, orig);
+
+                  taskProcessingFacade.onUpdateLink(updateLinkInstanceEvent, ((RuleTask) task).getRule().getName());
                } else {
-                  if (task.getRecursionDepth() == 0) {
-                     // there are now 3 versions of the document:
-                     // 1) the document before user triggered an update - original document (null when triggered by action button)
-                     // 2) the document with the new user entered value - before patch
-                     // 3) the document with the value computed by the rule based on the previous two - updated document
-                     // this rule got executed because of change from 1 to 2
-                     // for the recursive rules, we need to trigger rules for changes between 2 and 3
-                     final UpdateLinkInstance updateLinkInstanceEvent;
-                     final LinkInstance orig = new LinkInstance(linkInstance);
-                     orig.setData(beforePatch);
-                     updateLinkInstanceEvent = new UpdateLinkInstance(updatedLink, orig);
-
-                     taskProcessingFacade.onUpdateLink(updateLinkInstanceEvent, ((RuleTask) task).getRule().getName());
-                  } else {
-                     taskExecutor.submitTask(functionFacade.creatTaskForChangedLink(linkType, originalLinkInstance, updatedLink, aggregatedUpdate.keySet()));
-                  }
+                  taskExecutor.submitTask(functionFacade.creatTaskForChangedLink(linkType, originalLinkInstance, updatedLink, aggregatedUpdate.keySet()));
                }
             }
+         }
 
-            patchedData = constraintManager.decodeDataTypes(linkType, patchedData);
-            updatedLink.setData(patchedData);
+         patchedData = constraintManager.decodeDataTypes(linkType, patchedData);
+         updatedLink.setData(patchedData);
 
-            updatedLinks.computeIfAbsent(linkInstance.getLinkTypeId(), key -> new ArrayList<>())
-                    .add(updatedLink);
-         }
+         updatedLinks.computeIfAbsent(linkInstance.getLinkTypeId(), key -> new ArrayList<>())
+                 .add(updatedLink);
       });
 
       unprocessedCreatedLinks.forEach(id -> {
@@ -538,6 +599,38 @@ public class SingleStage extends Stage {
       return changesTracker;
    }
 
+   private static class DocumentChange {
+      private final Document document;
+      private final Document originalDocument;
+      private final Collection collection;
+      private final DataDocument aggregatedUpdate;
+      private final DataDocument newData;
+
+      private DocumentChange(final Document document, final Document originalDocument, final Collection collection, final DataDocument aggregatedUpdate, final DataDocument newData) {
+         this.document = document;
+         this.originalDocument = originalDocument;
+         this.collection = collection;
+         this.aggregatedUpdate = aggregatedUpdate;
+         this.newData = newData;
+      }
+   }
+
+   private static class LinkChange {
+      private final LinkInstance linkInstance;
+      private final LinkInstance originalLinkInstance;
+      private final LinkType linkType;
+      private final DataDocument aggregatedUpdate;
+      private final DataDocument newData;
+
+      private LinkChange(final LinkInstance linkInstance, final LinkInstance originalLinkInstance, final LinkType linkType, final DataDocument aggregatedUpdate, final DataDocument newData) {
+         this.linkInstance = linkInstance;
+         this.originalLinkInstance = originalLinkInstance;
+         this.linkType = linkType;
+         this.aggregatedUpdate = aggregatedUpdate;
+         this.newData = newData;
+      }
+   }
+
    final private NavigationRequest mapCorrelationIds(final NavigationRequest navigationRequest, final Map<String, String> correlationIdsToIds) {
       if (navigationRequest.getDocumentId() == null && navigationRequest.getCorrelationId() != null) {
          return new NavigationRequest(
@@ -0,0 +1,67 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor.request;
+
+public class TaskProgressRequest {
+
+   private final String type;
+   private final String resourceId;
+   private final String attributeId;
+   private final int processed;
+   private final int total;
+
+   public TaskProgressRequest(final String type, final String resourceId, final String attributeId, final int processed, final int total) {
+      this.type = type;
+      this.resourceId = resourceId;
+      this.attributeId = attributeId;
+      this.processed = processed;
+      this.total = total;
+   }
+
+   public String getType() {
+      return type;
+   }
+
+   public String getResourceId() {
+      return resourceId;
+   }
+
+   public String getAttributeId() {
+      return attributeId;
+   }
+
+   public int getProcessed() {
+      return processed;
+   }
+
+   public int getTotal() {
+      return total;
+   }
+
+   @Override
+   public String toString() {
+      return "TaskProgressRequest{" +
+            "type='" + type + '\'' +
+            ", resourceId='" + resourceId + '\'' +
+            ", attributeId='" + attributeId + '\'' +
+            ", processed=" + processed +
+            ", total=" + total +
+            '}';
+   }
+}
@@ -0,0 +1,259 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import io.lumeer.api.model.function.FunctionParameter;
+import io.lumeer.api.model.function.FunctionResourceType;
+import io.lumeer.api.model.function.FunctionRow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Compiled dependency graph of all functions in a project. Nodes are attributes of collections and link types, edges lead
+ * from an attribute to the functions that read it. The searches answer the same questions as the corresponding
+ * {@link io.lumeer.storage.api.dao.FunctionDao} methods, only from memory.
+ * The graph is immutable, changes produce a new graph so it can be shared between threads without locking.
+ */
+public class FunctionGraph {
+
+   private final List<FunctionRow> rows;
+   private final Map<String, List<FunctionRow>> rowsByDependentCollection = new HashMap<>();
+   private final Map<String, List<FunctionRow>> rowsByDependentLinkType = new HashMap<>();
+   private final Map<FunctionParameter, List<FunctionRow>> rowsByFunction = new HashMap<>();
+   private final Map<FunctionParameter, Set<FunctionParameter>> dependentFunctions = new HashMap<>();
+
+   private volatile FunctionGraphMetrics metrics;
+
+   public FunctionGraph(final java.util.Collection<FunctionRow> rows) {
+      this.rows = List.copyOf(rows);
+
+      this.rows.forEach(row -> {
+         if (row.getDependentCollectionId() != null) {
+            rowsByDependentCollection.computeIfAbsent(row.getDependentCollectionId(), key -> new ArrayList<>()).add(row);
+         }
+         if (row.getDependentLinkTypeId() != null) {
+            rowsByDependentLinkType.computeIfAbsent(row.getDependentLinkTypeId(), key -> new ArrayList<>()).add(row);
+         }
+
+         final FunctionParameter function = getFunction(row);
+         rowsByFunction.computeIfAbsent(function, key -> new ArrayList<>()).add(row);
+         dependentFunctions.computeIfAbsent(getDependency(row), key -> new LinkedHashSet<>()).add(function);
+      });
+   }
+
+   public static FunctionParameter getFunction(final FunctionRow row) {
+      return new FunctionParameter(row.getType(), row.getResourceId(), row.getAttributeId());
+   }
+
+   public static FunctionParameter getDependency(final FunctionRow row) {
+      if (row.getDependentCollectionId() != null) {
+         return new FunctionParameter(FunctionResourceType.COLLECTION, row.getDependentCollectionId(), row.getDependentAttributeId());
+      }
+      return new FunctionParameter(FunctionResourceType.LINK, row.getDependentLinkTypeId(), row.getDependentAttributeId());
+   }
+
+   public FunctionGraph withRows(final java.util.Collection<FunctionRow> addedRows) {
+      if (addedRows.isEmpty()) {
+         return this;
+      }
+
+      final List<FunctionRow> newRows = new ArrayList<>(rows);
+      newRows.addAll(addedRows);
+      return new FunctionGraph(newRows);
+   }
+
+   public FunctionGraph withoutRows(final Predicate<FunctionRow> removedRows) {
+      final List<FunctionRow> newRows = rows.stream().filter(removedRows.negate()).collect(Collectors.toList());
+      return newRows.size() == rows.size() ? this : new FunctionGraph(newRows);
+   }
+
+   public List<FunctionRow> getRows() {
+      return rows;
+   }
+
+   public List<FunctionRow> searchByAnyCollection(final String collectionId, final String attributeId) {
+      return filter(rows, row -> matchesResource(row, collectionId, FunctionResourceType.COLLECTION, attributeId)
+            || (Objects.equals(row.getDependentCollectionId(), collectionId) && matchesAttribute(row.getDependentAttributeId(), attributeId)));
+   }
+
+   public List<FunctionRow> searchByDependentCollection(final String collectionId, final String attributeId) {
+      return filter(rowsByDependentCollection.getOrDefault(collectionId, Collections.emptyList()), row -> matchesAttribute(row.getDependentAttributeId(), attributeId));
+   }
+
+   public List<FunctionRow> searchByAnyLinkType(final String linkTypeId, final String attributeId) {
+      return filter(rows, row -> matchesResource(row, linkTypeId, FunctionResourceType.LINK, attributeId)
+            || (Objects.equals(row.getDependentLinkTypeId(), linkTypeId) && matchesAttribute(row.getDependentAttributeId(), attributeId)));
+   }
+
+   public List<FunctionRow> searchByDependentLinkType(final String linkTypeId, final String attributeId) {
+      return filter(rowsByDependentLinkType.getOrDefault(linkTypeId, Collections.emptyList()), row -> matchesAttribute(row.getDependentAttributeId(), attributeId));
+   }
+
+   public List<FunctionRow> searchByResource(final String resourceId, final String attributeId, final FunctionResourceType type) {
+      if (attributeId != null) {
+         return new ArrayList<>(rowsByFunction.getOrDefault(new FunctionParameter(type, resourceId, attributeId), Collections.emptyList()));
+      }
+      return filter(rows, row -> matchesResource(row, resourceId, type, null));
+   }
+
+   // all functions that must be recomputed after the attribute changes, including the transitive ones
+   private Set<FunctionParameter> getDependentFunctions(final FunctionParameter attribute) {
+      final Set<FunctionParameter> result = new LinkedHashSet<>();
+      final Deque<FunctionParameter> queue = new ArrayDeque<>(dependentFunctions.getOrDefault(attribute, Collections.emptySet()));
+
+      while (!queue.isEmpty()) {
+         final FunctionParameter function = queue.poll();
+         if (result.add(function)) {
+            queue.addAll(dependentFunctions.getOrDefault(function, Collections.emptySet()));
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Finds a dependency cycle going through the given function.
+    *
+    * @param function
+    *       the function to check
+    * @return the functions forming the cycle starting and ending with the given function, empty list when there is no cycle
+    */
+   public List<FunctionParameter> findCycle(final FunctionParameter function) {
+      final Map<FunctionParameter, FunctionParameter> parents = new HashMap<>();
+      final Deque<FunctionParameter> queue = new ArrayDeque<>();
+      queue.add(function);
+
+      while (!queue.isEmpty()) {
+         final FunctionParameter current = queue.poll();
+         for (final FunctionParameter dependent : dependentFunctions.getOrDefault(current, Collections.emptySet())) {
+            if (dependent.equals(function)) {
+               final List<FunctionParameter> cycle = new ArrayList<>();
+               cycle.add(function);
+               for (FunctionParameter node = current; !node.equals(function); node = parents.get(node)) {
+                  cycle.add(0, node);
+               }
+               cycle.add(0, function);
+               return cycle;
+            }
+            if (!parents.containsKey(dependent)) {
+               parents.put(dependent, current);
+               queue.add(dependent);
+            }
+         }
+      }
+
+      return Collections.emptyList();
+   }
+
+   public FunctionGraphMetrics getMetrics() {
+      if (metrics == null) {
+         final Set<FunctionParameter> nodes = new HashSet<>(dependentFunctions.keySet());
+         nodes.addAll(rowsByFunction.keySet());
+
+         int maxFanout = 0;
+         int cyclicFunctions = 0;
+         for (final FunctionParameter node : nodes) {
+            final Set<FunctionParameter> dependents = getDependentFunctions(node);
+            maxFanout = Math.max(maxFanout, dependents.size());
+            if (rowsByFunction.containsKey(node) && dependents.contains(node)) {
+               cyclicFunctions++;
+            }
+         }
+
+         final int edges = dependentFunctions.values().stream().mapToInt(Set::size).sum();
+         metrics = new FunctionGraphMetrics(nodes.size(), edges, rowsByFunction.size(), cyclicFunctions, maxFanout);
+      }
+
+      return metrics;
+   }
+
+   private static boolean matchesResource(final FunctionRow row, final String resourceId, final FunctionResourceType type, final String attributeId) {
+      return Objects.equals(row.getResourceId(), resourceId) && row.getType() == type && matchesAttribute(row.getAttributeId(), attributeId);
+   }
+
+   private static boolean matchesAttribute(final String rowAttributeId, final String attributeId) {
+      return attributeId == null || attributeId.equals(rowAttributeId);
+   }
+
+   private static List<FunctionRow> filter(final List<FunctionRow> rows, final Predicate<FunctionRow> predicate) {
+      return rows.stream().filter(predicate).collect(Collectors.toList());
+   }
+
+   public static class FunctionGraphMetrics {
+      private final int nodes;
+      private final int edges;
+      private final int functions;
+      private final int cyclicFunctions;
+      private final int maxRecomputeFanout;
+
+      public FunctionGraphMetrics(final int nodes, final int edges, final int functions, final int cyclicFunctions, final int maxRecomputeFanout) {
+         this.nodes = nodes;
+         this.edges = edges;
+         this.functions = functions;
+         this.cyclicFunctions = cyclicFunctions;
+         this.maxRecomputeFanout = maxRecomputeFanout;
+      }
+
+      public int getNodes() {
+         return nodes;
+      }
+
+      public int getEdges() {
+         return edges;
+      }
+
+      public int getFunctions() {
+         return functions;
+      }
+
+      public int getCyclicFunctions() {
+         return cyclicFunctions;
+      }
+
+      /**
+       * @return the highest number of functions recomputed after a change of a single attribute
+       */
+      public int getMaxRecomputeFanout() {
+         return maxRecomputeFanout;
+      }
+
+      @Override
+      public String toString() {
+         return "FunctionGraphMetrics{" +
+               "nodes=" + nodes +
+               ", edges=" + edges +
+               ", functions=" + functions +
+               ", cyclicFunctions=" + cyclicFunctions +
+               ", maxRecomputeFanout=" + maxRecomputeFanout +
+               '}';
+      }
+   }
+}
@@ -0,0 +1,105 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Document;
+import io.lumeer.api.model.LinkInstance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads documents referenced by link instances in batches and remembers them (including the ids which were not found or are not readable),
+ * so each document is read at most once during a search even when it is linked from many pages of documents.
+ * Instances are not thread safe and are meant to live only during a single search.
+ */
+public class LinkedDocumentsLoader {
+
+   // the documents are fetched with their data, large queries by ids would read the whole data collection instead
+   private static final int BATCH_SIZE = 400;
+
+   private final BiFunction<Collection, Set<String>, List<Document>> fetchFunction;
+   private final Map<String, Map<String, Document>> loadedDocuments = new HashMap<>();
+   private int loadedCount = 0;
+   private int cachedCount = 0;
+
+   public LinkedDocumentsLoader(final BiFunction<Collection, Set<String>, List<Document>> fetchFunction) {
+      this.fetchFunction = fetchFunction;
+   }
+
+   /**
+    * Returns documents of the collection which are linked by the given link instances.
+    *
+    * @param collection
+    *       collection of the linked documents
+    * @param linkInstances
+    *       link instances pointing to the documents
+    * @param excludedIds
+    *       ids which are known not to belong to the collection (e.g. documents on the other side of the links)
+    * @return linked documents which were found
+    */
+   public List<Document> loadLinkedDocuments(final Collection collection, final List<LinkInstance> linkInstances, final Set<String> excludedIds) {
+      final Set<String> documentIds = linkInstances.stream()
+                                                   .map(LinkInstance::getDocumentIds)
+                                                   .filter(Objects::nonNull)
+                                                   .flatMap(List::stream)
+                                                   .filter(id -> id != null && !excludedIds.contains(id))
+                                                   .collect(Collectors.toCollection(LinkedHashSet::new));
+      return loadDocuments(collection, documentIds);
+   }
+
+   public List<Document> loadDocuments(final Collection collection, final Set<String> documentIds) {
+      final Map<String, Document> collectionDocuments = loadedDocuments.computeIfAbsent(collection.getId(), id -> new HashMap<>());
+      final List<String> missingIds = documentIds.stream().filter(id -> !collectionDocuments.containsKey(id)).collect(Collectors.toList());
+      cachedCount += documentIds.size() - missingIds.size();
+
+      for (int i = 0; i < missingIds.size(); i += BATCH_SIZE) {
+         final Set<String> batch = new LinkedHashSet<>(missingIds.subList(i, Math.min(i + BATCH_SIZE, missingIds.size())));
+         final Map<String, Document> fetched = fetchFunction.apply(collection, batch).stream().collect(Collectors.toMap(Document::getId, Function.identity(), (a, b) -> a));
+         batch.forEach(id -> collectionDocuments.put(id, fetched.get(id)));
+         loadedCount += fetched.size();
+      }
+
+      final List<Document> documents = new ArrayList<>();
+      documentIds.forEach(id -> {
+         final Document document = collectionDocuments.get(id);
+         if (document != null) {
+            documents.add(document);
+         }
+      });
+      return documents;
+   }
+
+   public int getLoadedCount() {
+      return loadedCount;
+   }
+
+   public int getCachedCount() {
+      return cachedCount;
+   }
+}
@@ -0,0 +1,508 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Queue of outgoing e-mails processed by a bounded number of senders running in a pool of their own, so they never wait
+ * behind the automation tasks which wait for the e-mails to be sent. A sender runs only
+ * while there are messages to send, it keeps its SMTP connections open and reuses them for subsequent messages sent
+ * through the same {@link EmailService}, a connection is closed after it has been idle for a while or after it has sent
+ * a configured number of messages. Failed messages are retried with an exponential backoff. When the queued messages
+ * exceed the configured size, the message is sent directly by the calling thread.
+ * Pending messages are sent before the application stops, unless it takes longer than the drain timeout.
+ */
+@ApplicationScoped
+public class MailOutbox {
+
+   private static final Logger log = Logger.getLogger(MailOutbox.class.getName());
+
+   @Resource
+   private ManagedThreadFactory managedThreadFactory;
+
+   @Inject
+   private DefaultConfigurationProducer configurationProducer;
+
+   private ExecutorService executorService;
+   private boolean ownsExecutorService;
+   private int senders;
+   private long queueBytes;
+   private int maxAttempts;
+   private long retryDelayMillis;
+   private int messagesPerConnection;
+   private long connectionIdleMillis;
+   private long drainTimeoutMillis;
+
+   private final DelayQueue<OutboxMessage> queue = new DelayQueue<>();
+   private final AtomicInteger activeSenders = new AtomicInteger();
+   private final AtomicInteger pending = new AtomicInteger();
+   private final AtomicLong queuedBytes = new AtomicLong();
+   private volatile boolean stopped;
+
+   private final AtomicLong sent = new AtomicLong();
+   private final AtomicLong failed = new AtomicLong();
+   private final AtomicLong retried = new AtomicLong();
+   private final AtomicLong connections = new AtomicLong();
+   private final AtomicLong totalLatencyNanos = new AtomicLong();
+   private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+   public MailOutbox() {
+   }
+
+   MailOutbox(final ExecutorService executorService, final int senders, final long queueBytes, final int maxAttempts, final long retryDelayMillis, final int messagesPerConnection, final long connectionIdleMillis, final long drainTimeoutMillis) {
+      this.executorService = executorService;
+      setup(senders, queueBytes, maxAttempts, retryDelayMillis, messagesPerConnection, connectionIdleMillis, drainTimeoutMillis);
+   }
+
+   @PostConstruct
+   public void init() {
+      setup(NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.MAIL_SENDERS), 2),
+            NumberUtils.toLong(configurationProducer.get(DefaultConfigurationProducer.MAIL_QUEUE_BYTES), 64L * 1024 * 1024),
+            NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.MAIL_MAX_ATTEMPTS), 5),
+            NumberUtils.toLong(configurationProducer.get(DefaultConfigurationProducer.MAIL_RETRY_DELAY), 5000),
+            NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.MAIL_MESSAGES_PER_CONNECTION), 100),
+            NumberUtils.toLong(configurationProducer.get(DefaultConfigurationProducer.MAIL_CONNECTION_IDLE), 30) * 1000,
+            NumberUtils.toLong(configurationProducer.get(DefaultConfigurationProducer.MAIL_DRAIN_TIMEOUT), 30) * 1000);
+      executorService = Executors.newFixedThreadPool(senders, managedThreadFactory);
+      ownsExecutorService = true;
+   }
+
+   private void setup(final int senders, final long queueBytes, final int maxAttempts, final long retryDelayMillis, final int messagesPerConnection, final long connectionIdleMillis, final long drainTimeoutMillis) {
+      this.senders = Math.max(1, senders);
+      this.queueBytes = queueBytes;
+      this.maxAttempts = Math.max(1, maxAttempts);
+      this.retryDelayMillis = retryDelayMillis;
+      this.messagesPerConnection = Math.max(1, messagesPerConnection);
+      this.connectionIdleMillis = connectionIdleMillis;
+      this.drainTimeoutMillis = drainTimeoutMillis;
+   }
+
+   /**
+    * Sends the pending messages and stops the senders. Messages that could not be sent in time are given up.
+    */
+   @PreDestroy
+   public void stop() {
+      try {
+         if (!awaitEmpty(drainTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.warning(String.format("Mail outbox has not been drained in time, %d messages are given up.", pending.get()));
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+
+      stopped = true;
+
+      final List<OutboxMessage> remaining = new ArrayList<>();
+      queue.drainTo(remaining);
+      remaining.forEach(message -> complete(message, new IllegalStateException("Mail outbox has been stopped.")));
+
+      if (ownsExecutorService) {
+         executorService.shutdown();
+      }
+   }
+
+   /**
+    * Adds the message to the queue.
+    *
+    * @param service
+    *       service to send the message by
+    * @param message
+    *       the message
+    * @param size
+    *       approximate size of the message in bytes
+    * @return future completed once the message is sent, or completed exceptionally when it is given up
+    */
+   public CompletableFuture<Void> submit(final EmailService service, final MimeMessage message, final long size) {
+      final OutboxMessage outboxMessage = new OutboxMessage(service, message, size);
+
+      // a single message is accepted by an empty queue even when it is larger than the limit
+      final long bytes = queuedBytes.addAndGet(size);
+      if (stopped || (bytes > queueBytes && bytes != size)) {
+         queuedBytes.addAndGet(-size);
+         log.warning("Mail outbox is full, sending the message directly.");
+         sendDirectly(outboxMessage);
+         return outboxMessage.result;
+      }
+
+      pending.incrementAndGet();
+      queue.add(outboxMessage);
+      startSender();
+
+      return outboxMessage.result;
+   }
+
+   /**
+    * Waits until all submitted messages are either sent or given up.
+    *
+    * @param timeout
+    *       maximal time to wait
+    * @param unit
+    *       unit of the timeout
+    * @return true when there are no pending messages
+    */
+   public boolean awaitEmpty(final long timeout, final TimeUnit unit) throws InterruptedException {
+      final long deadline = System.nanoTime() + unit.toNanos(timeout);
+      while (pending.get() > 0) {
+         if (System.nanoTime() > deadline) {
+            return false;
+         }
+         Thread.sleep(10);
+      }
+      return true;
+   }
+
+   public MailOutboxStats getStats() {
+      final long sentMessages = sent.get();
+      return new MailOutboxStats(queue.size(), queuedBytes.get(), pending.get(), activeSenders.get(), sentMessages, failed.get(), retried.get(), connections.get(),
+            sentMessages > 0 ? TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.get() / sentMessages) : 0, TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get()));
+   }
+
+   private void startSender() {
+      int active;
+      while (!stopped && (active = activeSenders.get()) < senders) {
+         if (activeSenders.compareAndSet(active, active + 1)) {
+            try {
+               executorService.submit(this::runSender);
+            } catch (RejectedExecutionException e) {
+               activeSenders.decrementAndGet();
+               log.log(Level.SEVERE, "Unable to start mail sender.", e);
+            }
+            return;
+         }
+      }
+   }
+
+   private void runSender() {
+      final Map<EmailService, Connection> openConnections = new HashMap<>();
+      try {
+         while (!stopped) {
+            final OutboxMessage message = queue.poll(Math.max(connectionIdleMillis / 2, 10), TimeUnit.MILLISECONDS);
+            closeIdleConnections(openConnections);
+
+            if (message != null) {
+               try {
+                  send(message, openConnections);
+               } catch (RuntimeException e) {
+                  failed.incrementAndGet();
+                  log.log(Level.SEVERE, "Unable to send email.", e);
+                  complete(message, e);
+               }
+            } else if (queue.isEmpty() && openConnections.isEmpty()) {
+               // nothing to send and no connection worth keeping, the executor thread is returned
+               return;
+            }
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      } finally {
+         openConnections.values().forEach(Connection::close);
+         activeSenders.decrementAndGet();
+
+         // a message might have been submitted after the last poll
+         if (!queue.isEmpty()) {
+            startSender();
+         }
+      }
+   }
+
+   private void send(final OutboxMessage message, final Map<EmailService, Connection> openConnections) {
+      final Connection reused = openConnections.get(message.service);
+      if (reused != null) {
+         try {
+            deliver(reused, message, openConnections);
+            return;
+         } catch (MessagingException e) {
+            closeConnection(message.service, openConnections);
+            if (isPermanentFailure(e)) {
+               retry(message, e);
+               return;
+            }
+            // the server might have closed the idle connection, give the message one more chance on a fresh one
+         }
+      }
+
+      try {
+         final Connection connection = new Connection(message.service.openTransport());
+         connections.incrementAndGet();
+         openConnections.put(message.service, connection);
+         deliver(connection, message, openConnections);
+      } catch (MessagingException e) {
+         closeConnection(message.service, openConnections);
+         retry(message, e);
+      }
+   }
+
+   private void deliver(final Connection connection, final OutboxMessage message, final Map<EmailService, Connection> openConnections) throws MessagingException {
+      connection.send(message.message);
+      recordSent(message.submitted);
+      complete(message, null);
+
+      if (connection.messages >= messagesPerConnection) {
+         closeConnection(message.service, openConnections);
+      }
+   }
+
+   private void complete(final OutboxMessage message, final Exception error) {
+      queuedBytes.addAndGet(-message.size);
+      pending.decrementAndGet();
+
+      if (error == null) {
+         message.result.complete(null);
+      } else {
+         message.result.completeExceptionally(error);
+      }
+   }
+
+   private void closeConnection(final EmailService service, final Map<EmailService, Connection> openConnections) {
+      final Connection connection = openConnections.remove(service);
+      if (connection != null) {
+         connection.close();
+      }
+   }
+
+   private void recordSent(final long submitted) {
+      final long latency = System.nanoTime() - submitted;
+      sent.incrementAndGet();
+      totalLatencyNanos.addAndGet(latency);
+      maxLatencyNanos.accumulateAndGet(latency, Math::max);
+   }
+
+   private void retry(final OutboxMessage message, final MessagingException e) {
+      message.attempts++;
+      if (isPermanentFailure(e) || message.attempts >= maxAttempts) {
+         failed.incrementAndGet();
+         log.log(Level.SEVERE, String.format("Unable to send email '%s' after %d attempts.", getSubject(message.message), message.attempts), e);
+         complete(message, e);
+         return;
+      }
+
+      retried.incrementAndGet();
+      message.notBefore = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryDelayMillis << (message.attempts - 1));
+      queue.add(message);
+   }
+
+   private static boolean isPermanentFailure(final MessagingException e) {
+      // some of the recipients were rejected, sending the message again would not help
+      return e instanceof SendFailedException && ((SendFailedException) e).getInvalidAddresses() != null && ((SendFailedException) e).getInvalidAddresses().length > 0;
+   }
+
+   private void closeIdleConnections(final Map<EmailService, Connection> openConnections) {
+      final long now = System.currentTimeMillis();
+      final Iterator<Connection> iterator = openConnections.values().iterator();
+      while (iterator.hasNext()) {
+         final Connection connection = iterator.next();
+         if (now - connection.lastUsed > connectionIdleMillis) {
+            iterator.remove();
+            connection.close();
+         }
+      }
+   }
+
+   private void sendDirectly(final OutboxMessage message) {
+      try {
+         final Connection connection = new Connection(message.service.openTransport());
+         connections.incrementAndGet();
+         try {
+            connection.send(message.message);
+         } finally {
+            connection.close();
+         }
+         recordSent(message.submitted);
+         message.result.complete(null);
+      } catch (MessagingException e) {
+         failed.incrementAndGet();
+         log.log(Level.SEVERE, String.format("Unable to send email '%s'.", getSubject(message.message)), e);
+         message.result.completeExceptionally(e);
+      }
+   }
+
+   private static String getSubject(final MimeMessage message) {
+      try {
+         return message.getSubject();
+      } catch (MessagingException e) {
+         return "";
+      }
+   }
+
+   private static class Connection {
+      private final Transport transport;
+      private int messages;
+      private long lastUsed = System.currentTimeMillis();
+
+      private Connection(final Transport transport) {
+         this.transport = transport;
+      }
+
+      private void send(final MimeMessage message) throws MessagingException {
+         final Address[] recipients = message.getAllRecipients();
+         lastUsed = System.currentTimeMillis();
+         transport.sendMessage(message, recipients);
+         messages++;
+      }
+
+      private void close() {
+         try {
+            transport.close();
+         } catch (MessagingException e) {
+            log.log(Level.FINE, "Unable to close SMTP connection.", e);
+         }
+      }
+   }
+
+   private static class OutboxMessage implements Delayed {
+      private final EmailService service;
+      private final MimeMessage message;
+      private final long size;
+      private final long submitted;
+      private final CompletableFuture<Void> result = new CompletableFuture<>();
+      private volatile long notBefore;
+      private int attempts;
+
+      private OutboxMessage(final EmailService service, final MimeMessage message, final long size) {
+         this.service = service;
+         this.message = message;
+         this.size = size;
+         this.submitted = System.nanoTime();
+         this.notBefore = submitted;
+      }
+
+      @Override
+      public long getDelay(final TimeUnit unit) {
+         return unit.convert(notBefore - System.nanoTime(), TimeUnit.NANOSECONDS);
+      }
+
+      @Override
+      public int compareTo(final Delayed other) {
+         return Long.compare(notBefore, ((OutboxMessage) other).notBefore);
+      }
+   }
+
+   public static class MailOutboxStats {
+      private final int queueDepth;
+      private final long queuedBytes;
+      private final int pending;
+      private final int activeSenders;
+      private final long sent;
+      private final long failed;
+      private final long retried;
+      private final long connections;
+      private final long averageLatencyMillis;
+      private final long maxLatencyMillis;
+
+      public MailOutboxStats(final int queueDepth, final long queuedBytes, final int pending, final int activeSenders, final long sent, final long failed, final long retried, final long connections, final long averageLatencyMillis, final long maxLatencyMillis) {
+         this.queueDepth = queueDepth;
+         this.queuedBytes = queuedBytes;
+         this.pending = pending;
+         this.activeSenders = activeSenders;
+         this.sent = sent;
+         this.failed = failed;
+         this.retried = retried;
+         this.connections = connections;
+         this.averageLatencyMillis = averageLatencyMillis;
+         this.maxLatencyMillis = maxLatencyMillis;
+      }
+
+      public int getQueueDepth() {
+         return queueDepth;
+      }
+
+      public long getQueuedBytes() {
+         return queuedBytes;
+      }
+
+      public int getPending() {
+         return pending;
+      }
+
+      public int getActiveSenders() {
+         return activeSenders;
+      }
+
+      public long getSent() {
+         return sent;
+      }
+
+      public long getFailed() {
+         return failed;
+      }
+
+      public long getRetried() {
+         return retried;
+      }
+
+      public long getConnections() {
+         return connections;
+      }
+
+      public long getAverageLatencyMillis() {
+         return averageLatencyMillis;
+      }
+
+      public long getMaxLatencyMillis() {
+         return maxLatencyMillis;
+      }
+
+      @Override
+      public String toString() {
+         return "MailOutboxStats{" +
+               "queueDepth=" + queueDepth +
+               ", queuedBytes=" + queuedBytes +
+               ", pending=" + pending +
+               ", activeSenders=" + activeSenders +
+               ", sent=" + sent +
+               ", failed=" + failed +
+               ", retried=" + retried +
+               ", connections=" + connections +
+               ", averageLatencyMillis=" + averageLatencyMillis +
+               ", maxLatencyMillis=" + maxLatencyMillis +
+               '}';
+      }
+   }
+}
@@ -0,0 +1,267 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import org.marvec.pusher.data.Event;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends push notifications from a background thread so that the request threads do not wait for the push service.
+ *
+ * Events are collected for a short window before they are sent in batches of at most {@link #MAX_BATCH_SIZE} events.
+ * Events with the same coalescing key (e.g. repeated updates of a single document on a single channel) replace the older
+ * pending event, which is dropped and the newer one is queued at the end. When the queue is full,
+ * the calling thread sends the pending events followed by its own events, so the events of a channel keep their order.
+ */
+public class PushNotificationDispatcher {
+
+   private static final Logger log = Logger.getLogger(PushNotificationDispatcher.class.getName());
+
+   // the push service does not accept more events in a single request
+   public static final int MAX_BATCH_SIZE = 10;
+
+   private static final String UNIQUE_KEY_PREFIX = "#";
+
+   private final Consumer<List<Event>> sender;
+   private final Function<Event, String> coalescingKeyFunction;
+   private final int maxQueueSize;
+   private final long windowMillis;
+
+   private final ReentrantLock lock = new ReentrantLock();
+   private final Condition notEmpty = lock.newCondition();
+   private final Map<String, Event> pending = new LinkedHashMap<>();
+   // events are taken from the queue and sent under this lock, so a batch can not overtake older events
+   private final ReentrantLock sendLock = new ReentrantLock();
+   private final Thread worker;
+   private volatile boolean running = true;
+   private long sequence = 0;
+
+   private final AtomicLong submittedCount = new AtomicLong();
+   private final AtomicLong coalescedCount = new AtomicLong();
+   private final AtomicLong overflowCount = new AtomicLong();
+   private final AtomicLong sentCount = new AtomicLong();
+   private final AtomicLong batchCount = new AtomicLong();
+   private final AtomicLong failedCount = new AtomicLong();
+   private final AtomicLong maxQueueLength = new AtomicLong();
+
+   /**
+    * @param sender
+    *       sends a batch of events, usually {@link PusherClient#trigger(List)}
+    * @param coalescingKeyFunction
+    *       returns key of events which can replace each other, null for events which must be always sent
+    * @param maxQueueSize
+    *       maximum number of pending events
+    * @param windowMillis
+    *       time to wait for more events before sending
+    * @param threadFactory
+    *       creates the background thread, usually a managed thread factory of the container
+    */
+   public PushNotificationDispatcher(final Consumer<List<Event>> sender, final Function<Event, String> coalescingKeyFunction, final int maxQueueSize, final long windowMillis, final ThreadFactory threadFactory) {
+      this.sender = sender;
+      this.coalescingKeyFunction = coalescingKeyFunction;
+      this.maxQueueSize = maxQueueSize;
+      this.windowMillis = windowMillis;
+
+      worker = threadFactory.newThread(this::run);
+      worker.start();
+   }
+
+   public void submit(final List<Event> events) {
+      if (events == null || events.isEmpty()) {
+         return;
+      }
+
+      final List<Event> overflow = new ArrayList<>();
+
+      lock.lock();
+      try {
+         for (final Event event : events) {
+            submittedCount.incrementAndGet();
+            final String coalescingKey = coalescingKeyFunction != null ? coalescingKeyFunction.apply(event) : null;
+
+            // once an event overflows, the following ones must not be queued before it
+            if (overflow.isEmpty() && coalescingKey != null && pending.remove(coalescingKey) != null) {
+               coalescedCount.incrementAndGet();
+               pending.put(coalescingKey, event);
+            } else if (!overflow.isEmpty() || !running || pending.size() >= maxQueueSize) {
+               overflow.add(event);
+            } else {
+               pending.put(coalescingKey != null ? coalescingKey : UNIQUE_KEY_PREFIX + sequence++, event);
+            }
+         }
+         maxQueueLength.accumulateAndGet(pending.size(), Math::max);
+         notEmpty.signal();
+      } finally {
+         lock.unlock();
+      }
+
+      if (!overflow.isEmpty()) {
+         overflowCount.addAndGet(overflow.size());
+         sendPending(overflow);
+      }
+   }
+
+   /**
+    * Stops the background thread after the pending events are sent.
+    *
+    * @param timeoutMillis
+    *       maximum time to wait for the pending events to be sent
+    */
+   public void shutdown(final long timeoutMillis) {
+      running = false;
+
+      lock.lock();
+      try {
+         notEmpty.signal();
+      } finally {
+         lock.unlock();
+      }
+
+      try {
+         worker.join(timeoutMillis);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private void run() {
+      while (running || getQueueSize() > 0) {
+         try {
+            awaitEvents();
+            sendPending(List.of());
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+         } catch (Exception e) {
+            log.log(Level.WARNING, "Unable to dispatch push notifications: ", e);
+         }
+      }
+   }
+
+   private void awaitEvents() throws InterruptedException {
+      lock.lock();
+      try {
+         while (running && pending.isEmpty()) {
+            notEmpty.await();
+         }
+
+         // give repeated updates a chance to be coalesced, unless the queue is filling up
+         long remaining = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+         while (running && remaining > 0 && pending.size() < maxQueueSize / 2) {
+            remaining = notEmpty.awaitNanos(remaining);
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   private void sendPending(final List<Event> overflow) {
+      sendLock.lock();
+      try {
+         final List<Event> events;
+         lock.lock();
+         try {
+            events = new ArrayList<>(pending.values());
+            pending.clear();
+         } finally {
+            lock.unlock();
+         }
+
+         events.addAll(overflow);
+         if (!events.isEmpty()) {
+            send(events);
+         }
+      } finally {
+         sendLock.unlock();
+      }
+   }
+
+   private void send(final List<Event> events) {
+      final Iterator<Event> iterator = events.iterator();
+      while (iterator.hasNext()) {
+         final List<Event> batch = new ArrayList<>(MAX_BATCH_SIZE);
+         while (iterator.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+            batch.add(iterator.next());
+         }
+
+         try {
+            sender.accept(batch);
+            sentCount.addAndGet(batch.size());
+            batchCount.incrementAndGet();
+         } catch (Exception e) {
+            failedCount.addAndGet(batch.size());
+            log.log(Level.WARNING, "Unable to send push notifications: ", e);
+         }
+      }
+   }
+
+   public int getQueueSize() {
+      lock.lock();
+      try {
+         return pending.size();
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   public long getSubmittedCount() {
+      return submittedCount.get();
+   }
+
+   public long getCoalescedCount() {
+      return coalescedCount.get();
+   }
+
+   /**
+    * @return number of events sent from the calling threads because the queue was full
+    */
+   public long getOverflowCount() {
+      return overflowCount.get();
+   }
+
+   public long getSentCount() {
+      return sentCount.get();
+   }
+
+   public long getBatchCount() {
+      return batchCount.get();
+   }
+
+   public long getFailedCount() {
+      return failedCount.get();
+   }
+
+   public long getMaxQueueLength() {
+      return maxQueueLength.get();
+   }
+}
@@ -0,0 +1,140 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Push event data shared by many recipients. The shared object is serialized only once,
+ * recipients which differ in a few fields get a copy with their overrides (e.g. <code>object.favorite</code>) spliced in.
+ * Each distinct set of overrides is serialized once as well.
+ *
+ * The shared object must not be modified after the payload was sent for the first time.
+ */
+public class PushPayload implements JsonSerializable {
+
+   private static final String PATH_SEPARATOR = "\\.";
+
+   private final Shared shared;
+   private final Map<String, Object> overrides;
+
+   public PushPayload(final Object data) {
+      this(new Shared(data), Collections.emptyMap());
+   }
+
+   private PushPayload(final Shared shared, final Map<String, Object> overrides) {
+      this.shared = shared;
+      this.overrides = overrides;
+   }
+
+   /**
+    * Creates payload of a single recipient sharing the serialized form with this payload.
+    *
+    * @param overrides
+    *       values to replace in the serialized object, keys are property paths separated by dots
+    * @return payload of a recipient
+    */
+   public PushPayload withOverrides(final Map<String, Object> overrides) {
+      return new PushPayload(shared, overrides != null ? overrides : Collections.emptyMap());
+   }
+
+   public Object getData() {
+      return shared.data;
+   }
+
+   public Map<String, Object> getOverrides() {
+      return overrides;
+   }
+
+   public String toJson(final ObjectMapper mapper) throws IOException {
+      try {
+         return shared.serialized.computeIfAbsent(overrides, o -> shared.serialize(mapper, o));
+      } catch (UncheckedIOException e) {
+         throw e.getCause();
+      }
+   }
+
+   @Override
+   public void serialize(final JsonGenerator gen, final SerializerProvider serializers) throws IOException {
+      final ObjectCodec codec = gen.getCodec();
+      gen.writeRawValue(toJson(codec instanceof ObjectMapper ? (ObjectMapper) codec : new ObjectMapper()));
+   }
+
+   @Override
+   public void serializeWithType(final JsonGenerator gen, final SerializerProvider serializers, final TypeSerializer typeSer) throws IOException {
+      serialize(gen, serializers);
+   }
+
+   private static class Shared {
+      private final Object data;
+      private final Map<Map<String, Object>, String> serialized = new ConcurrentHashMap<>();
+      private JsonNode tree;
+
+      private Shared(final Object data) {
+         this.data = data;
+      }
+
+      private String serialize(final ObjectMapper mapper, final Map<String, Object> overrides) {
+         try {
+            if (overrides.isEmpty()) {
+               return mapper.writeValueAsString(data);
+            }
+
+            final ObjectNode node = getTree(mapper).deepCopy();
+            overrides.forEach((path, value) -> setValue(mapper, node, path, value));
+            return mapper.writeValueAsString(node);
+         } catch (IOException e) {
+            throw new UncheckedIOException(e);
+         }
+      }
+
+      private synchronized ObjectNode getTree(final ObjectMapper mapper) {
+         if (tree == null) {
+            tree = mapper.valueToTree(data);
+         }
+         return (ObjectNode) tree;
+      }
+
+      private static void setValue(final ObjectMapper mapper, final ObjectNode root, final String path, final Object value) {
+         final String[] names = path.split(PATH_SEPARATOR);
+         ObjectNode node = root;
+         for (int i = 0; i < names.length - 1; i++) {
+            final JsonNode child = node.get(names[i]);
+            if (!(child instanceof ObjectNode)) {
+               return;
+            }
+            node = (ObjectNode) child;
+         }
+         node.set(names[names.length - 1], mapper.valueToTree(value));
+      }
+   }
+}
@@ -37,6 +37,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class PusherClient {
 
@@ -80,6 +81,9 @@ public class PusherClient {
       pusher.setDataMarshaller(o -> {
          StringWriter sw = new StringWriter();
          try {
+            if (o instanceof PushPayload) {
+               return ((PushPayload) o).toJson(mapper);
+            }
             mapper.writeValue(sw, o);
             return sw.toString();
          } catch (IOException e) {
@@ -96,6 +100,14 @@ public class PusherClient {
       return pusher.trigger(notifications);
    }
 
+   /**
+    * Creates events of the same message for all the channels, the message is serialized only once.
+    */
+   public static List<Event> createEvents(final Collection<String> channels, final String eventName, final Object message) {
+      final Object payload = message instanceof PushPayload ? message : new PushPayload(message);
+      return channels.stream().map(channel -> new Event(channel, eventName, payload, null)).collect(Collectors.toList());
+   }
+
    public String getSecret() {
       return secret;
    }
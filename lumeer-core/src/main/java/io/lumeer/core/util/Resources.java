@@ -24,6 +24,9 @@ import io.lumeer.engine.annotation.SystemDataStorage;
 import io.lumeer.engine.annotation.UserDataStorage;
 import io.lumeer.engine.api.data.DataStorage;
 import io.lumeer.storage.api.DataStorageFactory;
+import io.lumeer.storage.api.SequenceSettings;
+
+import org.apache.commons.lang3.math.NumberUtils;
 
 import java.util.logging.Logger;
 import jakarta.annotation.Resource;
@@ -35,6 +38,7 @@ import jakarta.enterprise.inject.Default;
 import jakarta.enterprise.inject.Produces;
 import jakarta.enterprise.inject.spi.InjectionPoint;
 import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
 
 /**
  * This class uses CDI to alias Java EE resources, such as the persistence context, to CDI beans
@@ -80,4 +84,11 @@ public class Resources {
       return dataStorageProvider.getUserStorage();
    }
 
+   @Produces
+   @Singleton
+   public SequenceSettings getSequenceSettings() {
+      final int blockSize = NumberUtils.toInt(defaultConfigurationProducer.get(DefaultConfigurationProducer.SEQUENCE_BLOCK_SIZE), 1);
+      return () -> blockSize;
+   }
+
 }
@@ -0,0 +1,150 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import io.lumeer.api.model.Language;
+import io.lumeer.cache.simple.BoundedCache;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
+import io.lumeer.engine.api.cache.CacheSettings;
+
+import com.floreysoft.jmte.Engine;
+import com.floreysoft.jmte.Template;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Keeps parsed JMTE templates so that they are not tokenized again for every rendered message. Application templates are
+ * keyed by their name and language, templates supplied by automations are keyed by their content.
+ * A parsed JMTE template can render in a single thread at a time, so every {@link RenderPlan} keeps a small pool of parsed
+ * instances and renders concurrently without any shared lock.
+ * The registry is shared by the whole application, including tasks created outside of CDI.
+ */
+public class TemplateRegistry {
+
+   private static final DefaultConfigurationProducer configurationProducer = new DefaultConfigurationProducer();
+
+   private static final int MAX_CONTENT_TEMPLATES = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.TEMPLATES_CACHE_SIZE), 1000);
+   private static final int MAX_IDLE_INSTANCES = NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.TEMPLATES_IDLE_INSTANCES), 8);
+
+   private static final TemplateRegistry INSTANCE = new TemplateRegistry(Engine.createEngine());
+
+   private final Engine engine;
+   private final Map<TemplateKey, RenderPlan> namedPlans = new ConcurrentHashMap<>();
+   private final BoundedCache<RenderPlan> contentPlans = new BoundedCache<>(CacheSettings.maximumSize(MAX_CONTENT_TEMPLATES));
+
+   public static TemplateRegistry getInstance() {
+      return INSTANCE;
+   }
+
+   TemplateRegistry(final Engine engine) {
+      this.engine = engine;
+   }
+
+   /**
+    * Gets the plan of an application template.
+    *
+    * @param name     name of the template.
+    * @param language language of the template.
+    * @param loader   loads the template source when it is requested for the first time, can return null.
+    * @return the render plan or null when the template could not be loaded.
+    */
+   public RenderPlan getTemplate(final String name, final Language language, final Supplier<String> loader) {
+      final TemplateKey key = new TemplateKey(name, language);
+      final RenderPlan plan = namedPlans.get(key);
+      if (plan != null) {
+         return plan;
+      }
+
+      final String source = loader.get();
+      if (source == null) {
+         return null;
+      }
+
+      return namedPlans.computeIfAbsent(key, k -> new RenderPlan(source));
+   }
+
+   /**
+    * Gets the plan of an ad-hoc template, e.g. one that is supplied by an automation.
+    *
+    * @param source the template.
+    * @return the render plan.
+    */
+   public RenderPlan getTemplate(final String source) {
+      return contentPlans.computeIfAbsent(source, RenderPlan::new);
+   }
+
+   public void clear() {
+      namedPlans.clear();
+      contentPlans.clear();
+   }
+
+   public class RenderPlan {
+
+      private final String source;
+      private final Queue<Template> idle = new ConcurrentLinkedQueue<>();
+      private final AtomicInteger idleCount = new AtomicInteger();
+
+      private RenderPlan(final String source) {
+         this.source = source;
+         release(engine.getTemplate(source));
+      }
+
+      public String getSource() {
+         return source;
+      }
+
+      public String render(final Map<String, Object> model) {
+         final Template template = acquire();
+         final String result = template.transform(model, Locale.getDefault());
+
+         // an instance that failed to render is not reused
+         release(template);
+
+         return result;
+      }
+
+      private Template acquire() {
+         final Template template = idle.poll();
+         if (template != null) {
+            idleCount.decrementAndGet();
+            return template;
+         }
+
+         return engine.getTemplate(source);
+      }
+
+      private void release(final Template template) {
+         if (idleCount.incrementAndGet() <= MAX_IDLE_INSTANCES) {
+            idle.offer(template);
+         } else {
+            idleCount.decrementAndGet();
+         }
+      }
+   }
+
+   private record TemplateKey(String name, Language language) {
+   }
+}
@@ -18,15 +18,17 @@
  */
 package io.lumeer.core.adapter
 
+import io.lumeer.api.SelectedWorkspace
 import io.lumeer.api.model.Collection
 import io.lumeer.api.util.ResourceUtils
+import io.lumeer.core.cache.CollectionMetadataBuffer
 import io.lumeer.storage.api.dao.CollectionDao
 import io.lumeer.storage.api.dao.DocumentDao
 import io.lumeer.storage.api.dao.FavoriteItemDao
 import io.lumeer.storage.api.dao.context.DaoContextSnapshot
 import java.time.ZonedDateTime
 
-class CollectionAdapter(val collectionDao: CollectionDao, val favoriteItemDao: FavoriteItemDao, val documentDao: DocumentDao) {
+class CollectionAdapter @JvmOverloads constructor(val collectionDao: CollectionDao, val favoriteItemDao: FavoriteItemDao, val documentDao: DocumentDao, val workspace: SelectedWorkspace? = null) {
 
    fun getFavoriteCollectionIds(userId: String, projectId: String): Set<String> = favoriteItemDao.getFavoriteCollectionIds(userId, projectId)
 
@@ -54,17 +56,33 @@ class CollectionAdapter(val collectionDao: CollectionDao, val favoriteItemDao: F
    }
 
    fun updateCollectionMetadata(collection: Collection, attributesIdsToInc: Set<String>, attributesIdsToDec: Set<String>) {
+      val deltas = collection.attributes.mapNotNull {
+         when {
+            attributesIdsToInc.contains(it.id) -> it.id to 1
+            attributesIdsToDec.contains(it.id) -> it.id to -1
+            else -> null
+         }
+      }.toMap()
       val originalCollection = collection.copy()
       collection.attributes = HashSet(ResourceUtils.incOrDecAttributes(collection.attributes, attributesIdsToInc, attributesIdsToDec))
       collection.lastTimeUsed = ZonedDateTime.now()
-      collectionDao.updateCollection(collection.id, collection, originalCollection)
+      storeCollectionMetadata(collection, originalCollection, deltas)
    }
 
    fun updateCollectionMetadata(collection: Collection, attributesToInc: Map<String, Int>) {
       val originalCollection = collection.copy()
       collection.attributes = HashSet(ResourceUtils.incAttributes(collection.attributes, attributesToInc))
       collection.lastTimeUsed = ZonedDateTime.now()
-      collectionDao.updateCollection(collection.id, collection, originalCollection)
+      storeCollectionMetadata(collection, originalCollection, attributesToInc)
+   }
+
+   // usage metadata are written behind when possible, so that frequent document changes do not serialize on the collection
+   private fun storeCollectionMetadata(collection: Collection, originalCollection: Collection, deltas: Map<String, Int>) {
+      val organization = workspace?.organization?.orElse(null)
+      val project = workspace?.project?.orElse(null)
+      if (organization == null || project == null || !CollectionMetadataBuffer.getInstance().record(organization, project, collection.id, deltas, collection.lastTimeUsed)) {
+         collectionDao.updateCollection(collection.id, collection, originalCollection)
+      }
    }
 
    companion object {
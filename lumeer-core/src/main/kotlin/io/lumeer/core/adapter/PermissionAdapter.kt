@@ -37,6 +37,8 @@ import io.lumeer.api.model.View
 import io.lumeer.api.model.common.Resource
 import io.lumeer.api.model.viewConfig.FormConfig
 import io.lumeer.api.util.PermissionUtils
+import io.lumeer.core.auth.PermissionMatrix
+import io.lumeer.core.cache.PermissionMatrixCache
 import io.lumeer.core.exception.NoDocumentPermissionException
 import io.lumeer.core.exception.NoLinkInstancePermissionException
 import io.lumeer.core.exception.NoPermissionException
@@ -66,6 +68,7 @@ class PermissionAdapter(
    private val groupsCache = mutableMapOf<String, List<Group>>()
    private val linkTypes = lazy { linkTypeDao.allLinkTypes }
    private val collections = lazy { collectionDao.allCollections }
+   private val matrixCache = PermissionMatrixCache.getInstance()
 
    private var currentViewId: String? = null
 
@@ -97,6 +100,8 @@ class PermissionAdapter(
 
    fun canReadAllInWorkspace(organization: Organization, project: Project?, userId: String): Boolean {
       val user = getUser(userId)
+      getMatrix(organization, project, user)?.let { return it.canReadAllInWorkspace() }
+
       val groups = PermissionUtils.getUserGroups(organization, user, getGroups(organization.id))
       if (PermissionUtils.getUserRolesInResource(organization, user, groups).any { role -> role.isTransitive && role.type === RoleType.Read }) {
          return true
@@ -150,6 +155,9 @@ class PermissionAdapter(
    }
 
    fun <T : Resource> getUserRolesInResource(organization: Organization?, project: Project?, resource: T, user: User): Set<RoleType> {
+      if (resource !is Organization || resource.id == organization?.id) {
+         getMatrix(organization, project, user)?.let { return it.getUserRoles(resource) }
+      }
       return PermissionUtils.getUserRolesInResource(organization, project, resource, user, getGroups(organization?.id ?: resource.id))
    }
 
@@ -159,6 +167,7 @@ class PermissionAdapter(
 
    private fun getUserRolesInPermissions(organization: Organization?, project: Project?, resourceType: ResourceType, permissions: Permissions?, user: User): Set<RoleType> {
       val organizationId = organization?.id ?: return emptySet()
+      getMatrix(organization, project, user)?.let { return it.getUserRoles(resourceType, permissions) }
       return PermissionUtils.getUserRolesInPermissions(organization, project, resourceType, permissions, user, getGroups(organizationId))
    }
 
@@ -242,6 +251,7 @@ class PermissionAdapter(
    }
 
    fun getUserRolesInLinkType(organization: Organization, project: Project?, linkType: LinkType, collections: List<Collection>, user: User): Set<RoleType> {
+      getMatrix(organization, project, user)?.let { return it.getUserRolesInLinkType(linkType, collections) }
       return PermissionUtils.getUserRolesInLinkType(organization, project, linkType, collections, user, getGroups(organization.id))
    }
 
@@ -484,6 +494,14 @@ class PermissionAdapter(
       }
    }
 
+   private fun getMatrix(organization: Organization?, project: Project?, user: User): PermissionMatrix? {
+      val organizationId = organization?.id ?: return null
+      if (project != null && project.id == null) {
+         return null
+      }
+      return matrixCache.getMatrix(organization, project, user) { getGroups(organizationId) }
+   }
+
    fun getUser(userId: String): User {
       if (userCache.containsKey(userId)) {
          return userCache[userId]!!
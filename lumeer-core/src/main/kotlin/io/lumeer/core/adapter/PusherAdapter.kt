@@ -32,6 +32,8 @@ import io.lumeer.api.model.common.Resource
 import io.lumeer.core.facade.PusherFacade
 import io.lumeer.core.facade.PusherFacade.ObjectWithParent
 import io.lumeer.core.facade.PusherFacade.ResourceId
+import io.lumeer.core.util.PushPayload
+import io.lumeer.core.util.PusherClient
 import io.lumeer.storage.api.dao.CollectionDao
 import io.lumeer.storage.api.dao.LinkTypeDao
 import io.lumeer.storage.api.dao.ViewDao
@@ -205,22 +207,38 @@ class PusherAdapter(
       } else {
          ObjectWithParent(appId, any, organizationId, projectId)
       }
-      val extraId = when (any) {
-         is Document -> {
-            any.collectionId
-         }
-         is LinkInstance -> {
-            any.linkTypeId
-         }
-         is ResourceComment -> {
-            any.resourceType.toString() + '/' + any.resourceId
-         }
-         else -> null
-      }
-      val alternateMessage = ResourceId(appId, id, organizationId, projectId, extraId)
+      val alternateMessage = ResourceId(appId, id, organizationId, projectId, getExtraId(any))
       return createEventForObjectWithParent(normalMessage, alternateMessage, event, userId)
    }
 
+   /**
+    * Creates events of the same workspace object for all the users, the message is serialized only once and shared by all the events.
+    * The object must not depend on the user (e.g. filtered roles), per user values are passed as payload overrides.
+    */
+   fun createEventsForWorkspaceObject(organization: Organization?, project: Project?, any: Any, id: String, event: String, userIds: kotlin.collections.Collection<String>, overrides: (String) -> Map<String, Any?>): List<Event> {
+      val organizationId = organization?.id.orEmpty()
+      val projectId = project?.id.orEmpty()
+      if (PusherFacade.REMOVE_EVENT_SUFFIX == event) {
+         return PusherClient.createEvents(userIds.map { eventChannel(it) }, any.javaClass.simpleName + PusherFacade.REMOVE_EVENT_SUFFIX, ResourceId(appId, id, organizationId, projectId))
+      }
+      val normalMessage = PushPayload(ObjectWithParent(appId, any, organizationId, projectId))
+      val alternateMessage = PushPayload(ResourceId(appId, id, organizationId, projectId, getExtraId(any)))
+      return userIds.map { userId -> BackupDataEvent(eventChannel(userId), any.javaClass.simpleName + event, normalMessage.withOverrides(overrides(userId)), alternateMessage, null) }
+   }
+
+   private fun getExtraId(any: Any): String? = when (any) {
+      is Document -> {
+         any.collectionId
+      }
+      is LinkInstance -> {
+         any.linkTypeId
+      }
+      is ResourceComment -> {
+         any.resourceType.toString() + '/' + any.resourceId
+      }
+      else -> null
+   }
+
    fun createEventForRemove(className: String, any: ResourceId, userId: String): Event {
       return Event(PusherFacade.eventChannel(userId), className + PusherFacade.REMOVE_EVENT_SUFFIX, any, null)
    }
@@ -56,7 +56,7 @@ class SearchAdapter(private val permissionAdapter: PermissionAdapter,
          documents.addAll(getContributionDocuments(collection, documentIds, userId))
       }
       if (collection.purposeType == CollectionPurposeType.Tasks) {
-         documents.addAll(getAssigneeDocuments(collection, null, null, documentIds, userId))
+         documents.addAll(getAssigneeDocuments(collection, documentIds, userId))
       }
       return documents
    }
@@ -72,30 +72,49 @@ class SearchAdapter(private val permissionAdapter: PermissionAdapter,
    }
 
    fun getDocuments(organization: Organization?, project: Project?, collection: Collection, userId: String): List<Document> {
-      return getDocuments(organization, project, collection, null, null, userId)
+      return getDocuments(organization, project, collection, null, userId)
    }
 
-   fun getDocuments(organization: Organization?, project: Project?, collection: Collection, page: Int?, limit: Int?, userId: String): List<Document> {
-      val documents = mutableListOf<Document>()
+   fun getDocuments(organization: Organization?, project: Project?, collection: Collection, pagination: Pagination?, userId: String): List<Document> {
+      return getDocumentsPage(organization, project, collection, pagination, userId).entities
+   }
+
+   fun getDocumentsPage(organization: Organization?, project: Project?, collection: Collection, pagination: Pagination?, userId: String): KeysetPage<Document> {
       if (canReadAllDocuments(organization, project, collection, userId)) {
-         return getAllDocuments(collection, page, limit)
+         val documents = documentDao.getDocumentsByCollection(collection.id, pagination)
+         return createPage(mapDocumentsData(collection, documents), documents.map { it.id }, pagination)
       }
+      val pages = mutableListOf<KeysetPage<Document>>()
       if (canReadContributionDocuments(organization, project, collection, userId)) {
-         documents.addAll(getContributionDocuments(collection, page, limit, userId))
+         val documents = documentDao.getDocumentsByCreator(collection.id, userId, pagination)
+         pages.add(createPage(mapDocumentsData(collection, documents), documents.map { it.id }, pagination))
       }
       if (collection.purposeType == CollectionPurposeType.Tasks) {
-         documents.addAll(getAssigneeDocuments(collection, page, limit, null, userId))
+         pages.add(getAssigneeDocumentsPage(collection, pagination, userId))
       }
-      return documents
+      return mergePages(pages, Document::getId)
    }
 
-   fun getAllDocuments(collection: Collection, page: Int?, limit: Int?): List<Document> {
-      val documents = documentDao.getDocumentsByCollection(collection.id, Pagination(page, limit))
-      return mapDocumentsData(collection, documents)
+   /**
+    * Returns a page of documents which may pass the given prefilters, the prefilters are evaluated only when the user can read all documents in the collection.
+    */
+   fun getDocumentsPage(organization: Organization?, project: Project?, collection: Collection, prefilters: Set<CollectionSearchAttributeFilter>, pagination: Pagination?, userId: String): KeysetPage<Document> {
+      if (prefilters.isEmpty() || !canReadAllDocuments(organization, project, collection, userId)) {
+         return getDocumentsPage(organization, project, collection, pagination, userId)
+      }
+      val data = dataDao.searchDataByPrefilters(collection.id, prefilters, pagination)
+      if (data.isNotEmpty()) {
+         val documents = documentDao.getDocumentsByCollection(collection.id, data.map { it.id }.toSet())
+         val dataMap = data.associateBy { it.id }
+         val codec = constraintManager.getCodec(collection)
+         documents.forEach { it.data = codec.decodeInPlace(dataMap.getOrDefault(it.id, DataDocument())) }
+         return createPage(documents, data.map { it.id }, pagination)
+      }
+      return createPage(listOf(), listOf(), pagination)
    }
 
-   private fun getContributionDocuments(collection: Collection, page: Int?, limit: Int?, userId: String): List<Document> {
-      val documents = documentDao.getDocumentsByCreator(collection.id, userId, Pagination(page, limit))
+   fun getAllDocuments(collection: Collection, pagination: Pagination?): List<Document> {
+      val documents = documentDao.getDocumentsByCollection(collection.id, pagination)
       return mapDocumentsData(collection, documents)
    }
 
@@ -107,23 +126,36 @@ class SearchAdapter(private val permissionAdapter: PermissionAdapter,
             dataDao.getData(collection.id)
          }
          val dataMap = data.associateBy { it.id }
-         return documents.onEach { it.data = constraintManager.decodeDataTypes(collection, dataMap.getOrDefault(it.id, DataDocument())) }
+         val codec = constraintManager.getCodec(collection)
+         return documents.onEach { it.data = codec.decodeInPlace(dataMap.getOrDefault(it.id, DataDocument())) }
       }
       return documents
    }
 
-   private fun getAssigneeDocuments(collection: Collection, page: Int?, limit: Int?, documentIds: Set<String>?, userId: String): List<Document> {
-      val assigneeAttribute = ResourceUtils.findAttribute(collection.attributes, collection.purpose?.assigneeAttributeId)
-      if (assigneeAttribute != null) {
-         val user = permissionAdapter.getUser(userId)
-         val searchQuery = SearchQueryStem.createBuilder(collection.id)
-               .filters(setOf(CollectionSearchAttributeFilter(collection.id, ConditionType.HAS_SOME, assigneeAttribute.id, user.email)))
-               .build()
-         val data = if (documentIds != null) dataDao.searchDataByIds(searchQuery, documentIds, collection) else dataDao.searchData(searchQuery, Pagination(page, limit), collection)
-         if (data.isNotEmpty()) {
-            val documentsMap = documentDao.getDocumentsByCollection(collection.id).associateBy { it.id }
-            return data.mapNotNull { documentsMap[it.id]?.apply { setData(constraintManager.decodeDataTypes(collection, it)) } }
-         }
+   private fun getAssigneeDocuments(collection: Collection, documentIds: Set<String>, userId: String): List<Document> {
+      val searchQuery = createAssigneeQuery(collection, userId) ?: return listOf()
+      return mapAssigneeDocuments(collection, dataDao.searchDataByIds(searchQuery, documentIds, collection))
+   }
+
+   private fun getAssigneeDocumentsPage(collection: Collection, pagination: Pagination?, userId: String): KeysetPage<Document> {
+      val searchQuery = createAssigneeQuery(collection, userId) ?: return createPage(listOf(), listOf(), pagination)
+      val data = dataDao.searchData(searchQuery, pagination, collection)
+      return createPage(mapAssigneeDocuments(collection, data), data.map { it.id }, pagination)
+   }
+
+   private fun createAssigneeQuery(collection: Collection, userId: String): SearchQueryStem? {
+      val assigneeAttribute = ResourceUtils.findAttribute(collection.attributes, collection.purpose?.assigneeAttributeId) ?: return null
+      val user = permissionAdapter.getUser(userId)
+      return SearchQueryStem.createBuilder(collection.id)
+            .filters(setOf(CollectionSearchAttributeFilter(collection.id, ConditionType.HAS_SOME, assigneeAttribute.id, user.email)))
+            .build()
+   }
+
+   private fun mapAssigneeDocuments(collection: Collection, data: List<DataDocument>): List<Document> {
+      if (data.isNotEmpty()) {
+         val documentsMap = documentDao.getDocumentsByCollection(collection.id).associateBy { it.id }
+         val codec = constraintManager.getCodec(collection)
+         return data.mapNotNull { documentsMap[it.id]?.apply { setData(codec.decodeInPlace(it)) } }
       }
       return listOf()
    }
@@ -158,30 +190,30 @@ class SearchAdapter(private val permissionAdapter: PermissionAdapter,
    }
 
    fun getLinkInstances(organization: Organization, project: Project?, linkType: LinkType, userId: String): List<LinkInstance> {
-      return getLinkInstances(organization, project, linkType, null, null, userId)
+      return getLinkInstances(organization, project, linkType, null, userId)
    }
 
-   fun getLinkInstances(organization: Organization, project: Project?, linkType: LinkType, page: Int?, limit: Int?, userId: String): List<LinkInstance> {
-      val linkInstances = mutableListOf<LinkInstance>()
+   fun getLinkInstances(organization: Organization, project: Project?, linkType: LinkType, pagination: Pagination?, userId: String): List<LinkInstance> {
+      return getLinkInstancesPage(organization, project, linkType, pagination, userId).entities
+   }
+
+   fun getLinkInstancesPage(organization: Organization, project: Project?, linkType: LinkType, pagination: Pagination?, userId: String): KeysetPage<LinkInstance> {
       if (canReadAllLinkInstances(organization, project, linkType, userId)) {
-         return getAllLinkInstances(linkType, page, limit)
+         val linkInstances = linkInstanceDao.getLinkInstancesByLinkType(linkType.id, pagination)
+         return createPage(mapLinkData(linkType, linkInstances), linkInstances.map { it.id }, pagination)
       }
       if (canReadContributionLinkInstances(organization, project, linkType, userId)) {
-         linkInstances.addAll(getContributionLinkInstances(linkType, page, limit, userId))
+         val linkInstances = linkInstanceDao.getLinkInstancesByCreator(linkType.id, userId, pagination)
+         return createPage(mapLinkData(linkType, linkInstances), linkInstances.map { it.id }, pagination)
       }
-      return linkInstances
+      return createPage(listOf(), listOf(), pagination)
    }
 
-   fun getAllLinkInstances(linkType: LinkType, page: Int?, limit: Int?): List<LinkInstance> {
-      val linkInstances = linkInstanceDao.getLinkInstancesByLinkType(linkType.id, Pagination(page, limit))
+   fun getAllLinkInstances(linkType: LinkType, pagination: Pagination?): List<LinkInstance> {
+      val linkInstances = linkInstanceDao.getLinkInstancesByLinkType(linkType.id, pagination)
       return mapLinkData(linkType, linkInstances)
    }
 
-   private fun getContributionLinkInstances(linkType: LinkType, page: Int?, limit: Int?, userId: String): List<LinkInstance> {
-      val documents = linkInstanceDao.getLinkInstancesByCreator(linkType.id, userId, Pagination(page, limit))
-      return mapLinkData(linkType, documents)
-   }
-
    private fun mapLinkData(linkType: LinkType, linkInstances: List<LinkInstance>): List<LinkInstance> {
       if (linkInstances.isNotEmpty()) {
          val data = if (linkInstances.size < MAX_IDS_QUERY) { // large queries throw error in DB
@@ -190,11 +222,32 @@ class SearchAdapter(private val permissionAdapter: PermissionAdapter,
             linkDataDao.getData(linkType.id)
          }
          val dataMap = data.associateBy { it.id }
-         return linkInstances.onEach { it.data = constraintManager.decodeDataTypes(linkType, dataMap.getOrDefault(it.id, DataDocument())) }
+         val codec = constraintManager.getCodec(linkType)
+         return linkInstances.onEach { it.data = codec.decodeInPlace(dataMap.getOrDefault(it.id, DataDocument())) }
       }
       return linkInstances
    }
 
+   /**
+    * The page continues after the last id read from the database, not after the last returned entity, because some of the read rows may have been dropped
+    * (e.g. data without a document), and it is full when the database returned the whole page.
+    */
+   private fun <T> createPage(entities: List<T>, readIds: List<String>, pagination: Pagination?): KeysetPage<T> {
+      val pageSize = pagination?.takeIf { it.isKeyset }?.pageSize
+      return KeysetPage(entities, readIds.maxOrNull(), pageSize != null && readIds.size >= pageSize)
+   }
+
+   /**
+    * Entities from several sources read by keyset pagination must be cut at the smallest id which all full sources reached,
+    * otherwise the next page would skip entities of the sources which returned smaller ids.
+    */
+   private fun <T> mergePages(pages: List<KeysetPage<T>>, idFunction: (T) -> String): KeysetPage<T> {
+      val entities = pages.flatMap { it.entities }.distinctBy(idFunction)
+      val lastId = pages.filter { it.hasMore }.mapNotNull { it.lastId }.minOrNull()
+            ?: return KeysetPage(entities, pages.mapNotNull { it.lastId }.maxOrNull(), false)
+      return KeysetPage(entities.filter { idFunction(it) <= lastId }, lastId, true)
+   }
+
    private fun canReadAllLinkInstances(organization: Organization, project: Project?, linkType: LinkType, userId: String): Boolean {
       return permissionAdapter.hasRoleInLinkTypeWithView(organization, project, linkType, RoleType.DataRead, userId)
    }
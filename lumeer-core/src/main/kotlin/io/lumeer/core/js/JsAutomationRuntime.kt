@@ -0,0 +1,259 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.js
+
+import org.graalvm.polyglot.PolyglotException
+import org.graalvm.polyglot.Source
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Runs automation scripts in pooled contexts with the [libraries] already evaluated.
+ *
+ * Each script is wrapped in a function so that its declarations stay local to the run. After the run,
+ * the passed bindings and all globals created by the script are removed, globals present after the initialization
+ * are restored and the optional [resetJs] is evaluated (e.g. to reset library locales).
+ * A context which could not be cleaned up is discarded.
+ *
+ * Built-in objects and the objects of the [libraries] are frozen after the initialization, so a script cannot change
+ * them for the following runs. Assignments to the inherited <code>constructor</code>, <code>name</code>, <code>toString</code>
+ * and similar properties still create own properties of the target object.
+ *
+ * Timeouts are enforced by a single scheduler shared by all runtimes, a context that runs over time is closed and discarded.
+ */
+class JsAutomationRuntime(name: String,
+                          maxSize: Int,
+                          maxUses: Int,
+                          waitTimeoutMillis: Long,
+                          libraries: String,
+                          private val resetJs: String = "") {
+
+    private val librariesSource = Source.newBuilder("js", libraries, "$name-libraries.js").buildLiteral()
+    private val pool = JsContextPool(name, maxSize, maxUses, waitTimeoutMillis) { context ->
+        context.eval(librariesSource)
+        context.eval("js", HARDEN_JS)
+        context.eval("js", CLEANUP_JS)
+    }
+
+    private val executions = AtomicLong()
+    private val failures = AtomicLong()
+    private val timeouts = AtomicLong()
+    private val dirty = AtomicLong()
+
+    /**
+     * Evaluates the script in a pooled context.
+     *
+     * @param bindings global variables available to the script
+     * @param polyglotBindings values available to the script via <code>Polyglot.import</code>
+     * @param js script to evaluate
+     * @param timeoutMillis time after which the script is cancelled, no limit when not positive
+     */
+    fun execute(bindings: Map<String, Any?>, polyglotBindings: Map<String, Any?>, js: String, timeoutMillis: Long) {
+        val pooled = pool.borrow()
+        val context = pooled.context
+        val finished = AtomicBoolean()
+        val watchdog = if (timeoutMillis > 0) {
+            scheduler.schedule({
+                if (finished.compareAndSet(false, true)) {
+                    timeouts.incrementAndGet()
+                    try {
+                        context.close(true)
+                    } catch (e: Exception) {
+                        logger.log(Level.FINE, "Unable to cancel JS context: ", e)
+                    }
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS)
+        } else null
+
+        executions.incrementAndGet()
+        try {
+            polyglotBindings.forEach { (key, value) -> context.polyglotBindings.putMember(key, value) }
+            val jsBindings = context.getBindings("js")
+            bindings.forEach { (key, value) -> jsBindings.putMember(key, value) }
+
+            context.eval(Source.create("js", "(function() {\n$js\n})();"))
+        } catch (e: PolyglotException) {
+            failures.incrementAndGet()
+            if (e.isInternalError || e.isCancelled || e.isExit || e.isResourceExhausted) {
+                pooled.invalidate()
+            }
+            throw e
+        } catch (e: IllegalStateException) {
+            // context was closed by the watchdog
+            failures.incrementAndGet()
+            pooled.invalidate()
+            throw e
+        } finally {
+            watchdog?.cancel(false)
+            if (!finished.compareAndSet(false, true)) {
+                pooled.invalidate()
+            } else if (pooled.healthy) {
+                reset(pooled, bindings.keys, polyglotBindings.keys)
+            }
+            pool.release(pooled)
+        }
+    }
+
+    fun getStats(): JsAutomationRuntimeStats = JsAutomationRuntimeStats(pool.getStats(), executions.get(), failures.get(), timeouts.get(), dirty.get())
+
+    fun clear() = pool.clear()
+
+    /**
+     * Closes all idle contexts, contexts in use are closed once they are returned.
+     */
+    fun close() = pool.close()
+
+    private fun reset(pooled: JsContextPool.PooledContext, bindings: Set<String>, polyglotBindings: Set<String>) {
+        try {
+            polyglotBindings.forEach { pooled.context.polyglotBindings.removeMember(it) }
+            val jsBindings = pooled.context.getBindings("js")
+            bindings.forEach { jsBindings.removeMember(it) }
+
+            if (resetJs.isNotEmpty()) {
+                pooled.context.eval("js", resetJs)
+            }
+            if (!pooled.value.execute().asBoolean()) {
+                dirty.incrementAndGet()
+                pooled.invalidate()
+            }
+        } catch (e: Exception) {
+            logger.log(Level.FINE, "Unable to reset JS context: ", e)
+            dirty.incrementAndGet()
+            pooled.invalidate()
+        }
+    }
+
+    companion object {
+        private val logger: Logger = Logger.getLogger(JsAutomationRuntime::class.simpleName)
+
+        // returns a function removing globals created after the initialization, it returns false when the global scope could not be restored
+        private const val CLEANUP_JS = """
+            (function() {
+                const initial = new Map(Object.getOwnPropertyNames(globalThis).map(name => [name, globalThis[name]]));
+                return function() {
+                    let clean = true;
+                    for (const name of Object.getOwnPropertyNames(globalThis)) {
+                        if (!initial.has(name) && !delete globalThis[name]) {
+                            clean = false;
+                        }
+                    }
+                    initial.forEach((value, name) => {
+                        if (!Object.is(globalThis[name], value)) {
+                            globalThis[name] = value;
+                            clean = clean && Object.is(globalThis[name], value);
+                        }
+                    });
+                    return clean;
+                };
+            })();
+        """
+
+        // freezes all objects reachable from the global scope, data properties of prototypes commonly overridden
+        // in instances are turned into accessors that define an own property of the instance instead
+        private const val HARDEN_JS = """
+            (function() {
+                const overridable = ['constructor', 'name', 'message', 'toString', 'valueOf', 'toLocaleString', 'toJSON'];
+                const objects = new Set();
+                const prototypes = new Set();
+                const pending = [];
+                const visit = (value) => {
+                    if (((typeof value === 'object' && value !== null) || typeof value === 'function') && value !== globalThis && !objects.has(value)) {
+                        objects.add(value);
+                        pending.push(value);
+                    }
+                };
+                const tame = (proto) => {
+                    overridable.forEach(name => {
+                        const descriptor = Object.getOwnPropertyDescriptor(proto, name);
+                        if (descriptor && 'value' in descriptor && descriptor.configurable) {
+                            const value = descriptor.value;
+                            Object.defineProperty(proto, name, {
+                                get() { return value; },
+                                set(newValue) {
+                                    if (this === proto) {
+                                        throw new TypeError("Cannot assign to read only property '" + name + "'");
+                                    }
+                                    Object.defineProperty(this, name, { value: newValue, writable: true, enumerable: true, configurable: true });
+                                },
+                                enumerable: descriptor.enumerable,
+                                configurable: false
+                            });
+                        }
+                    });
+                };
+
+                Object.getOwnPropertyNames(globalThis).forEach(name => {
+                    const descriptor = Object.getOwnPropertyDescriptor(globalThis, name);
+                    visit(descriptor.value);
+                    visit(descriptor.get);
+                    visit(descriptor.set);
+                });
+                visit(Object.getPrototypeOf(globalThis));
+                while (pending.length > 0) {
+                    const object = pending.pop();
+                    try {
+                        visit(Object.getPrototypeOf(object));
+                        Reflect.ownKeys(object).forEach(key => {
+                            const descriptor = Reflect.getOwnPropertyDescriptor(object, key);
+                            if (descriptor) {
+                                if (key === 'prototype' && typeof object === 'function' && descriptor.value) {
+                                    prototypes.add(descriptor.value);
+                                }
+                                visit(descriptor.value);
+                                visit(descriptor.get);
+                                visit(descriptor.set);
+                            }
+                        });
+                    } catch (e) {
+                        // host objects need not be introspectable
+                    }
+                }
+                objects.forEach(object => {
+                    try {
+                        if (prototypes.has(object)) {
+                            tame(object);
+                        }
+                        Object.freeze(object);
+                    } catch (e) {
+                        // host objects need not be freezable
+                    }
+                });
+            })();
+        """
+
+        private val scheduler: ScheduledExecutorService by lazy {
+            val executor = ScheduledThreadPoolExecutor(1) { runnable ->
+                Thread(runnable, "js-automation-watchdog").apply { isDaemon = true }
+            }
+            executor.removeOnCancelPolicy = true
+            executor
+        }
+    }
+}
+
+data class JsAutomationRuntimeStats(val pool: JsContextPoolStats,
+                                    val executions: Long,
+                                    val failures: Long,
+                                    val timeouts: Long,
+                                    val dirty: Long)
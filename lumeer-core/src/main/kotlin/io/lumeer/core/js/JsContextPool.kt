@@ -0,0 +1,218 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.js
+
+import org.graalvm.polyglot.Context
+import org.graalvm.polyglot.PolyglotException
+import org.graalvm.polyglot.Value
+import java.util.concurrent.ConcurrentLinkedDeque
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Bounded pool of initialized JS contexts bound to the shared [JsEngineFactory] engine.
+ * The [initializer] is run once per context and returns the value that is handed out to callers
+ * (typically the entry function of an already evaluated library).
+ *
+ * A context is used by a single thread at a time. It is discarded instead of returned to the pool
+ * when its execution failed in a way that may have left it in an inconsistent state,
+ * or after it has served [maxUses] executions.
+ */
+class JsContextPool(val name: String,
+                    private val maxSize: Int,
+                    private val maxUses: Int,
+                    private val waitTimeoutMillis: Long,
+                    private val initializer: (Context) -> Value) {
+
+    class PooledContext internal constructor(val context: Context, val value: Value) {
+        internal var uses = 0
+        internal var healthy = true
+
+        fun invalidate() {
+            healthy = false
+        }
+    }
+
+    @Volatile
+    private var closed = false
+
+    private val idle = ConcurrentLinkedDeque<PooledContext>()
+    private val permits = Semaphore(maxSize, true)
+
+    private val active = AtomicInteger()
+    private val created = AtomicLong()
+    private val evicted = AtomicLong()
+    private val borrowed = AtomicLong()
+    private val timeouts = AtomicLong()
+    private val totalWaitNanos = AtomicLong()
+    private val maxWaitNanos = AtomicLong()
+
+    fun <T> execute(block: (Value) -> T): T {
+        val pooled = borrow()
+        try {
+            return block(pooled.value)
+        } catch (e: PolyglotException) {
+            if (e.isInternalError || e.isCancelled || e.isExit || e.isResourceExhausted) {
+                pooled.invalidate()
+            }
+            throw e
+        } catch (e: IllegalStateException) {
+            // context was closed or is being used from another thread
+            pooled.invalidate()
+            throw e
+        } finally {
+            release(pooled)
+        }
+    }
+
+    fun borrow(): PooledContext {
+        val start = System.nanoTime()
+        if (!permits.tryAcquire(waitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            timeouts.incrementAndGet()
+            throw IllegalStateException("Timeout while waiting for a JS context from pool $name.")
+        }
+        recordWait(System.nanoTime() - start)
+
+        try {
+            val pooled = idle.pollFirst() ?: create()
+            pooled.uses++
+            active.incrementAndGet()
+            borrowed.incrementAndGet()
+            return pooled
+        } catch (e: Throwable) {
+            permits.release()
+            throw e
+        }
+    }
+
+    fun release(pooled: PooledContext) {
+        try {
+            if (!closed && pooled.healthy && pooled.uses < maxUses) {
+                idle.offerFirst(pooled)
+            } else {
+                destroy(pooled)
+            }
+        } finally {
+            active.decrementAndGet()
+            permits.release()
+        }
+    }
+
+    /**
+     * Creates contexts up to the given count in advance so that the first requests do not pay the initialization cost.
+     */
+    fun prewarm(count: Int) {
+        val target = count.coerceAtMost(maxSize)
+        while (idle.size + active.get() < target) {
+            if (!permits.tryAcquire()) {
+                return
+            }
+            try {
+                idle.offerLast(create())
+            } catch (e: Exception) {
+                logger.log(Level.WARNING, "Unable to prewarm JS context in pool $name: ", e)
+                return
+            } finally {
+                permits.release()
+            }
+        }
+    }
+
+    fun clear() {
+        var pooled = idle.pollFirst()
+        while (pooled != null) {
+            destroy(pooled)
+            pooled = idle.pollFirst()
+        }
+    }
+
+    /**
+     * Destroys all idle contexts, contexts in use are destroyed when they are released.
+     */
+    fun close() {
+        closed = true
+        clear()
+    }
+
+    fun getStats(): JsContextPoolStats {
+        val borrowedCount = borrowed.get()
+        return JsContextPoolStats(
+                name,
+                maxSize,
+                idle.size,
+                active.get(),
+                created.get(),
+                evicted.get(),
+                borrowedCount,
+                timeouts.get(),
+                if (borrowedCount > 0) TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get() / borrowedCount) else 0,
+                TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get())
+        )
+    }
+
+    private fun create(): PooledContext {
+        val context = Context
+                .newBuilder("js")
+                .engine(JsEngineFactory.getEngine())
+                .allowAllAccess(true)
+                .build()
+        try {
+            context.initialize("js")
+            val pooled = PooledContext(context, initializer(context))
+            created.incrementAndGet()
+            return pooled
+        } catch (e: Exception) {
+            context.close()
+            throw e
+        }
+    }
+
+    private fun destroy(pooled: PooledContext) {
+        evicted.incrementAndGet()
+        try {
+            pooled.context.close(!pooled.healthy)
+        } catch (e: Exception) {
+            logger.log(Level.FINE, "Unable to close JS context in pool $name: ", e)
+        }
+    }
+
+    private fun recordWait(nanos: Long) {
+        totalWaitNanos.addAndGet(nanos)
+        maxWaitNanos.accumulateAndGet(nanos, Math::max)
+    }
+
+    companion object {
+        private val logger: Logger = Logger.getLogger(JsContextPool::class.simpleName)
+    }
+}
+
+data class JsContextPoolStats(val name: String,
+                              val maxSize: Int,
+                              val idle: Int,
+                              val active: Int,
+                              val created: Long,
+                              val evicted: Long,
+                              val borrowed: Long,
+                              val timeouts: Long,
+                              val averageWaitMicros: Long,
+                              val maxWaitMicros: Long)
@@ -7,6 +7,10 @@ import io.lumeer.core.task.executor.operation.SendSmtpEmailOperation
 import io.lumeer.core.util.EmailPart
 import io.lumeer.core.util.EmailService
 import java.net.URLConnection
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
 
 /*
  * Lumeer: Modern Data Definition and Processing Platform
@@ -35,8 +39,8 @@ class SendSmtpEmailsStage(executor: OperationExecutor) : Stage(executor) {
       val sendSmtpEmailRequests = operations.orEmpty().filter { operation -> operation is SendSmtpEmailOperation && operation.isComplete }
             .map { operation -> (operation as SendSmtpEmailOperation) }
 
-      sendSmtpEmailRequests.forEach { req ->
-         val emailService = EmailService.fromSmtpConfiguration(req.entity.smtpConfiguration)
+      val results = sendSmtpEmailRequests.map { req ->
+         val emailService = EmailService.fromSmtpConfiguration(req.entity.smtpConfiguration, taskExecutor.mailOutbox)
          val emailAttachments = mutableListOf<EmailPart>()
 
          if (req.entity.document != null) {
@@ -75,9 +79,28 @@ class SendSmtpEmailsStage(executor: OperationExecutor) : Stage(executor) {
          emailService.sendEmail(req.entity.subject, req.entity.email, req.entity.body, req.entity.fromName, emailAttachments)
       }
 
+      awaitSent(results)
+
       return changesTracker
    }
 
+   // failures are reported to the automation like when the e-mails were sent directly, retries taking longer are only logged by the outbox
+   private fun awaitSent(results: List<CompletableFuture<Void>>) {
+      try {
+         CompletableFuture.allOf(*results.toTypedArray()).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+      } catch (e: ExecutionException) {
+         throw IllegalStateException("Unable to send email: " + e.cause?.message, e.cause)
+      } catch (e: TimeoutException) {
+         // still being retried
+      } catch (e: InterruptedException) {
+         Thread.currentThread().interrupt()
+      }
+   }
+
+   companion object {
+      private const val SEND_TIMEOUT_SECONDS = 30L
+   }
+
    private fun getMimeType(fileName: String): String =
          URLConnection.guessContentTypeFromName(fileName) ?: "application/octet-stream"
 }
\ No newline at end of file
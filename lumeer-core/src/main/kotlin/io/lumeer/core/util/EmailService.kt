@@ -23,18 +23,20 @@ import org.apache.commons.collections4.map.LRUMap
 import org.apache.commons.lang3.StringUtils
 import java.nio.charset.StandardCharsets
 import java.util.Properties
+import java.util.concurrent.CompletableFuture
 import java.util.logging.Logger
 import jakarta.mail.Authenticator
 import jakarta.mail.Message
 import jakarta.mail.PasswordAuthentication
 import jakarta.mail.Session
+import jakarta.mail.Transport
 import jakarta.mail.internet.InternetAddress
 import jakarta.mail.internet.MimeBodyPart
 import jakarta.mail.internet.MimeMessage
 import jakarta.mail.internet.MimeMultipart
 import jakarta.mail.internet.MimeUtility
 
-class EmailService(val server: String, val port: Int, val user: String, val password: String, val from: String, val security: EmailSecurityType) {
+class EmailService(val server: String, val port: Int, val user: String, val password: String, val from: String, val security: EmailSecurityType, private val outbox: MailOutbox) {
 
    private val props: Properties = Properties()
    private val session: Session
@@ -63,20 +65,27 @@ class EmailService(val server: String, val port: Int, val user: String, val pass
       })
    }
 
-   fun sendEmail(subject: String, to: String, body: String, fromName: String) {
+   /**
+    * Queues the e-mail to be sent.
+    *
+    * @return future completed once the e-mail is sent, or completed exceptionally when it could not be sent.
+    */
+   fun sendEmail(subject: String, to: String, body: String, fromName: String): CompletableFuture<Void> {
       if (active) {
          val message = getMimeMessage(subject, to, body, fromName)
          message.setContent(body, "text/html; charset=utf-8")
          message.saveChanges()
 
-         sendMimeMessage(message)
+         return sendMimeMessage(message, getSize(body, emptyList()))
       }
+
+      return CompletableFuture.completedFuture(null)
    }
 
-   fun sendEmail(subject: String, to: String, body: String, fromName: String, attachments: List<EmailPart>) {
+   fun sendEmail(subject: String, to: String, body: String, fromName: String, attachments: List<EmailPart>): CompletableFuture<Void> {
       if (active) {
          if (attachments.size <= 0) {
-            sendEmail(subject, to, body, fromName)
+            return sendEmail(subject, to, body, fromName)
          } else {
             val message = getMimeMessage(subject, to, body, fromName)
 
@@ -97,9 +106,11 @@ class EmailService(val server: String, val port: Int, val user: String, val pass
             message.setContent(multipart)
             message.saveChanges()
 
-            sendMimeMessage(message)
+            return sendMimeMessage(message, getSize(body, attachments))
          }
       }
+
+      return CompletableFuture.completedFuture(null)
    }
 
    private fun getMimeMessage(subject: String, to: String, body: String, fromName: String): MimeMessage {
@@ -113,20 +124,31 @@ class EmailService(val server: String, val port: Int, val user: String, val pass
       return message
    }
 
-   private fun sendMimeMessage(message: MimeMessage) {
+   private fun sendMimeMessage(message: MimeMessage, size: Long): CompletableFuture<Void> =
+      outbox.submit(this, message, size)
+
+   // attachments are base64 encoded in the message
+   private fun getSize(body: String, attachments: List<EmailPart>): Long =
+      body.toByteArray(StandardCharsets.UTF_8).size + attachments.sumOf { it.data.size.toLong() * 4 / 3 }
+
+   /**
+    * Opens a new authenticated connection to the SMTP server. The caller is responsible for closing it.
+    */
+   fun openTransport(): Transport {
       val transport = session.getTransport("smtp")
       transport.connect()
-      transport.sendMessage(message, message.allRecipients)
-      transport.close()
+      return transport
    }
 
    companion object Factory {
 
-      private val cache = LRUMap<Int, EmailService>(10)
+      private val cache = LRUMap<SmtpConfiguration, EmailService>(10)
 
-      fun fromSmtpConfiguration(config: SmtpConfiguration): EmailService =
-         cache.computeIfAbsent(config.hashCode()) { _ ->
-            EmailService(config.host, config.port, config.user, config.password, config.from, config.emailSecurityType)
+      // services are the keys of pooled SMTP connections, so the same configuration should always get the same instance
+      @Synchronized
+      fun fromSmtpConfiguration(config: SmtpConfiguration, outbox: MailOutbox): EmailService =
+         cache.computeIfAbsent(config) { _ ->
+            EmailService(config.host, config.port, config.user, config.password, config.from, config.emailSecurityType, outbox)
          }
    }
 
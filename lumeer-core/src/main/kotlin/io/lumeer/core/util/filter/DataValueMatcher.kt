@@ -0,0 +1,571 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util.filter
+
+import io.lumeer.api.model.ConditionType
+import io.lumeer.api.model.ConditionValue
+import io.lumeer.api.model.Constraint
+import io.lumeer.api.model.ConstraintData
+import io.lumeer.api.model.ConstraintType
+import java.math.BigDecimal
+import java.math.RoundingMode
+import java.text.Normalizer
+import java.time.DateTimeException
+import java.time.Instant
+import java.time.LocalDate
+import java.time.OffsetDateTime
+import java.time.ZoneId
+import java.time.ZoneOffset
+import java.time.ZonedDateTime
+import java.time.format.DateTimeFormatter
+import java.time.temporal.ChronoUnit
+import java.util.Date
+
+/**
+ * Evaluates query conditions and fulltexts on a single (decoded) attribute value.
+ * Mirrors the data values of the lumeer-data-filters library, see [DataValueMatcher.create].
+ */
+abstract class DataValueMatcher(protected val config: Map<*, *>, protected val constraintData: ConstraintData) {
+
+   abstract fun meetCondition(value: Any?, condition: ConditionType, conditionValues: List<ConditionValue>): Boolean
+
+   /**
+    * Text representation of the value used for fulltext search.
+    */
+   abstract fun format(value: Any?): String
+
+   open fun meetFulltext(value: Any?, fulltext: String): Boolean = normalizeFulltext(format(value)).trim().contains(fulltext.lowercase().trim())
+
+   /**
+    * Whether the condition can be evaluated natively with the same result as the JS filters.
+    */
+   open fun supportsCondition(condition: ConditionType, conditionValues: List<ConditionValue>): Boolean = true
+
+   open fun supportsFulltext(): Boolean = true
+
+   companion object {
+
+      private val TEXT_TYPES = setOf(ConstraintType.Text, ConstraintType.Address, ConstraintType.Color)
+
+      @JvmStatic
+      fun create(constraint: Constraint?, constraintData: ConstraintData): DataValueMatcher {
+         val config = constraint?.config as? Map<*, *> ?: emptyMap<Any, Any>()
+         return when (constraint?.type) {
+            in TEXT_TYPES -> TextMatcher(config, constraintData)
+            ConstraintType.Boolean -> BooleanMatcher(config, constraintData)
+            ConstraintType.Number -> NumberMatcher(config, constraintData, "decimals")
+            ConstraintType.Percentage -> PercentageMatcher(config, constraintData)
+            ConstraintType.Duration -> DurationMatcher(config, constraintData)
+            ConstraintType.DateTime -> DateTimeMatcher(config, constraintData)
+            ConstraintType.Select -> SelectMatcher(config, constraintData)
+            ConstraintType.User -> UserMatcher(config, constraintData)
+            ConstraintType.Link -> LinkMatcher(config, constraintData)
+            ConstraintType.FileAttachment -> FilesMatcher(config, constraintData)
+            ConstraintType.Action, ConstraintType.Coordinates, ConstraintType.View -> UnsupportedMatcher(config, constraintData)
+            else -> UnknownMatcher(config, constraintData)
+         }
+      }
+
+      @JvmStatic
+      fun normalizeFulltext(value: String): String =
+            Normalizer.normalize(value.lowercase(), Normalizer.Form.NFD).replace(Regex("[\\u0300-\\u036f]"), "")
+
+      fun conditionValuesCount(condition: ConditionType): Int = when (condition) {
+         ConditionType.IS_EMPTY, ConditionType.NOT_EMPTY, ConditionType.ENABLED, ConditionType.DISABLED -> 0
+         ConditionType.BETWEEN, ConditionType.NOT_BETWEEN -> 2
+         else -> 1
+      }
+
+      /**
+       * String conversion of a value the same way as JS does it.
+       */
+      fun jsString(value: Any?): String = when (value) {
+         null -> ""
+         is Collection<*> -> value.joinToString(",") { jsString(it) }
+         is Double -> if (value.isNaN()) "NaN" else if (value.isInfinite()) (if (value > 0) "Infinity" else "-Infinity") else BigDecimal.valueOf(value).stripTrailingZeros().toPlainString()
+         is Float -> jsString(value.toDouble())
+         is BigDecimal -> value.stripTrailingZeros().toPlainString()
+         else -> value.toString()
+      }
+
+      fun isTruthy(value: Any?): Boolean = when (value) {
+         null -> false
+         is Boolean -> value
+         is String -> value.isNotEmpty()
+         is Number -> toBigDecimal(value)?.signum() != 0
+         else -> true
+      }
+
+      fun isEmptyValue(value: Any?): Boolean = value == null || jsString(value).trim().isEmpty()
+
+      fun toBigDecimal(value: Any?): BigDecimal? = when (value) {
+         null, is Boolean -> null
+         is BigDecimal -> value
+         is Double -> if (value.isNaN() || value.isInfinite()) null else BigDecimal.valueOf(value)
+         is Float -> toBigDecimal(value.toDouble())
+         is Number -> BigDecimal(value.toString())
+         else -> try {
+            BigDecimal(value.toString().replace(Regex("\\s"), "").replaceFirst(",", "."))
+         } catch (e: NumberFormatException) {
+            null
+         }
+      }
+
+      fun meetText(condition: ConditionType, value: String, values: List<String>): Boolean {
+         val first = values.firstOrNull() ?: ""
+         return when (condition) {
+            ConditionType.EQUALS -> value == first
+            ConditionType.NOT_EQUALS -> value != first
+            ConditionType.CONTAINS -> value.contains(first)
+            ConditionType.NOT_CONTAINS -> !value.contains(first)
+            ConditionType.STARTS_WITH -> value.startsWith(first)
+            ConditionType.ENDS_WITH -> value.endsWith(first)
+            ConditionType.IS_EMPTY -> value.isEmpty()
+            ConditionType.NOT_EMPTY -> value.isNotEmpty()
+            else -> false
+         }
+      }
+
+      fun <T> meetSets(condition: ConditionType, values: List<T>, conditionValues: List<T>, emptyFormat: Boolean): Boolean = when (condition) {
+         ConditionType.HAS_SOME, ConditionType.EQUALS -> values.any { conditionValues.contains(it) }
+         ConditionType.HAS_NONE_OF, ConditionType.NOT_EQUALS -> values.none { conditionValues.contains(it) }
+         ConditionType.IN -> values.isNotEmpty() && values.all { conditionValues.contains(it) }
+         ConditionType.HAS_ALL -> conditionValues.filter { values.contains(it) }.size == conditionValues.size
+         ConditionType.IS_EMPTY -> values.isEmpty() && emptyFormat
+         ConditionType.NOT_EMPTY -> values.isNotEmpty() || !emptyFormat
+         else -> false
+      }
+
+      fun valuesList(value: Any?): List<Any> = (if (value is Collection<*>) value.toList() else listOf(value))
+            .filterNotNull()
+            .filter { jsString(it).trim().isNotEmpty() }
+   }
+}
+
+class UnknownMatcher(config: Map<*, *>, constraintData: ConstraintData) : DataValueMatcher(config, constraintData) {
+
+   override fun meetCondition(value: Any?, condition: ConditionType, conditionValues: List<ConditionValue>): Boolean =
+         meetText(condition, format(value).lowercase().trim(), conditionValues.map { format(it.value).lowercase().trim() })
+
+   override fun format(value: Any?): String = jsString(value)
+}
+
+class UnsupportedMatcher(config: Map<*, *>, constraintData: ConstraintData) : DataValueMatcher(config, constraintData) {
+
+   override fun meetCondition(value: Any?, condition: ConditionType, conditionValues: List<ConditionValue>): Boolean = false
+
+   override fun format(value: Any?): String = jsString(value)
+
+   override fun supportsCondition(condition: ConditionType, conditionValues: List<ConditionValue>): Boolean = false
+
+   override fun supportsFulltext(): Boolean = false
+}
+
+class TextMatcher(config: Map<*, *>, constraintData: ConstraintData) : DataValueMatcher(config, constraintData) {
+
+   override fun meetCondition(value: Any?, condition: ConditionType, conditionValues: List<ConditionValue>): Boolean =
+         meetText(condition, stripHtml(format(value)).lowercase().trim(), conditionValues.map { stripHtml(format(it.value)).lowercase().trim() })
+
+   override fun format(value: Any?): String = jsString(value)
+
+   override fun meetFulltext(value: Any?, fulltext: String): Boolean = normalizeFulltext(stripHtml(format(value)).trim()).contains(fulltext.lowercase().trim())
+
+   private fun stripHtml(value: String): String = value.replace(HTML_TAG, " ").trim().replace(HTML_CLASS, "")
+
+   companion object {
+      private val HTML_TAG = Regex("<(?:.|\\s)*?>")
+      private val HTML_CLASS = Regex("class=\".*?\"")
+   }
+}
+
+class BooleanMatcher(config: Map<*, *>, constraintData: ConstraintData) : DataValueMatcher(config, constraintData) {
+
+   override fun meetCondition(value: Any?, condition: ConditionType, conditionValues: List<ConditionValue>): Boolean {
+      val expected = conditionValues.isNotEmpty() && toBoolean(conditionValues[0].value)
+      return when (condition) {
+         ConditionType.EQUALS -> toBoolean(value) == expected
+         ConditionType.NOT_EQUALS -> toBoolean(value) != expected
+         else -> false
+      }
+   }
+
+   override fun format(value: Any?): String = toBoolean(value).toString()
+
+   private fun toBoolean(value: Any?): Boolean {
+      if (value is Collection<*>) {
+         return value.all { isTruthy(it) }
+      }
+      return when (value) {
+         is Boolean -> value
+         is String -> TRUTHY_VALUES.contains(value.lowercase())
+         else -> false
+      }
+   }
+
+   companion object {
+      private val TRUTHY_VALUES = setOf("true", "yes", "ja", "ano", "áno", "sí", "si", "sim", "да", "是", "はい", "vâng", "כן")
+   }
+}
+
+open class NumberMatcher(config: Map<*, *>, constraintData: ConstraintData, private val decimalsKey: String) : DataValueMatcher(config, constraintData) {
+
+   protected open fun toNumber(value: Any?): BigDecimal? = toBigDecimal(value)
+
+   private fun roundedNumber(value: Any?): BigDecimal? {
+      val number = toNumber(value) ?: return null
+      val decimals = (config[decimalsKey] as? Number)?.toInt()
+      return if (decimals != null && decimals >= 0) number.setScale(decimals, RoundingMode.HALF_UP) else number
+   }
+
+   override fun meetCondition(value: Any?, condition: ConditionType, conditionValues: List<ConditionValue>): Boolean {
+      val number = roundedNumber(value)
+      val numbers = conditionValues.map { roundedNumber(it.value) }
+      val first = numbers.getOrNull(0)
+
+      if (number != null || first != null) {
+         if ((number == null || first == null) && condition == ConditionType.NOT_EQUALS) {
+            return true
+         }
+      } else if (condition == ConditionType.EQUALS) {
+         val firstValue = conditionValues.getOrNull(0)?.value
+         return (!isTruthy(value) && !isTruthy(firstValue)) || value == firstValue
+      }
+
+      if (condition != ConditionType.IS_EMPTY && condition != ConditionType.NOT_EMPTY) {
+         if (number == null || first == null) {
+            return false
+         }
+      }
+
+      return when (condition) {
+         ConditionType.EQUALS -> number!!.compareTo(first) == 0
+         ConditionType.NOT_EQUALS -> number!!.compareTo(first) != 0
+         ConditionType.GREATER_THAN -> number!! > first!!
+         ConditionType.GREATER_THAN_EQUALS -> number!! >= first!!
+         ConditionType.LOWER_THAN -> number!! < first!!
+         ConditionType.LOWER_THAN_EQUALS -> number!! <= first!!
+         ConditionType.BETWEEN -> numbers.getOrNull(1)?.let { number!! >= first!! && number <= it } ?: false
+         ConditionType.NOT_BETWEEN -> numbers.getOrNull(1)?.let { number!! < first!! || number > it } ?: false
+         ConditionType.IS_EMPTY -> isEmptyValue(value)
+         ConditionType.NOT_EMPTY -> !isEmptyValue(value)
+         else -> false
+      }
+   }
+
+   override fun format(value: Any?): String = jsString(value)
+
+   // numbers are formatted by locale and currency in the UI, so fulltext would differ
+   override fun supportsFulltext(): Boolean = config.isEmpty()
+}
+
+class PercentageMatcher(config: Map<*, *>, constraintData: ConstraintData) : NumberMatcher(config, constraintData, "decimals") {
+
+   override fun toNumber(value: Any?): BigDecimal? {
+      val stringValue = jsString(value).trim()
+      if (stringValue.endsWith("%")) {
+         return toBigDecimal(stringValue.dropLast(1))
+      }
+      return toBigDecimal(value)?.movePointRight(2)
+   }
+
+   override fun supportsFulltext(): Boolean = false
+}
+
+class DurationMatcher(config: Map<*, *>, constraintData: ConstraintData) : NumberMatcher(config, constraintData, "decimalPlaces") {
+
+   // durations are stored in milliseconds, textual values like '2h 30m' depend on the duration type
+   override fun supportsCondition(condition: ConditionType, conditionValues: List<ConditionValue>): Boolean =
+         conditionValues.all { it.value == null || jsString(it.value).isEmpty() || toBigDecimal(it.value) != null }
+
+   override fun supportsFulltext(): Boolean = false
+}
+
+class DateTimeMatcher(config: Map<*, *>, constraintData: ConstraintData) : DataValueMatcher(config, constraintData) {
+
+   private val format = config["format"] as? String
+   private val zone: ZoneId = if (config["asUtc"] == true) ZoneOffset.UTC else constraintData.timezone?.let { runCatching { ZoneId.of(it) }.getOrNull() } ?: ZoneId.systemDefault()
+
+   private class ConditionMoment(val moment: ZonedDateTime?, val format: String?)
+
+   override fun meetCondition(value: Any?, condition: ConditionType, conditionValues: List<ConditionValue>): Boolean {
+      val moment = truncate(parse(value), format)
+      val conditionMoments = conditionValues.map { mapConditionValue(it) }
+      val moments = conditionMoments.map { truncate(moment, it.format) }.sortedWith(nullsFirst())
+      val first = conditionMoments.getOrNull(0)?.moment
+
+      if (moment != null || first != null) {
+         if ((moment == null || first == null) && condition == ConditionType.NOT_EQUALS) {
+            return true
+         }
+      } else if (condition == ConditionType.EQUALS) {
+         val firstValue = conditionValues.getOrNull(0)?.value
+         return (!isTruthy(value) && !isTruthy(firstValue)) || value == firstValue
+      }
+
+      if (!(0 until conditionValuesCount(condition)).all { moments.getOrNull(it) != null && conditionMoments.getOrNull(it)?.moment != null }) {
+         return false
+      }
+
+      return when (condition) {
+         ConditionType.EQUALS -> moments[0]!!.isEqual(first)
+         ConditionType.NOT_EQUALS -> !moments[0]!!.isEqual(first)
+         ConditionType.GREATER_THAN -> moments[0]!!.isAfter(first)
+         ConditionType.GREATER_THAN_EQUALS -> !moments[0]!!.isBefore(first)
+         ConditionType.LOWER_THAN -> moments[0]!!.isBefore(first)
+         ConditionType.LOWER_THAN_EQUALS -> !moments[0]!!.isAfter(first)
+         ConditionType.BETWEEN -> !moments[0]!!.isBefore(first) && !moments[1]!!.isAfter(conditionMoments[1].moment)
+         ConditionType.NOT_BETWEEN -> moments[0]!!.isBefore(first) || moments[1]!!.isAfter(conditionMoments[1].moment)
+         ConditionType.IS_EMPTY -> isEmptyValue(value)
+         ConditionType.NOT_EMPTY -> !isEmptyValue(value)
+         else -> false
+      }
+   }
+
+   override fun format(value: Any?): String = jsString(value)
+
+   override fun supportsCondition(condition: ConditionType, conditionValues: List<ConditionValue>): Boolean {
+      if (!isSupportedFormat(format)) {
+         return false
+      }
+      return conditionValues.all { it.type == null || RELATIVE_DAYS.containsKey(it.type) || RELATIVE_MONTHS.containsKey(it.type) }
+   }
+
+   // dates are formatted by the attribute format with moment.js in the UI
+   override fun supportsFulltext(): Boolean = false
+
+   private fun mapConditionValue(conditionValue: ConditionValue): ConditionMoment {
+      val type = conditionValue.type
+      if (type != null) {
+         val now = ZonedDateTime.now(zone)
+         RELATIVE_DAYS[type]?.let { return ConditionMoment(now.truncatedTo(ChronoUnit.DAYS).plusDays(it), "DD M Y") }
+         RELATIVE_MONTHS[type]?.let { return ConditionMoment(now.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).plusMonths(it), "M Y") }
+         return ConditionMoment(null, "")
+      }
+      return ConditionMoment(truncate(parse(conditionValue.value), format), format)
+   }
+
+   private fun parse(value: Any?): ZonedDateTime? {
+      return when (value) {
+         null -> null
+         is Date -> value.toInstant().atZone(zone)
+         is Number -> Instant.ofEpochMilli(value.toLong()).atZone(zone)
+         else -> {
+            val stringValue = value.toString().trim()
+            if (stringValue.isEmpty()) {
+               return null
+            }
+            val parser = PARSERS.find { it.pattern.matches(stringValue) } ?: return null
+            try {
+               parser.parse(stringValue, zone)
+            } catch (e: DateTimeException) {
+               // the format matches, but some of the fields are out of range (e.g. 2021-02-30)
+               null
+            }
+         }
+      }
+   }
+
+   private fun truncate(moment: ZonedDateTime?, format: String?): ZonedDateTime? {
+      if (moment == null || format.isNullOrEmpty()) {
+         return moment
+      }
+      val lowerFormat = format.lowercase()
+      var result: ZonedDateTime = moment
+      if (!lowerFormat.contains("y")) result = result.withYear(1970)
+      if (!format.contains("M")) result = result.withMonth(1)
+      if (!lowerFormat.contains("d")) result = result.withDayOfMonth(1)
+      if (!lowerFormat.contains("h") && !format.contains("k")) result = result.withHour(0)
+      if (!format.contains("m")) result = result.withMinute(0)
+      if (!format.contains("s")) result = result.withSecond(0)
+      if (!format.contains("S")) result = result.withNano(0)
+      return result
+   }
+
+   private fun isSupportedFormat(format: String?): Boolean {
+      if (format == null) {
+         return true
+      }
+      val lowerFormat = format.lowercase()
+      return !lowerFormat.contains("q") && !lowerFormat.contains("w") && !lowerFormat.contains("ddd")
+   }
+
+   companion object {
+      private val RELATIVE_DAYS = mapOf("today" to 0L, "yesterday" to -1L, "tomorrow" to 1L)
+      private val RELATIVE_MONTHS = mapOf("thisMonth" to 0L, "lastMonth" to -1L, "nextMonth" to 1L)
+
+      private const val DATE = "\\d{4}-\\d{2}-\\d{2}"
+      private const val TIME = "\\d{2}:\\d{2}"
+
+      private class DateParser(val pattern: Regex, val parse: (String, ZoneId) -> ZonedDateTime)
+
+      // values are matched to the format first, so we don't need to throw an exception for each value which is not a date
+      private val PARSERS = listOf(
+            DateParser(Regex("${DATE}T$TIME:\\d{2}\\.\\d{3}[+-]\\d{4}")) { value, zone -> ZonedDateTime.parse(value, DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ")).withZoneSameInstant(zone) },
+            DateParser(Regex("${DATE}T$TIME(:\\d{2}(\\.\\d{1,9})?)?([+-]\\d{2}:\\d{2}(:\\d{2})?|Z)")) { value, zone -> OffsetDateTime.parse(value).atZoneSameInstant(zone) },
+            DateParser(Regex(DATE)) { value, zone -> LocalDate.parse(value).atStartOfDay(zone) }
+      )
+   }
+}
+
+class SelectMatcher(config: Map<*, *>, constraintData: ConstraintData) : DataValueMatcher(config, constraintData) {
+
+   private val displayValues: Map<String, String>
+
+   init {
+      val selectionListId = config["selectionListId"] as? String
+      val selectionList = selectionListId?.let { id -> constraintData.selectionLists.orEmpty().find { it.id == id } }
+      displayValues = if (selectionList != null) {
+         selectionList.options.orEmpty().associate { it.value.toString() to (if (selectionList.displayValues == true) it.displayValue ?: it.value else it.value).toString() }
+      } else {
+         val useDisplayValues = config["displayValues"] == true
+         (config["options"] as? List<*>).orEmpty().filterIsInstance<Map<*, *>>().associate { option ->
+            jsString(option["value"]) to jsString(if (useDisplayValues) option["displayValue"] else option["value"])
+         }
+      }
+   }
+
+   private fun options(value: Any?): List<String> = valuesList(value).map { jsString(it) }
+
+   override fun meetCondition(value: Any?, condition: ConditionType, conditionValues: List<ConditionValue>): Boolean {
+      val options = options(value)
+      val conditionOptions = options(conditionValues.getOrNull(0)?.value)
+      return meetSets(condition, options, conditionOptions, format(value).trim().isEmpty())
+   }
+
+   override fun format(value: Any?): String = options(value).joinToString(", ") { displayValues[it] ?: it }
+}
+
+class UserMatcher(config: Map<*, *>, constraintData: ConstraintData) : DataValueMatcher(config, constraintData) {
+
+   private val usersByEmail = constraintData.users.orEmpty().filter { it.email != null }.associateBy { it.email }
+   private val teamsById = constraintData.teams.orEmpty().associateBy { it.id }
+
+   private class UsersAndTeams(val usersIds: List<String>, val teamsIds: List<String>, val teamsUsersIds: List<String>, val names: List<String>) {
+      val allUsersIds = (usersIds + teamsUsersIds).distinct()
+   }
+
+   private fun parse(value: Any?): UsersAndTeams {
+      val usersIds = mutableListOf<String>()
+      val teamsIds = mutableListOf<String>()
+      val teamsUsersIds = mutableListOf<String>()
+      val names = mutableListOf<String>()
+      valuesList(value).forEach {
+         val stringValue = it.toString()
+         if (stringValue.startsWith(TEAM_PREFIX)) {
+            teamsById[stringValue.substring(TEAM_PREFIX.length)]?.let { team ->
+               teamsIds.add(team.id)
+               teamsUsersIds.addAll(team.users.orEmpty())
+               names.add(0, team.name)
+            }
+         } else {
+            val user = usersByEmail[stringValue]
+            usersIds.add(user?.id ?: stringValue)
+            names.add(user?.name ?: stringValue)
+         }
+      }
+      return UsersAndTeams(usersIds, teamsIds, teamsUsersIds.distinct(), names)
+   }
+
+   private fun mapConditionValue(conditionValue: ConditionValue): UsersAndTeams {
+      val currentUser = constraintData.currentUser
+      return when {
+         conditionValue.type == CURRENT_USER -> parse(currentUser?.email)
+         conditionValue.type == CURRENT_TEAMS && currentUser != null -> parse(teamsById.values.filter { it.users.orEmpty().contains(currentUser.id) }.map { TEAM_PREFIX + it.id })
+         else -> parse(conditionValue.value)
+      }
+   }
+
+   override fun meetCondition(value: Any?, condition: ConditionType, conditionValues: List<ConditionValue>): Boolean {
+      val data = parse(value)
+      val conditionData = conditionValues.getOrNull(0)?.let { mapConditionValue(it) }
+      val usersIds = conditionData?.usersIds.orEmpty()
+      val teamsIds = conditionData?.teamsIds.orEmpty()
+      val teamsUsersIds = conditionData?.teamsUsersIds.orEmpty()
+
+      return when (condition) {
+         ConditionType.HAS_SOME, ConditionType.EQUALS ->
+            teamsIds.any { data.teamsIds.contains(it) } || teamsUsersIds.any { data.usersIds.contains(it) } || usersIds.any { data.allUsersIds.contains(it) }
+         ConditionType.HAS_NONE_OF, ConditionType.NOT_EQUALS ->
+            teamsIds.none { data.teamsIds.contains(it) } && teamsUsersIds.none { data.usersIds.contains(it) } && usersIds.none { data.allUsersIds.contains(it) }
+         ConditionType.IN -> (data.usersIds.isNotEmpty() || data.teamsIds.isNotEmpty()) && teamsIds.containsAll(data.teamsIds) && usersIds.containsAll(data.usersIds)
+         ConditionType.HAS_ALL -> teamsIds.filter { data.teamsIds.contains(it) }.size == teamsIds.size && usersIds.filter { data.allUsersIds.contains(it) }.size == usersIds.size
+         ConditionType.IS_EMPTY -> data.usersIds.isEmpty() && data.teamsIds.isEmpty() && format(value).trim().isEmpty()
+         ConditionType.NOT_EMPTY -> data.usersIds.isNotEmpty() || data.teamsIds.isNotEmpty() || format(value).trim().isNotEmpty()
+         else -> false
+      }
+   }
+
+   override fun format(value: Any?): String = parse(value).names.joinToString(", ")
+
+   companion object {
+      private const val TEAM_PREFIX = "@"
+      private const val CURRENT_USER = "currentUser"
+      private const val CURRENT_TEAMS = "currentTeams"
+   }
+}
+
+class LinkMatcher(config: Map<*, *>, constraintData: ConstraintData) : DataValueMatcher(config, constraintData) {
+
+   private fun parse(value: Any?): Pair<String, String> {
+      val stringValue = jsString(value).trim()
+      var link = stringValue
+      var title = ""
+      if (stringValue.endsWith("]")) {
+         val index = stringValue.lastIndexOf("[")
+         if (index != -1) {
+            title = stringValue.substring(index + 1, stringValue.length - 1)
+            link = stringValue.substring(0, index).trim().ifEmpty { title }
+         }
+      }
+      if (EMAIL.matches(link)) {
+         title = title.ifEmpty { link }
+         link = "mailto:$link"
+      }
+      return Pair(link.lowercase().trim(), title.lowercase().trim())
+   }
+
+   override fun meetCondition(value: Any?, condition: ConditionType, conditionValues: List<ConditionValue>): Boolean {
+      val (link, title) = parse(value)
+      val first = jsString(conditionValues.getOrNull(0)?.value).lowercase().trim()
+      return when (condition) {
+         ConditionType.CONTAINS -> link.contains(first) || title.contains(first)
+         ConditionType.NOT_CONTAINS -> !link.contains(first) && !title.contains(first)
+         ConditionType.IS_EMPTY -> link.isEmpty() && title.isEmpty()
+         ConditionType.NOT_EMPTY -> link.isNotEmpty() || title.isNotEmpty()
+         else -> false
+      }
+   }
+
+   override fun format(value: Any?): String = parse(value).let { it.second.ifEmpty { it.first } }
+
+   companion object {
+      private val EMAIL = Regex("^[^<>()\\[\\]\\\\.,;:\\s@\"]+(\\.[^<>()\\[\\]\\\\.,;:\\s@\"]+)*@([a-zA-Z\\-0-9]+\\.)+[a-zA-Z]{2,}$")
+   }
+}
+
+class FilesMatcher(config: Map<*, *>, constraintData: ConstraintData) : DataValueMatcher(config, constraintData) {
+
+   override fun meetCondition(value: Any?, condition: ConditionType, conditionValues: List<ConditionValue>): Boolean = when (condition) {
+      ConditionType.IS_EMPTY -> !isTruthy(value)
+      ConditionType.NOT_EMPTY -> isTruthy(value)
+      else -> false
+   }
+
+   override fun format(value: Any?): String = jsString(value)
+}
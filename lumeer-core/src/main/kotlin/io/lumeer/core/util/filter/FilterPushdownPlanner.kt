@@ -0,0 +1,183 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util.filter
+
+import io.lumeer.api.model.Attribute
+import io.lumeer.api.model.Collection
+import io.lumeer.api.model.CollectionAttributeFilter
+import io.lumeer.api.model.ConditionType
+import io.lumeer.api.model.ConditionValue
+import io.lumeer.api.model.Constraint
+import io.lumeer.api.model.ConstraintData
+import io.lumeer.api.model.ConstraintType
+import io.lumeer.api.model.QueryStem
+import io.lumeer.api.util.ResourceUtils
+import io.lumeer.core.constraint.ConstraintManager
+import io.lumeer.storage.api.filter.CollectionSearchAttributeFilter
+import java.util.Date
+import java.util.concurrent.TimeUnit
+
+/**
+ * Translates filters of the stem's root collection to prefilters which can be evaluated by the database (see [io.lumeer.storage.api.dao.DataDao.searchDataByPrefilters]).
+ * The prefilters are never more restrictive than the original conditions, so the query must still be evaluated in memory
+ * and only the documents which can not match are skipped. Conditions which can not be expressed this way are left out.
+ */
+class FilterPushdownPlanner(private val constraintManager: ConstraintManager, private val constraintData: ConstraintData) {
+
+   fun plan(stem: QueryStem, collection: Collection): Set<CollectionSearchAttributeFilter> {
+      if (stem.collectionId != collection.id) {
+         return setOf()
+      }
+      return stem.filters.orEmpty()
+            .filter { it.collectionId == collection.id }
+            .mapNotNull { filter -> ResourceUtils.findAttribute(collection.attributes, filter.attributeId)?.let { plan(collection, it, filter) } }
+            .toSet()
+   }
+
+   private fun plan(collection: Collection, attribute: Attribute, filter: CollectionAttributeFilter): CollectionSearchAttributeFilter? {
+      val conditionValues = filter.conditionValues.orEmpty()
+      val planned = when (attribute.constraint?.type) {
+         null, ConstraintType.Text -> planText(filter.condition, conditionValues)
+         ConstraintType.Number -> planNumber(attribute.constraint, filter.condition, conditionValues)
+         ConstraintType.DateTime -> planDateTime(attribute.constraint, filter.condition, conditionValues)
+         ConstraintType.Select -> planSelect(filter.condition, conditionValues)
+         ConstraintType.User -> planUser(filter.condition, conditionValues)
+         else -> null
+      }
+      return planned?.let { CollectionSearchAttributeFilter(collection.id, it.first, attribute.id, it.second) }
+   }
+
+   private fun planText(condition: ConditionType, conditionValues: List<ConditionValue>): Pair<ConditionType, Any>? {
+      if (condition !in TEXT_CONDITIONS || conditionValues.firstOrNull()?.type != null) {
+         return null
+      }
+      val value = DataValueMatcher.jsString(conditionValues.firstOrNull()?.value).trim()
+      // whitespace and commas may come from stripped html tags or joined arrays which are not stored in the database
+      if (value.isEmpty() || value.any { it.isWhitespace() || it == ',' || it == '<' || it == '>' }) {
+         return null
+      }
+      return Pair(ConditionType.CONTAINS, value)
+   }
+
+   private fun planNumber(constraint: Constraint, condition: ConditionType, conditionValues: List<ConditionValue>): Pair<ConditionType, Any>? {
+      val config = constraint.config as? Map<*, *>
+      if (config?.get("decimals") != null || condition !in NUMBER_CONDITIONS) {
+         return null
+      }
+      val values = conditionValues.take(DataValueMatcher.conditionValuesCount(condition)).map { constraintManager.encode(it.value, constraint) }
+      if (values.size != DataValueMatcher.conditionValuesCount(condition) || values.any { it !is Number }) {
+         return null
+      }
+      if (condition == ConditionType.BETWEEN) {
+         return values.map { DataValueMatcher.toBigDecimal(it)!! }.sorted().let { Pair(ConditionType.BETWEEN, it) }
+      }
+      return Pair(condition, values[0]!!)
+   }
+
+   private fun planDateTime(constraint: Constraint, condition: ConditionType, conditionValues: List<ConditionValue>): Pair<ConditionType, Any>? {
+      val format = (constraint.config as? Map<*, *>)?.get("format") as? String
+      if (condition !in DATE_CONDITIONS || !keepsDate(format) || conditionValues.any { it.type != null }) {
+         return null
+      }
+      val values = conditionValues.take(DataValueMatcher.conditionValuesCount(condition)).map { constraintManager.encode(it.value, constraint) }
+      if (values.size != DataValueMatcher.conditionValuesCount(condition) || values.any { it !is Date }) {
+         return null
+      }
+
+      // dates are truncated by the format in the attribute's timezone, so we compare with a margin covering the truncated units
+      val times = values.map { (it as Date).time }
+      val from = Date(times.minOrNull()!! - DATE_MARGIN)
+      val to = Date(times.maxOrNull()!! + DATE_MARGIN)
+      return when (condition) {
+         ConditionType.EQUALS, ConditionType.BETWEEN -> Pair(ConditionType.BETWEEN, listOf(from, to))
+         ConditionType.GREATER_THAN, ConditionType.GREATER_THAN_EQUALS -> Pair(ConditionType.GREATER_THAN_EQUALS, from)
+         else -> Pair(ConditionType.LOWER_THAN_EQUALS, to)
+      }
+   }
+
+   private fun keepsDate(format: String?): Boolean {
+      if (format == null) {
+         return true
+      }
+      val lowerFormat = format.lowercase()
+      return lowerFormat.contains("y") && format.contains("M") && lowerFormat.contains("d") && !lowerFormat.contains("q") && !lowerFormat.contains("w")
+   }
+
+   private fun planSelect(condition: ConditionType, conditionValues: List<ConditionValue>): Pair<ConditionType, Any>? {
+      if (condition !in SET_CONDITIONS || conditionValues.firstOrNull()?.type != null) {
+         return null
+      }
+      val options = DataValueMatcher.valuesList(conditionValues.firstOrNull()?.value).map { DataValueMatcher.jsString(it) }
+      if (options.isEmpty()) {
+         return null
+      }
+      // select values are compared as strings, numeric and boolean options may be stored encoded
+      return Pair(ConditionType.HAS_SOME, withEncodedValues(options))
+   }
+
+   private fun planUser(condition: ConditionType, conditionValues: List<ConditionValue>): Pair<ConditionType, Any>? {
+      if (condition !in SET_CONDITIONS || conditionValues.isEmpty()) {
+         return null
+      }
+      val conditionValue = conditionValues[0]
+      val currentUser = constraintData.currentUser
+      val values = when (conditionValue.type) {
+         null -> DataValueMatcher.valuesList(conditionValue.value).map { it.toString() }
+         CURRENT_USER -> listOfNotNull(currentUser?.email)
+         CURRENT_TEAMS -> constraintData.teams.orEmpty().filter { currentUser != null && it.users.orEmpty().contains(currentUser.id) }.map { TEAM_PREFIX + it.id }
+         else -> return null
+      }
+      if (values.isEmpty()) {
+         return null
+      }
+
+      // users match also through the teams they are members of and vice versa
+      val usersByEmail = constraintData.users.orEmpty().filter { it.email != null }.associateBy { it.email }
+      val emailsById = constraintData.users.orEmpty().associate { it.id to it.email }
+      val teamsIds = values.filter { it.startsWith(TEAM_PREFIX) }.map { it.substring(TEAM_PREFIX.length) }.toSet()
+      val usersIds = values.filterNot { it.startsWith(TEAM_PREFIX) }.map { usersByEmail[it]?.id ?: it }.toSet()
+      val teams = constraintData.teams.orEmpty()
+
+      val result = values.toMutableSet()
+      usersIds.forEach { id -> emailsById[id]?.let { result.add(it) } }
+      teams.filter { teamsIds.contains(it.id) }.forEach { team ->
+         team.users.orEmpty().forEach { id ->
+            result.add(id)
+            emailsById[id]?.let { result.add(it) }
+         }
+      }
+      teams.filter { team -> team.users.orEmpty().any { usersIds.contains(it) } }.forEach { result.add(TEAM_PREFIX + it.id) }
+      return Pair(ConditionType.HAS_SOME, result.toList())
+   }
+
+   private fun withEncodedValues(values: List<String>): List<Any> =
+         values + values.mapNotNull { value -> value.toLongOrNull()?.takeIf { it.toString() == value } ?: value.toBooleanStrictOrNull() }
+
+   companion object {
+      private const val TEAM_PREFIX = "@"
+      private const val CURRENT_USER = "currentUser"
+      private const val CURRENT_TEAMS = "currentTeams"
+      private val DATE_MARGIN = TimeUnit.DAYS.toMillis(2)
+
+      private val TEXT_CONDITIONS = setOf(ConditionType.EQUALS, ConditionType.CONTAINS, ConditionType.STARTS_WITH, ConditionType.ENDS_WITH)
+      private val NUMBER_CONDITIONS = setOf(ConditionType.EQUALS, ConditionType.LOWER_THAN, ConditionType.LOWER_THAN_EQUALS, ConditionType.GREATER_THAN, ConditionType.GREATER_THAN_EQUALS, ConditionType.BETWEEN)
+      private val DATE_CONDITIONS = NUMBER_CONDITIONS
+      private val SET_CONDITIONS = setOf(ConditionType.EQUALS, ConditionType.HAS_SOME, ConditionType.IN, ConditionType.HAS_ALL)
+   }
+}
@@ -0,0 +1,281 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util.filter
+
+import io.lumeer.api.model.Attribute
+import io.lumeer.api.model.AttributeFilter
+import io.lumeer.api.model.Collection
+import io.lumeer.api.model.ConstraintData
+import io.lumeer.api.model.ConstraintType
+import io.lumeer.api.model.Document
+import io.lumeer.api.model.LinkInstance
+import io.lumeer.api.model.LinkType
+import io.lumeer.api.model.Query
+import io.lumeer.api.model.QueryStem
+import io.lumeer.core.util.Tuple
+
+/**
+ * Evaluates [Query] on decoded documents and link instances directly on JVM.
+ * The semantics follow the filterDocumentsAndLinksByQuery function of the lumeer-data-filters library,
+ * queries which can not be evaluated the same way are reported by [supports] and should be evaluated by JS.
+ */
+class QueryEvaluator(private val collections: List<Collection>,
+                     private val linkTypes: List<LinkType>,
+                     private val constraintData: ConstraintData) {
+
+   private val collectionsMap = collections.associateBy { it.id }
+   private val linkTypesMap = linkTypes.associateBy { it.id }
+   private val matchers = mutableMapOf<Pair<String, String>, DataValueMatcher>()
+
+   private class PipelineResource(val id: String, val isLinkType: Boolean, val attributes: List<Attribute>)
+
+   private class Stage(val resourceId: String,
+                       val isLinkType: Boolean,
+                       val filters: List<AttributeFilter>,
+                       val dataResources: List<FilterResource>,
+                       val allAttributes: Map<String, Attribute>,
+                       val filterAttributes: Map<String, Attribute>,
+                       val documentIds: Set<String>,
+                       val fulltexts: List<String>) {
+
+      // filters on attributes which are not defined in the resource are ignored in the linked stages
+      val linkedFilters = filters.filter { filterAttributes.containsKey(it.attributeId) }
+
+      private val resourcesById = dataResources.withIndex().groupBy { it.value.id }
+      private val linksByDocumentId = if (isLinkType) {
+         val map = HashMap<String, MutableList<FilterResource>>()
+         dataResources.forEach { link -> link.documentIds.distinct().forEach { map.getOrPut(it) { mutableListOf() }.add(link) } }
+         map
+      } else {
+         emptyMap()
+      }
+
+      /**
+       * Resources of this stage linked to the given resource of the previous stage, in the order of [dataResources].
+       */
+      fun linkedResources(resource: FilterResource): List<FilterResource> =
+            if (isLinkType) {
+               linksByDocumentId[resource.id].orEmpty()
+            } else {
+               resource.documentIds.distinct().flatMap { resourcesById[it].orEmpty() }.sortedBy { it.index }.map { it.value }
+            }
+   }
+
+   private class FilterResource(val id: String, val data: Map<String, Any?>, val documentIds: List<String>, val parentId: String?, val source: Any)
+
+   private class Result {
+      val documents = LinkedHashMap<String, Document>()
+      val linkInstances = LinkedHashMap<String, LinkInstance>()
+   }
+
+   fun supports(query: Query?): Boolean {
+      if (query == null || query.isEmpty) {
+         return true
+      }
+      return stems(query).all { stem ->
+         val pipeline = pipelineResources(stem)
+         val filtersSupported = pipeline.all { resource ->
+            resourceFilters(stem, resource).all { filter ->
+               val attribute = resource.attributes.find { it.id == filter.attributeId }
+               attribute == null || (attribute.constraint?.type != ConstraintType.Action && matcher(resource.id, attribute).supportsCondition(filter.condition, filter.conditionValues.orEmpty()))
+            }
+         }
+         filtersSupported && (query.fulltexts.isEmpty() || pipeline.all { resource -> resource.attributes.all { matcher(resource.id, it).supportsFulltext() } })
+      }
+   }
+
+   fun evaluate(documents: List<Document>, linkInstances: List<LinkInstance>, query: Query?, includeChildren: Boolean, includeNonLinkedDocuments: Boolean): Tuple<List<Document>, List<LinkInstance>> {
+      if (query == null || query.isEmpty) {
+         return Tuple(paginate(documents, query), linkInstances)
+      }
+
+      val documentsByCollection = documents.groupBy { it.collectionId }.mapValues { entry -> entry.value.map { documentResource(it) } }
+      val linksByLinkType = linkInstances.groupBy { it.linkTypeId }.mapValues { entry -> entry.value.map { linkResource(it) } }
+      val fulltexts = query.fulltexts.map { DataValueMatcher.normalizeFulltext(it) }
+
+      val result = Result()
+      stems(query).forEach { evaluateStem(it, documentsByCollection, linksByLinkType, fulltexts, includeChildren, includeNonLinkedDocuments, result) }
+
+      return Tuple(paginate(result.documents.values.toList(), query), result.linkInstances.values.toList())
+   }
+
+   private fun stems(query: Query): List<QueryStem> =
+         query.stems.ifEmpty { collections.map { QueryStem(it.id) } }
+
+   private fun pipelineResources(stem: QueryStem): List<PipelineResource> {
+      val resources = mutableListOf<PipelineResource>()
+      var collection = collectionsMap[stem.collectionId] ?: return resources
+      resources.add(PipelineResource(collection.id, false, collection.attributes.orEmpty().toList()))
+      for (linkTypeId in stem.linkTypeIds.orEmpty()) {
+         val linkType = linkTypesMap[linkTypeId] ?: break
+         val nextCollectionId = if (linkType.collectionIds.getOrNull(0) == collection.id) linkType.collectionIds.getOrNull(1) else linkType.collectionIds.getOrNull(0)
+         val nextCollection = collectionsMap[nextCollectionId] ?: break
+         resources.add(PipelineResource(linkType.id, true, linkType.attributes.orEmpty()))
+         resources.add(PipelineResource(nextCollection.id, false, nextCollection.attributes.orEmpty().toList()))
+         collection = nextCollection
+      }
+      return resources
+   }
+
+   private fun resourceFilters(stem: QueryStem, resource: PipelineResource): List<AttributeFilter> =
+         if (resource.isLinkType) {
+            stem.linkFilters.orEmpty().filter { it.linkTypeId == resource.id }
+         } else {
+            stem.filters.orEmpty().filter { it.collectionId == resource.id }
+         }
+
+   private fun evaluateStem(stem: QueryStem, documentsByCollection: Map<String, List<FilterResource>>, linksByLinkType: Map<String, List<FilterResource>>,
+                            fulltexts: List<String>, includeChildren: Boolean, includeNonLinkedDocuments: Boolean, result: Result) {
+      val documentIds = stem.documentIds.orEmpty()
+      val pipeline = pipelineResources(stem).map { resource ->
+         val filters = resourceFilters(stem, resource)
+         val allAttributes = resource.attributes.associateBy { it.id }
+         val filterAttributes = filters.mapNotNull { allAttributes[it.attributeId] }.associateBy { it.id }
+         val dataResources = (if (resource.isLinkType) linksByLinkType[resource.id] else documentsByCollection[resource.id]).orEmpty()
+         Stage(resource.id, resource.isLinkType, filters, dataResources, allAttributes, filterAttributes, documentIds, fulltexts)
+      }
+      if (pipeline.isEmpty()) {
+         return
+      }
+
+      val visited = pipeline.map { mutableSetOf<String>() }
+      val root = pipeline[0]
+      val children = if (includeChildren) root.dataResources.filter { it.parentId != null }.groupBy { it.parentId!! } else emptyMap()
+
+      for (document in root.dataResources) {
+         if (!meetFilters(root, document, root.filters) || visited[0].contains(document.id)) {
+            continue
+         }
+         val fulltextMatch = root.fulltexts.isEmpty() || meetFulltexts(root, document, root.allAttributes)
+         if (evaluateStage(document, pipeline, 1, fulltextMatch, visited, result) || containsDocumentId(root, document)) {
+            result.documents.putIfAbsent(document.id, document.source as Document)
+            visited[0].add(document.id)
+
+            if (includeChildren) {
+               descendants(document, children).forEach { child ->
+                  if (!visited[0].contains(child.id)) {
+                     evaluateStage(child, pipeline, 1, root.fulltexts.isEmpty() || meetFulltexts(root, child, root.allAttributes), visited, result)
+                     result.documents.putIfAbsent(child.id, child.source as Document)
+                     visited[0].add(child.id)
+                  }
+               }
+            }
+         }
+      }
+
+      if (includeNonLinkedDocuments) {
+         for (index in 2 until pipeline.size step 2) {
+            val stage = pipeline[index]
+            for (document in stage.dataResources) {
+               if (!visited[index].contains(document.id) && meetFilters(stage, document, stage.filters)
+                     && (stage.fulltexts.isEmpty() || meetFulltexts(stage, document, stage.filterAttributes))) {
+                  result.documents.putIfAbsent(document.id, document.source as Document)
+                  visited[index].add(document.id)
+               }
+            }
+         }
+      }
+   }
+
+   private fun evaluateStage(resource: FilterResource, pipeline: List<Stage>, index: Int, fulltextMatch: Boolean, visited: List<MutableSet<String>>, result: Result): Boolean {
+      if (index >= pipeline.size) {
+         return pipeline[0].documentIds.isEmpty() && (pipeline[0].fulltexts.isEmpty() || fulltextMatch)
+      }
+
+      val stage = pipeline[index]
+      val candidates = stage.linkedResources(resource).filter { meetFilters(stage, it, stage.linkedFilters) }
+
+      if (candidates.isEmpty() && pipeline.subList(index, pipeline.size).any { it.filters.isNotEmpty() }) {
+         return false
+      }
+
+      var matched = (stage.fulltexts.isEmpty() || fulltextMatch) && candidates.isEmpty()
+      for (candidate in candidates) {
+         val candidateFulltextMatch = fulltextMatch || meetFulltexts(stage, candidate, stage.allAttributes)
+         if (stage.isLinkType) {
+            if (evaluateStage(candidate, pipeline, index + 1, candidateFulltextMatch, visited, result) || containsLinkDocumentId(stage, candidate)) {
+               matched = true
+               result.linkInstances.putIfAbsent(candidate.id, candidate.source as LinkInstance)
+            }
+         } else {
+            if (evaluateStage(candidate, pipeline, index + 1, candidateFulltextMatch, visited, result) || containsDocumentId(stage, candidate)) {
+               matched = true
+               if (visited[index].add(candidate.id)) {
+                  result.documents.putIfAbsent(candidate.id, candidate.source as Document)
+               }
+            }
+         }
+      }
+      return matched
+   }
+
+   private fun meetFilters(stage: Stage, resource: FilterResource, filters: List<AttributeFilter>): Boolean =
+         filters.all { filter ->
+            val attribute = stage.filterAttributes[filter.attributeId] ?: return@all false
+            matcher(stage.resourceId, attribute).meetCondition(resource.data[attribute.id], filter.condition, filter.conditionValues.orEmpty())
+         }
+
+   private fun meetFulltexts(stage: Stage, resource: FilterResource, attributes: Map<String, Attribute>): Boolean {
+      if (stage.fulltexts.isEmpty()) {
+         return true
+      }
+      return stage.fulltexts.any { fulltext ->
+         attributes.values.any { attribute -> matcher(stage.resourceId, attribute).meetFulltext(resource.data[attribute.id], fulltext) }
+      }
+   }
+
+   private fun containsDocumentId(stage: Stage, resource: FilterResource): Boolean =
+         stage.documentIds.isNotEmpty() && stage.documentIds.contains(resource.id)
+
+   private fun containsLinkDocumentId(stage: Stage, resource: FilterResource): Boolean =
+         stage.documentIds.isNotEmpty() && ((resource.documentIds.size == 2 && stage.documentIds.contains(resource.documentIds[0])) || stage.documentIds.contains(resource.documentIds.getOrNull(1)))
+
+   private fun descendants(document: FilterResource, children: Map<String, List<FilterResource>>): List<FilterResource> {
+      val found = LinkedHashMap<String, FilterResource>()
+      val queue = ArrayDeque<FilterResource>()
+      queue.add(document)
+      while (queue.isNotEmpty()) {
+         val current = queue.removeFirst()
+         if (!found.containsKey(current.id)) {
+            found[current.id] = current
+            queue.addAll(children[current.id].orEmpty())
+         }
+      }
+      found.remove(document.id)
+      return found.values.toList()
+   }
+
+   private fun matcher(resourceId: String, attribute: Attribute): DataValueMatcher =
+         matchers.getOrPut(Pair(resourceId, attribute.id)) { DataValueMatcher.create(attribute.constraint, constraintData) }
+
+   private fun documentResource(document: Document) =
+         FilterResource(document.id, document.data.orEmpty(), emptyList(), document.metaData?.getString(Document.META_PARENT_ID), document)
+
+   private fun linkResource(linkInstance: LinkInstance) =
+         FilterResource(linkInstance.id, linkInstance.data.orEmpty(), linkInstance.documentIds.orEmpty(), null, linkInstance)
+
+   private fun <T> paginate(resources: List<T>, query: Query?): List<T> {
+      val page = query?.page
+      val pageSize = query?.pageSize
+      if (page == null || pageSize == null || (page == 0 && pageSize == 0)) {
+         return resources
+      }
+      return resources.drop(page * pageSize).take(pageSize)
+   }
+}
@@ -28,6 +28,7 @@ import io.lumeer.api.model.LinkInstance
 import io.lumeer.api.model.LinkType
 import io.lumeer.api.model.Query
 import io.lumeer.core.util.Tuple
+import io.lumeer.core.util.filter.QueryEvaluator
 
 class DataFilter {
 
@@ -51,6 +52,21 @@ class DataFilter {
             return task.call()
         }
 
+        /**
+         * Evaluates the query on JVM without the JS engine, queries with conditions which are not supported natively are passed to [filterDocumentsAndLinksByQueryFromJson].
+         */
+        @JvmStatic
+        fun filterDocumentsAndLinksByQueryNative(documents: List<Document>,
+                                                 collections: List<Collection>, linkTypes: List<LinkType>, linkInstances: List<LinkInstance>,
+                                                 query: Query, collectionsPermissions: Map<String, AllowedPermissions>, linkTypesPermissions: Map<String, AllowedPermissions>,
+                                                 constraintData: ConstraintData, includeChildren: Boolean, includeNonLinkedDocuments: Boolean, language: Language = Language.EN): Tuple<List<Document>, List<LinkInstance>> {
+            val evaluator = QueryEvaluator(collections, linkTypes, constraintData)
+            if (!evaluator.supports(query)) {
+                return filterDocumentsAndLinksByQueryFromJson(documents, collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildren, includeNonLinkedDocuments, language)
+            }
+            return evaluator.evaluate(documents, linkInstances, query, includeChildren, includeNonLinkedDocuments)
+        }
+
         @JvmStatic
         fun filterDocumentsAndLinksByQueryDecodingFromJson(documents: List<Document>,
                                                    collections: List<Collection>, linkTypes: List<LinkType>, linkInstances: List<LinkInstance>,
@@ -30,14 +30,18 @@ import io.lumeer.api.model.LinkType
 import io.lumeer.api.model.Query
 import io.lumeer.api.model.User
 import io.lumeer.api.model.common.Resource
-import io.lumeer.core.js.JsEngineFactory
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer
+import io.lumeer.core.js.JsContextPool
+import io.lumeer.core.js.JsContextPoolStats
 import io.lumeer.core.util.Tuple
 import com.google.gson.ExclusionStrategy
 import com.google.gson.FieldAttributes
 import com.google.gson.GsonBuilder
 import com.google.gson.JsonPrimitive
 import com.google.gson.JsonSerializer
+import org.apache.commons.lang3.math.NumberUtils
 import org.graalvm.polyglot.Context
+import org.graalvm.polyglot.Source
 import org.graalvm.polyglot.Value
 import java.io.IOException
 import java.lang.Double
@@ -65,63 +69,63 @@ data class DataFilterJsonTask(val documents: List<Document>,
 
     override fun call(): Tuple<List<Document>, List<LinkInstance>> {
         val emptyTuple = Tuple<List<Document>, List<LinkInstance>>(emptyList(), emptyList())
-        val context = getContext()
 
         return try {
-            val filterJsValue = getFunction(context)
-
             val json = convertToJson(DataFilterJson(documents, collections, linkTypes, linkInstances, query, collectionsPermissions, linkTypesPermissions, constraintData, includeChildren, includeNonLinkedDocuments, language.toLanguageTag()))
 
-            val result = filterJsValue.execute(json)
-
-            if (result != null) {
-                val documentsMap = documents.groupBy { it.id }
-                val resultDocumentsList = mutableListOf<Document>()
-                val resultDocuments = result.getMember("documentsIds")
-                for (i in 0 until resultDocuments.arraySize) resultDocumentsList.addAll(documentsMap[resultDocuments.getArrayElement(i).asString()].orEmpty())
-
-                val linkInstancesMap = linkInstances.groupBy { it.id }
-                val resultLinksList = mutableListOf<LinkInstance>()
-                val resultLinks = result.getMember("linkInstancesIds")
-                for (i in 0 until resultLinks.arraySize) resultLinksList.addAll(linkInstancesMap[resultLinks.getArrayElement(i).asString()].orEmpty())
-
-                Tuple(resultDocumentsList, resultLinksList)
-            } else {
-                logger.log(Level.SEVERE, "Error filtering data - null result.")
-                emptyTuple
-            }
+            filter(json, documents, linkInstances) ?: emptyTuple
         } catch (e: Exception) {
             logger.log(Level.SEVERE, "Error filtering data: ", e)
             emptyTuple
-        } finally {
-            context.close()
         }
     }
 
     companion object {
         private val logger: Logger = Logger.getLogger(DataFilterJsonTask::class.simpleName)
         private const val FILTER_JS = "filterDocumentsAndLinksIdsFromJson"
-        private var filterJsCode: String? = null
-        private val engine = JsEngineFactory.getEngine()
-
-        fun getContext(): Context {
-            val context = Context
-                    .newBuilder("js")
-                    .engine(engine)
-                    .allowAllAccess(true)
-                    .build()
-            context.initialize("js")
-
-            return context
+        private var filterJsSource: Source? = null
+        private val configurationProducer = DefaultConfigurationProducer()
+
+        private val pool = JsContextPool("data-filters",
+                NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.JS_FILTERS_POOL_SIZE), Runtime.getRuntime().availableProcessors()),
+                NumberUtils.toInt(configurationProducer.get(DefaultConfigurationProducer.JS_FILTERS_MAX_USES), 1000),
+                NumberUtils.toLong(configurationProducer.get(DefaultConfigurationProducer.JS_FILTERS_WAIT_TIMEOUT), 30_000L)
+        ) { context -> getFunction(context) }
+
+        @JvmStatic
+        fun getPoolStats(): JsContextPoolStats = pool.getStats()
+
+        /**
+         * Runs the filter on the given json in a pooled context and maps the resulting ids back to the original objects.
+         * Returns null when the filter did not produce any result.
+         */
+        fun filter(json: String, documents: List<Document>, linkInstances: List<LinkInstance>): Tuple<List<Document>, List<LinkInstance>>? {
+            return pool.execute { filterJsValue ->
+                val result = filterJsValue.execute(json)
+
+                if (result != null) {
+                    val documentsMap = documents.groupBy { it.id }
+                    val resultDocumentsList = mutableListOf<Document>()
+                    val resultDocuments = result.getMember("documentsIds")
+                    for (i in 0 until resultDocuments.arraySize) resultDocumentsList.addAll(documentsMap[resultDocuments.getArrayElement(i).asString()].orEmpty())
+
+                    val linkInstancesMap = linkInstances.groupBy { it.id }
+                    val resultLinksList = mutableListOf<LinkInstance>()
+                    val resultLinks = result.getMember("linkInstancesIds")
+                    for (i in 0 until resultLinks.arraySize) resultLinksList.addAll(linkInstancesMap[resultLinks.getArrayElement(i).asString()].orEmpty())
+
+                    Tuple(resultDocumentsList, resultLinksList)
+                } else {
+                    logger.log(Level.SEVERE, "Error filtering data - null result.")
+                    null
+                }
+            }
         }
 
-        fun getFunction(context: Context): Value {
-            if (filterJsCode != null) {
-                context.eval("js", filterJsCode)
-                return context.getBindings("js").getMember(FILTER_JS)
-            } else {
-                throw IOException("Filters JS code not present.")
-            }
+        private fun getFunction(context: Context): Value {
+            val source = filterJsSource ?: throw IOException("Filters JS code not present.")
+            context.eval(source)
+            return context.getBindings("js").getMember(FILTER_JS)
         }
 
         fun convertToJson(dataFilterJson: DataFilterJson): String {
@@ -200,10 +204,11 @@ data class DataFilterJsonTask(val documents: List<Document>,
         init {
             try {
                 DataFilterJsonTask::class.java.getResourceAsStream("/lumeer-data-filters.min.js").use { stream ->
-                    filterJsCode = String(stream.readAllBytes(), StandardCharsets.UTF_8).plus("; function ${FILTER_JS}(json) { return Filter.filterDocumentsAndLinksIdsFromJson(json); }")
+                    val filterJsCode = String(stream.readAllBytes(), StandardCharsets.UTF_8).plus("; function ${FILTER_JS}(json) { return Filter.filterDocumentsAndLinksIdsFromJson(json); }")
+                    filterJsSource = Source.newBuilder("js", filterJsCode, "lumeer-data-filters.js").cached(true).buildLiteral()
                 }
             } catch (ioe: IOException) {
-                filterJsCode = null
+                filterJsSource = null
             }
         }
     }
@@ -0,0 +1,171 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Group;
+import io.lumeer.api.model.LinkPermissionsType;
+import io.lumeer.api.model.LinkType;
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Permission;
+import io.lumeer.api.model.Permissions;
+import io.lumeer.api.model.Project;
+import io.lumeer.api.model.ResourceType;
+import io.lumeer.api.model.Role;
+import io.lumeer.api.model.RoleType;
+import io.lumeer.api.model.User;
+import io.lumeer.api.model.View;
+import io.lumeer.api.model.common.Resource;
+import io.lumeer.api.util.PermissionUtils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares roles computed by {@link PermissionMatrix} with {@link PermissionUtils} on randomly generated permissions.
+ */
+public class PermissionMatrixTest {
+
+   private static final int ITERATIONS = 500;
+   private static final List<String> USERS = List.of("u1", "u2", "u3", "u4", "");
+   private static final List<String> GROUPS = List.of("g1", "g2", "g3");
+
+   private final Random random = new Random(42);
+
+   @Test
+   public void matchesPermissionUtils() {
+      for (int i = 0; i < ITERATIONS; i++) {
+         final List<Group> groups = randomGroups();
+         final Organization organization = new Organization("ORG", "org", "", "", "", null, randomPermissions());
+         organization.setId("org" + i);
+         final Project project = random.nextInt(5) == 0 ? null : new Project("PRJ", "project", "", "", "", null, randomPermissions(), false, null);
+         if (project != null) {
+            project.setId("project" + i);
+         }
+
+         final Collection collection1 = collection("c1");
+         final Collection collection2 = collection("c2");
+         final View view = new View();
+         view.setPermissions(randomPermissions());
+         final List<Resource> resources = new ArrayList<>(List.of(organization, collection1, collection2, view));
+         if (project != null) {
+            resources.add(project);
+         }
+
+         final List<Collection> collections = List.of(collection1, collection2);
+         final LinkType mergeLinkType = new LinkType("merge", List.of("c1", "c2"), null, null, null, LinkPermissionsType.Merge);
+         final LinkType customLinkType = new LinkType("custom", List.of("c1", "c2"), null, null, randomPermissions(), LinkPermissionsType.Custom);
+         final Permissions viewCollectionPermissions = randomPermissions();
+
+         for (final String userId : USERS) {
+            final User user = new User(userId, userId, userId, Set.of());
+            final PermissionMatrix matrix = PermissionMatrix.build(organization, project, user, groups);
+            final String message = "iteration " + i + ", user '" + userId + "'";
+
+            for (final Resource resource : resources) {
+               assertThat(matrix.getUserRoles(resource))
+                     .as(message + ", " + resource.getType())
+                     .isEqualTo(PermissionUtils.getUserRolesInResource(organization, project, resource, user, groups));
+            }
+            assertThat(matrix.getUserRoles(ResourceType.COLLECTION, viewCollectionPermissions))
+                  .as(message)
+                  .isEqualTo(PermissionUtils.getUserRolesInPermissions(organization, project, ResourceType.COLLECTION, viewCollectionPermissions, user, groups));
+            assertThat(matrix.getUserRolesInLinkType(mergeLinkType, collections))
+                  .as(message + ", merge link type")
+                  .isEqualTo(PermissionUtils.getUserRolesInLinkType(organization, project, mergeLinkType, collections, user, groups));
+            assertThat(matrix.getUserRolesInLinkType(customLinkType, collections))
+                  .as(message + ", custom link type")
+                  .isEqualTo(PermissionUtils.getUserRolesInLinkType(organization, project, customLinkType, collections, user, groups));
+            assertThat(matrix.canReadAllInWorkspace())
+                  .as(message)
+                  .isEqualTo(canReadAllInWorkspace(organization, project, user, groups));
+         }
+      }
+   }
+
+   @Test
+   public void missingPermissions() {
+      final Organization organization = new Organization("ORG", "org", "", "", "", null, new Permissions(Set.of(new Permission("u1", Set.of(new Role(RoleType.Read, true)))), Set.of()));
+      organization.setId("org");
+      final Collection collection = new Collection("c1", "c1", "", "", null);
+      final User user = new User("u1", "u1", "u1", Set.of());
+
+      final PermissionMatrix matrix = PermissionMatrix.build(organization, null, user, List.of());
+
+      assertThat(matrix.getUserRoles(collection)).containsOnly(RoleType.Read);
+      assertThat(matrix.getUserRoles(ResourceType.VIEW, null)).containsOnly(RoleType.Read);
+      assertThat(matrix.canReadAllInWorkspace()).isTrue();
+   }
+
+   private boolean canReadAllInWorkspace(final Organization organization, final Project project, final User user, final List<Group> groups) {
+      final Set<String> userGroups = PermissionUtils.getUserGroups(organization, user, groups);
+      if (PermissionUtils.getUserRolesInResource(organization, user, userGroups).stream().anyMatch(role -> role.isTransitive() && role.getType() == RoleType.Read)) {
+         return true;
+      }
+      return project != null && PermissionUtils.getUserRolesInResource(project, user, userGroups).stream().anyMatch(role -> role.isTransitive() && role.getType() == RoleType.Read);
+   }
+
+   private Collection collection(final String id) {
+      final Collection collection = new Collection(id, id, "", "", randomPermissions());
+      collection.setId(id);
+      return collection;
+   }
+
+   private List<Group> randomGroups() {
+      final List<Group> groups = new ArrayList<>();
+      for (final String groupId : GROUPS) {
+         final List<String> users = new ArrayList<>();
+         USERS.stream().filter(user -> random.nextBoolean()).forEach(users::add);
+         groups.add(new Group(groupId, groupId, null, null, null, users));
+      }
+      return groups;
+   }
+
+   private Permissions randomPermissions() {
+      return new Permissions(randomPermissions(USERS), randomPermissions(GROUPS));
+   }
+
+   private Set<Permission> randomPermissions(final List<String> ids) {
+      final Set<Permission> permissions = new HashSet<>();
+      for (final String id : ids) {
+         if (random.nextInt(3) > 0) {
+            permissions.add(new Permission(id, randomRoles()));
+         }
+      }
+      return permissions;
+   }
+
+   private Set<Role> randomRoles() {
+      final Set<Role> roles = new HashSet<>();
+      for (final RoleType roleType : RoleType.values()) {
+         // read is generated more often, otherwise most of the resources would not be accessible at all
+         if (random.nextInt(10) < (roleType == RoleType.Read ? 6 : 3)) {
+            roles.add(new Role(roleType, random.nextBoolean()));
+         }
+      }
+      return roles;
+   }
+}
@@ -0,0 +1,122 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.Organization;
+import io.lumeer.api.model.Project;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CollectionMetadataBufferTest {
+
+   private Organization organization;
+   private Project project;
+
+   @BeforeEach
+   public void prepareWorkspace() {
+      organization = Mockito.mock(Organization.class);
+      Mockito.when(organization.getId()).thenReturn("org");
+      project = Mockito.mock(Project.class);
+      Mockito.when(project.getId()).thenReturn("proj");
+   }
+
+   @Test
+   public void testDisabledBuffer() {
+      final CollectionMetadataBuffer buffer = new CollectionMetadataBuffer();
+
+      assertThat(buffer.record(organization, project, "c1", Map.of("a1", 1), ZonedDateTime.now())).isFalse();
+      assertThat(buffer.getPendingCount()).isZero();
+   }
+
+   @Test
+   public void testAccumulateChanges() {
+      final CollectionMetadataBuffer buffer = new CollectionMetadataBuffer();
+      buffer.setFlushTrigger(() -> { });
+
+      final ZonedDateTime now = ZonedDateTime.now();
+      assertThat(buffer.record(organization, project, "c1", Map.of("a1", 1, "a2", 1), now)).isTrue();
+      buffer.record(organization, project, "c1", Map.of("a1", 1, "a2", -1), now.plusSeconds(10));
+      buffer.record(organization, project, "c1", Map.of("a3", 2), now.minusSeconds(10));
+      buffer.record(organization, project, "c2", Map.of("a1", 5), now);
+
+      final List<CollectionMetadataBuffer.PendingMetadata> pending = buffer.drain();
+      assertThat(pending).hasSize(2);
+      assertThat(buffer.getPendingCount()).isZero();
+
+      final CollectionMetadataBuffer.PendingMetadata c1 = pending.stream().filter(metadata -> metadata.getCollectionId().equals("c1")).findFirst().orElseThrow();
+      assertThat(c1.getAttributesUsageDeltas()).containsOnly(Map.entry("a1", 2), Map.entry("a2", 0), Map.entry("a3", 2));
+      assertThat(c1.getLastTimeUsed()).isEqualTo(now.plusSeconds(10));
+      assertThat(c1.getWrites()).isEqualTo(3);
+   }
+
+   @Test
+   public void testRestoreChanges() {
+      final CollectionMetadataBuffer buffer = new CollectionMetadataBuffer();
+      buffer.setFlushTrigger(() -> { });
+
+      buffer.record(organization, project, "c1", Map.of("a1", 1), ZonedDateTime.now());
+      final List<CollectionMetadataBuffer.PendingMetadata> pending = buffer.drain();
+      buffer.record(organization, project, "c1", Map.of("a1", 2), ZonedDateTime.now());
+      pending.forEach(buffer::restore);
+
+      assertThat(buffer.drain()).singleElement().satisfies(metadata -> assertThat(metadata.getAttributesUsageDeltas()).containsOnly(Map.entry("a1", 3)));
+   }
+
+   @Test
+   public void testFlushTriggeredByWrites() {
+      final CollectionMetadataBuffer buffer = new CollectionMetadataBuffer();
+      final AtomicInteger triggers = new AtomicInteger();
+      buffer.setFlushTrigger(triggers::incrementAndGet);
+
+      for (int i = 0; i < CollectionMetadataBuffer.FLUSH_WRITES + 10; i++) {
+         buffer.record(organization, project, "c1", Map.of("a1", 1), ZonedDateTime.now());
+      }
+
+      assertThat(triggers.get()).isEqualTo(1);
+   }
+
+   @Test
+   public void testFlushTriggeredByRestoredWrites() {
+      final CollectionMetadataBuffer buffer = new CollectionMetadataBuffer();
+      final AtomicInteger triggers = new AtomicInteger();
+      buffer.setFlushTrigger(triggers::incrementAndGet);
+
+      for (int i = 0; i < CollectionMetadataBuffer.FLUSH_WRITES - 1; i++) {
+         buffer.record(organization, project, "c1", Map.of("a1", 1), ZonedDateTime.now());
+      }
+      final List<CollectionMetadataBuffer.PendingMetadata> pending = buffer.drain();
+
+      buffer.record(organization, project, "c1", Map.of("a1", 1), ZonedDateTime.now());
+      buffer.record(organization, project, "c1", Map.of("a1", 1), ZonedDateTime.now());
+      pending.forEach(buffer::restore);
+      buffer.record(organization, project, "c1", Map.of("a1", 1), ZonedDateTime.now());
+
+      assertThat(triggers.get()).isEqualTo(1);
+      assertThat(buffer.drain()).singleElement().satisfies(metadata -> assertThat(metadata.getWrites()).isEqualTo(CollectionMetadataBuffer.FLUSH_WRITES + 2));
+   }
+}
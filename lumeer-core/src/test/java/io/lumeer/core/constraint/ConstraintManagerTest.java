@@ -20,8 +20,11 @@ package io.lumeer.core.constraint;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import io.lumeer.api.model.Attribute;
+import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.Constraint;
 import io.lumeer.api.model.ConstraintType;
+import io.lumeer.engine.api.data.DataDocument;
 
 import com.mongodb.client.model.geojson.NamedCoordinateReferenceSystem;
 import com.mongodb.client.model.geojson.Point;
@@ -34,6 +37,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 public class ConstraintManagerTest {
@@ -212,4 +216,45 @@ public class ConstraintManagerTest {
       encoded = cm.encodeForFce("40°7.38'N, 74°7.38'W", null);
       assertThat(encoded).isEqualTo(new Point(NamedCoordinateReferenceSystem.EPSG_4326, new Position(40.123, -74.123)));
    }
+
+   @Test
+   public void testDataCodec() {
+      final ConstraintManager cm = new ConstraintManager();
+      cm.setLocale(l);
+
+      final Attribute boolAttribute = new Attribute("a1");
+      boolAttribute.setConstraint(new Constraint(ConstraintType.Boolean, null));
+      final Collection collection = new Collection("C", "Collection", "", "", null);
+      collection.setAttributes(List.of(boolAttribute, new Attribute("a2")));
+
+      final Date date = new Date(1234567890);
+      final DataDocument data = new DataDocument(DataDocument.ID, "id1")
+            .append("a1", "true")
+            .append("a2", new BigDecimal("1.5"))
+            .append("a3", date);
+
+      final DataDocument copy = cm.decodeDataTypes(collection, data);
+      assertThat(copy).isNotSameAs(data);
+      assertThat(data.get("a2")).isEqualTo(new BigDecimal("1.5"));
+
+      final DataDocument decoded = cm.getCodec(collection).decodeInPlace(data);
+      assertThat(decoded).isSameAs(data).isEqualTo(copy);
+      assertThat(decoded.keySet()).containsExactly(DataDocument.ID, "a1", "a2", "a3");
+      assertThat(decoded.getId()).isEqualTo("id1");
+      assertThat(decoded.get("a1")).isEqualTo(true);
+      assertThat(decoded.get("a2")).isEqualTo("1.5");
+      assertThat(decoded.get("a3")).isEqualTo(cm.getDateDecoder().format(date.toInstant().atZone(ZoneId.of("UTC"))));
+   }
+
+   @Test
+   public void testInvalidDatesAreNotEncoded() {
+      final ConstraintManager cm = new ConstraintManager();
+      cm.setLocale(l);
+
+      final Constraint constraint = new Constraint(ConstraintType.DateTime, null);
+      assertThat(cm.encode("2019-13-45T10:00:00.000+0000", constraint)).isEqualTo("2019-13-45T10:00:00.000+0000");
+      assertThat(cm.encode("2019-01-20T10:00:00.000Zjunk", constraint)).isEqualTo("2019-01-20T10:00:00.000Zjunk");
+      assertThat(cm.encode("2019-01-20", constraint)).isEqualTo("2019-01-20");
+      assertThat(cm.encode(" 2019-01-20T10:00:00.000Z ", constraint)).isInstanceOf(Date.class);
+   }
 }
@@ -0,0 +1,50 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+public class CronTaskProcessorTest {
+
+   private static final ZonedDateTime TICK = ZonedDateTime.of(2026, 10, 17, 9, 15, 0, 0, ZoneOffset.UTC);
+
+   @Test
+   public void testTickTimeRoundsToClosestTick() {
+      assertThat(CronTaskProcessor.getTickTime(TICK)).isEqualTo(TICK);
+      assertThat(CronTaskProcessor.getTickTime(TICK.minusSeconds(3))).isEqualTo(TICK);
+      assertThat(CronTaskProcessor.getTickTime(TICK.plusSeconds(5))).isEqualTo(TICK);
+      assertThat(CronTaskProcessor.getTickTime(TICK.plusMinutes(7))).isEqualTo(TICK);
+      assertThat(CronTaskProcessor.getTickTime(TICK.plusMinutes(8))).isEqualTo(TICK.plusMinutes(15));
+      assertThat(CronTaskProcessor.getTickTime(TICK.minusMinutes(8))).isEqualTo(TICK.minusMinutes(15));
+   }
+
+   @Test
+   public void testTickTimeDoesNotDependOnZone() {
+      final ZonedDateTime local = TICK.plusSeconds(2).withZoneSameInstant(ZoneId.of("Europe/Prague"));
+
+      assertThat(CronTaskProcessor.getTickTime(local)).isEqualTo(TICK);
+      assertThat(CronTaskProcessor.getTickTime(local).toInstant().toString()).isEqualTo("2026-10-17T09:15:00Z");
+   }
+}
@@ -0,0 +1,111 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.core.task.executor.operation.Operation;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class FunctionBatchExecutorTest {
+
+   @Test
+   public void evaluatesAllExecutorsInOrder() throws Exception {
+      final List<Operation<?>> expected = new ArrayList<>();
+      final List<FunctionTaskExecutor> executors = createExecutors(FunctionBatchExecutor.CHUNK_SIZE * 5 + 3, expected);
+      final String[] threads = new String[executors.size()];
+      for (int i = 0; i < executors.size(); i++) {
+         final int index = i;
+         Mockito.when(executors.get(i).evaluate()).thenAnswer(invocation -> {
+            threads[index] = Thread.currentThread().getName();
+            return List.of(expected.get(index));
+         });
+      }
+
+      final ExecutorService executorService = Executors.newFixedThreadPool(4);
+      final List<Integer> progress = new CopyOnWriteArrayList<>();
+      try {
+         final List<List<Operation<?>>> results = new FunctionBatchExecutor(null, executors).evaluate(executorService, progress::add);
+
+         assertThat(results.stream().flatMap(List::stream).collect(Collectors.toList())).containsExactlyElementsOf(expected);
+         assertThat(progress).contains(executors.size());
+         executors.forEach(executor -> Mockito.verify(executor, Mockito.times(1)).evaluate());
+
+         // a chunk is always evaluated by a single thread
+         for (int i = 0; i < executors.size(); i++) {
+            assertThat(threads[i]).isEqualTo(threads[i - i % FunctionBatchExecutor.CHUNK_SIZE]);
+         }
+      } finally {
+         executorService.shutdown();
+         executorService.awaitTermination(10, TimeUnit.SECONDS);
+      }
+   }
+
+   @Test
+   public void evaluatesChunksOfHelpersWhichDidNotStart() {
+      final List<Operation<?>> expected = new ArrayList<>();
+      final List<FunctionTaskExecutor> executors = createExecutors(FunctionBatchExecutor.CHUNK_SIZE * 3, expected);
+      final List<Runnable> scheduledHelpers = new ArrayList<>();
+
+      // the helpers never run, the calling thread must not wait for them
+      final List<List<Operation<?>>> results = new FunctionBatchExecutor(null, executors).evaluate(scheduledHelpers::add, null);
+
+      assertThat(results.stream().flatMap(List::stream).collect(Collectors.toList())).containsExactlyElementsOf(expected);
+      assertThat(scheduledHelpers).hasSizeBetween(1, 2);
+
+      scheduledHelpers.forEach(Runnable::run);
+      executors.forEach(executor -> Mockito.verify(executor, Mockito.times(1)).evaluate());
+   }
+
+   @Test
+   public void evaluatesWithoutExecutorService() {
+      final List<FunctionTaskExecutor> executors = new ArrayList<>();
+      for (int i = 0; i < FunctionBatchExecutor.CHUNK_SIZE + 1; i++) {
+         final FunctionTaskExecutor executor = Mockito.mock(FunctionTaskExecutor.class);
+         Mockito.when(executor.evaluate()).thenReturn(List.of());
+         executors.add(executor);
+      }
+
+      final List<List<Operation<?>>> results = new FunctionBatchExecutor(null, executors).evaluate(null, null);
+
+      assertThat(results).hasSize(executors.size()).doesNotContainNull();
+   }
+
+   private List<FunctionTaskExecutor> createExecutors(final int count, final List<Operation<?>> operations) {
+      final List<FunctionTaskExecutor> executors = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+         final Operation<?> operation = Mockito.mock(Operation.class);
+         final FunctionTaskExecutor executor = Mockito.mock(FunctionTaskExecutor.class);
+         Mockito.when(executor.evaluate()).thenReturn(List.of(operation));
+         operations.add(operation);
+         executors.add(executor);
+      }
+      return executors;
+   }
+}
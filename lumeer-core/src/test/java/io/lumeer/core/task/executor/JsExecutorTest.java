@@ -0,0 +1,74 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.core.js.JsAutomationRuntime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class JsExecutorTest {
+
+   @Test
+   public void contextsAreNotSharedByOrganizations() {
+      assertThat(JsExecutor.getRuntime("org1")).isSameAs(JsExecutor.getRuntime("org1"));
+      assertThat(JsExecutor.getRuntime("org1")).isNotSameAs(JsExecutor.getRuntime("org2"));
+      assertThat(JsExecutor.getRuntimeStats()).containsKeys("org1", "org2");
+   }
+
+   @Test
+   public void librariesWorkInHardenedContexts() {
+      final JsAutomationRuntime runtime = JsExecutor.getRuntime("libraries");
+      final List<Object> results = new ArrayList<>();
+      final Map<String, Object> polyglotBindings = Map.of("result", (Consumer<Object>) results::add);
+
+      runtime.execute(Map.of(), polyglotBindings, "const result = Polyglot.import('result');\n"
+            + "result.accept(moment.utc(0).locale('cs').format('dddd D. MMMM YYYY'));\n"
+            + "moment.locale('de');\n"
+            + "result.accept(moment.utc(0).format('dddd, D. MMMM YYYY'));\n"
+            + "result.accept(String(moment.utc('05.03.2021', 'DD.MM.YYYY', 'cs').valueOf()));\n"
+            + "result.accept(lumeer_numbro('cs-CZ', 2, 1234.5));\n"
+            + "result.accept(lumeer_numbro('en-US', 0, 1234.5));\n"
+            + "result.accept(he.encode('<a>\u010D & \u00FC</a>'));\n"
+            + "result.accept(he.decode('&lt;p&gt;&amp;&eacute;&#x10D;'));", 0);
+
+      // the locales switched by the previous run are reset
+      runtime.execute(Map.of(), polyglotBindings, "const result = Polyglot.import('result');\n"
+            + "result.accept(moment.utc(0).format('dddd, MMMM D YYYY'));\n"
+            + "result.accept(numbro(1234.5).format({ thousandSeparated: true }));", 0);
+
+      assertThat(results).containsExactly(
+            "\u010Dtvrtek 1. leden 1970",
+            "Donnerstag, 1. Januar 1970",
+            "1614902400000",
+            "1\u00A0234,50K\u010D",
+            "$1,235",
+            "&#x3C;a&#x3E;&#x10D; &#x26; &#xFC;&#x3C;/a&#x3E;",
+            "<p>&\u00E9\u010D",
+            "Thursday, January 1 1970",
+            "1,234.5");
+      assertThat(runtime.getStats().getDirty()).isZero();
+   }
+}
@@ -0,0 +1,217 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor.bridge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Document;
+import io.lumeer.api.model.LinkInstance;
+import io.lumeer.api.model.LinkType;
+import io.lumeer.core.constraint.ConstraintManager;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.api.dao.CollectionDao;
+import io.lumeer.storage.api.dao.DataDao;
+import io.lumeer.storage.api.dao.DocumentDao;
+import io.lumeer.storage.api.dao.LinkDataDao;
+import io.lumeer.storage.api.dao.LinkInstanceDao;
+import io.lumeer.storage.api.dao.LinkTypeDao;
+import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
+import io.lumeer.storage.api.query.SearchQuery;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class BridgeReadCacheTest {
+
+   private static final String COLLECTION_ID = "c1";
+   private static final String LINK_TYPE_ID = "lt1";
+
+   private CollectionDao collectionDao;
+   private DocumentDao documentDao;
+   private DataDao dataDao;
+   private LinkInstanceDao linkInstanceDao;
+   private LinkDataDao linkDataDao;
+   private LinkTypeDao linkTypeDao;
+   private BridgeReadCache cache;
+   private Collection collection;
+
+   @BeforeEach
+   public void setUp() {
+      collectionDao = mock(CollectionDao.class);
+      documentDao = mock(DocumentDao.class);
+      dataDao = mock(DataDao.class);
+      linkInstanceDao = mock(LinkInstanceDao.class);
+      linkDataDao = mock(LinkDataDao.class);
+      linkTypeDao = mock(LinkTypeDao.class);
+
+      final DaoContextSnapshot dao = mock(DaoContextSnapshot.class);
+      when(dao.getCollectionDao()).thenReturn(collectionDao);
+      when(dao.getDocumentDao()).thenReturn(documentDao);
+      when(dao.getDataDao()).thenReturn(dataDao);
+      when(dao.getLinkInstanceDao()).thenReturn(linkInstanceDao);
+      when(dao.getLinkDataDao()).thenReturn(linkDataDao);
+      when(dao.getLinkTypeDao()).thenReturn(linkTypeDao);
+
+      final ConstraintManager constraintManager = mock(ConstraintManager.class);
+      when(constraintManager.encodeDataTypesForFce(any(Collection.class), any())).thenAnswer(invocation -> invocation.getArgument(1));
+      when(constraintManager.encodeDataTypesForFce(any(LinkType.class), any())).thenAnswer(invocation -> invocation.getArgument(1));
+
+      collection = new Collection("C1", "Tasks", "", "", null);
+      collection.setId(COLLECTION_ID);
+      when(collectionDao.getCollectionById(COLLECTION_ID)).thenReturn(collection);
+
+      final LinkType linkType = new LinkType("Link", List.of(COLLECTION_ID, COLLECTION_ID), List.of(), null, null, null);
+      linkType.setId(LINK_TYPE_ID);
+      when(linkTypeDao.getLinkType(LINK_TYPE_ID)).thenReturn(linkType);
+
+      when(documentDao.getDocumentsByIds(anySet())).thenAnswer(invocation -> invocation.<Set<String>>getArgument(0).stream().map(this::document).collect(Collectors.toList()));
+      when(dataDao.getData(anyString(), anySet())).thenAnswer(invocation -> invocation.<Set<String>>getArgument(1).stream().map(id -> new DataDocument("a1", "stored").append(DataDocument.ID, id)).collect(Collectors.toList()));
+      when(linkInstanceDao.searchLinkInstances(any(SearchQuery.class))).thenAnswer(invocation -> List.of(link("l1", "d1", "d2"), link("l2", "d1", "d3")));
+      when(linkDataDao.getData(anyString(), anySet())).thenAnswer(invocation -> invocation.<Set<String>>getArgument(1).stream().map(id -> new DataDocument("a1", "stored").append(DataDocument.ID, id)).collect(Collectors.toList()));
+
+      cache = new BridgeReadCache(dao, constraintManager);
+   }
+
+   @Test
+   public void testCollectionsAndLinkTypesAreReadOnce() {
+      for (int i = 0; i < 100; i++) {
+         assertThat(cache.getCollection(COLLECTION_ID)).isSameAs(collection);
+         assertThat(cache.getLinkType(LINK_TYPE_ID).getId()).isEqualTo(LINK_TYPE_ID);
+      }
+
+      verify(collectionDao, times(1)).getCollectionById(COLLECTION_ID);
+      verify(linkTypeDao, times(1)).getLinkType(LINK_TYPE_ID);
+      assertThat(cache.getReads()).isEqualTo(2);
+      assertThat(cache.getHits()).isEqualTo(198);
+   }
+
+   @Test
+   public void testDocumentIdentity() {
+      final Document first = cache.getDocuments(collection, Set.of("d1", "d2")).stream().filter(d -> d.getId().equals("d1")).findFirst().orElseThrow();
+      final List<Document> second = cache.getDocuments(collection, Set.of("d1", "d3"));
+
+      assertThat(second).hasSize(2).contains(first);
+      verify(documentDao, times(1)).getDocumentsByIds(Set.of("d1", "d2"));
+      verify(documentDao, times(1)).getDocumentsByIds(Set.of("d3"));
+   }
+
+   @Test
+   public void testPendingDocumentChanges() {
+      final Document loaded = cache.getDocuments(collection, Set.of("d1")).get(0);
+
+      // a change made through another instance of the document, e.g. the one that triggered the rule
+      cache.documentChanged(document("d1"), "a1", "changed");
+      cache.documentChanged(document("d2"), "a1", "changed too");
+
+      assertThat(loaded.getData().getString("a1")).isEqualTo("changed");
+      assertThat(cache.getDocuments(collection, Set.of("d2")).get(0).getData().getString("a1")).isEqualTo("changed too");
+   }
+
+   @Test
+   public void testCreatedAndRemovedDocuments() {
+      when(documentDao.getDocumentsByParentId("d1")).thenReturn(List.of(document("d2"), document("d3")));
+      assertThat(cache.getChildDocuments(collection, "d1")).extracting(Document::getId).containsExactly("d2", "d3");
+      assertThat(cache.getLinkInstances(Set.of("d1"), LINK_TYPE_ID)).extracting(LinkInstance::getId).containsExactlyInAnyOrder("l1", "l2");
+
+      final Document created = document(null);
+      created.createIfAbsentMetaData().put(Document.META_CORRELATION_ID, "new");
+      cache.documentCreated(created);
+      cache.documentRemoved(document("d2"));
+
+      assertThat(cache.getDocuments(collection, Set.of("new", "d2"))).containsExactly(created);
+      assertThat(cache.getChildDocuments(collection, "d1")).extracting(Document::getId).containsExactly("d3");
+      assertThat(cache.getChildDocuments(collection, "new")).isEmpty();
+      assertThat(cache.getLinkInstances(Set.of("new"), LINK_TYPE_ID)).isEmpty();
+      assertThat(cache.getLinkInstances(Set.of("d1"), LINK_TYPE_ID)).extracting(LinkInstance::getId).containsExactly("l2");
+      assertThat(cache.getLinkDocument(link("l1", "d1", "d2"), COLLECTION_ID)).isNull();
+
+      verify(documentDao, times(1)).getDocumentsByParentId(anyString());
+      verify(linkInstanceDao, times(1)).searchLinkInstances(any(SearchQuery.class));
+   }
+
+   @Test
+   public void testCreatedAndRemovedLinks() {
+      final List<LinkInstance> links = cache.getLinkInstances(Set.of("d1"), LINK_TYPE_ID);
+      final LinkInstance created = link(null, "d1", "d4");
+      created.setTemplateId("new");
+      created.setData(new DataDocument());
+
+      cache.linkCreated(created);
+      cache.linkRemoved(links.stream().filter(link -> link.getId().equals("l1")).findFirst().orElseThrow());
+
+      assertThat(cache.getLinkInstances(Set.of("d1"), LINK_TYPE_ID)).extracting(LinkInstance::getId).containsExactlyInAnyOrder("l2", null);
+      assertThat(cache.getLinkInstances(Set.of("d2"), LINK_TYPE_ID)).isEmpty();
+      assertThat(cache.getLinkInstances(Set.of("d4"), LINK_TYPE_ID)).containsExactly(created);
+
+      cache.loadLinkData(LINK_TYPE_ID, List.of(created));
+      verify(linkDataDao, times(0)).getData(anyString(), anySet());
+   }
+
+   @Test
+   public void testReadsCountDaoCalls() {
+      cache.getDocuments(collection, Set.of("d1"));
+      assertThat(cache.getReads()).isEqualTo(2);
+
+      when(documentDao.getDocumentsByIds(anySet())).thenReturn(List.of());
+      assertThat(cache.getDocuments(collection, Set.of("d2"))).isEmpty();
+      assertThat(cache.getReads()).isEqualTo(3);
+      verify(dataDao, times(1)).getData(anyString(), anySet());
+   }
+
+   @Test
+   public void testLinkInstances() {
+      final List<LinkInstance> links = cache.getLinkInstances(Set.of("d1"), LINK_TYPE_ID);
+      assertThat(links).extracting(LinkInstance::getId).containsExactlyInAnyOrder("l1", "l2");
+
+      cache.linkChanged(links.get(0), "a1", "changed");
+      cache.loadLinkData(LINK_TYPE_ID, links);
+      cache.loadLinkData(LINK_TYPE_ID, cache.getLinkInstances(Set.of("d1"), LINK_TYPE_ID));
+
+      assertThat(cache.getLinkInstances(Set.of("d1"), LINK_TYPE_ID)).containsExactlyElementsOf(links);
+      assertThat(links.get(0).getData().getString("a1")).isEqualTo("changed");
+      assertThat(links.get(1).getData().getString("a1")).isEqualTo("stored");
+      verify(linkInstanceDao, times(1)).searchLinkInstances(any(SearchQuery.class));
+      verify(linkDataDao, times(1)).getData(anyString(), anySet());
+   }
+
+   private Document document(final String id) {
+      final Document document = new Document(new DataDocument());
+      document.setId(id);
+      document.setCollectionId(COLLECTION_ID);
+      return document;
+   }
+
+   private LinkInstance link(final String id, final String documentId1, final String documentId2) {
+      final LinkInstance linkInstance = new LinkInstance(LINK_TYPE_ID, List.of(documentId1, documentId2));
+      linkInstance.setId(id);
+      return linkInstance;
+   }
+}
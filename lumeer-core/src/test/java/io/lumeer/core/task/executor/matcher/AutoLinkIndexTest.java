@@ -0,0 +1,133 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.task.executor.matcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.AllowedPermissions;
+import io.lumeer.api.model.Attribute;
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.ConstraintData;
+import io.lumeer.api.model.CurrencyData;
+import io.lumeer.api.model.Document;
+import io.lumeer.api.model.Language;
+import io.lumeer.api.model.Permissions;
+import io.lumeer.api.model.Query;
+import io.lumeer.core.constraint.ConstraintManager;
+import io.lumeer.core.util.js.DataFilter;
+import io.lumeer.engine.api.data.DataDocument;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+public class AutoLinkIndexTest {
+
+   private static final ConstraintManager constraintManager = new ConstraintManager();
+
+   @BeforeAll
+   public static void setUp() {
+      constraintManager.setLocale(Locale.forLanguageTag("en_US"));
+   }
+
+   @Test
+   public void matchKeys() {
+      assertThat(keys(new BigDecimal("2.5"))).isEqualTo(keys("2.5"));
+      assertThat(keys(3L)).isEqualTo(keys(" 3 "));
+      assertThat(keys(3.0d)).isEqualTo(keys(3L));
+      assertThat(keys("Red")).isEqualTo(keys("RED"));
+      assertThat(keys(List.of("a", "B", ""))).isEqualTo(keys(List.of("b", "A")));
+      assertThat(keys("2.50")).isNotEqualTo(keys("2.5"));
+      assertThat(keys("Želva")).isNotEqualTo(keys("zelva"));
+      assertThat(keys("")).isEmpty();
+      assertThat(keys(false)).isEmpty();
+      assertThat(keys(null)).isEmpty();
+   }
+
+   @Test
+   public void matchKeysFollowDataFilterEquals() {
+      final List<Object> values = List.of("red", "Red", " red ", "Želva", "zelva", "2.5", "2.50", new BigDecimal("2.5"), new BigDecimal("2.50"),
+            2.5d, 3L, 3.0d, "3", " 3", "1E+3", 1000L, true, "true", "false", "a b", "a  b");
+      final Collection collection = new Collection("C2", "c2", "", "", new Permissions());
+      collection.setId("c2");
+      collection.setAttributes(List.of(new Attribute("a2")));
+      final Attribute attribute = new Attribute("a1");
+      final ConstraintData constraintData = new ConstraintData(List.of(), null, Map.of(), new CurrencyData(List.of(), List.of()), "Europe/Prague", List.of(), List.of());
+      final Function<Object, Query> matchQuery = MatchQueryFactory.getMatchQuery(attribute, collection, collection.getAttributes().iterator().next());
+
+      values.forEach(sourceValue -> values.forEach(targetValue -> {
+         final Document target = new Document(new DataDocument("a2", targetValue));
+         target.setId("t");
+         target.setCollectionId(collection.getId());
+
+         // the rule used to query the target documents by the decoded source value
+         final boolean filterMatch = !DataFilter.filterDocumentsAndLinksByQueryDecodingFromJson(
+               List.of(target), List.of(collection), List.of(), List.of(), matchQuery.apply(constraintManager.decode(sourceValue, null)),
+               Map.of(collection.getId(), AllowedPermissions.allAllowed()), Map.of(), constraintData, true, Language.EN
+         ).getFirst().isEmpty();
+         final boolean indexMatch = !Collections.disjoint(keys(sourceValue), keys(targetValue));
+
+         assertThat(indexMatch).as("%s matching %s", sourceValue, targetValue).isEqualTo(filterMatch);
+      }));
+   }
+
+   @Test
+   public void matchSharedValues() {
+      final AutoLinkIndex index = new AutoLinkIndex(false, true);
+      index.add("s1", keys("red"));
+      index.add("s2", keys(List.of("red", "blue")));
+      index.add("s3", keys(""));
+
+      assertThat(index.match(keys("Red"))).containsExactlyInAnyOrder("s1", "s2");
+      assertThat(index.match(keys(List.of("blue", "green")))).containsExactly("s2");
+      assertThat(index.match(keys(""))).isEmpty();
+      assertThat(index.getKeysCount()).isEqualTo(2);
+   }
+
+   @Test
+   public void matchAllSourceValues() {
+      // sources indexed, the target must contain all the source values
+      final AutoLinkIndex sources = new AutoLinkIndex(true, true);
+      sources.add("s1", keys(List.of("a", "b")));
+      sources.add("s2", keys(List.of("a")));
+
+      assertThat(sources.match(keys(List.of("a", "b", "c")))).containsExactlyInAnyOrder("s1", "s2");
+      assertThat(sources.match(keys(List.of("a", "c")))).containsExactly("s2");
+
+      // targets indexed, the same relation from the other side
+      final AutoLinkIndex targets = new AutoLinkIndex(true, false);
+      targets.add("t1", keys(List.of("a", "b", "c")));
+      targets.add("t2", keys(List.of("a", "c")));
+
+      assertThat(targets.match(keys(List.of("a", "b")))).containsExactly("t1");
+      assertThat(targets.match(keys(List.of("a")))).containsExactlyInAnyOrder("t1", "t2");
+      assertThat(targets.match(keys(List.of("d")))).isEmpty();
+   }
+
+   private static Set<String> keys(final Object value) {
+      return AutoLinkIndex.getMatchKeys(value, constraintManager);
+   }
+}
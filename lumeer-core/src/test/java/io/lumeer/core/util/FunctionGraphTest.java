@@ -0,0 +1,90 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.function.FunctionParameter;
+import io.lumeer.api.model.function.FunctionResourceType;
+import io.lumeer.api.model.function.FunctionRow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class FunctionGraphTest {
+
+   private static final String C1 = "c1", C2 = "c2", C3 = "c3", L1 = "l1";
+   private static final String A1 = "a1", A2 = "a2";
+
+   // c2.a1 = c1.a1, c3.a1 = c2.a1 + l1.a1, l1.a2 = c1.a2
+   private final FunctionGraph graph = new FunctionGraph(List.of(
+         FunctionRow.createForCollection(C2, A1, C1, null, A1),
+         FunctionRow.createForCollection(C3, A1, C2, null, A1),
+         FunctionRow.createForCollection(C3, A1, null, L1, A1),
+         FunctionRow.createForLink(L1, A2, C1, L1, A2)
+   ));
+
+   @Test
+   public void searches() {
+      assertThat(graph.searchByDependentCollection(C1, A1)).extracting(FunctionRow::getResourceId).containsExactly(C2);
+      assertThat(graph.searchByDependentCollection(C1, null)).extracting(FunctionRow::getResourceId).containsExactly(C2, L1);
+      assertThat(graph.searchByDependentLinkType(L1, null)).extracting(FunctionRow::getResourceId).containsExactly(C3, L1);
+      assertThat(graph.searchByDependentLinkType(L1, A2)).extracting(FunctionRow::getResourceId).containsExactly(L1);
+      assertThat(graph.searchByResource(C3, A1, FunctionResourceType.COLLECTION)).hasSize(2);
+      assertThat(graph.searchByResource(C3, null, FunctionResourceType.COLLECTION)).hasSize(2);
+      assertThat(graph.searchByResource(C3, A1, FunctionResourceType.LINK)).isEmpty();
+      assertThat(graph.searchByAnyCollection(C2, null)).extracting(FunctionRow::getResourceId).containsExactly(C2, C3);
+      assertThat(graph.searchByAnyLinkType(L1, null)).extracting(FunctionRow::getResourceId).containsExactly(C3, L1);
+   }
+
+   @Test
+   public void dependentFunctions() {
+      assertThat(graph.getMetrics().getMaxRecomputeFanout()).isEqualTo(2);
+      assertThat(graph.getMetrics().getFunctions()).isEqualTo(3);
+      assertThat(graph.getMetrics().getCyclicFunctions()).isZero();
+   }
+
+   @Test
+   public void incrementalChanges() {
+      final FunctionGraph changed = graph.withRows(List.of(FunctionRow.createForCollection(C1, A2, C3, null, A1)))
+                                         .withoutRows(row -> row.getResourceId().equals(L1));
+
+      assertThat(changed.getMetrics().getMaxRecomputeFanout()).isEqualTo(3);
+      assertThat(changed.searchByDependentCollection(C3, A1)).extracting(FunctionRow::getResourceId).containsExactly(C1);
+      assertThat(changed.searchByDependentCollection(C1, A2)).isEmpty();
+      assertThat(graph.searchByDependentCollection(C1, A2)).hasSize(1);
+   }
+
+   @Test
+   public void cycles() {
+      assertThat(graph.findCycle(collection(C3, A1))).isEmpty();
+
+      final FunctionGraph cyclic = graph.withRows(List.of(FunctionRow.createForCollection(C1, A1, C3, null, A1)));
+      assertThat(cyclic.findCycle(collection(C1, A1))).containsExactly(collection(C1, A1), collection(C2, A1), collection(C3, A1), collection(C1, A1));
+      assertThat(cyclic.getMetrics().getCyclicFunctions()).isEqualTo(3);
+
+      final FunctionGraph selfReference = graph.withRows(List.of(FunctionRow.createForCollection(C2, A2, C2, null, A2)));
+      assertThat(selfReference.findCycle(collection(C2, A2))).containsExactly(collection(C2, A2), collection(C2, A2));
+   }
+
+   private static FunctionParameter collection(final String collectionId, final String attributeId) {
+      return new FunctionParameter(FunctionResourceType.COLLECTION, collectionId, attributeId);
+   }
+}
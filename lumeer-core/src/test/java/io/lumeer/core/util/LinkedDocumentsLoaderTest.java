@@ -0,0 +1,73 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.Document;
+import io.lumeer.api.model.LinkInstance;
+import io.lumeer.api.model.Permissions;
+import io.lumeer.engine.api.data.DataDocument;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class LinkedDocumentsLoaderTest {
+
+   private static final String LINK_TYPE_ID = "lt1";
+
+   @Test
+   public void loadsEachDocumentOnce() {
+      final Collection collection = new Collection("C2", "C2", "", "", new Permissions());
+      collection.setId("c2");
+      final Set<String> existingIds = Set.of("d1", "d2", "d3");
+      final List<Set<String>> requests = new ArrayList<>();
+
+      final LinkedDocumentsLoader loader = new LinkedDocumentsLoader((c, ids) -> {
+         requests.add(ids);
+         return ids.stream().filter(existingIds::contains).map(this::createDocument).collect(Collectors.toList());
+      });
+
+      final List<Document> firstPage = loader.loadLinkedDocuments(collection, List.of(createLink("r1", "d1"), createLink("r2", "d2"), createLink("r3", "d1"), createLink("r4", "x")), Set.of("r1", "r2", "r3", "r4"));
+      assertThat(firstPage).extracting(Document::getId).containsExactly("d1", "d2");
+
+      final List<Document> secondPage = loader.loadLinkedDocuments(collection, List.of(createLink("r5", "d2"), createLink("r6", "d3"), createLink("r7", "x")), Set.of("r5", "r6", "r7"));
+      assertThat(secondPage).extracting(Document::getId).containsExactly("d2", "d3");
+
+      assertThat(requests).containsExactly(Set.of("d1", "d2", "x"), Set.of("d3"));
+      assertThat(loader.getLoadedCount()).isEqualTo(3);
+      assertThat(loader.getCachedCount()).isEqualTo(2);
+   }
+
+   private LinkInstance createLink(final String rootId, final String linkedId) {
+      return new LinkInstance(LINK_TYPE_ID, List.of(rootId, linkedId));
+   }
+
+   private Document createDocument(final String id) {
+      final Document document = new Document(new DataDocument());
+      document.setId(id);
+      document.setCollectionId("c2");
+      return document;
+   }
+}
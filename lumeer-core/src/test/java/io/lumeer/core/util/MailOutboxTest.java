@@ -0,0 +1,280 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MailOutboxTest {
+
+   private static final int MESSAGES = 20;
+
+   private SmtpStub smtp;
+   private ExecutorService executorService;
+   private MailOutbox outbox;
+
+   @BeforeEach
+   public void startSmtpStub() throws IOException {
+      smtp = new SmtpStub();
+      smtp.start();
+      executorService = Executors.newCachedThreadPool();
+   }
+
+   @AfterEach
+   public void stopSmtpStub() throws Exception {
+      if (outbox != null) {
+         outbox.stop();
+      }
+      executorService.shutdownNow();
+      assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+      smtp.stop();
+   }
+
+   @Test
+   public void testConnectionReuse() throws Exception {
+      outbox = createOutbox(1, 1024 * 1024, 3, 100, 30_000);
+      final EmailService emailService = createEmailService(outbox);
+
+      final List<CompletableFuture<Void>> results = new ArrayList<>();
+      for (int i = 0; i < MESSAGES; i++) {
+         results.add(emailService.sendEmail("Subject " + i, "user" + i + "@lumeer.io", "<p>Body</p>", "Sender"));
+      }
+
+      assertThat(outbox.awaitEmpty(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(results).allSatisfy(result -> assertThat(result).isCompleted().isNotCompletedExceptionally());
+      assertThat(smtp.messages.get()).isEqualTo(MESSAGES);
+      assertThat(smtp.connections.get()).isEqualTo(1);
+
+      final MailOutbox.MailOutboxStats stats = outbox.getStats();
+      assertThat(stats.getSent()).isEqualTo(MESSAGES);
+      assertThat(stats.getFailed()).isZero();
+      assertThat(stats.getQueueDepth()).isZero();
+      assertThat(stats.getConnections()).isEqualTo(1);
+   }
+
+   @Test
+   public void testMessagesPerConnection() throws Exception {
+      outbox = createOutbox(1, 1024 * 1024, 3, 5, 30_000);
+      final EmailService emailService = createEmailService(outbox);
+
+      for (int i = 0; i < 12; i++) {
+         emailService.sendEmail("Subject " + i, "user" + i + "@lumeer.io", "<p>Body</p>", "Sender");
+      }
+
+      assertThat(outbox.awaitEmpty(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(smtp.messages.get()).isEqualTo(12);
+      assertThat(smtp.connections.get()).isEqualTo(3);
+   }
+
+   @Test
+   public void testRetry() throws Exception {
+      outbox = createOutbox(2, 1024 * 1024, 5, 100, 30_000);
+      final EmailService emailService = createEmailService(outbox);
+      smtp.rejections.set(3);
+
+      for (int i = 0; i < MESSAGES; i++) {
+         emailService.sendEmail("Subject " + i, "user" + i + "@lumeer.io", "<p>Body</p>", "Sender");
+      }
+
+      assertThat(outbox.awaitEmpty(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(smtp.messages.get()).isEqualTo(MESSAGES);
+
+      final MailOutbox.MailOutboxStats stats = outbox.getStats();
+      assertThat(stats.getSent()).isEqualTo(MESSAGES);
+      assertThat(stats.getFailed()).isZero();
+      assertThat(stats.getRetried()).isPositive();
+   }
+
+   @Test
+   public void testGiveUp() throws Exception {
+      outbox = createOutbox(1, 1024 * 1024, 2, 100, 30_000);
+      final EmailService emailService = createEmailService(outbox);
+      smtp.rejections.set(Integer.MAX_VALUE);
+
+      final CompletableFuture<Void> result = emailService.sendEmail("Subject", "user@lumeer.io", "<p>Body</p>", "Sender");
+
+      assertThat(result).failsWithin(10, TimeUnit.SECONDS);
+      assertThat(outbox.awaitEmpty(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(smtp.messages.get()).isZero();
+      assertThat(outbox.getStats().getFailed()).isEqualTo(1);
+   }
+
+   @Test
+   public void testQueueSizeLimit() throws Exception {
+      // the sender cannot start until the latch is released
+      final CountDownLatch latch = new CountDownLatch(1);
+      executorService.shutdown();
+      executorService = Executors.newSingleThreadExecutor();
+      executorService.submit(() -> {
+         latch.await();
+         return null;
+      });
+      outbox = createOutbox(1, 100, 3, 100, 30_000);
+      final EmailService emailService = createEmailService(outbox);
+
+      final CompletableFuture<Void> queued = emailService.sendEmail("Subject 1", "user1@lumeer.io", "<p>" + "x".repeat(80) + "</p>", "Sender");
+      final CompletableFuture<Void> direct = emailService.sendEmail("Subject 2", "user2@lumeer.io", "<p>" + "x".repeat(80) + "</p>", "Sender");
+
+      assertThat(queued).isNotDone();
+      assertThat(direct).isCompleted().isNotCompletedExceptionally();
+      assertThat(smtp.messages.get()).isEqualTo(1);
+      assertThat(outbox.getStats().getQueueDepth()).isEqualTo(1);
+
+      latch.countDown();
+      assertThat(queued).succeedsWithin(10, TimeUnit.SECONDS);
+      assertThat(smtp.messages.get()).isEqualTo(2);
+   }
+
+   @Test
+   public void testStopSendsPendingMessages() throws Exception {
+      outbox = createOutbox(1, 1024 * 1024, 3, 100, 30_000);
+      final EmailService emailService = createEmailService(outbox);
+
+      for (int i = 0; i < MESSAGES; i++) {
+         emailService.sendEmail("Subject " + i, "user" + i + "@lumeer.io", "<p>Body</p>", "Sender");
+      }
+      outbox.stop();
+
+      assertThat(smtp.messages.get()).isEqualTo(MESSAGES);
+      assertThat(outbox.getStats().getPending()).isZero();
+      assertThat(outbox.getStats().getQueuedBytes()).isZero();
+   }
+
+   private MailOutbox createOutbox(final int senders, final long queueBytes, final int maxAttempts, final int messagesPerConnection, final long connectionIdleMillis) {
+      return new MailOutbox(executorService, senders, queueBytes, maxAttempts, 10, messagesPerConnection, connectionIdleMillis, 10_000);
+   }
+
+   private EmailService createEmailService(final MailOutbox outbox) {
+      return new EmailService("localhost", smtp.getPort(), "user", "password", "lumeer@lumeer.io", EmailSecurityType.NONE, outbox);
+   }
+
+   /**
+    * Minimal SMTP server accepting any authentication and all the messages, except for the requested number of rejections.
+    */
+   private static class SmtpStub {
+
+      private final AtomicInteger connections = new AtomicInteger();
+      private final AtomicInteger messages = new AtomicInteger();
+      private final AtomicInteger rejections = new AtomicInteger();
+
+      private final ExecutorService threads = Executors.newCachedThreadPool();
+      private final Queue<Socket> sockets = new ConcurrentLinkedQueue<>();
+
+      private ServerSocket serverSocket;
+
+      private void start() throws IOException {
+         serverSocket = new ServerSocket(0);
+         threads.submit(() -> {
+            try {
+               while (!serverSocket.isClosed()) {
+                  final Socket socket = serverSocket.accept();
+                  connections.incrementAndGet();
+                  sockets.add(socket);
+                  threads.submit(() -> handle(socket));
+               }
+            } catch (IOException e) {
+               // server socket has been closed
+            }
+         });
+      }
+
+      private int getPort() {
+         return serverSocket.getLocalPort();
+      }
+
+      private void stop() throws Exception {
+         serverSocket.close();
+         for (final Socket socket : sockets) {
+            socket.close();
+         }
+         threads.shutdown();
+         assertThat(threads.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+      }
+
+      private void handle(final Socket socket) {
+         try (socket;
+              final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+              final Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            reply(writer, "220 localhost ESMTP stub");
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+               final String command = line.toUpperCase();
+               if (command.startsWith("EHLO")) {
+                  reply(writer, "250-localhost\r\n250-AUTH PLAIN\r\n250 OK");
+               } else if (command.startsWith("AUTH")) {
+                  if (command.trim().equals("AUTH PLAIN")) {
+                     reply(writer, "334 ");
+                     reader.readLine();
+                  }
+                  reply(writer, "235 Authenticated");
+               } else if (command.startsWith("DATA")) {
+                  reply(writer, "354 End data with <CR><LF>.<CR><LF>");
+                  while ((line = reader.readLine()) != null && !line.equals(".")) {
+                     // message content is not checked
+                  }
+                  if (rejections.getAndUpdate(value -> Math.max(0, value - 1)) > 0) {
+                     reply(writer, "451 Try again later");
+                  } else {
+                     messages.incrementAndGet();
+                     reply(writer, "250 OK");
+                  }
+               } else if (command.startsWith("QUIT")) {
+                  reply(writer, "221 Bye");
+                  return;
+               } else {
+                  reply(writer, "250 OK");
+               }
+            }
+         } catch (SocketException e) {
+            // client closed the connection
+         } catch (IOException e) {
+            throw new RuntimeException(e);
+         }
+      }
+
+      private void reply(final Writer writer, final String response) throws IOException {
+         writer.write(response + "\r\n");
+         writer.flush();
+      }
+   }
+}
@@ -0,0 +1,101 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.marvec.pusher.data.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class PushNotificationDispatcherTest {
+
+   private static final Function<Event, String> COALESCING_KEY = event -> event.getName().endsWith(":update") ? event.getChannel() + "/" + event.getName() + "/" + event.getData() : null;
+
+   private final List<List<Event>> sentBatches = Collections.synchronizedList(new ArrayList<>());
+
+   @Test
+   public void coalescesUpdatesAndSendsInBatches() {
+      final PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(sentBatches::add, COALESCING_KEY, 1000, 10_000, Executors.defaultThreadFactory());
+
+      final List<Event> events = IntStream.range(0, 15).mapToObj(i -> new Event("user1", "Document:create", "d" + i)).collect(Collectors.toList());
+      events.add(new Event("user1", "Document:update", "d1"));
+      events.add(new Event("user2", "Document:update", "d1"));
+      dispatcher.submit(events);
+      dispatcher.submit(List.of(new Event("user1", "Document:update", "d1")));
+      dispatcher.shutdown(5000);
+
+      assertThat(sentBatches).extracting(List::size).containsExactly(10, 7);
+      assertThat(dispatcher.getSubmittedCount()).isEqualTo(18);
+      assertThat(dispatcher.getCoalescedCount()).isEqualTo(1);
+      assertThat(dispatcher.getSentCount()).isEqualTo(17);
+      assertThat(dispatcher.getQueueSize()).isEqualTo(0);
+
+      final List<Event> lastBatch = sentBatches.get(1);
+      assertThat(lastBatch.get(lastBatch.size() - 1).getChannel()).isEqualTo("user1");
+      assertThat(lastBatch.get(lastBatch.size() - 2).getChannel()).isEqualTo("user2");
+   }
+
+   @Test
+   public void sendsFromCallerWhenQueueIsFull() throws InterruptedException {
+      final CountDownLatch blocked = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      final PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(batch -> {
+         if ("blocking".equals(batch.get(0).getName())) {
+            blocked.countDown();
+            try {
+               release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }
+         sentBatches.add(batch);
+      }, COALESCING_KEY, 2, 0, Executors.defaultThreadFactory());
+
+      dispatcher.submit(List.of(new Event("user1", "blocking", "x")));
+      assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+      // the caller waits for the batch being sent, so its events can not overtake the pending ones
+      final Thread caller = new Thread(() -> dispatcher.submit(List.of(new Event("user1", "a", "1"), new Event("user1", "b", "2"), new Event("user1", "c", "3"))));
+      caller.start();
+      final long deadline = System.currentTimeMillis() + 5000;
+      while (dispatcher.getOverflowCount() == 0 && System.currentTimeMillis() < deadline) {
+         Thread.sleep(10);
+      }
+      assertThat(dispatcher.getOverflowCount()).isEqualTo(1);
+      assertThat(sentBatches).isEmpty();
+
+      release.countDown();
+      caller.join(5000);
+      dispatcher.shutdown(5000);
+
+      assertThat(sentBatches.stream().flatMap(List::stream)).extracting(Event::getName).containsExactly("blocking", "a", "b", "c");
+      assertThat(dispatcher.getSentCount()).isEqualTo(4);
+      assertThat(dispatcher.getFailedCount()).isEqualTo(0);
+   }
+}
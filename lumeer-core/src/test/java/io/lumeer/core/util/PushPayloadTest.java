@@ -0,0 +1,68 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PushPayloadTest {
+
+   private final ObjectMapper mapper = new ObjectMapper();
+
+   @Test
+   public void serializesSharedDataOnce() throws Exception {
+      final AtomicInteger serializations = new AtomicInteger();
+      final Counting data = new Counting(serializations);
+      final PushPayload payload = new PushPayload(Map.of("object", data));
+
+      final PushPayload favorite = payload.withOverrides(Map.of("object.favorite", true));
+      final PushPayload notFavorite = payload.withOverrides(Map.of("object.favorite", false));
+
+      assertThat(mapper.readTree(favorite.toJson(mapper)).at("/object/favorite").asBoolean()).isTrue();
+      assertThat(mapper.readTree(notFavorite.toJson(mapper)).at("/object/favorite").asBoolean()).isFalse();
+      assertThat(mapper.readTree(payload.toJson(mapper)).at("/object/name").asText()).isEqualTo("doc");
+      assertThat(payload.withOverrides(Map.of("object.favorite", true)).toJson(mapper)).isSameAs(favorite.toJson(mapper));
+      assertThat(mapper.writeValueAsString(favorite)).isEqualTo(favorite.toJson(mapper));
+
+      // once for the overrides tree and once for the plain payload
+      assertThat(serializations.get()).isEqualTo(2);
+   }
+
+   public static class Counting {
+      private final AtomicInteger serializations;
+
+      public Counting(final AtomicInteger serializations) {
+         this.serializations = serializations;
+      }
+
+      public String getName() {
+         serializations.incrementAndGet();
+         return "doc";
+      }
+
+      public boolean isFavorite() {
+         return false;
+      }
+   }
+}
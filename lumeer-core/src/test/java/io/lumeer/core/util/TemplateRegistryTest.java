@@ -0,0 +1,94 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.Language;
+
+import com.floreysoft.jmte.Engine;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TemplateRegistryTest {
+
+   private static final String TEMPLATE = "/email-templates/task_assigned.en.html";
+
+   @Test
+   public void testRenderMatchesEngine() throws Exception {
+      final Engine engine = Engine.createEngine();
+      final TemplateRegistry registry = new TemplateRegistry(engine);
+      final String source = IOUtils.resourceToString(TEMPLATE, StandardCharsets.UTF_8);
+
+      final Map<String, Object> values = Map.of("title", "Task assigned", "recipient", "someone@lumeer.io", "userName", "John Doe",
+            "taskName", "Report", "taskDueDate", "2021-03-04", "assigneeViaTeamOnly", Boolean.TRUE);
+      final TemplateRegistry.RenderPlan plan = registry.getTemplate(TEMPLATE, Language.EN, () -> source);
+
+      assertThat(plan.render(values)).isEqualTo(engine.transform(source, values));
+      assertThat(plan.render(Map.of())).isEqualTo(engine.transform(source, Map.of()));
+   }
+
+   @Test
+   public void testTemplateLoadedOnce() {
+      final TemplateRegistry registry = new TemplateRegistry(Engine.createEngine());
+      final AtomicInteger loads = new AtomicInteger();
+
+      for (int i = 0; i < 10; i++) {
+         registry.getTemplate("greeting", Language.EN, () -> {
+            loads.incrementAndGet();
+            return "Hello ${name}";
+         });
+      }
+      assertThat(loads.get()).isEqualTo(1);
+
+      assertThat(registry.getTemplate("missing", Language.EN, () -> null)).isNull();
+      assertThat(registry.getTemplate("Hi ${name}")).isSameAs(registry.getTemplate("Hi ${name}"));
+   }
+
+   @Test
+   public void testConcurrentRender() throws Exception {
+      final TemplateRegistry registry = new TemplateRegistry(Engine.createEngine());
+      final TemplateRegistry.RenderPlan plan = registry.getTemplate("${if vip}Dear ${name}${else}Hi ${name}${end}");
+      final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+      try {
+         final List<Future<Boolean>> results = new ArrayList<>();
+         for (int i = 0; i < 1000; i++) {
+            final String name = "user" + i;
+            final boolean vip = i % 2 == 0;
+            results.add(executor.submit(() -> plan.render(Map.of("name", name, "vip", vip)).equals((vip ? "Dear " : "Hi ") + name)));
+         }
+
+         for (final Future<Boolean> result : results) {
+            assertThat(result.get()).isTrue();
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+}
@@ -0,0 +1,132 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.js
+
+import org.assertj.core.api.Assertions
+import org.graalvm.polyglot.PolyglotException
+import org.junit.jupiter.api.Test
+import java.util.concurrent.atomic.AtomicReference
+import java.util.function.Consumer
+
+class JsAutomationRuntimeTest {
+
+    private val libraries = "var counter = 0; function lib_inc() { return ++counter; } var lib = { fn: { format: function() { return 'ok'; } } };"
+
+    private fun createRuntime() = JsAutomationRuntime("test", 1, 100, 5_000L, libraries, "counter = 0;")
+
+    private fun capture(runtime: JsAutomationRuntime, js: String): String? {
+        val result = AtomicReference<String?>()
+        runtime.execute(mapOf(), mapOf("result" to Consumer<Any?> { result.set(it?.toString()) }), "var result = Polyglot.import('result');\n$js", 0)
+        return result.get()
+    }
+
+    @Test
+    fun globalsDoNotLeakBetweenRuns() {
+        val runtime = createRuntime()
+
+        capture(runtime, "var declared = 1; const constant = 2; implicit = 3; globalThis.explicit = 4; function fn() {}; lib_inc();")
+        val leaked = capture(runtime, "result.accept([typeof declared, typeof constant, typeof implicit, typeof explicit, typeof fn].join(','));")
+        // redeclaring a constant would fail if it leaked to the global scope
+        capture(runtime, "const constant = 5;")
+
+        Assertions.assertThat(leaked).isEqualTo("undefined,undefined,undefined,undefined,undefined")
+        Assertions.assertThat(runtime.getStats().pool.created).isEqualTo(1)
+        runtime.clear()
+    }
+
+    @Test
+    fun restoresLibraryState() {
+        val runtime = createRuntime()
+
+        capture(runtime, "lib_inc(); lib_inc = function() { return -1; };")
+        Assertions.assertThat(capture(runtime, "result.accept(lib_inc());")).isEqualTo("1")
+        runtime.clear()
+    }
+
+    @Test
+    fun bindingsAreReplacedBetweenRuns() {
+        val runtime = createRuntime()
+        val result = AtomicReference<String?>()
+        val consumer = Consumer<Any?> { result.set(it?.toString()) }
+
+        runtime.execute(mapOf("value" to "first"), mapOf("result" to consumer), "Polyglot.import('result').accept(value);", 0)
+        Assertions.assertThat(result.get()).isEqualTo("first")
+
+        runtime.execute(mapOf(), mapOf("result" to consumer), "Polyglot.import('result').accept(typeof value);", 0)
+        Assertions.assertThat(result.get()).isEqualTo("undefined")
+        runtime.clear()
+    }
+
+    @Test
+    fun cancelsScriptsRunningOverTime() {
+        val runtime = createRuntime()
+
+        Assertions.assertThatThrownBy { runtime.execute(mapOf(), mapOf(), "while (true) {}", 200) }.isInstanceOf(PolyglotException::class.java)
+        Assertions.assertThat(capture(runtime, "result.accept(lib_inc());")).isEqualTo("1")
+
+        val stats = runtime.getStats()
+        Assertions.assertThat(stats.timeouts).isEqualTo(1)
+        Assertions.assertThat(stats.pool.created).isEqualTo(2)
+        Assertions.assertThat(stats.pool.evicted).isEqualTo(1)
+        runtime.clear()
+    }
+
+    @Test
+    fun builtInsAndLibrariesCannotBeChanged() {
+        val runtime = createRuntime()
+        val mutations = listOf(
+                "JSON.stringify = function() { return 'hacked'; };",
+                "Object.prototype.x = 'hacked';",
+                "Array.prototype.push = function() { return 'hacked'; };",
+                "Object.defineProperty(Array.prototype, 'y', { value: 'hacked' });",
+                "Math.max = function() { return 'hacked'; };",
+                "String.prototype.trim = function() { return 'hacked'; };",
+                "Object.prototype.toString = function() { return 'hacked'; };",
+                "lib.fn.format = function() { return 'hacked'; };",
+                "lib.fn.extra = 'hacked';",
+                "Object.setPrototypeOf(lib.fn, { hacked: true });"
+        )
+
+        mutations.forEach { capture(runtime, "try { $it } catch (e) {}") }
+        val observed = capture(runtime, """
+            result.accept([JSON.stringify({ a: 1 }), ({}).x, [].push(1), [].y, Math.max(1, 2), ' a '.trim(),
+                Object.prototype.toString.call([]), lib.fn.format(), lib.fn.extra, lib.fn.hacked].join(','));
+        """.trimIndent())
+
+        Assertions.assertThat(observed).isEqualTo("{\"a\":1},,1,,2,a,[object Array],ok,,")
+        Assertions.assertThat(runtime.getStats().pool.created).isEqualTo(1)
+        runtime.clear()
+    }
+
+    @Test
+    fun inheritedPropertiesCanBeOverridden() {
+        val runtime = createRuntime()
+
+        val observed = capture(runtime, """
+            class CustomError extends Error { constructor(message) { super(message); this.name = 'CustomError'; } }
+            const value = {};
+            value.toString = () => 'custom';
+            value.constructor = 'constructor';
+            result.accept([String(new CustomError('failed')), String(value), value.constructor, new Error('plain').name].join(','));
+        """.trimIndent())
+
+        Assertions.assertThat(observed).isEqualTo("CustomError: failed,custom,constructor,Error")
+        runtime.clear()
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.js
+
+import org.assertj.core.api.Assertions
+import org.junit.jupiter.api.Test
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class JsContextPoolTest {
+
+    private fun createPool(maxSize: Int, maxUses: Int) = JsContextPool("test", maxSize, maxUses, 5_000L) { context ->
+        context.eval("js", "var calls = 0; function inc(x) { calls++; return x + 1; }")
+        context.getBindings("js").getMember("inc")
+    }
+
+    @Test
+    fun reusesInitializedContexts() {
+        val pool = createPool(2, 100)
+
+        for (i in 1..10) {
+            Assertions.assertThat(pool.execute { it.execute(i).asInt() }).isEqualTo(i + 1)
+        }
+
+        val stats = pool.getStats()
+        Assertions.assertThat(stats.created).isEqualTo(1)
+        Assertions.assertThat(stats.borrowed).isEqualTo(10)
+        Assertions.assertThat(stats.idle).isEqualTo(1)
+        Assertions.assertThat(stats.active).isEqualTo(0)
+        pool.clear()
+    }
+
+    @Test
+    fun evictsContextsAfterMaxUses() {
+        val pool = createPool(1, 3)
+
+        for (i in 1..7) {
+            pool.execute { it.execute(i) }
+        }
+
+        val stats = pool.getStats()
+        Assertions.assertThat(stats.created).isEqualTo(3)
+        Assertions.assertThat(stats.evicted).isEqualTo(2)
+        pool.clear()
+    }
+
+    @Test
+    fun evictsBrokenContexts() {
+        val pool = createPool(1, 100)
+
+        val borrowed = pool.borrow()
+        borrowed.invalidate()
+        pool.release(borrowed)
+
+        Assertions.assertThat(pool.getStats().evicted).isEqualTo(1)
+        Assertions.assertThat(pool.getStats().idle).isEqualTo(0)
+    }
+
+    @Test
+    fun neverExceedsMaxSize() {
+        val pool = createPool(2, 1000)
+        val executor = Executors.newFixedThreadPool(8)
+
+        for (i in 1..64) {
+            executor.submit { pool.execute { it.execute(i) } }
+        }
+
+        executor.shutdown()
+        executor.awaitTermination(30, TimeUnit.SECONDS)
+
+        val stats = pool.getStats()
+        Assertions.assertThat(stats.created).isLessThanOrEqualTo(2)
+        Assertions.assertThat(stats.borrowed).isEqualTo(64)
+        pool.clear()
+    }
+}
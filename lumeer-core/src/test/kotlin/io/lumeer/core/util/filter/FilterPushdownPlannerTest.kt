@@ -0,0 +1,102 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util.filter
+
+import io.lumeer.api.model.Attribute
+import io.lumeer.api.model.Collection
+import io.lumeer.api.model.CollectionAttributeFilter
+import io.lumeer.api.model.ConditionType
+import io.lumeer.api.model.Constraint
+import io.lumeer.api.model.ConstraintData
+import io.lumeer.api.model.ConstraintType
+import io.lumeer.api.model.CurrencyData
+import io.lumeer.api.model.Group
+import io.lumeer.api.model.Permissions
+import io.lumeer.api.model.QueryStem
+import io.lumeer.api.model.User
+import io.lumeer.core.constraint.ConstraintManager
+import org.assertj.core.api.Assertions
+import org.junit.jupiter.api.Test
+import java.time.Instant
+import java.util.Date
+import java.util.Locale
+
+class FilterPushdownPlannerTest {
+
+    private val users = listOf(User("u1", "Alan", "alan@lumeer.io", setOf()), User("u2", "Ada", "ada@lumeer.io", setOf()))
+    private val team = Group("t1", "Team", "", null, null, listOf("u2"))
+    private val constraintData = ConstraintData(users, users[0], mapOf(), CurrencyData(listOf(), listOf()), "Europe/Bratislava", listOf(team), listOf())
+
+    private val collection = Collection("c1", "c1", "", "", "", null, Permissions(), setOf(
+            attribute("text", null),
+            attribute("number", Constraint(ConstraintType.Number, mapOf<String, Any>())),
+            attribute("rounded", Constraint(ConstraintType.Number, mapOf("decimals" to 0))),
+            attribute("date", Constraint(ConstraintType.DateTime, mapOf("format" to "DD.MM.YYYY"))),
+            attribute("month", Constraint(ConstraintType.DateTime, mapOf("format" to "MM/YYYY"))),
+            attribute("user", Constraint(ConstraintType.User, mapOf<String, Any>())),
+            attribute("boolean", Constraint(ConstraintType.Boolean, mapOf<String, Any>()))
+    ), mapOf(), "", null).apply { id = "c1" }
+
+    private val planner = FilterPushdownPlanner(ConstraintManager().apply { setLocale(Locale.US) }, constraintData)
+
+    private fun attribute(id: String, constraint: Constraint?) = Attribute(id, id, "", constraint, null, null, null, 0, null)
+
+    private fun plan(filter: CollectionAttributeFilter) =
+            planner.plan(QueryStem(null, collection.id, listOf(), setOf(), listOf(filter), listOf()), collection)
+
+    @Test
+    fun pushesSupportedConditions() {
+        val number = plan(CollectionAttributeFilter.createFromValues(collection.id, "number", ConditionType.GREATER_THAN, "5"))
+        Assertions.assertThat(number).hasSize(1)
+        Assertions.assertThat(number.first().conditionType).isEqualTo(ConditionType.GREATER_THAN)
+        Assertions.assertThat(number.first().value).isEqualTo(5L)
+
+        val text = plan(CollectionAttributeFilter.createFromValues(collection.id, "text", ConditionType.EQUALS, " Lumeer "))
+        Assertions.assertThat(text.first().conditionType).isEqualTo(ConditionType.CONTAINS)
+        Assertions.assertThat(text.first().value).isEqualTo("Lumeer")
+
+        val date = plan(CollectionAttributeFilter.createFromValues(collection.id, "date", ConditionType.EQUALS, "2021-03-10T00:00:00.000+0000"))
+        Assertions.assertThat(date.first().conditionType).isEqualTo(ConditionType.BETWEEN)
+        val (from, to) = date.first().value as List<*>
+        Assertions.assertThat(from as Date).isBefore(Date.from(Instant.parse("2021-03-09T00:00:00Z")))
+        Assertions.assertThat(to as Date).isAfter(Date.from(Instant.parse("2021-03-11T00:00:00Z")))
+    }
+
+    @Test
+    fun pushesUsersWithTheirTeams() {
+        val user = plan(CollectionAttributeFilter.createFromValues(collection.id, "user", ConditionType.HAS_SOME, listOf("ada@lumeer.io")))
+        Assertions.assertThat(user.first().value as List<*>).containsOnly("ada@lumeer.io", "@t1")
+
+        val currentUser = plan(CollectionAttributeFilter.createFromTypes(collection.id, "user", ConditionType.HAS_SOME, "currentUser"))
+        Assertions.assertThat(currentUser.first().value as List<*>).containsOnly("alan@lumeer.io")
+
+        val teams = plan(CollectionAttributeFilter.createFromValues(collection.id, "user", ConditionType.HAS_SOME, listOf("@t1")))
+        Assertions.assertThat(teams.first().value as List<*>).containsOnly("@t1", "u2", "ada@lumeer.io")
+    }
+
+    @Test
+    fun skipsConditionsWhichCanNotBePushed() {
+        Assertions.assertThat(plan(CollectionAttributeFilter.createFromValues(collection.id, "rounded", ConditionType.EQUALS, "5"))).isEmpty()
+        Assertions.assertThat(plan(CollectionAttributeFilter.createFromValues(collection.id, "number", ConditionType.NOT_EQUALS, "5"))).isEmpty()
+        Assertions.assertThat(plan(CollectionAttributeFilter.createFromValues(collection.id, "text", ConditionType.CONTAINS, "two words"))).isEmpty()
+        Assertions.assertThat(plan(CollectionAttributeFilter.createFromValues(collection.id, "month", ConditionType.EQUALS, "2021-03-10T00:00:00.000+0000"))).isEmpty()
+        Assertions.assertThat(plan(CollectionAttributeFilter.createFromValues(collection.id, "boolean", ConditionType.EQUALS, true))).isEmpty()
+        Assertions.assertThat(plan(CollectionAttributeFilter.createFromValues(collection.id, "missing", ConditionType.EQUALS, "x"))).isEmpty()
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.core.util.filter
+
+import io.lumeer.api.model.AllowedPermissions
+import io.lumeer.api.model.Attribute
+import io.lumeer.api.model.Collection
+import io.lumeer.api.model.CollectionAttributeFilter
+import io.lumeer.api.model.ConditionType
+import io.lumeer.api.model.Constraint
+import io.lumeer.api.model.ConstraintData
+import io.lumeer.api.model.ConstraintType
+import io.lumeer.api.model.CurrencyData
+import io.lumeer.api.model.Document
+import io.lumeer.api.model.LinkAttributeFilter
+import io.lumeer.api.model.LinkInstance
+import io.lumeer.api.model.LinkPermissionsType
+import io.lumeer.api.model.LinkType
+import io.lumeer.api.model.Permissions
+import io.lumeer.api.model.Query
+import io.lumeer.api.model.QueryStem
+import io.lumeer.api.model.User
+import io.lumeer.core.util.js.DataFilter
+import io.lumeer.engine.api.data.DataDocument
+import org.assertj.core.api.Assertions
+import org.junit.jupiter.api.Test
+import kotlin.random.Random
+
+/**
+ * Compares results of the native evaluator with the lumeer-data-filters JS library on generated data.
+ */
+class QueryEvaluatorTest {
+
+    private val users = listOf(User("u1", "Alan", "alan@lumeer.io", setOf()), User("u2", "Ada", "ada@lumeer.io", setOf()), User("u3", "Grace", "grace@lumeer.io", setOf()))
+    private val options = listOf("a", "b", "c", "d")
+    private val texts = listOf("Lumeer", "lumeer rocks", "<p>Data</p>", "", "Čaj", "table", null)
+
+    private val collection1 = Collection("c1", "c1", "", "", "", null, Permissions(), setOf(
+            attribute("text", ConstraintType.Text),
+            attribute("number", ConstraintType.Number),
+            attribute("boolean", ConstraintType.Boolean),
+            attribute("select", ConstraintType.Select, mapOf("multi" to true, "options" to options.map { mapOf("value" to it, "displayValue" to it.uppercase()) })),
+            attribute("user", ConstraintType.User, mapOf("multi" to true)),
+            attribute("date", ConstraintType.DateTime, mapOf("format" to "DD.MM.YYYY")),
+            attribute("none", null)
+    ), mapOf(), "", null).apply { id = "c1" }
+    private val collection2 = Collection("c2", "c2", "", "", "", null, Permissions(), setOf(
+            attribute("text", ConstraintType.Text),
+            attribute("number", ConstraintType.Number)
+    ), mapOf(), "", null).apply { id = "c2" }
+    private val linkType = LinkType("lt1", listOf(collection1.id, collection2.id), listOf(attribute("weight", ConstraintType.Number)), mapOf(), Permissions(), LinkPermissionsType.Custom).apply { id = "lt1" }
+
+    private val constraintData = ConstraintData(users, users[0], mapOf(), CurrencyData(listOf(), listOf()), "Europe/Bratislava", listOf(), listOf())
+    private val permissions = AllowedPermissions.allAllowed()
+
+    private fun attribute(id: String, type: ConstraintType?, config: Map<String, Any> = mapOf()) =
+            Attribute(id, id, "", type?.let { Constraint(it, config) }, null, null, null, 0, null)
+
+    @Test
+    fun collectionFiltersMatchJsFilters() {
+        val random = Random(42)
+        val documents1 = (1..60).map { createDocument(random, collection1, "d1-$it") }
+
+        val filters = listOf(
+                filter("text", ConditionType.EQUALS, "lumeer"),
+                filter("text", ConditionType.NOT_EQUALS, "lumeer"),
+                filter("text", ConditionType.CONTAINS, "lum"),
+                filter("text", ConditionType.NOT_CONTAINS, "lum"),
+                filter("text", ConditionType.STARTS_WITH, "da"),
+                filter("text", ConditionType.ENDS_WITH, "ks"),
+                filter("text", ConditionType.IS_EMPTY),
+                filter("text", ConditionType.NOT_EMPTY),
+                filter("number", ConditionType.EQUALS, 5),
+                filter("number", ConditionType.NOT_EQUALS, 5),
+                filter("number", ConditionType.GREATER_THAN, 3),
+                filter("number", ConditionType.LOWER_THAN_EQUALS, "4,5"),
+                filter("number", ConditionType.BETWEEN, 2, 7),
+                filter("number", ConditionType.NOT_BETWEEN, 2, 7),
+                filter("number", ConditionType.IS_EMPTY),
+                filter("boolean", ConditionType.EQUALS, true),
+                filter("boolean", ConditionType.NOT_EQUALS, true),
+                filter("select", ConditionType.HAS_SOME, listOf("a", "b")),
+                filter("select", ConditionType.HAS_NONE_OF, listOf("a")),
+                filter("select", ConditionType.HAS_ALL, listOf("a", "c")),
+                filter("select", ConditionType.IN, listOf("a", "b", "c")),
+                filter("select", ConditionType.IS_EMPTY),
+                filter("user", ConditionType.HAS_SOME, listOf("ada@lumeer.io")),
+                filter("user", ConditionType.HAS_NONE_OF, listOf("ada@lumeer.io", "grace@lumeer.io")),
+                filter("user", ConditionType.NOT_EMPTY),
+                CollectionAttributeFilter.createFromTypes(collection1.id, "user", ConditionType.HAS_SOME, "currentUser"),
+                filter("date", ConditionType.EQUALS, "2021-03-10T00:00:00.000+0000"),
+                filter("date", ConditionType.GREATER_THAN, "2021-03-10T00:00:00.000+0000"),
+                filter("date", ConditionType.BETWEEN, "2021-03-05T00:00:00.000+0000", "2021-03-15T00:00:00.000+0000"),
+                filter("date", ConditionType.IS_EMPTY),
+                filter("none", ConditionType.CONTAINS, "Lu")
+        )
+
+        filters.forEach { filter ->
+            val query = Query(listOf(QueryStem(null, collection1.id, listOf(), setOf(), listOf(filter), listOf())), setOf(), null, null)
+            assertSameResult(query, documents1, listOf(), "${filter.attributeId} ${filter.condition}")
+        }
+    }
+
+    @Test
+    fun linkedFiltersAndFulltextsMatchJsFilters() {
+        val random = Random(7)
+        val documents1 = (1..30).map { createDocument(random, collection1, "d1-$it") }
+        val documents2 = (1..30).map { createDocument(random, collection2, "d2-$it") }
+        val links = (1..40).map {
+            LinkInstance(linkType.id, listOf(documents1.random(random).id, documents2.random(random).id)).apply {
+                id = "l-$it"
+                data = DataDocument("weight", random.nextInt(10))
+            }
+        }.distinctBy { it.documentIds }
+
+        val queries = listOf(
+                Query(listOf(QueryStem(null, collection1.id, listOf(linkType.id), setOf(), listOf(
+                        CollectionAttributeFilter.createFromValues(collection2.id, "number", ConditionType.GREATER_THAN, 5)
+                ), listOf())), setOf(), null, null),
+                Query(listOf(QueryStem(null, collection1.id, listOf(linkType.id), setOf(), listOf(
+                        CollectionAttributeFilter.createFromValues(collection1.id, "text", ConditionType.CONTAINS, "lumeer"),
+                        CollectionAttributeFilter.createFromValues(collection2.id, "text", ConditionType.NOT_EMPTY)
+                ), listOf(LinkAttributeFilter.createFromValues(linkType.id, "weight", ConditionType.LOWER_THAN, 5)))), setOf(), null, null),
+                Query(listOf(QueryStem(null, collection1.id, listOf(linkType.id), setOf(documents1[0].id, documents2[1].id), listOf(), listOf())), setOf(), null, null),
+                Query(listOf(QueryStem(null, collection2.id, listOf(), setOf(), listOf(), listOf())), setOf("lumeer"), null, null),
+                Query(listOf(QueryStem(null, collection2.id, listOf(), setOf(), listOf(), listOf())), setOf("caj", "data"), null, null),
+                Query(listOf(QueryStem(null, collection2.id, listOf(linkType.id), setOf(), listOf(
+                        CollectionAttributeFilter.createFromValues(collection1.id, "select", ConditionType.HAS_SOME, listOf("b"))
+                ), listOf())), setOf(), null, null)
+        )
+
+        queries.forEach { query ->
+            assertSameResult(query, documents1 + documents2, links, query.toString())
+            assertSameResult(query, documents1 + documents2, links, "$query with non linked documents", includeNonLinkedDocuments = true)
+        }
+    }
+
+    @Test
+    fun unsupportedConditionsAreReported() {
+        val coordinates = Collection("c3", "c3", "", "", "", null, Permissions(), setOf(attribute("coordinates", ConstraintType.Coordinates)), mapOf(), "", null).apply { id = "c3" }
+        val evaluator = QueryEvaluator(listOf(collection1, coordinates), listOf(), constraintData)
+
+        val supportedQuery = Query(listOf(QueryStem(null, collection1.id, listOf(), setOf(), listOf(filter("number", ConditionType.EQUALS, 1)), listOf())), setOf(), null, null)
+        val unsupportedQuery = Query(listOf(QueryStem(null, coordinates.id, listOf(), setOf(), listOf(
+                CollectionAttributeFilter.createFromValues(coordinates.id, "coordinates", ConditionType.IS_EMPTY)
+        ), listOf())), setOf(), null, null)
+
+        Assertions.assertThat(evaluator.supports(supportedQuery)).isTrue
+        Assertions.assertThat(evaluator.supports(unsupportedQuery)).isFalse
+        Assertions.assertThat(evaluator.supports(Query(listOf(), setOf("abc"), null, null))).isFalse
+    }
+
+    private fun filter(attributeId: String, condition: ConditionType, vararg values: Any) =
+            CollectionAttributeFilter.createFromValues(collection1.id, attributeId, condition, *values)
+
+    private fun assertSameResult(query: Query, documents: List<Document>, linkInstances: List<LinkInstance>, description: String, includeNonLinkedDocuments: Boolean = false) {
+        val collections = listOf(collection1, collection2)
+        val linkTypes = listOf(linkType)
+        val evaluator = QueryEvaluator(collections, linkTypes, constraintData)
+        Assertions.assertThat(evaluator.supports(query)).`as`(description).isTrue
+
+        val nativeResult = evaluator.evaluate(documents, linkInstances, query, false, includeNonLinkedDocuments)
+        val jsResult = DataFilter.filterDocumentsAndLinksByQueryFromJson(documents, collections, linkTypes, linkInstances, query,
+                mapOf(collection1.id to permissions, collection2.id to permissions), mapOf(linkType.id to permissions), constraintData, false, includeNonLinkedDocuments)
+
+        Assertions.assertThat(nativeResult.first.map { it.id }).`as`(description).containsExactlyInAnyOrderElementsOf(jsResult.first.map { it.id })
+        Assertions.assertThat(nativeResult.second.map { it.id }).`as`(description).containsExactlyInAnyOrderElementsOf(jsResult.second.map { it.id })
+    }
+
+    private fun createDocument(random: Random, collection: Collection, id: String): Document {
+        val data = DataDocument()
+        collection.attributes.forEach { attribute ->
+            val value: Any? = when (attribute.constraint?.type) {
+                ConstraintType.Number -> if (random.nextInt(6) == 0) null else random.nextInt(10)
+                ConstraintType.Boolean -> random.nextBoolean()
+                ConstraintType.Select -> options.shuffled(random).take(random.nextInt(3))
+                ConstraintType.User -> users.shuffled(random).take(random.nextInt(3)).map { it.email }
+                ConstraintType.DateTime -> if (random.nextInt(6) == 0) null else "2021-03-%02dT%02d:00:00.000+0000".format(random.nextInt(1, 21), random.nextInt(0, 24))
+                else -> texts.random(random)
+            }
+            data[attribute.id] = value
+        }
+        return Document(data).apply {
+            this.id = id
+            this.collectionId = collection.id
+        }
+    }
+}
@@ -19,13 +19,17 @@
 package io.lumeer.remote.rest;
 
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.ImportJob;
+import io.lumeer.api.model.ImportType;
 import io.lumeer.api.model.ImportedCollection;
 import io.lumeer.core.facade.ImportFacade;
 
+import java.io.InputStream;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
@@ -57,4 +61,18 @@ public class ImportService extends AbstractService {
    public Collection importDocuments(@QueryParam("format") String format, ImportedCollection importedCollection) {
       return importFacade.importDocuments(format, importedCollection);
    }
+
+   @POST
+   @Path("jobs")
+   @Consumes({ "text/csv", MediaType.TEXT_PLAIN, MediaType.APPLICATION_OCTET_STREAM })
+   public ImportJob startImport(@QueryParam("collectionId") String collectionId, @QueryParam("format") String format,
+         @QueryParam("type") ImportType type, @QueryParam("mergeAttributeId") String mergeAttributeId, InputStream data) {
+      return importFacade.startImport(collectionId, format, type, mergeAttributeId, data);
+   }
+
+   @GET
+   @Path("jobs/{jobId}")
+   public ImportJob getImportJob(@PathParam("jobId") String jobId) {
+      return importFacade.getImportJob(jobId);
+   }
 }
@@ -35,6 +35,7 @@ import io.lumeer.core.facade.ProjectFacade;
 import io.lumeer.core.facade.TemplateFacade;
 import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.core.util.Utils;
+import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.remote.rest.annotation.HealthCheck;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -318,6 +319,14 @@ public class ProjectService extends AbstractService {
       return auditFacade.getAuditRecordsForProject();
    }
 
+   @GET
+   @Path("{projectId:[0-9a-fA-F]{24}}/indexes")
+   public List<DataDocument> getIndexesUsage(@PathParam("projectId") String projectId) {
+      workspaceKeeper.setWorkspaceIds(organizationId, projectId);
+
+      return projectFacade.getIndexesUsage();
+   }
+
    private TemplateData getTemplateDataFromProduction(final String organizationId, final String projectId) {
      try {
        return callProductionApi("templates/data/" + organizationId + "/" + projectId, new TypeReference<TemplateData>() {});
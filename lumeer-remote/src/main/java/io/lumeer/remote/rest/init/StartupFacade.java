@@ -19,12 +19,17 @@
 package io.lumeer.remote.rest.init;
 
 import io.lumeer.core.WorkspaceKeeper;
+import io.lumeer.core.facade.configuration.DefaultConfigurationProducer;
 import io.lumeer.storage.api.dao.CollectionDao;
+import io.lumeer.storage.api.dao.DocumentDao;
+import io.lumeer.storage.api.dao.LinkInstanceDao;
 import io.lumeer.storage.api.dao.LinkTypeDao;
 import io.lumeer.storage.api.dao.OrganizationDao;
 import io.lumeer.storage.api.dao.ProjectDao;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
@@ -48,15 +53,32 @@ public class StartupFacade implements Serializable {
    @Inject
    private LinkTypeDao linkTypeDao;
 
+   @Inject
+   private DocumentDao documentDao;
+
+   @Inject
+   private LinkInstanceDao linkInstanceDao;
+
+   @Inject
+   private DefaultConfigurationProducer configurationProducer;
+
    @Inject
    private WorkspaceKeeper workspaceKeeper;
 
+   /**
+    * Indexes of new projects are created together with their repositories, checking all existing projects touches every
+    * project database, so it runs only when enabled by ensure_indexes=true (e.g. once after an upgrade which adds indexes).
+    */
    @PostConstruct
    public void afterDeployment() {
-      /*log.info("Checking database for updates...");
+      if (!Boolean.TRUE.toString().equalsIgnoreCase(configurationProducer.get(DefaultConfigurationProducer.ENSURE_INDEXES))) {
+         return;
+      }
+
+      log.info("Checking database indexes...");
       long tm = System.currentTimeMillis();
 
-      final LongAdder orgs = new LongAdder(), projs = new LongAdder(), attributes = new LongAdder();
+      final LongAdder orgs = new LongAdder(), projs = new LongAdder();
 
       workspaceKeeper.push();
 
@@ -64,30 +86,27 @@ public class StartupFacade implements Serializable {
 
          organizationDao.getAllOrganizations().forEach(organization -> {
             orgs.increment();
-            log.info("Processing organization " + organization.getCode());
             workspaceKeeper.setOrganization(organization);
             projectDao.switchOrganization();
             projectDao.getAllProjects().forEach(project -> {
                projs.increment();
-               log.info("Processing project " + project.getCode());
-
-               workspaceKeeper.setProject(project);
-               linkTypeDao.setProject(project);
-               collectionDao.setProject(project);
 
+               try {
+                  documentDao.ensureIndexes(project);
+                  linkInstanceDao.ensureIndexes(project);
+               } catch (Exception e) {
+                  log.log(Level.WARNING, "Unable to update indexes of project " + project.getCode(), e);
+               }
             });
          });
 
       } catch (Exception e) {
-         log.log(Level.SEVERE, "Unable to update database", e);
+         log.log(Level.SEVERE, "Unable to update database indexes", e);
       }
 
       workspaceKeeper.pop();
 
-      log.info(String.format("Updated %d organizations, %d project, %d attributes.",
-            orgs.longValue(), projs.longValue(), attributes.longValue()));
-
-      log.info("Updates completed in " + (System.currentTimeMillis() - tm) + "ms.");*/
+      log.info(String.format("Checked indexes of %d organizations and %d projects in %dms.", orgs.longValue(), projs.longValue(), System.currentTimeMillis() - tm));
    }
 
 }
@@ -0,0 +1,32 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.api;
+
+/**
+ * Settings of sequences provided by the application, so that the storage does not need to read the configuration.
+ */
+public interface SequenceSettings {
+
+   /**
+    * Gets the number of sequence numbers reserved in the storage at once, 1 for continuous numbers without gaps.
+    *
+    * @return the block size
+    */
+   int getBlockSize();
+}
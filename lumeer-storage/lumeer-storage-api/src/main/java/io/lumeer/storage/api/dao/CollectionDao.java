@@ -24,7 +24,9 @@ import io.lumeer.api.model.Project;
 import io.lumeer.storage.api.query.DatabaseQuery;
 import io.lumeer.storage.api.query.SearchSuggestionQuery;
 
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface CollectionDao extends ProjectScopedDao {
@@ -37,6 +39,16 @@ public interface CollectionDao extends ProjectScopedDao {
 
    Collection updateCollectionRules(final Collection collection);
 
+   /**
+    * Atomically adds the deltas to the attributes usage counts and moves the last time used forward.
+    *
+    * @param id                    id of the collection.
+    * @param attributesUsageDeltas changes of usage counts by attribute ids.
+    * @param lastTimeUsed          time of the last usage, older values are ignored.
+    * @return the updated collection or null when the collection does not exist.
+    */
+   Collection updateCollectionMetadata(final String id, final Map<String, Integer> attributesUsageDeltas, final ZonedDateTime lastTimeUsed);
+
    void deleteCollection(String id);
 
    Collection getCollectionByCode(String code);
@@ -0,0 +1,64 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.api.dao;
+
+import io.lumeer.api.model.CronWorkItem;
+
+import java.util.List;
+
+public interface CronWorkItemDao {
+
+   int PROCESSING_TIMEOUT_MINUTES = 15;
+   int RETENTION_HOURS = 24;
+
+   /**
+    * Tries to take the lease on planning the given tick. Only the first node in the cluster succeeds.
+    *
+    * @param tick      identification of the tick.
+    * @param processor signature of the node.
+    * @return true when the caller is responsible for planning the tick.
+    */
+   boolean claimTick(final String tick, final String processor);
+
+   /**
+    * Stores planned work items, items already planned for the same tick and collection are ignored.
+    */
+   void scheduleItems(final List<CronWorkItem> items);
+
+   /**
+    * Atomically claims the next pending item, items of older ticks go first.
+    *
+    * @param processor signature of the worker.
+    * @return the claimed item or null when there is nothing to process.
+    */
+   CronWorkItem claimItem(final String processor);
+
+   void completeItem(final CronWorkItem item);
+
+   /**
+    * Releases items that are not completed in the given time, so that other workers can claim them again.
+    *
+    * @param timeoutMinutes time since the claim after which the item is considered abandoned.
+    */
+   void resetTimeoutedItems(final int timeoutMinutes);
+
+   void deleteProcessedItems();
+
+   long getPendingItemsCount();
+}
@@ -21,6 +21,7 @@ package io.lumeer.storage.api.dao;
 import io.lumeer.api.model.Collection;
 import io.lumeer.api.model.Pagination;
 import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.api.filter.CollectionSearchAttributeFilter;
 import io.lumeer.storage.api.query.SearchQueryStem;
 
 import java.util.List;
@@ -42,6 +43,15 @@ public interface DataDao {
 
    DataDocument patchData(String collectionId, String documentId, DataDocument data);
 
+   /**
+    * Patches data of many documents in a single bulk write.
+    *
+    * @param collectionId The collection id.
+    * @param data         Partial data by document ids.
+    * @return The patched data of the documents.
+    */
+   List<DataDocument> patchData(String collectionId, Map<String, DataDocument> data);
+
    void deleteData(String collectionId, String documentId);
 
    void deleteData(String collectionId, Set<String> documentIds);
@@ -56,6 +66,15 @@ public interface DataDao {
 
    Stream<DataDocument> getDataStream(String collectionId);
 
+   /**
+    * Streams data of all documents in the collection with only the given attributes loaded.
+    *
+    * @param collectionId The collection id.
+    * @param attributeIds The attributes to load.
+    * @return Partial data of all the documents.
+    */
+   Stream<DataDocument> getDataStream(String collectionId, Set<String> attributeIds);
+
    List<DataDocument> getData(String collectionId, Set<String> documentIds);
 
    List<DataDocument> getData(String collectionId, Set<String> documentIds, String parameter);
@@ -64,6 +83,17 @@ public interface DataDao {
 
    List<DataDocument> searchData(SearchQueryStem stem, Pagination pagination, Collection collection);
 
+   /**
+    * Returns data of the collection which may meet all the given filters. The result is a superset of the matching data,
+    * values which are not stored in the encoded form are returned as well, so the filters must be evaluated again by the caller.
+    *
+    * @param collectionId The collection id.
+    * @param filters      Filters with encoded values.
+    * @param pagination   The pagination of the result.
+    * @return The data passing the prefilters.
+    */
+   List<DataDocument> searchDataByPrefilters(String collectionId, Set<CollectionSearchAttributeFilter> filters, Pagination pagination);
+
    List<DataDocument> searchDataByIds(SearchQueryStem stem, Set<String> documentIds, Collection collection);
 
    List<DataDocument> searchDataByFulltexts(Set<String> fulltexts, Pagination pagination, List<Collection> projectCollections);
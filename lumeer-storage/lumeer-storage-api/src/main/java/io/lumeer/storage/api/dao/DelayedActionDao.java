@@ -36,6 +36,18 @@ public interface DelayedActionDao {
    void deleteProcessedActions();
    void resetTimeoutedActions();
    List<DelayedAction> getActionsForProcessing(final boolean skipDelay);
+
+   /**
+    * Claims all actions ready for processing in batches. Each batch is marked with a signature of this call by a single update
+    * and then read back, so actions claimed concurrently by another processor are never returned twice.
+    *
+    * @param skipDelay
+    *       whether to ignore the processing delay
+    * @param batchSize
+    *       maximal number of actions claimed by a single update
+    * @return claimed actions
+    */
+   List<DelayedAction> getActionsForProcessing(final boolean skipDelay, final int batchSize);
    DelayedAction updateAction(final DelayedAction action);
    DelayedAction scheduleAction(final DelayedAction delayedAction);
    List<DelayedAction> scheduleActions(final List<DelayedAction> delayedActions);
@@ -20,6 +20,7 @@ package io.lumeer.storage.api.dao;
 
 import io.lumeer.api.model.Document;
 import io.lumeer.api.model.Pagination;
+import io.lumeer.api.model.Project;
 import io.lumeer.engine.api.data.DataDocument;
 
 import java.util.Collection;
@@ -29,12 +30,22 @@ import java.util.Set;
 
 public interface DocumentDao extends ProjectScopedDao {
 
+   void ensureIndexes(final Project project);
+
    Document createDocument(Document document);
 
    List<Document> createDocuments(List<Document> documents);
 
    Document updateDocument(String id, Document document);
 
+   /**
+    * Updates many documents in a single bulk write, documents which no longer exist are skipped.
+    *
+    * @param documents The documents to update.
+    * @return The updated documents.
+    */
+   List<Document> updateDocuments(List<Document> documents);
+
    void deleteDocument(String id, DataDocument data);
 
    void deleteDocuments(String collectionId);
@@ -27,6 +27,15 @@ public interface FunctionDao extends ProjectScopedDao {
 
    void createRows(List<FunctionRow> rows);
 
+   List<FunctionRow> getAllRows();
+
+   /**
+    * Gets the version of the function rows of the project, it changes with every write of the rows.
+    *
+    * @return current version of the rows
+    */
+   long getRowsVersion();
+
    List<FunctionRow> searchByAnyCollection(String collectionId, String attributeId);
 
    List<FunctionRow> searchByDependentCollection(String collectionId, String attributeId);
@@ -42,6 +42,15 @@ public interface LinkDataDao {
 
    DataDocument patchData(String linkTypeId, String linkInstanceId, DataDocument data);
 
+   /**
+    * Patches data of many link instances in a single bulk write.
+    *
+    * @param linkTypeId The link type id.
+    * @param data       Partial data by link instance ids.
+    * @return The patched data of the link instances.
+    */
+   List<DataDocument> patchData(String linkTypeId, Map<String, DataDocument> data);
+
    void deleteData(String linkTypeId, String linkInstanceId);
 
    void deleteData(String linkTypeId, Set<String> linkInstanceIds);
@@ -21,6 +21,7 @@ package io.lumeer.storage.api.dao;
 
 import io.lumeer.api.model.LinkInstance;
 import io.lumeer.api.model.Pagination;
+import io.lumeer.api.model.Project;
 import io.lumeer.engine.api.data.DataDocument;
 import io.lumeer.storage.api.query.SearchQuery;
 
@@ -31,6 +32,8 @@ import java.util.Set;
 
 public interface LinkInstanceDao extends ProjectScopedDao {
 
+   void ensureIndexes(final Project project);
+
    LinkInstance createLinkInstance(LinkInstance linkInstance);
 
    List<LinkInstance> createLinkInstances(final List<LinkInstance> linkInstances);
@@ -39,6 +42,14 @@ public interface LinkInstanceDao extends ProjectScopedDao {
 
    LinkInstance updateLinkInstance(String id, LinkInstance linkInstance);
 
+   /**
+    * Updates many link instances in a single bulk write, link instances which no longer exist are skipped.
+    *
+    * @param linkInstances The link instances to update.
+    * @return The updated link instances.
+    */
+   List<LinkInstance> updateLinkInstances(List<LinkInstance> linkInstances);
+
    void deleteLinkInstance(String id, final DataDocument data);
 
    void deleteLinkInstances(List<String> ids);
@@ -46,6 +46,7 @@ import io.lumeer.storage.mongodb.codecs.providers.CollectionPurposeCodecProvider
 import io.lumeer.storage.mongodb.codecs.providers.CompanyContactCodedProvider;
 import io.lumeer.storage.mongodb.codecs.providers.ConditionValueCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.ConstraintCodecProvider;
+import io.lumeer.storage.mongodb.codecs.providers.CronWorkItemCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.DashboardDataCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.DefaultViewConfigCodecProvider;
 import io.lumeer.storage.mongodb.codecs.providers.DelayedActionCodecProvider;
@@ -110,6 +111,7 @@ import org.bson.types.ObjectId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -174,7 +176,7 @@ public class MongoDbStorage implements DataStorage {
                new DefaultViewConfigCodecProvider(), new ReferralPaymentCodecProvider(), new TemplateMetadataCodecProvider(), new ResourceCommentCodecProvider(),
                new DelayedActionCodecProvider(), new NotificationSettingCodecProvider(), new CollectionPurposeCodecProvider(), new AuditRecordCodecProvider(),
                new RoleCodecProvider(), new SelectionCodecProvider(), new DashboardDataCodecProvider(), new ResourceVariableCodecProvider(),
-               new AttributeFormattingCodecProvider(), new InformationRecordCodecProvider()
+               new AttributeFormattingCodecProvider(), new InformationRecordCodecProvider(), new CronWorkItemCodecProvider()
          );
          final CodecRegistry registry = CodecRegistries.fromRegistries(defaultRegistry, codecRegistry, providersRegistry);
          settingsBuilder.codecRegistry(registry);
@@ -567,6 +569,24 @@ public class MongoDbStorage implements DataStorage {
       return result;
    }
 
+   @Override
+   public List<DataDocument> listIndexesUsage(final String collectionName) {
+      final Map<String, Document> accesses = new HashMap<>();
+      database.getCollection(collectionName).aggregate(Collections.singletonList(new Document("$indexStats", new Document())))
+              .forEach(d -> accesses.put(d.getString("name"), d.get("accesses", Document.class)));
+
+      final List<DataDocument> result = listIndexes(collectionName);
+      result.forEach(index -> {
+         final Document indexAccesses = accesses.get(index.getString("name"));
+         if (indexAccesses != null) {
+            index.append(INDEX_ACCESSES, ((Number) indexAccesses.get("ops")).longValue());
+            index.append(INDEX_ACCESSES_SINCE, indexAccesses.getDate("since"));
+         }
+      });
+
+      return result;
+   }
+
    @Override
    public void dropIndex(final String collectionName, final String indexName) {
       database.getCollection(collectionName).dropIndex(indexName);
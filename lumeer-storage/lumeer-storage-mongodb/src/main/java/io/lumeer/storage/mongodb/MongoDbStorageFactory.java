@@ -24,13 +24,18 @@ import io.lumeer.engine.api.data.StorageConnection;
 import io.lumeer.storage.api.DataStorageFactory;
 import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
 import io.lumeer.storage.mongodb.dao.context.MongoDaoContextSnapshotFactory;
+import io.lumeer.storage.mongodb.dao.project.SequenceBlockAllocator;
 
 import java.util.List;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
 @ApplicationScoped
 public class MongoDbStorageFactory implements DataStorageFactory {
 
+   @Inject
+   private SequenceBlockAllocator sequenceBlockAllocator;
+
    @Override
    public DataStorage getStorage(final List<StorageConnection> connections, final String database, final Boolean useSsl) {
       final DataStorage storage = new MongoDbStorage();
@@ -40,6 +45,6 @@ public class MongoDbStorageFactory implements DataStorageFactory {
 
    @Override
    public DaoContextSnapshot getDaoContextSnapshot(final DataStorage systemDataStorage, final DataStorage userDataStorage, final SelectedWorkspace selectedWorkspace) {
-      return (new MongoDaoContextSnapshotFactory()).getInstance(systemDataStorage, userDataStorage, selectedWorkspace);
+      return MongoDaoContextSnapshotFactory.createInstance(systemDataStorage, userDataStorage, selectedWorkspace, sequenceBlockAllocator);
    }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.codecs;
+
+import io.lumeer.api.model.CronWorkItem;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+public class CronWorkItemCodec implements CollectibleCodec<CronWorkItem> {
+
+   public static final String ID = "_id";
+
+   private final Codec<Document> documentCodec;
+
+   public CronWorkItemCodec(final CodecRegistry registry) {
+      this.documentCodec = registry.get(Document.class);
+   }
+
+   @Override
+   public CronWorkItem generateIdIfAbsentFromDocument(final CronWorkItem document) {
+      if (!documentHasId(document)) {
+         document.setId(new ObjectId().toHexString());
+      }
+      return document;
+   }
+
+   @Override
+   public boolean documentHasId(final CronWorkItem document) {
+      return document.getId() != null;
+   }
+
+   @Override
+   public BsonValue getDocumentId(final CronWorkItem document) {
+      if (!documentHasId(document)) {
+         throw new IllegalStateException("The document does not contain an id");
+      }
+
+      return new BsonObjectId(new ObjectId(document.getId()));
+   }
+
+   @Override
+   public CronWorkItem decode(final BsonReader reader, final DecoderContext decoderContext) {
+      final Document bson = documentCodec.decode(reader, decoderContext);
+
+      final CronWorkItem item = new CronWorkItem();
+      item.setId(bson.getObjectId(ID).toHexString());
+      item.setTick(bson.getString(CronWorkItem.TICK));
+      item.setOrganizationId(bson.getString(CronWorkItem.ORGANIZATION_ID));
+      item.setProjectId(bson.getString(CronWorkItem.PROJECT_ID));
+      item.setCollectionId(bson.getString(CronWorkItem.COLLECTION_ID));
+      item.setPriority(bson.getInteger(CronWorkItem.PRIORITY, 0));
+      item.setProcessor(bson.getString(CronWorkItem.PROCESSOR));
+      item.setDueAt(decodeDate(bson.getDate(CronWorkItem.DUE_AT)));
+      item.setStartedProcessing(decodeDate(bson.getDate(CronWorkItem.STARTED_PROCESSING)));
+      item.setCompleted(decodeDate(bson.getDate(CronWorkItem.COMPLETED)));
+
+      return item;
+   }
+
+   private static ZonedDateTime decodeDate(final Date date) {
+      return date != null ? ZonedDateTime.ofInstant(date.toInstant(), ZoneOffset.UTC) : null;
+   }
+
+   @Override
+   public void encode(final BsonWriter writer, final CronWorkItem value, final EncoderContext encoderContext) {
+      Document bson = value.getId() != null ? new Document(ID, new ObjectId(value.getId())) : new Document();
+
+      bson.append(CronWorkItem.TICK, value.getTick())
+          .append(CronWorkItem.ORGANIZATION_ID, value.getOrganizationId())
+          .append(CronWorkItem.PROJECT_ID, value.getProjectId())
+          .append(CronWorkItem.COLLECTION_ID, value.getCollectionId())
+          .append(CronWorkItem.PRIORITY, value.getPriority());
+
+      if (value.getDueAt() != null) {
+         bson.append(CronWorkItem.DUE_AT, Date.from(value.getDueAt().toInstant()));
+      }
+      if (value.getStartedProcessing() != null) {
+         bson.append(CronWorkItem.STARTED_PROCESSING, Date.from(value.getStartedProcessing().toInstant()));
+      }
+      if (value.getProcessor() != null) {
+         bson.append(CronWorkItem.PROCESSOR, value.getProcessor());
+      }
+      if (value.getCompleted() != null) {
+         bson.append(CronWorkItem.COMPLETED, Date.from(value.getCompleted().toInstant()));
+      }
+
+      documentCodec.encode(writer, bson, encoderContext);
+   }
+
+   @Override
+   public Class<CronWorkItem> getEncoderClass() {
+      return CronWorkItem.class;
+   }
+}
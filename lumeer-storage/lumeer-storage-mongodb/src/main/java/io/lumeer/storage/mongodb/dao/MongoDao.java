@@ -22,14 +22,21 @@ import io.lumeer.api.model.Pagination;
 import io.lumeer.storage.api.query.DatabaseQuery;
 
 import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
 import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public abstract class MongoDao {
 
+   private static final String ID = "_id";
+
    protected MongoDatabase database;
 
    public void setDatabase(final MongoDatabase database) {
@@ -40,7 +47,25 @@ public abstract class MongoDao {
       addPaginationToQuery(findIterable, query.getPagination());
    }
 
+   /**
+    * Restricts the filter to entities following the cursor of keyset pagination, the query must be paginated by {@link #addPaginationToQuery(FindIterable, Pagination)}.
+    */
+   public Bson addPaginationToFilter(Bson filter, Pagination pagination) {
+      if (pagination != null && pagination.isKeyset() && pagination.getAfterId() != null) {
+         return Filters.and(filter, Filters.gt(ID, new ObjectId(pagination.getAfterId())));
+      }
+      return filter;
+   }
+
    public <T> void addPaginationToQuery(FindIterable<T> findIterable, Pagination pagination) {
+      if (pagination != null && pagination.isKeyset()) {
+         findIterable.sort(Sorts.ascending(ID));
+         if (pagination.getPageSize() != null) {
+            findIterable.limit(pagination.getPageSize());
+         }
+         return;
+      }
+
       Integer page = pagination != null ? pagination.getPage() : null;
       Integer pageSize = pagination != null ? pagination.getPageSize() : null;
 
@@ -50,6 +75,15 @@ public abstract class MongoDao {
       }
    }
 
+   /**
+    * Drops an index which was replaced by another one, the index is identified by its generated name (e.g. collectionId_1).
+    */
+   protected void dropIndexIfExists(final MongoCollection<?> collection, final String indexName) {
+      if (collection.listIndexes().into(new ArrayList<>()).stream().anyMatch(index -> indexName.equals(index.getString("name")))) {
+         collection.dropIndex(indexName);
+      }
+   }
+
    public void addPaginationToAggregates(List<Bson> aggregates, DatabaseQuery query) {
       if (query.getPage() != null && query.getPageSize() != null) {
          aggregates.add(Aggregates.skip(query.getPage() * query.getPageSize()));
@@ -30,15 +30,19 @@ import io.lumeer.storage.api.query.SearchQueryStem;
 import io.lumeer.storage.mongodb.MongoUtils;
 import io.lumeer.storage.mongodb.util.MongoFilters;
 
+import com.mongodb.MongoException;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndReplaceOptions;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.UpdateResult;
 import org.bson.BsonDocument;
@@ -129,6 +133,27 @@ public class MongoDataDao extends MongoCollectionScopedDao implements DataDao {
       return MongoUtils.convertDocument(patchedDocument);
    }
 
+   @Override
+   public List<DataDocument> patchData(final String collectionId, final Map<String, DataDocument> data) {
+      final List<UpdateOneModel<Document>> updates = new ArrayList<>();
+      data.forEach((documentId, patch) -> {
+         patch.remove(ID);
+         if (patch.size() > 0) {
+            updates.add(new UpdateOneModel<>(idFilter(documentId), new Document("$set", new Document(patch)), new UpdateOptions().upsert(true)));
+         }
+      });
+
+      if (updates.size() > 0) {
+         try {
+            dataCollection(collectionId).bulkWrite(updates, new BulkWriteOptions().ordered(false));
+         } catch (MongoException ex) {
+            throw new StorageException("Documents in collection '" + collectionId + "' have not been patched (partially updated).", ex);
+         }
+      }
+
+      return getData(collectionId, data.keySet());
+   }
+
    @Override
    public void deleteData(final String collectionId, final String documentId) {
       dataCollection(collectionId).deleteOne(idFilter(documentId));
@@ -169,6 +194,12 @@ public class MongoDataDao extends MongoCollectionScopedDao implements DataDao {
       return StreamSupport.stream(dataCollection(collectionId).find().map(MongoUtils::convertDocument).spliterator(), false);
    }
 
+   @Override
+   public Stream<DataDocument> getDataStream(final String collectionId, final Set<String> attributeIds) {
+      final Bson projection = Projections.include(new ArrayList<>(attributeIds));
+      return StreamSupport.stream(dataCollection(collectionId).find().projection(projection).map(MongoUtils::convertDocument).spliterator(), false);
+   }
+
    @Override
    public List<DataDocument> getData(final String collectionId, final Set<String> documentIds) {
       Bson idsFilter = MongoFilters.idsFilter(documentIds);
@@ -196,7 +227,18 @@ public class MongoDataDao extends MongoCollectionScopedDao implements DataDao {
    @Override
    public List<DataDocument> searchData(final SearchQueryStem stem, final Pagination pagination, final Collection collection) {
       Bson filter = createFilterForStem(stem, collection);
-      FindIterable<Document> iterable = dataCollection(collection.getId()).find(filter);
+      FindIterable<Document> iterable = dataCollection(collection.getId()).find(addPaginationToFilter(filter, pagination));
+      addPaginationToQuery(iterable, pagination);
+      return MongoUtils.convertIterableToList(iterable);
+   }
+
+   @Override
+   public List<DataDocument> searchDataByPrefilters(final String collectionId, final Set<CollectionSearchAttributeFilter> filters, final Pagination pagination) {
+      List<Bson> prefilters = filters.stream()
+                                     .map(MongoFilters::prefilter)
+                                     .filter(Objects::nonNull)
+                                     .collect(Collectors.toList());
+      FindIterable<Document> iterable = dataCollection(collectionId).find(addPaginationToFilter(prefilters.isEmpty() ? new Document() : Filters.and(prefilters), pagination));
       addPaginationToQuery(iterable, pagination);
       return MongoUtils.convertIterableToList(iterable);
    }
@@ -31,15 +31,19 @@ import io.lumeer.storage.api.query.SearchQueryStem;
 import io.lumeer.storage.mongodb.MongoUtils;
 import io.lumeer.storage.mongodb.util.MongoFilters;
 
+import com.mongodb.MongoException;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndReplaceOptions;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.UpdateResult;
 import org.bson.BsonDocument;
@@ -132,6 +136,27 @@ public class MongoLinkDataDao extends MongoCollectionScopedDao implements LinkDa
       return MongoUtils.convertDocument(patchedDocument);
    }
 
+   @Override
+   public List<DataDocument> patchData(final String linkTypeId, final Map<String, DataDocument> data) {
+      final List<UpdateOneModel<Document>> updates = new ArrayList<>();
+      data.forEach((linkInstanceId, patch) -> {
+         patch.remove(ID);
+         if (patch.size() > 0) {
+            updates.add(new UpdateOneModel<>(idFilter(linkInstanceId), new Document("$set", new Document(patch)), new UpdateOptions().upsert(true)));
+         }
+      });
+
+      if (updates.size() > 0) {
+         try {
+            linkDataCollection(linkTypeId).bulkWrite(updates, new BulkWriteOptions().ordered(false));
+         } catch (MongoException ex) {
+            throw new StorageException("Link instances of link type '" + linkTypeId + "' have not been patched (partially updated).", ex);
+         }
+      }
+
+      return getData(linkTypeId, data.keySet());
+   }
+
    @Override
    public void deleteData(final String linkTypeId, final String linkInstanceId) {
       linkDataCollection(linkTypeId).deleteOne(idFilter(linkInstanceId));
@@ -198,7 +223,7 @@ public class MongoLinkDataDao extends MongoCollectionScopedDao implements LinkDa
    @Override
    public List<DataDocument> searchData(final SearchQueryStem stem, final Pagination pagination, final LinkType linkType) {
       Bson filter = createFilterForStem(stem, linkType);
-      FindIterable<Document> iterable = linkDataCollection(linkType.getId()).find(filter);
+      FindIterable<Document> iterable = linkDataCollection(linkType.getId()).find(addPaginationToFilter(filter, pagination));
       addPaginationToQuery(iterable, pagination);
       return MongoUtils.convertIterableToList(iterable);
    }
@@ -70,6 +70,7 @@ import io.lumeer.storage.mongodb.dao.project.MongoProjectScopedDao;
 import io.lumeer.storage.mongodb.dao.project.MongoResourceCommentDao;
 import io.lumeer.storage.mongodb.dao.project.MongoSequenceDao;
 import io.lumeer.storage.mongodb.dao.project.MongoViewDao;
+import io.lumeer.storage.mongodb.dao.project.SequenceBlockAllocator;
 import io.lumeer.storage.mongodb.dao.system.MongoDelayedActionDao;
 import io.lumeer.storage.mongodb.dao.system.MongoFeedbackDao;
 import io.lumeer.storage.mongodb.dao.system.MongoFileAttachmentDao;
@@ -159,7 +160,7 @@ public class MongoDaoContextSnapshot implements DaoContextSnapshot {
       this.informationStoreDao = originalDao.informationStoreDao;
    }
 
-   MongoDaoContextSnapshot(final DataStorage systemDataStorage, final DataStorage userDataStorage, final SelectedWorkspace selectedWorkspace) {
+   MongoDaoContextSnapshot(final DataStorage systemDataStorage, final DataStorage userDataStorage, final SelectedWorkspace selectedWorkspace, final SequenceBlockAllocator sequenceBlockAllocator) {
       this.systemDatabase = (MongoDatabase) systemDataStorage.getDatabase();
       this.userDatabase = (MongoDatabase) userDataStorage.getDatabase();
 
@@ -195,7 +196,9 @@ public class MongoDaoContextSnapshot implements DaoContextSnapshot {
       this.userLoginDao = initSystemScopedDao(new MongoUserLoginDao());
       this.userNotificationDao = initSystemScopedDao(new MongoUserNotificationDao());
       this.viewDao = initProjectScopedDao(new MongoViewDao());
-      this.sequenceDao = initProjectScopedDao(new MongoSequenceDao());
+      final MongoSequenceDao sequenceDao = initProjectScopedDao(new MongoSequenceDao());
+      sequenceDao.setAllocator(sequenceBlockAllocator);
+      this.sequenceDao = sequenceDao;
       this.resourceCommentDao = initProjectScopedDao(new MongoResourceCommentDao());
       this.delayedActionDao = initSystemScopedDao(new MongoDelayedActionDao());
       this.auditDao = initProjectScopedDao(new MongoAuditRecordDao());
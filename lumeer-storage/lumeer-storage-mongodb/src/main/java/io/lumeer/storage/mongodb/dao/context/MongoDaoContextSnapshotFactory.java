@@ -24,6 +24,7 @@ import io.lumeer.engine.annotation.UserDataStorage;
 import io.lumeer.engine.api.data.DataStorage;
 import io.lumeer.storage.api.dao.context.DaoContextSnapshot;
 import io.lumeer.storage.api.dao.context.DaoContextSnapshotFactory;
+import io.lumeer.storage.mongodb.dao.project.SequenceBlockAllocator;
 
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
@@ -42,19 +43,26 @@ public class MongoDaoContextSnapshotFactory implements DaoContextSnapshotFactory
    @Inject
    private SelectedWorkspace selectedWorkspace;
 
+   @Inject
+   private SequenceBlockAllocator sequenceBlockAllocator;
+
+   public static DaoContextSnapshot createInstance(final DataStorage systemDataStorage, final DataStorage userDataStorage, final SelectedWorkspace selectedWorkspace, final SequenceBlockAllocator sequenceBlockAllocator) {
+      return new MongoDaoContextSnapshot(systemDataStorage, userDataStorage, selectedWorkspace, sequenceBlockAllocator);
+   }
+
    @Override
    public DaoContextSnapshot getInstance() {
-      return new MongoDaoContextSnapshot(systemDataStorage, dataStorage, selectedWorkspace);
+      return new MongoDaoContextSnapshot(systemDataStorage, dataStorage, selectedWorkspace, sequenceBlockAllocator);
    }
 
    @Override
    public DaoContextSnapshot getInstance(DataStorage userDataStorage, SelectedWorkspace selectedWorkspace) {
-      return new MongoDaoContextSnapshot(systemDataStorage, userDataStorage, selectedWorkspace);
+      return new MongoDaoContextSnapshot(systemDataStorage, userDataStorage, selectedWorkspace, sequenceBlockAllocator);
    }
 
    @Override
    public DaoContextSnapshot getInstance(final DataStorage systemDataStorage, final DataStorage userDataStorage, final SelectedWorkspace selectedWorkspace) {
-      return new MongoDaoContextSnapshot(systemDataStorage, userDataStorage, selectedWorkspace);
+      return new MongoDaoContextSnapshot(systemDataStorage, userDataStorage, selectedWorkspace, sequenceBlockAllocator);
    }
 
 }
@@ -57,10 +57,13 @@ import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -191,6 +194,47 @@ public class MongoCollectionDao extends MongoProjectScopedDao implements Collect
       }
    }
 
+   @Override
+   public Collection updateCollectionMetadata(final String id, final Map<String, Integer> attributesUsageDeltas, final ZonedDateTime lastTimeUsed) {
+      final Document inc = new Document(CollectionCodec.VERSION, 1L);
+      final List<Bson> arrayFilters = new ArrayList<>();
+      attributesUsageDeltas.forEach((attributeId, delta) -> {
+         if (delta != 0) {
+            final String identifier = "a" + arrayFilters.size();
+            inc.append(CollectionCodec.ATTRIBUTES + ".$[" + identifier + "]." + AttributeCodec.USAGE_COUNT, delta);
+            arrayFilters.add(Filters.eq(identifier + "." + AttributeCodec.ID, attributeId));
+         }
+      });
+
+      final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+      if (!arrayFilters.isEmpty()) {
+         options.arrayFilters(arrayFilters);
+      }
+
+      try {
+         final Bson update = new Document("$inc", inc).append("$max", new Document(CollectionCodec.LAST_TIME_USED, Date.from(lastTimeUsed.toInstant())));
+         Collection updatedCollection = databaseCollection().findOneAndUpdate(idFilter(id), update, options);
+         if (updatedCollection == null) {
+            return null;
+         }
+
+         // usage counts never go below zero
+         if (attributesUsageDeltas.values().stream().anyMatch(delta -> delta < 0)) {
+            final Bson clampUpdate = new Document("$max", new Document(CollectionCodec.ATTRIBUTES + ".$[n]." + AttributeCodec.USAGE_COUNT, 0));
+            final FindOneAndUpdateOptions clampOptions = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)
+                                                                                       .arrayFilters(List.of(Filters.lt("n." + AttributeCodec.USAGE_COUNT, 0)));
+            updatedCollection = databaseCollection().findOneAndUpdate(idFilter(id), clampUpdate, clampOptions);
+            if (updatedCollection == null) {
+               return null;
+            }
+         }
+
+         return updatedCollection;
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot update collection metadata: " + id, ex);
+      }
+   }
+
    @Override
    public void deleteCollection(final String id) {
       final Collection collection = databaseCollection().findOneAndDelete(idFilter(id));
@@ -37,6 +37,7 @@ import com.mongodb.MongoException;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.IndexOptions;
@@ -44,6 +45,7 @@ import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
@@ -70,11 +72,19 @@ public class MongoDocumentDao extends MongoProjectScopedDao implements DocumentD
    @Override
    public void createRepository(final Project project) {
       database.createCollection(databaseCollectionName(project));
+      ensureIndexes(project);
+   }
 
+   @Override
+   public void ensureIndexes(final Project project) {
       MongoCollection<org.bson.Document> collection = database.getCollection(databaseCollectionName(project));
-      collection.createIndex(Indexes.ascending(DocumentCodec.COLLECTION_ID), new IndexOptions().unique(false));
+      // the id suffix allows keyset pagination within a collection and covers the query for documents ids
+      collection.createIndex(Indexes.ascending(DocumentCodec.COLLECTION_ID, DocumentCodec.ID), new IndexOptions().unique(false));
+      collection.createIndex(Indexes.ascending(DocumentCodec.COLLECTION_ID, DocumentCodec.CREATED_BY, DocumentCodec.ID), new IndexOptions().unique(false));
       collection.createIndex(Indexes.descending(DocumentCodec.CREATION_DATE), new IndexOptions().unique(false));
       collection.createIndex(Indexes.descending(DocumentCodec.UPDATE_DATE), new IndexOptions().unique(false));
+
+      dropIndexIfExists(collection, DocumentCodec.COLLECTION_ID + "_1");
    }
 
    @Override
@@ -121,6 +131,23 @@ public class MongoDocumentDao extends MongoProjectScopedDao implements DocumentD
       }
    }
 
+   @Override
+   public List<Document> updateDocuments(final List<Document> documents) {
+      if (documents.isEmpty()) {
+         return Collections.emptyList();
+      }
+
+      try {
+         final List<UpdateOneModel<Document>> updates = documents.stream().map(document -> new UpdateOneModel<Document>(idFilter(document.getId()),
+               new org.bson.Document("$set", document).append("$inc", new org.bson.Document(DocumentCodec.DATA_VERSION, 1)))).collect(Collectors.toList());
+         databaseCollection().bulkWrite(updates, new BulkWriteOptions().ordered(false));
+
+         return getDocumentsByIds(documents.stream().map(Document::getId).collect(Collectors.toSet()));
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot update documents: " + documents.size(), ex);
+      }
+   }
+
    @Override
    public void deleteDocument(final String id, final DataDocument data) {
       Document document = databaseCollection().findOneAndDelete(idFilter(id));
@@ -205,7 +232,7 @@ public class MongoDocumentDao extends MongoProjectScopedDao implements DocumentD
    }
 
    private List<Document> getDocumentsPaginated(final Bson filter, final Pagination pagination) {
-      FindIterable<Document> iterable = databaseCollection().find(filter);
+      FindIterable<Document> iterable = databaseCollection().find(addPaginationToFilter(filter, pagination));
       addPaginationToQuery(iterable, pagination);
       return iterable.into(new ArrayList<>());
    }
@@ -19,6 +19,7 @@
 package io.lumeer.storage.mongodb.dao.project;
 
 import static com.mongodb.client.model.Filters.*;
+import static com.mongodb.client.model.Updates.inc;
 
 import io.lumeer.api.model.Project;
 import io.lumeer.api.model.ResourceType;
@@ -33,6 +34,7 @@ import com.mongodb.MongoException;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOptions;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
@@ -45,6 +47,8 @@ import java.util.stream.Collectors;
 public class MongoFunctionDao extends MongoProjectScopedDao implements FunctionDao {
 
    private static final String PREFIX = "functions_p-";
+   private static final String VERSIONS_COLLECTION = "functions_versions";
+   private static final String VERSION = "version";
 
    @Override
    public void createRepository(final Project project) {
@@ -59,6 +63,7 @@ public class MongoFunctionDao extends MongoProjectScopedDao implements FunctionD
    @Override
    public void deleteRepository(final Project project) {
       database.getCollection(databaseCollectionName(project)).drop();
+      database.getCollection(VERSIONS_COLLECTION).deleteOne(eq(FunctionRowCodec.ID, project.getId()));
    }
 
    @Override
@@ -68,6 +73,22 @@ public class MongoFunctionDao extends MongoProjectScopedDao implements FunctionD
       } catch (MongoException ex) {
          throw new StorageException("Cannot create function rows: " + rows, ex);
       }
+      incrementRowsVersion();
+   }
+
+   @Override
+   public List<FunctionRow> getAllRows() {
+      return databaseCollection().find().into(new ArrayList<>());
+   }
+
+   @Override
+   public long getRowsVersion() {
+      final Document version = database.getCollection(VERSIONS_COLLECTION).find(eq(FunctionRowCodec.ID, projectId())).first();
+      return version != null ? version.getLong(VERSION) : 0;
+   }
+
+   private void incrementRowsVersion() {
+      database.getCollection(VERSIONS_COLLECTION).updateOne(eq(FunctionRowCodec.ID, projectId()), inc(VERSION, 1L), new UpdateOptions().upsert(true));
    }
 
    @Override
@@ -137,22 +158,26 @@ public class MongoFunctionDao extends MongoProjectScopedDao implements FunctionD
    public void deleteByResources(final FunctionResourceType type, final String... resourceIds) {
       Bson filter = and(in(FunctionRowCodec.RESOURCE_ID, resourceIds), eq(FunctionRowCodec.TYPE, type.toString()));
       databaseCollection().deleteMany(filter);
+      incrementRowsVersion();
    }
 
    @Override
    public void deleteByIds(final List<String> ids) {
       final Bson filter = in(FunctionRowCodec.ID, ids.stream().map(ObjectId::new).collect(Collectors.toList()));
       databaseCollection().deleteMany(filter);
+      incrementRowsVersion();
    }
 
    @Override
    public void deleteByCollection(final String collectionsId, final String attributeId) {
       databaseCollection().deleteMany(collectionFilter(collectionsId, attributeId));
+      incrementRowsVersion();
    }
 
    @Override
    public void deleteByLinkType(final String linkTypeId, final String attributeId) {
       databaseCollection().deleteMany(linkFilter(linkTypeId, attributeId));
+      incrementRowsVersion();
    }
 
    private String databaseCollectionName(Project project) {
@@ -166,6 +191,13 @@ public class MongoFunctionDao extends MongoProjectScopedDao implements FunctionD
       return databaseCollectionName(getProject().get());
    }
 
+   private String projectId() {
+      if (!getProject().isPresent()) {
+         throw new ResourceNotFoundException(ResourceType.PROJECT);
+      }
+      return getProject().get().getId();
+   }
+
    MongoCollection<FunctionRow> databaseCollection() {
       return database.getCollection(databaseCollectionName(), FunctionRow.class);
    }
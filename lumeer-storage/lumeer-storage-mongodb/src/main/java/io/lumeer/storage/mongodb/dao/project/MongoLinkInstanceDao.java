@@ -40,11 +40,13 @@ import com.mongodb.MongoException;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.result.DeleteResult;
 import org.bson.Document;
 import org.bson.conversions.Bson;
@@ -75,9 +77,18 @@ public class MongoLinkInstanceDao extends MongoProjectScopedDao implements LinkI
    @Override
    public void createRepository(Project project) {
       database.createCollection(databaseCollectionName(project));
+      ensureIndexes(project);
+   }
 
+   @Override
+   public void ensureIndexes(final Project project) {
       MongoCollection<Document> projectCollection = database.getCollection(databaseCollectionName(project));
-      projectCollection.createIndex(Indexes.ascending(LinkInstanceCodec.LINK_TYPE_ID), new IndexOptions().unique(false));
+      projectCollection.createIndex(Indexes.ascending(LinkInstanceCodec.LINK_TYPE_ID, LinkInstanceCodec.ID), new IndexOptions().unique(false));
+      // multikey indexes for the lookups of links by their documents
+      projectCollection.createIndex(Indexes.ascending(LinkInstanceCodec.LINK_TYPE_ID, LinkInstanceCodec.DOCUMENTS_IDS), new IndexOptions().unique(false));
+      projectCollection.createIndex(Indexes.ascending(LinkInstanceCodec.DOCUMENTS_IDS), new IndexOptions().unique(false));
+
+      dropIndexIfExists(projectCollection, LinkInstanceCodec.LINK_TYPE_ID + "_1");
    }
 
    @Override
@@ -131,6 +142,23 @@ public class MongoLinkInstanceDao extends MongoProjectScopedDao implements LinkI
       }
    }
 
+   @Override
+   public List<LinkInstance> updateLinkInstances(final List<LinkInstance> linkInstances) {
+      if (linkInstances.isEmpty()) {
+         return Collections.emptyList();
+      }
+
+      try {
+         final List<UpdateOneModel<LinkInstance>> updates = linkInstances.stream().map(linkInstance -> new UpdateOneModel<LinkInstance>(idFilter(linkInstance.getId()),
+               new Document("$set", linkInstance).append("$inc", new Document(LinkInstanceCodec.DATA_VERSION, 1)))).collect(Collectors.toList());
+         databaseCollection().bulkWrite(updates, new BulkWriteOptions().ordered(false));
+
+         return getLinkInstances(linkInstances.stream().map(LinkInstance::getId).collect(Collectors.toSet()));
+      } catch (MongoException ex) {
+         throw new StorageException("Cannot update link instances: " + linkInstances.size(), ex);
+      }
+   }
+
    @Override
    public void deleteLinkInstance(final String id, final DataDocument data) {
       LinkInstance linkInstance = databaseCollection().findOneAndDelete(idFilter(id));
@@ -213,7 +241,7 @@ public class MongoLinkInstanceDao extends MongoProjectScopedDao implements LinkI
    }
 
    private List<LinkInstance> getLinkInstancesPaginated(final Bson filter, final Pagination pagination) {
-      FindIterable<LinkInstance> iterable = databaseCollection().find(filter);
+      FindIterable<LinkInstance> iterable = databaseCollection().find(addPaginationToFilter(filter, pagination));
       addPaginationToQuery(iterable, pagination);
       return iterable.into(new ArrayList<>());
    }
@@ -19,7 +19,6 @@
 package io.lumeer.storage.mongodb.dao.project;
 
 import static com.mongodb.client.model.Filters.eq;
-import static com.mongodb.client.model.Updates.inc;
 import static io.lumeer.storage.mongodb.util.MongoFilters.idFilter;
 import static io.lumeer.storage.mongodb.util.MongoFilters.nameFilter;
 
@@ -61,6 +60,10 @@ public class MongoSequenceDao extends MongoProjectScopedDao implements SequenceD
    @Inject
    private Event<RemoveSequence> removeSequenceEvent;
 
+   // application wide, so that the reserved blocks survive the request
+   @Inject
+   private SequenceBlockAllocator allocator;
+
    @Override
    public void createRepository(final Project project) {
       database.createCollection(getSequenceCollectionName(project));
@@ -71,6 +74,7 @@ public class MongoSequenceDao extends MongoProjectScopedDao implements SequenceD
 
    @Override
    public void deleteRepository(final Project project) {
+      allocator.invalidateAll(database.getCollection(getSequenceCollectionName(project), Sequence.class));
       database.getCollection(getSequenceCollectionName(project)).drop();
    }
 
@@ -95,6 +99,7 @@ public class MongoSequenceDao extends MongoProjectScopedDao implements SequenceD
       if (sequence == null) {
          throw new StorageException("Sequence '" + id + "' has not been deleted.");
       }
+      allocator.invalidate(databaseCollection(), sequence.getName());
       if (removeSequenceEvent != null) {
          removeSequenceEvent.fire(new RemoveSequence(sequence));
       }
@@ -108,6 +113,7 @@ public class MongoSequenceDao extends MongoProjectScopedDao implements SequenceD
          if (returnedSequence == null) {
             throw new StorageException("Sequence '" + sequence.getId() + "' has not been updated.");
          }
+         allocator.invalidate(databaseCollection(), returnedSequence.getName());
          if (createOrUpdateSequenceEvent != null) {
             createOrUpdateSequenceEvent.fire(new CreateOrUpdateSequence(returnedSequence));
          }
@@ -118,51 +124,31 @@ public class MongoSequenceDao extends MongoProjectScopedDao implements SequenceD
    }
 
    @Override
-   public synchronized int getNextSequenceNo(final String indexName) {
-      final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions();
-      options.returnDocument(ReturnDocument.AFTER);
-
-      final Sequence seq = databaseCollection().findOneAndUpdate(eq(SequenceCodec.NAME, indexName), inc(SequenceCodec.SEQ, 1),
-            options);
-
-      if (seq == null) { // the sequence did not exist
-         resetSequence(indexName);
-         return 0;
-      } else {
-         return seq.getSeq();
-      }
+   public int getNextSequenceNo(final String indexName) {
+      return allocator.next(databaseCollection(), indexName);
    }
 
    @Override
-   public synchronized int changeSequenceBy(final String indexName, final int change) {
-      final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions();
-      options.returnDocument(ReturnDocument.AFTER);
-
-      final Sequence seq = databaseCollection().findOneAndUpdate(eq(SequenceCodec.NAME, indexName), inc(SequenceCodec.SEQ, change),
-            options);
-
-      if (seq == null) { // the sequence did not exist
-         resetSequence(indexName, change);
-         return change;
-      } else {
-         return seq.getSeq();
-      }
+   public int changeSequenceBy(final String indexName, final int change) {
+      return allocator.change(databaseCollection(), indexName, change);
    }
 
    @Override
-   public synchronized void resetSequence(final String indexName) {
-      final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER).upsert(true);
-      final Sequence sequence = new Sequence(indexName, 0);
-      Bson update = new org.bson.Document("$set", sequence);
-      databaseCollection().findOneAndUpdate(eq(SequenceCodec.NAME, indexName), update, options);
+   public void resetSequence(final String indexName) {
+      resetSequence(indexName, 0);
    }
 
    @Override
-   public synchronized void resetSequence(final String indexName, final int initValue) {
+   public void resetSequence(final String indexName, final int initValue) {
       final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER).upsert(true);
       final Sequence sequence = new Sequence(indexName, initValue);
       Bson update = new org.bson.Document("$set", sequence);
       databaseCollection().findOneAndUpdate(eq(SequenceCodec.NAME, indexName), update, options);
+      allocator.invalidate(databaseCollection(), indexName);
+   }
+
+   public void setAllocator(final SequenceBlockAllocator allocator) {
+      this.allocator = allocator;
    }
 
    public String getSequenceCollectionName(Project project) {
@@ -0,0 +1,196 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.project;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Updates.inc;
+
+import io.lumeer.api.model.Sequence;
+import io.lumeer.storage.api.SequenceSettings;
+import io.lumeer.storage.api.exception.StorageException;
+import io.lumeer.storage.mongodb.codecs.SequenceCodec;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Hands out sequence numbers. All changes in the database are done by a single atomic <code>$inc</code>
+ * so that several nodes can share the same sequence.
+ *
+ * In the gap-free mode (block size 1), every number is reserved in the database, the numbers are continuous
+ * and the stored value is always the last number handed out.
+ *
+ * In the gap-tolerant mode, a whole block of numbers is reserved at once and the numbers are handed out
+ * from memory. Numbers are still unique, but they are not ordered among nodes and the unused rest of a block
+ * is lost when the sequence is changed manually or the node is stopped.
+ *
+ * A single instance is shared by the whole application, including the DAOs of task snapshots.
+ */
+@Singleton
+public class SequenceBlockAllocator {
+
+   private static final int MAX_ATTEMPTS = 10;
+
+   private final int blockSize;
+   private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+   private final Map<String, Lock> refillLocks = new ConcurrentHashMap<>();
+   private final AtomicLong invalidations = new AtomicLong();
+
+   private SequenceBlockAllocator(final int blockSize) {
+      this.blockSize = blockSize;
+   }
+
+   @Inject
+   public SequenceBlockAllocator(final SequenceSettings settings) {
+      this(Math.max(settings.getBlockSize(), 1));
+   }
+
+   public static SequenceBlockAllocator gapFree() {
+      return new SequenceBlockAllocator(1);
+   }
+
+   public static SequenceBlockAllocator gapTolerant(final int blockSize) {
+      return new SequenceBlockAllocator(Math.max(blockSize, 1));
+   }
+
+   public int getBlockSize() {
+      return blockSize;
+   }
+
+   public boolean isGapFree() {
+      return blockSize == 1;
+   }
+
+   public int next(final MongoCollection<Sequence> collection, final String indexName) {
+      if (isGapFree()) {
+         return increment(collection, indexName, 1, 0);
+      }
+
+      final String key = collection.getNamespace().getFullName() + "/" + indexName;
+      while (true) {
+         final Block block = blocks.get(key);
+         if (block != null) {
+            final int value = block.next.getAndIncrement();
+            if (value <= block.last) {
+               return value;
+            }
+         }
+
+         refill(collection, indexName, key, block);
+      }
+   }
+
+   /**
+    * Atomically changes the sequence by the given amount.
+    *
+    * @return the new value of the sequence.
+    */
+   public int change(final MongoCollection<Sequence> collection, final String indexName, final int change) {
+      invalidate(collection, indexName);
+      return increment(collection, indexName, change, change);
+   }
+
+   /**
+    * Drops the block reserved on this node, must be called whenever the sequence is changed directly.
+    */
+   public void invalidate(final MongoCollection<Sequence> collection, final String indexName) {
+      invalidations.incrementAndGet();
+      blocks.remove(collection.getNamespace().getFullName() + "/" + indexName);
+   }
+
+   public void invalidateAll(final MongoCollection<Sequence> collection) {
+      final String prefix = collection.getNamespace().getFullName() + "/";
+      invalidations.incrementAndGet();
+      blocks.keySet().removeIf(key -> key.startsWith(prefix));
+      refillLocks.keySet().removeIf(key -> key.startsWith(prefix));
+   }
+
+   /**
+    * Only one thread refills the exhausted block, the others wait and pick up the new one. The block is reserved outside
+    * of the map operations, so the database round trip does not block the other sequences.
+    */
+   private void refill(final MongoCollection<Sequence> collection, final String indexName, final String key, final Block exhausted) {
+      final Lock lock = refillLocks.computeIfAbsent(key, k -> new ReentrantLock());
+      lock.lock();
+      try {
+         if (blocks.get(key) != exhausted) {
+            return;
+         }
+
+         final long generation = invalidations.get();
+         final Block reserved = reserveBlock(collection, indexName);
+
+         // the sequence might have been changed while the block was reserved, the block is not valid anymore then
+         blocks.compute(key, (k, current) -> current == exhausted && invalidations.get() == generation ? reserved : current);
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   private Block reserveBlock(final MongoCollection<Sequence> collection, final String indexName) {
+      final int last = increment(collection, indexName, blockSize, blockSize - 1);
+      return new Block(last - blockSize + 1, last);
+   }
+
+   private int increment(final MongoCollection<Sequence> collection, final String indexName, final int change, final int initialValue) {
+      final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+
+      for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+         final Sequence seq = collection.findOneAndUpdate(eq(SequenceCodec.NAME, indexName), inc(SequenceCodec.SEQ, change), options);
+         if (seq != null) {
+            return seq.getSeq();
+         }
+
+         // the sequence did not exist
+         try {
+            collection.insertOne(new Sequence(indexName, initialValue));
+            return initialValue;
+         } catch (MongoWriteException e) {
+            if (!e.getError().getCategory().equals(ErrorCategory.DUPLICATE_KEY)) {
+               throw e;
+            }
+            // somebody else has just created the sequence, let's increment it
+         }
+      }
+
+      throw new StorageException("Cannot increment sequence " + indexName);
+   }
+
+   private static final class Block {
+      private final AtomicInteger next;
+      private final int last;
+
+      private Block(final int first, final int last) {
+         this.next = new AtomicInteger(first);
+         this.last = last;
+      }
+   }
+}
@@ -0,0 +1,175 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.system;
+
+import static io.lumeer.storage.mongodb.util.MongoFilters.idFilter;
+
+import io.lumeer.api.model.CronWorkItem;
+import io.lumeer.storage.api.dao.CronWorkItemDao;
+import io.lumeer.storage.api.exception.StorageException;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+
+@ApplicationScoped
+public class MongoCronWorkItemDao extends MongoSystemScopedDao implements CronWorkItemDao {
+
+   public static final String COLLECTION_NAME = "cron_work_items";
+   public static final String TICKS_COLLECTION_NAME = "cron_ticks";
+
+   private static final String TICK_ID = "_id";
+   private static final String TICK_PROCESSOR = "processor";
+   private static final String TICK_CREATED = "created";
+
+   @PostConstruct
+   public void checkRepository() {
+      final List<String> collectionNames = database.listCollectionNames().into(new ArrayList<>());
+      if (!collectionNames.contains(databaseCollectionName())) {
+         createCronWorkItemsRepository();
+      }
+      if (!collectionNames.contains(TICKS_COLLECTION_NAME)) {
+         database.createCollection(TICKS_COLLECTION_NAME);
+         ticksCollection().createIndex(Indexes.ascending(TICK_CREATED), new IndexOptions().unique(false));
+      }
+   }
+
+   public void createCronWorkItemsRepository() {
+      database.createCollection(databaseCollectionName());
+
+      MongoCollection<Document> itemsCollection = database.getCollection(databaseCollectionName());
+      itemsCollection.createIndex(Indexes.ascending(CronWorkItem.TICK, CronWorkItem.ORGANIZATION_ID, CronWorkItem.PROJECT_ID, CronWorkItem.COLLECTION_ID), new IndexOptions().unique(true));
+      itemsCollection.createIndex(Indexes.ascending(CronWorkItem.STARTED_PROCESSING, CronWorkItem.TICK, CronWorkItem.PRIORITY), new IndexOptions().unique(false));
+      itemsCollection.createIndex(Indexes.ascending(CronWorkItem.COMPLETED), new IndexOptions().unique(false));
+   }
+
+   @Override
+   public boolean claimTick(final String tick, final String processor) {
+      try {
+         ticksCollection().insertOne(new Document(TICK_ID, tick)
+               .append(TICK_PROCESSOR, processor)
+               .append(TICK_CREATED, Date.from(ZonedDateTime.now().toInstant())));
+         return true;
+      } catch (MongoWriteException e) {
+         if (e.getError().getCategory().equals(ErrorCategory.DUPLICATE_KEY)) {
+            return false; // another node in cluster plans this tick
+         }
+         throw new StorageException("Cannot claim cron tick " + tick, e);
+      }
+   }
+
+   @Override
+   public void scheduleItems(final List<CronWorkItem> items) {
+      if (items == null || items.isEmpty()) {
+         return;
+      }
+
+      try {
+         databaseCollection().insertMany(items, new InsertManyOptions().ordered(false));
+      } catch (MongoBulkWriteException e) {
+         // items planned twice for the same tick are expected to fail on the unique index
+         if (e.getWriteErrors().stream().anyMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY)) {
+            throw new StorageException("Cannot schedule cron work items", e);
+         }
+      } catch (MongoException e) {
+         throw new StorageException("Cannot schedule cron work items", e);
+      }
+   }
+
+   @Override
+   public CronWorkItem claimItem(final String processor) {
+      // older ticks first, so that the items left from a busy tick are not starved by the new ones
+      final FindOneAndUpdateOptions options = new FindOneAndUpdateOptions()
+            .returnDocument(ReturnDocument.AFTER)
+            .sort(Sorts.ascending(CronWorkItem.TICK, CronWorkItem.PRIORITY));
+
+      return databaseCollection().findOneAndUpdate(
+            Filters.and(
+                  Filters.not(Filters.exists(CronWorkItem.STARTED_PROCESSING)),
+                  Filters.not(Filters.exists(CronWorkItem.COMPLETED))
+            ),
+            Updates.combine(
+                  Updates.set(CronWorkItem.STARTED_PROCESSING, Date.from(ZonedDateTime.now().toInstant())),
+                  Updates.set(CronWorkItem.PROCESSOR, processor)
+            ),
+            options
+      );
+   }
+
+   @Override
+   public void completeItem(final CronWorkItem item) {
+      databaseCollection().updateOne(idFilter(item.getId()), Updates.set(CronWorkItem.COMPLETED, Date.from(ZonedDateTime.now().toInstant())));
+   }
+
+   @Override
+   public void resetTimeoutedItems(final int timeoutMinutes) {
+      databaseCollection().updateMany(Filters.and(
+            Filters.lt(CronWorkItem.STARTED_PROCESSING, Date.from(ZonedDateTime.now().minus(timeoutMinutes, ChronoUnit.MINUTES).toInstant())),
+            Filters.not(Filters.exists(CronWorkItem.COMPLETED))
+      ), Updates.combine(Updates.unset(CronWorkItem.STARTED_PROCESSING), Updates.unset(CronWorkItem.PROCESSOR)));
+   }
+
+   @Override
+   public void deleteProcessedItems() {
+      final Date threshold = Date.from(ZonedDateTime.now().minus(RETENTION_HOURS, ChronoUnit.HOURS).toInstant());
+      databaseCollection().deleteMany(Filters.lt(CronWorkItem.COMPLETED, threshold));
+      ticksCollection().deleteMany(Filters.lt(TICK_CREATED, threshold));
+   }
+
+   @Override
+   public long getPendingItemsCount() {
+      return databaseCollection().countDocuments(Filters.not(Filters.exists(CronWorkItem.COMPLETED)));
+   }
+
+   public void deleteCronWorkItemsRepository() {
+      database.getCollection(databaseCollectionName()).drop();
+      database.getCollection(TICKS_COLLECTION_NAME).drop();
+   }
+
+   String databaseCollectionName() {
+      return COLLECTION_NAME;
+   }
+
+   MongoCollection<CronWorkItem> databaseCollection() {
+      return database.getCollection(databaseCollectionName(), CronWorkItem.class);
+   }
+
+   private MongoCollection<Document> ticksCollection() {
+      return database.getCollection(TICKS_COLLECTION_NAME);
+   }
+}
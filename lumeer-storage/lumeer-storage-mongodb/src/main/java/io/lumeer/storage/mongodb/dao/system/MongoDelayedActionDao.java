@@ -29,12 +29,15 @@ import com.mongodb.MongoException;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndReplaceOptions;
-import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.Updates;
 import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
@@ -52,6 +55,9 @@ public class MongoDelayedActionDao extends MongoSystemScopedDao implements Delay
 
    public static final String COLLECTION_NAME = "delayed_actions";
 
+   private static final String ID = "_id";
+   private static final int CLAIM_BATCH_SIZE = 500;
+
    @PostConstruct
    public void checkRepository() {
       if (!database.listCollectionNames().into(new ArrayList<>()).contains(databaseCollectionName())) {
@@ -119,31 +125,52 @@ public class MongoDelayedActionDao extends MongoSystemScopedDao implements Delay
 
    @Override
    public List<DelayedAction> getActionsForProcessing(final boolean skipDelay) {
-      FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+      return getActionsForProcessing(skipDelay, CLAIM_BATCH_SIZE);
+   }
+
+   @Override
+   public List<DelayedAction> getActionsForProcessing(final boolean skipDelay, final int batchSize) {
       final List<DelayedAction> result = new ArrayList<>();
       final String signature = UUID.randomUUID().toString(); // generate unique signature
 
-      DelayedAction action;
+      List<ObjectId> candidates;
       do {
-         action = databaseCollection().findOneAndUpdate(
-               Filters.and(
-                     Filters.not(Filters.exists(DelayedAction.STARTED_PROCESSING)),
-                     Filters.lt(DelayedAction.CHECK_AFTER, Date.from((skipDelay ? ZonedDateTime.now() : ZonedDateTime.now().minus(PROCESSING_DELAY_MINUTES, ChronoUnit.MINUTES)).toInstant()))
-               ),
+         candidates = claimActions(skipDelay, signature, batchSize);
+         if (!candidates.isEmpty()) {
+            // read back only the actions we won, the others have been taken by another node in cluster
+            databaseCollection().find(Filters.and(Filters.in(ID, candidates), Filters.eq(DelayedAction.PROCESSOR, signature))).into(result);
+         }
+      } while (candidates.size() == batchSize);
+
+      return result;
+   }
+
+   private List<ObjectId> claimActions(final boolean skipDelay, final String signature, final int batchSize) {
+      final Bson available = Filters.and(
+            Filters.not(Filters.exists(DelayedAction.STARTED_PROCESSING)),
+            Filters.lt(DelayedAction.CHECK_AFTER, Date.from((skipDelay ? ZonedDateTime.now() : ZonedDateTime.now().minus(PROCESSING_DELAY_MINUTES, ChronoUnit.MINUTES)).toInstant()))
+      );
+
+      final List<ObjectId> candidates = database.getCollection(databaseCollectionName())
+                                                .find(available)
+                                                .projection(Projections.include(ID))
+                                                .sort(Sorts.ascending(DelayedAction.CHECK_AFTER))
+                                                .limit(batchSize)
+                                                .map(document -> document.getObjectId(ID))
+                                                .into(new ArrayList<>());
+
+      if (!candidates.isEmpty()) {
+         // the availability condition is repeated, so an action claimed by another node in the meantime is not taken over
+         databaseCollection().updateMany(
+               Filters.and(Filters.in(ID, candidates), available),
                Updates.combine(
                      Updates.set(DelayedAction.STARTED_PROCESSING, Date.from(ZonedDateTime.now().toInstant())),
                      Updates.set(DelayedAction.PROCESSOR, signature)
-               ),
-               options
+               )
          );
-         if (action != null) {
-            if (signature.equals(action.getProcessor())) { // otherwise it has been taken by another node in cluster
-               result.add(action);
-            }
-         }
-      } while (action != null);
+      }
 
-      return result;
+      return candidates;
    }
 
    public DelayedAction updateAction(final DelayedAction action) {
@@ -28,10 +28,12 @@ import io.lumeer.storage.mongodb.codecs.PermissionsCodec;
 import io.lumeer.storage.mongodb.codecs.RoleCodec;
 
 import com.mongodb.client.model.Filters;
+import org.bson.BsonType;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -157,4 +159,46 @@ public class MongoFilters {
       return null;
    }
 
+   /**
+    * Creates a predicate matching a superset of the documents which meet the filter condition.
+    * Values stored with a different type than the filter value (i.e. strings which could not be encoded) are always matched,
+    * so the filter must be evaluated again on the returned data.
+    *
+    * @param filter The filter to convert.
+    * @return The predicate or null when the filter condition can not be used for prefiltering.
+    */
+   public static Bson prefilter(SearchAttributeFilter filter) {
+      if (filter == null || filter.getConditionType() == null || filter.getValue() == null) {
+         return null;
+      }
+      final String attributeId = filter.getAttributeId();
+      switch (filter.getConditionType()) {
+         case EQUALS:
+         case LOWER_THAN:
+         case LOWER_THAN_EQUALS:
+         case GREATER_THAN:
+         case GREATER_THAN_EQUALS:
+            return Filters.or(attributeFilter(filter), otherTypesFilter(attributeId, filter.getValue()));
+         case NOT_EQUALS:
+         case HAS_SOME:
+            return attributeFilter(filter);
+         case BETWEEN:
+            if (filter.getValue() instanceof List<?> values && values.size() == 2) {
+               return Filters.or(Filters.and(Filters.gte(attributeId, values.get(0)), Filters.lte(attributeId, values.get(1))), otherTypesFilter(attributeId, values.get(0)));
+            }
+            return null;
+         case CONTAINS:
+            final Pattern pattern = Pattern.compile(Pattern.quote(filter.getValue().toString()), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            return Filters.or(Filters.regex(attributeId, pattern), Filters.not(Filters.type(attributeId, BsonType.STRING)), Filters.type(attributeId, BsonType.ARRAY));
+      }
+      return null;
+   }
+
+   private static Bson otherTypesFilter(String attributeId, Object value) {
+      if (value instanceof Date) { // dates can be stored also as timestamps
+         return Filters.or(Filters.type(attributeId, BsonType.STRING), Filters.type(attributeId, "number"));
+      }
+      return Filters.type(attributeId, BsonType.STRING);
+   }
+
 }
@@ -0,0 +1,146 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.Document;
+import io.lumeer.api.model.Project;
+import io.lumeer.engine.api.data.DataDocument;
+import io.lumeer.storage.mongodb.EmbeddedMongoDb;
+import io.lumeer.storage.mongodb.MongoDbTestBase;
+import io.lumeer.storage.mongodb.dao.project.MongoDocumentDao;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCredential;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Counts the database round trips needed to change the data of documents, once document by document the way automation
+ * stages used to do it and once with the bulk methods.
+ */
+public class MongoDataBulkRoundTripsTest extends MongoDbTestBase {
+
+   private static final String PROJECT_ID = "596e3b86d412bc5a3caaa22a";
+   private static final String COLLECTION_ID = "59a51b83d412bc2da88b010f";
+   private static final String UPDATED_BY = "testUser";
+
+   private final AtomicInteger roundTrips = new AtomicInteger();
+
+   private MongoClient countingClient;
+   private MongoDataDao dataDao;
+   private MongoDocumentDao documentDao;
+
+   @BeforeEach
+   public void initDaos() {
+      final MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                                                                     .applyToClusterSettings(builder -> builder.hosts(List.of(new ServerAddress(EmbeddedMongoDb.HOST, EmbeddedMongoDb.PORT))))
+                                                                     .codecRegistry(database.getCodecRegistry())
+                                                                     .addCommandListener(new CommandListener() {
+                                                                        @Override
+                                                                        public void commandStarted(final CommandStartedEvent event) {
+                                                                           roundTrips.incrementAndGet();
+                                                                        }
+                                                                     });
+      if (!EmbeddedMongoDb.USER.isEmpty()) {
+         settings.credential(MongoCredential.createScramSha1Credential(EmbeddedMongoDb.USER, EmbeddedMongoDb.NAME, EmbeddedMongoDb.PASSWORD.toCharArray()));
+      }
+      countingClient = MongoClients.create(settings.build());
+
+      final Project project = Mockito.mock(Project.class);
+      Mockito.when(project.getId()).thenReturn(PROJECT_ID);
+
+      dataDao = new MongoDataDao();
+      dataDao.setDatabase(countingClient.getDatabase(EmbeddedMongoDb.NAME));
+      dataDao.createDataRepository(COLLECTION_ID);
+
+      documentDao = new MongoDocumentDao();
+      documentDao.setDatabase(countingClient.getDatabase(EmbeddedMongoDb.NAME));
+      documentDao.setProject(project);
+      documentDao.createRepository(project);
+   }
+
+   @AfterEach
+   public void closeCountingClient() {
+      countingClient.close();
+   }
+
+   @Test
+   public void bulkChangesNeedConstantRoundTrips() {
+      final int perDocumentSmall = changeOneByOne(createDocuments(10));
+      final int perDocumentLarge = changeOneByOne(createDocuments(100));
+      final int bulkSmall = changeInBulk(createDocuments(10));
+      final int bulkLarge = changeInBulk(createDocuments(100));
+
+      assertThat(perDocumentSmall).isEqualTo(3 * 10);
+      assertThat(perDocumentLarge).isEqualTo(3 * 100);
+      assertThat(bulkSmall).isEqualTo(6);
+      assertThat(bulkLarge).isEqualTo(bulkSmall);
+   }
+
+   private List<Document> createDocuments(final int count) {
+      final List<Document> documents = documentDao.createDocuments(IntStream.range(0, count)
+                                                                            .mapToObj(i -> new Document(COLLECTION_ID, ZonedDateTime.now(), null, UPDATED_BY, null, 0, new DataDocument()))
+                                                                            .collect(Collectors.toList()));
+      documents.forEach(document -> dataDao.createData(COLLECTION_ID, document.getId(), new DataDocument("a", 1)));
+      return documents;
+   }
+
+   private int changeOneByOne(final List<Document> documents) {
+      final int start = roundTrips.get();
+      documents.forEach(document -> {
+         dataDao.getData(COLLECTION_ID, document.getId());
+         dataDao.patchData(COLLECTION_ID, document.getId(), new DataDocument("a", 2));
+         document.setUpdatedBy(UPDATED_BY);
+         documentDao.updateDocument(document.getId(), document);
+      });
+      return roundTrips.get() - start;
+   }
+
+   private int changeInBulk(final List<Document> documents) {
+      final int start = roundTrips.get();
+      final Set<String> documentIds = documentDao.getDocumentsByIds(documents.stream().map(Document::getId).collect(Collectors.toSet()))
+                                                 .stream().map(Document::getId).collect(Collectors.toSet());
+      dataDao.getData(COLLECTION_ID, documentIds);
+      dataDao.patchData(COLLECTION_ID, documentIds.stream().collect(Collectors.toMap(Function.identity(), id -> new DataDocument("a", 2))));
+      documents.forEach(document -> document.setUpdatedBy(UPDATED_BY));
+      final List<Document> updatedDocuments = documentDao.updateDocuments(documents);
+      final int result = roundTrips.get() - start;
+
+      assertThat(updatedDocuments).hasSize(documents.size()).allMatch(document -> UPDATED_BY.equals(document.getUpdatedBy()));
+      assertThat(dataDao.getData(COLLECTION_ID, documentIds)).allMatch(data -> Integer.valueOf(2).equals(data.getInteger("a")));
+      return result;
+   }
+}
@@ -42,6 +42,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 public class MongoDataDaoTest extends MongoDbTestBase {
 
@@ -157,6 +158,23 @@ public class MongoDataDaoTest extends MongoDbTestBase {
       assertThat(document).containsEntry(KEY2, VALUE2);
    }
 
+   @Test
+   public void testPatchDataBulk() {
+      String id1 = createDocument();
+      String id2 = createDocument();
+
+      List<DataDocument> patchedData = dataDao.patchData(COLLECTION_ID, Map.of(
+            id1, new DataDocument().append(KEY1, VALUE2),
+            id2, new DataDocument().append(KEY3, VALUE1),
+            DOCUMENT_ID, new DataDocument()
+      ));
+
+      assertThat(patchedData).hasSize(2);
+      assertThat(dataDao.getData(COLLECTION_ID, id1)).containsEntry(KEY1, VALUE2).containsEntry(KEY2, VALUE2);
+      assertThat(dataDao.getData(COLLECTION_ID, id2)).containsEntry(KEY1, VALUE1).containsEntry(KEY2, VALUE2).containsEntry(KEY3, VALUE1);
+      assertThat(dataCollection().countDocuments()).isEqualTo(2);
+   }
+
    @Test
    public void testPatchNestedAttributes() {
 
@@ -304,6 +322,31 @@ public class MongoDataDaoTest extends MongoDbTestBase {
       assertThat(data).extracting(DataDocument::getId).isEmpty();
    }
 
+   @Test
+   public void testSearchDataByPrefilters() {
+      String id1 = createDocument(KEY1, 4L);
+      String id2 = createDocument(KEY1, 8L);
+      String id3 = createDocument(KEY1, "8,0");
+      String id4 = createDocument(KEY2, "Lumeer rocks");
+      String id5 = createDocument(KEY2, 42L);
+      createDocument(KEY2, "something");
+
+      var filter = new CollectionSearchAttributeFilter(COLLECTION_ID, ConditionType.GREATER_THAN, KEY1, 5L);
+      List<DataDocument> data = dataDao.searchDataByPrefilters(COLLECTION_ID, Collections.singleton(filter), null);
+      assertThat(data).extracting(DataDocument::getId).containsOnly(id2, id3);
+
+      filter = new CollectionSearchAttributeFilter(COLLECTION_ID, ConditionType.BETWEEN, KEY1, Arrays.asList(3L, 5L));
+      data = dataDao.searchDataByPrefilters(COLLECTION_ID, Collections.singleton(filter), null);
+      assertThat(data).extracting(DataDocument::getId).containsOnly(id1, id3);
+
+      filter = new CollectionSearchAttributeFilter(COLLECTION_ID, ConditionType.CONTAINS, KEY2, "lumeer");
+      data = dataDao.searchDataByPrefilters(COLLECTION_ID, Collections.singleton(filter), null);
+      assertThat(data).extracting(DataDocument::getId).contains(id4, id5).hasSize(5);
+
+      data = dataDao.searchDataByPrefilters(COLLECTION_ID, Collections.singleton(filter), new Pagination(0, 2));
+      assertThat(data).hasSize(2);
+   }
+
    private MongoCollection<Document> dataCollection() {
       return dataDao.dataCollection(COLLECTION_ID);
    }
@@ -32,6 +32,8 @@ import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 public class MongoLinkDataDaoTest extends MongoDbTestBase {
 
@@ -110,6 +112,23 @@ public class MongoLinkDataDaoTest extends MongoDbTestBase {
       assertThat(patchedData).containsEntry("k2", "v2");
    }
 
+   @Test
+   public void testPatchDataBulk() {
+      dataDao.createData(LINK_TYPE_ID, LINK_INSTANCE_ID, new DataDocument().append("k1", "v1").append("k2", "v2"));
+      dataDao.createData(LINK_TYPE_ID, LINK_INSTANCE_ID2, new DataDocument().append("k1", "v1"));
+
+      List<DataDocument> patchedData = dataDao.patchData(LINK_TYPE_ID, Map.of(
+            LINK_INSTANCE_ID, new DataDocument().append("k2", "v3"),
+            LINK_INSTANCE_ID2, new DataDocument().append("k3", "v3"),
+            LINK_INSTANCE_ID3, new DataDocument()
+      ));
+
+      assertThat(patchedData).hasSize(2);
+      assertThat(dataDao.getData(LINK_TYPE_ID, LINK_INSTANCE_ID)).containsEntry("k1", "v1").containsEntry("k2", "v3");
+      assertThat(dataDao.getData(LINK_TYPE_ID, LINK_INSTANCE_ID2)).containsEntry("k1", "v1").containsEntry("k3", "v3");
+      assertThat(dataCollection().countDocuments()).isEqualTo(2);
+   }
+
    @Test
    public void testDeleteData() {
       DataDocument data = new DataDocument().append("k1", "v1").append("k2", "v2");
@@ -20,6 +20,7 @@ package io.lumeer.storage.mongodb.dao.project;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
@@ -198,6 +199,34 @@ public class MongoCollectionDaoTest extends MongoDbTestBase {
             .isInstanceOf(StorageException.class);
    }
 
+   @Test
+   public void testUpdateCollectionMetadata() {
+      Set<Attribute> attributes = new HashSet<>(Arrays.asList(
+            new Attribute("a1", "a1", null, null, null, null, null, 5, null),
+            new Attribute("a2", "a2", null, null, null, null, null, 1, null),
+            new Attribute("a3", "a3", null, null, null, null, null, 2, null)));
+      String id = createCollection(CODE, NAME, attributes).getId();
+
+      Collection updatedCollection = collectionDao.updateCollectionMetadata(id, Map.of("a1", 3, "a2", -4, "a4", 1), LAST_TIME_USED.plusHours(1));
+      assertThat(updatedCollection).isNotNull();
+      assertThat(updatedCollection.getAttributes()).extracting(Attribute::getId, Attribute::getUsageCount)
+                                                   .containsOnly(tuple("a1", 8), tuple("a2", 0), tuple("a3", 2));
+      assertThat(updatedCollection.getLastTimeUsed()).isEqualTo(LAST_TIME_USED.plusHours(1));
+
+      updatedCollection = collectionDao.updateCollectionMetadata(id, Map.of("a3", -1), LAST_TIME_USED.minusHours(1));
+      assertThat(updatedCollection.getAttributes()).extracting(Attribute::getId, Attribute::getUsageCount)
+                                                   .containsOnly(tuple("a1", 8), tuple("a2", 0), tuple("a3", 1));
+      assertThat(updatedCollection.getLastTimeUsed()).isEqualTo(LAST_TIME_USED.plusHours(1));
+
+      Collection storedCollection = collectionDao.databaseCollection().find(MongoFilters.idFilter(id)).first();
+      assertThat(storedCollection).isEqualTo(updatedCollection);
+   }
+
+   @Test
+   public void testUpdateCollectionMetadataNotExisting() {
+      assertThat(collectionDao.updateCollectionMetadata(COLLECTION_ID, Map.of("a1", -1), LAST_TIME_USED)).isNull();
+   }
+
    @Test
    public void testDeleteCollection() {
       String id = createCollection(CODE, NAME).getId();
@@ -22,6 +22,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import io.lumeer.api.model.Document;
+import io.lumeer.api.model.Pagination;
 import io.lumeer.api.model.Project;
 import io.lumeer.api.model.ResourceType;
 import io.lumeer.engine.api.data.DataDocument;
@@ -155,6 +156,27 @@ public class MongoDocumentDaoTest extends MongoDbTestBase {
       assertions.assertAll();
    }
 
+   @Test
+   public void testUpdateDocuments() {
+      Document document1 = createDocument();
+      Document document2 = createDocument();
+      Document notExisting = prepareDocument();
+      notExisting.setId(DOCUMENT_ID);
+
+      ZonedDateTime updateDate = ZonedDateTime.now().withNano(0);
+      List.of(document1, document2, notExisting).forEach(document -> {
+         document.setUpdatedBy(UPDATED_BY);
+         document.setUpdateDate(updateDate);
+      });
+
+      List<Document> updatedDocuments = documentDao.updateDocuments(List.of(document1, document2, notExisting));
+      assertThat(updatedDocuments).extracting(Document::getId).containsOnly(document1.getId(), document2.getId());
+      assertThat(updatedDocuments).extracting(Document::getUpdatedBy).containsOnly(UPDATED_BY);
+      assertThat(updatedDocuments).extracting(Document::getUpdateDate).containsOnly(updateDate);
+      assertThat(updatedDocuments).extracting(Document::getDataVersion).containsOnly(1);
+      assertThat(documentDao.databaseCollection().countDocuments()).isEqualTo(2);
+   }
+
    @Test
    public void testUpdateDocumentNotExisting() {
       Document document = prepareDocument();
@@ -246,6 +268,23 @@ public class MongoDocumentDaoTest extends MongoDbTestBase {
       assertThat(documents).isEmpty();
    }
 
+   @Test
+   public void testGetDocumentsByCollectionKeysetPagination() {
+      final List<String> ids = IntStream.range(0, 7).mapToObj(i -> createDocument().getId()).sorted().collect(Collectors.toList());
+
+      final List<String> pagedIds = new ArrayList<>();
+      Pagination pagination = Pagination.keyset(null, 3);
+      List<Document> documents = documentDao.getDocumentsByCollection(COLLECTION_ID, pagination);
+      while (!documents.isEmpty()) {
+         assertThat(documents.size()).isLessThanOrEqualTo(3);
+         documents.forEach(document -> pagedIds.add(document.getId()));
+         pagination = pagination.next(documents.get(documents.size() - 1).getId());
+         documents = documentDao.getDocumentsByCollection(COLLECTION_ID, pagination);
+      }
+
+      assertThat(pagedIds).containsExactlyElementsOf(ids);
+   }
+
    @Test
    public void testDuplicateDocuments() {
       final List<Document> documents = IntStream.range(0, 10).mapToObj(i -> createDocument()).collect(Collectors.toList());
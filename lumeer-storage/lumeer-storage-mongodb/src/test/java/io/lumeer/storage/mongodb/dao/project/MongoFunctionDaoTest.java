@@ -242,4 +242,19 @@ public class MongoFunctionDaoTest extends MongoDbTestBase {
       assertThat(storedRows).hasSize(2).extracting(FunctionRow::getResourceId).contains(LINK_TYPE2);
    }
 
+
+   @Test
+   public void testRowsVersion() {
+      assertThat(functionDao.getRowsVersion()).isZero();
+
+      FunctionRow row1 = FunctionRow.createForCollection(COLLECTION1, ATTRIBUTE1, COLLECTION2, null, ATTRIBUTE2);
+      FunctionRow row2 = FunctionRow.createForLink(LINK_TYPE1, ATTRIBUTE1, COLLECTION2, null, ATTRIBUTE1);
+      functionDao.createRows(Arrays.asList(row1, row2));
+      assertThat(functionDao.getRowsVersion()).isEqualTo(1);
+
+      functionDao.deleteByCollection(COLLECTION1, ATTRIBUTE1);
+      functionDao.deleteByIds(List.of(row2.getId()));
+      assertThat(functionDao.getRowsVersion()).isEqualTo(3);
+      assertThat(functionDao.getAllRows()).isEmpty();
+   }
 }
@@ -27,7 +27,11 @@ import io.lumeer.storage.api.exception.StorageException;
 import io.lumeer.storage.api.query.SearchQuery;
 import io.lumeer.storage.api.query.SearchQueryStem;
 import io.lumeer.storage.mongodb.MongoDbTestBase;
+import io.lumeer.storage.mongodb.codecs.LinkInstanceCodec;
 
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Indexes;
+import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -86,6 +90,18 @@ public class MongoLinkInstanceDaoTest extends MongoDbTestBase {
       assertThat(database.listCollectionNames()).doesNotContain(linkInstanceDao.databaseCollectionName());
    }
 
+   @Test
+   public void testEnsureIndexes() {
+      final MongoCollection<Document> collection = database.getCollection(linkInstanceDao.databaseCollectionName());
+      collection.createIndex(Indexes.ascending(LinkInstanceCodec.LINK_TYPE_ID));
+
+      linkInstanceDao.ensureIndexes(project);
+
+      final List<String> indexes = collection.listIndexes().map(index -> index.getString("name")).into(new ArrayList<>());
+      assertThat(indexes).contains("linkTypeId_1__id_1", "linkTypeId_1_documentIds_1", "documentIds_1")
+                         .doesNotContain("linkTypeId_1");
+   }
+
    @Test
    public void testCreateLinkInstance() {
       LinkInstance linkInstance = prepareLinkInstance();
@@ -124,6 +140,26 @@ public class MongoLinkInstanceDaoTest extends MongoDbTestBase {
       assertThat(storedLinkInstance.getDocumentIds()).containsOnly(DOCUMENT_ID3, DOCUMENT_ID4);
    }
 
+   @Test
+   public void testUpdateLinkInstances() {
+      LinkInstance linkInstance1 = linkInstanceDao.createLinkInstance(prepareLinkInstance());
+      LinkInstance linkInstance2 = linkInstanceDao.createLinkInstance(prepareLinkInstance());
+      LinkInstance notExisting = prepareLinkInstance();
+      notExisting.setId(NOT_EXISTING_ID);
+
+      linkInstance1.setDocumentIds(Arrays.asList(DOCUMENT_ID3, DOCUMENT_ID4));
+      linkInstance2.setUpdatedBy(USER);
+      notExisting.setUpdatedBy(USER);
+
+      List<LinkInstance> updatedLinkInstances = linkInstanceDao.updateLinkInstances(List.of(linkInstance1, linkInstance2, notExisting));
+      assertThat(updatedLinkInstances).extracting(LinkInstance::getId).containsOnly(linkInstance1.getId(), linkInstance2.getId());
+
+      assertThat(linkInstanceDao.getLinkInstance(linkInstance1.getId()).getDocumentIds()).containsOnly(DOCUMENT_ID3, DOCUMENT_ID4);
+      assertThat(linkInstanceDao.getLinkInstance(linkInstance2.getId()).getUpdatedBy()).isEqualTo(USER);
+      assertThatThrownBy(() -> linkInstanceDao.getLinkInstance(NOT_EXISTING_ID))
+            .isInstanceOf(StorageException.class);
+   }
+
    @Test
    public void testGetLinkType() {
       String id = linkInstanceDao.createLinkInstance(prepareLinkInstance()).getId();
@@ -27,23 +27,43 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 public class MongoSequenceDaoTest extends MongoDbTestBase {
 
    private static final String PROJECT_ID = "596e3b86d412bc5a3caaa22a";
 
+   private static final int NODES = 4;
+   private static final int THREADS_PER_NODE = 3;
+   private static final int NUMBERS_PER_THREAD = 200;
+
+   private Project project;
    private MongoSequenceDao sequenceDao;
 
    @BeforeEach
    public void initSequenceDao() {
-      Project project = Mockito.mock(Project.class);
+      project = Mockito.mock(Project.class);
       Mockito.when(project.getId()).thenReturn(PROJECT_ID);
 
-      sequenceDao = new MongoSequenceDao();
-      sequenceDao.setDatabase(database);
-      sequenceDao.setProject(project);
+      sequenceDao = createNode(SequenceBlockAllocator.gapFree());
       sequenceDao.createRepository(project);
    }
 
+   private MongoSequenceDao createNode(final SequenceBlockAllocator allocator) {
+      final MongoSequenceDao dao = new MongoSequenceDao();
+      dao.setDatabase(database);
+      dao.setProject(project);
+      dao.setAllocator(allocator);
+      return dao;
+   }
+
    @Test
    public void testGetNextSequenceNo() {
       var indexName = "sequence";
@@ -52,4 +72,68 @@ public class MongoSequenceDaoTest extends MongoDbTestBase {
       }
    }
 
+   @Test
+   public void testChangeSequenceBy() {
+      var indexName = "sequence";
+      assertThat(sequenceDao.changeSequenceBy(indexName, 5)).isEqualTo(5);
+      assertThat(sequenceDao.getNextSequenceNo(indexName)).isEqualTo(6);
+      assertThat(sequenceDao.changeSequenceBy(indexName, -2)).isEqualTo(4);
+   }
+
+   @Test
+   public void testGapFreeConcurrentNodes() throws Exception {
+      final List<Integer> numbers = runNodes(SequenceBlockAllocator::gapFree);
+
+      assertThat(numbers).containsExactlyInAnyOrderElementsOf(IntStream.range(0, numbers.size()).boxed().collect(Collectors.toList()));
+      assertThat(sequenceDao.getSequence("sequence").getSeq()).isEqualTo(numbers.size() - 1);
+   }
+
+   @Test
+   public void testGapTolerantConcurrentNodes() throws Exception {
+      final List<Integer> numbers = runNodes(() -> SequenceBlockAllocator.gapTolerant(16));
+
+      assertThat(numbers).hasSize(NODES * THREADS_PER_NODE * NUMBERS_PER_THREAD);
+      assertThat(numbers).allMatch(number -> number >= 0 && number <= sequenceDao.getSequence("sequence").getSeq());
+   }
+
+   @Test
+   public void testGapTolerantAfterManualChange() {
+      final MongoSequenceDao node = createNode(SequenceBlockAllocator.gapTolerant(10));
+      assertThat(node.getNextSequenceNo("sequence")).isEqualTo(0);
+      assertThat(node.getNextSequenceNo("sequence")).isEqualTo(1);
+
+      node.resetSequence("sequence", 100);
+      assertThat(node.getNextSequenceNo("sequence")).isEqualTo(101);
+   }
+
+   private List<Integer> runNodes(final Supplier<SequenceBlockAllocator> allocatorSupplier) throws Exception {
+      final List<Integer> numbers = new ArrayList<>();
+      final ExecutorService executor = Executors.newFixedThreadPool(NODES * THREADS_PER_NODE);
+
+      try {
+         final List<Future<List<Integer>>> futures = new ArrayList<>();
+         for (int n = 0; n < NODES; n++) {
+            final MongoSequenceDao node = createNode(allocatorSupplier.get());
+            for (int t = 0; t < THREADS_PER_NODE; t++) {
+               futures.add(executor.submit(() -> {
+                  final List<Integer> result = new ArrayList<>();
+                  for (int i = 0; i < NUMBERS_PER_THREAD; i++) {
+                     result.add(node.getNextSequenceNo("sequence"));
+                  }
+                  return result;
+               }));
+            }
+         }
+
+         for (final Future<List<Integer>> future : futures) {
+            numbers.addAll(future.get());
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+
+      assertThat(numbers).doesNotHaveDuplicates();
+
+      return numbers;
+   }
 }
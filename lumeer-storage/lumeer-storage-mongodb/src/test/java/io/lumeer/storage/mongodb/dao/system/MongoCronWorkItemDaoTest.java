@@ -0,0 +1,124 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.CronWorkItem;
+import io.lumeer.storage.api.dao.CronWorkItemDao;
+import io.lumeer.storage.mongodb.MongoDbTestBase;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+public class MongoCronWorkItemDaoTest extends MongoDbTestBase {
+
+   private static final String TICK1 = "2026-10-17T09:00:00Z";
+   private static final String TICK2 = "2026-10-17T09:15:00Z";
+   private static final String PROCESSOR1 = "processor1";
+   private static final String PROCESSOR2 = "processor2";
+   private static final String ORGANIZATION_ID = "596e3b86d412bc5a3caaa22a";
+   private static final String PROJECT_ID = "596e3b86d412bc5a3caaa22b";
+
+   private MongoCronWorkItemDao cronWorkItemDao;
+
+   @BeforeEach
+   public void initCronWorkItemDao() {
+      cronWorkItemDao = new MongoCronWorkItemDao();
+      cronWorkItemDao.setDatabase(database);
+
+      cronWorkItemDao.checkRepository();
+      assertThat(database.listCollectionNames()).contains(cronWorkItemDao.databaseCollectionName(), MongoCronWorkItemDao.TICKS_COLLECTION_NAME);
+   }
+
+   @Test
+   public void testClaimTick() {
+      assertThat(cronWorkItemDao.claimTick(TICK1, PROCESSOR1)).isTrue();
+      assertThat(cronWorkItemDao.claimTick(TICK1, PROCESSOR2)).isFalse();
+      assertThat(cronWorkItemDao.claimTick(TICK2, PROCESSOR2)).isTrue();
+   }
+
+   @Test
+   public void testScheduleItemsTwice() {
+      cronWorkItemDao.scheduleItems(List.of(prepareItem(TICK1, "c1", 0), prepareItem(TICK1, "c2", 1)));
+      cronWorkItemDao.scheduleItems(List.of(prepareItem(TICK1, "c2", 0), prepareItem(TICK1, "c3", 1)));
+
+      assertThat(cronWorkItemDao.getPendingItemsCount()).isEqualTo(3);
+   }
+
+   @Test
+   public void testClaimItemOlderTicksFirst() {
+      cronWorkItemDao.scheduleItems(List.of(prepareItem(TICK2, "c1", 0), prepareItem(TICK2, "c2", 1)));
+      cronWorkItemDao.scheduleItems(List.of(prepareItem(TICK1, "c3", 2), prepareItem(TICK1, "c4", 3)));
+
+      final CronWorkItem first = cronWorkItemDao.claimItem(PROCESSOR1);
+      assertThat(first.getTick()).isEqualTo(TICK1);
+      assertThat(first.getCollectionId()).isEqualTo("c3");
+      assertThat(first.getProcessor()).isEqualTo(PROCESSOR1);
+      assertThat(first.getStartedProcessing()).isNotNull();
+
+      assertThat(cronWorkItemDao.claimItem(PROCESSOR2).getCollectionId()).isEqualTo("c4");
+      assertThat(cronWorkItemDao.claimItem(PROCESSOR2).getCollectionId()).isEqualTo("c1");
+      assertThat(cronWorkItemDao.claimItem(PROCESSOR1).getCollectionId()).isEqualTo("c2");
+      assertThat(cronWorkItemDao.claimItem(PROCESSOR1)).isNull();
+   }
+
+   @Test
+   public void testCompleteItem() {
+      cronWorkItemDao.scheduleItems(List.of(prepareItem(TICK1, "c1", 0)));
+
+      final CronWorkItem item = cronWorkItemDao.claimItem(PROCESSOR1);
+      assertThat(cronWorkItemDao.getPendingItemsCount()).isEqualTo(1);
+
+      cronWorkItemDao.completeItem(item);
+      assertThat(cronWorkItemDao.getPendingItemsCount()).isZero();
+      assertThat(cronWorkItemDao.claimItem(PROCESSOR1)).isNull();
+   }
+
+   @Test
+   public void testResetTimeoutedItems() {
+      cronWorkItemDao.scheduleItems(List.of(prepareItem(TICK1, "c1", 0), prepareItem(TICK1, "c2", 1), prepareItem(TICK1, "c3", 2)));
+
+      final CronWorkItem timeouted = cronWorkItemDao.claimItem(PROCESSOR1);
+      final CronWorkItem completed = cronWorkItemDao.claimItem(PROCESSOR1);
+      cronWorkItemDao.claimItem(PROCESSOR1); // still running
+      cronWorkItemDao.completeItem(completed);
+
+      final Date started = Date.from(ZonedDateTime.now().minus(CronWorkItemDao.PROCESSING_TIMEOUT_MINUTES + 1, ChronoUnit.MINUTES).toInstant());
+      cronWorkItemDao.databaseCollection().updateMany(Filters.in(CronWorkItem.COLLECTION_ID, "c1", "c2"), Updates.set(CronWorkItem.STARTED_PROCESSING, started));
+
+      cronWorkItemDao.resetTimeoutedItems(CronWorkItemDao.PROCESSING_TIMEOUT_MINUTES);
+
+      final CronWorkItem reclaimed = cronWorkItemDao.claimItem(PROCESSOR2);
+      assertThat(reclaimed.getId()).isEqualTo(timeouted.getId());
+      assertThat(reclaimed.getProcessor()).isEqualTo(PROCESSOR2);
+      assertThat(cronWorkItemDao.claimItem(PROCESSOR2)).isNull();
+   }
+
+   private CronWorkItem prepareItem(final String tick, final String collectionId, final int priority) {
+      return new CronWorkItem(tick, ORGANIZATION_ID, PROJECT_ID, collectionId, priority, ZonedDateTime.parse(tick));
+   }
+}
@@ -0,0 +1,118 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.storage.mongodb.dao.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.api.model.DelayedAction;
+import io.lumeer.api.model.NotificationChannel;
+import io.lumeer.api.model.NotificationType;
+import io.lumeer.storage.mongodb.MongoDbTestBase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+public class MongoDelayedActionDaoTest extends MongoDbTestBase {
+
+   private static final int ACTIONS = 1000;
+   private static final int PROCESSORS = 4;
+   private static final int BATCH_SIZE = 25;
+
+   private MongoDelayedActionDao mongoDelayedActionDao;
+
+   @BeforeEach
+   public void initDelayedActionDao() {
+      mongoDelayedActionDao = new MongoDelayedActionDao();
+      mongoDelayedActionDao.setDatabase(database);
+
+      mongoDelayedActionDao.createDelayedActionsRepository();
+      assertThat(database.listCollectionNames()).contains(mongoDelayedActionDao.databaseCollectionName());
+   }
+
+   @Test
+   public void testGetActionsForProcessing() {
+      final List<DelayedAction> actions = new ArrayList<>();
+      for (int i = 0; i < ACTIONS; i++) {
+         actions.add(prepareAction(ZonedDateTime.now().minus(1, ChronoUnit.HOURS)));
+      }
+      actions.add(prepareAction(ZonedDateTime.now().plus(1, ChronoUnit.HOURS)));
+      mongoDelayedActionDao.scheduleActions(actions);
+
+      final List<DelayedAction> claimed = mongoDelayedActionDao.getActionsForProcessing(true, BATCH_SIZE);
+      assertThat(claimed).hasSize(ACTIONS);
+      assertThat(claimed).allMatch(action -> action.getStartedProcessing() != null && action.getProcessor() != null);
+      assertThat(claimed.stream().map(DelayedAction::getProcessor).distinct()).hasSize(1);
+
+      assertThat(mongoDelayedActionDao.getActionsForProcessing(true, BATCH_SIZE)).isEmpty();
+   }
+
+   @Test
+   public void testConcurrentProcessors() throws Exception {
+      final List<DelayedAction> actions = new ArrayList<>();
+      for (int i = 0; i < ACTIONS; i++) {
+         actions.add(prepareAction(ZonedDateTime.now().minus(1, ChronoUnit.HOURS)));
+      }
+      mongoDelayedActionDao.scheduleActions(actions);
+
+      final ExecutorService executor = Executors.newFixedThreadPool(PROCESSORS);
+      final List<Callable<List<DelayedAction>>> processors = new ArrayList<>();
+      for (int i = 0; i < PROCESSORS; i++) {
+         processors.add(() -> mongoDelayedActionDao.getActionsForProcessing(true, BATCH_SIZE));
+      }
+
+      final List<String> claimedIds = new ArrayList<>();
+      try {
+         for (final Future<List<DelayedAction>> future : executor.invokeAll(processors)) {
+            final List<DelayedAction> claimed = future.get();
+            // every processor reads back only the actions marked with its own signature
+            assertThat(claimed.stream().map(DelayedAction::getProcessor).distinct().count()).isLessThanOrEqualTo(1);
+            claimed.forEach(action -> claimedIds.add(action.getId()));
+         }
+      } finally {
+         executor.shutdown();
+      }
+
+      final Set<String> storedIds = mongoDelayedActionDao.getActions().stream().map(DelayedAction::getId).collect(Collectors.toSet());
+      assertThat(claimedIds).doesNotHaveDuplicates();
+      assertThat(new HashSet<>(claimedIds)).isEqualTo(storedIds);
+   }
+
+   private DelayedAction prepareAction(final ZonedDateTime checkAfter) {
+      final DelayedAction action = new DelayedAction();
+      action.setCheckAfter(checkAfter);
+      action.setInitiator("initiator@lumeer.io");
+      action.setReceiver("receiver@lumeer.io");
+      action.setResourcePath("organization/project/collection/document");
+      action.setNotificationType(NotificationType.DUE_DATE_SOON);
+      action.setNotificationChannel(NotificationChannel.Email);
+      return action;
+   }
+}
@@ -0,0 +1,376 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheSettings;
+import io.lumeer.engine.api.cache.CacheStats;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Cache with limited size, weight and lifetime of its entries. Entries are split to segments by their keys,
+ * each segment is guarded by its own lock and evicts its least recently used entries once it is over its share of the limits.
+ * Expired entries are removed when they are read or when they get to the head of the eviction order.
+ */
+public class BoundedCache<T> implements Cache<T> {
+
+   private static final int MAX_SEGMENTS = 16;
+
+   // smaller caches are kept in a single segment so that the eviction order is exact
+   private static final long MIN_SEGMENT_SIZE = 256;
+
+   private final List<Segment> segments;
+   private final StripedLocks locks = new StripedLocks();
+   private final ToLongFunction<T> weigher;
+   private final long expireAfterWriteNanos;
+   private final LongSupplier ticker;
+
+   private final LongAdder hitCount = new LongAdder();
+   private final LongAdder missCount = new LongAdder();
+   private final LongAdder evictionCount = new LongAdder();
+   private final LongAdder expirationCount = new LongAdder();
+
+   public BoundedCache(final CacheSettings<T> settings) {
+      this(settings, System::nanoTime);
+   }
+
+   BoundedCache(final CacheSettings<T> settings, final LongSupplier ticker) {
+      this.weigher = settings.getWeigher();
+      this.expireAfterWriteNanos = settings.getExpireAfterWrite() != null ? settings.getExpireAfterWrite().toNanos() : 0;
+      this.ticker = ticker;
+
+      final long limit = Math.max(settings.getMaximumSize(), settings.getMaximumWeight());
+      final int segmentsCount = limit <= 0 ? MAX_SEGMENTS : (int) Math.max(1, Math.min(MAX_SEGMENTS, Long.highestOneBit(limit / MIN_SEGMENT_SIZE)));
+
+      segments = new ArrayList<>(segmentsCount);
+      for (int i = 0; i < segmentsCount; i++) {
+         segments.add(new Segment(share(settings.getMaximumSize(), segmentsCount), share(settings.getMaximumWeight(), segmentsCount)));
+      }
+   }
+
+   private static long share(final long limit, final int segmentsCount) {
+      return limit <= 0 ? 0 : (limit + segmentsCount - 1) / segmentsCount;
+   }
+
+   @Override
+   public T get(final String key) {
+      final T value = segmentFor(key).get(key);
+
+      if (value != null) {
+         hitCount.increment();
+      } else {
+         missCount.increment();
+      }
+
+      return value;
+   }
+
+   /**
+    * Gets a value from the cache or computes a new one. The function is called outside of any lock,
+    * so it can be called more than once for the same key under contention, the first stored value wins.
+    */
+   @Override
+   public T computeIfAbsent(final String key, final Function<String, T> fce) {
+      final T value = get(key);
+      if (value != null) {
+         return value;
+      }
+
+      final T computed = fce.apply(key);
+      if (computed == null) {
+         return null;
+      }
+
+      return segmentFor(key).putIfAbsent(key, computed);
+   }
+
+   @Override
+   public void set(final String key, final T t) {
+      if (t == null) {
+         remove(key);
+      } else {
+         segmentFor(key).put(key, t);
+      }
+   }
+
+   @Override
+   public T remove(final String key) {
+      return segmentFor(key).remove(key);
+   }
+
+   @Override
+   public void lock(final String key) {
+      locks.lock(key);
+   }
+
+   @Override
+   public void unlock(final String key) {
+      locks.unlock(key);
+   }
+
+   /**
+    * Tries to obtain lock on the given key. Locks are striped, so the attempt can fail also because of another key holding the same stripe.
+    */
+   @Override
+   public boolean tryLock(final String key) {
+      return locks.tryLock(key);
+   }
+
+   @Override
+   public void clear() {
+      for (final Segment segment : segments) {
+         segment.clear();
+      }
+   }
+
+   @Override
+   public Stream<T> stream() {
+      final List<T> values = new ArrayList<>();
+      for (final Segment segment : segments) {
+         segment.collectValues(values);
+      }
+
+      return values.stream();
+   }
+
+   /**
+    * Removes all expired entries.
+    */
+   public void cleanUp() {
+      for (final Segment segment : segments) {
+         segment.removeExpired();
+      }
+   }
+
+   @Override
+   public CacheStats getStats() {
+      long size = 0, weight = 0;
+      for (final Segment segment : segments) {
+         size += segment.size();
+         weight += segment.weight();
+      }
+
+      return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), expirationCount.sum(), size, weight);
+   }
+
+   private Segment segmentFor(final String key) {
+      final int h = key.hashCode();
+      return segments.get((h ^ (h >>> 16)) & (segments.size() - 1));
+   }
+
+   private static class Entry<T> {
+      private final T value;
+      private final long weight;
+      private final long writeTime;
+
+      private Entry(final T value, final long weight, final long writeTime) {
+         this.value = value;
+         this.weight = weight;
+         this.writeTime = writeTime;
+      }
+   }
+
+   private class Segment {
+
+      private final ReentrantLock lock = new ReentrantLock();
+      private final LinkedHashMap<String, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+      private final long maximumSize;
+      private final long maximumWeight;
+      private long weight;
+
+      private Segment(final long maximumSize, final long maximumWeight) {
+         this.maximumSize = maximumSize;
+         this.maximumWeight = maximumWeight;
+      }
+
+      private T get(final String key) {
+         lock.lock();
+         try {
+            final Entry<T> entry = entries.get(key);
+            if (entry == null) {
+               return null;
+            }
+
+            if (isExpired(entry, ticker.getAsLong())) {
+               removeEntry(key, entry);
+               expirationCount.increment();
+               return null;
+            }
+
+            return entry.value;
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private void put(final String key, final T value) {
+         lock.lock();
+         try {
+            store(key, value);
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private T putIfAbsent(final String key, final T value) {
+         lock.lock();
+         try {
+            final Entry<T> entry = entries.get(key);
+            if (entry != null && !isExpired(entry, ticker.getAsLong())) {
+               return entry.value;
+            }
+
+            store(key, value);
+            return value;
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private T remove(final String key) {
+         lock.lock();
+         try {
+            final Entry<T> entry = entries.get(key);
+            if (entry == null) {
+               return null;
+            }
+
+            removeEntry(key, entry);
+            return entry.value;
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private void clear() {
+         lock.lock();
+         try {
+            entries.clear();
+            weight = 0;
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private void collectValues(final List<T> values) {
+         lock.lock();
+         try {
+            final long now = ticker.getAsLong();
+            entries.values().stream().filter(entry -> !isExpired(entry, now)).forEach(entry -> values.add(entry.value));
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private void removeExpired() {
+         if (expireAfterWriteNanos <= 0) {
+            return;
+         }
+
+         lock.lock();
+         try {
+            final long now = ticker.getAsLong();
+            final Iterator<Entry<T>> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+               final Entry<T> entry = iterator.next();
+               if (isExpired(entry, now)) {
+                  iterator.remove();
+                  weight -= entry.weight;
+                  expirationCount.increment();
+               }
+            }
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private long size() {
+         lock.lock();
+         try {
+            return entries.size();
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private long weight() {
+         lock.lock();
+         try {
+            return weight;
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private void store(final String key, final T value) {
+         final long now = ticker.getAsLong();
+         final Entry<T> entry = new Entry<>(value, weigher != null ? weigher.applyAsLong(value) : 1, now);
+         final Entry<T> previous = entries.put(key, entry);
+         if (previous != null) {
+            weight -= previous.weight;
+         }
+         weight += entry.weight;
+
+         evict(now);
+      }
+
+      private void evict(final long now) {
+         final Iterator<Entry<T>> iterator = entries.values().iterator();
+         while (iterator.hasNext()) {
+            final Entry<T> entry = iterator.next();
+            final boolean expired = isExpired(entry, now);
+            if (!expired && !isOverLimit()) {
+               return;
+            }
+
+            iterator.remove();
+            weight -= entry.weight;
+            if (expired) {
+               expirationCount.increment();
+            } else {
+               evictionCount.increment();
+            }
+         }
+      }
+
+      private boolean isOverLimit() {
+         return (maximumSize > 0 && entries.size() > maximumSize) || (maximumWeight > 0 && weight > maximumWeight);
+      }
+
+      private void removeEntry(final String key, final Entry<T> entry) {
+         entries.remove(key);
+         weight -= entry.weight;
+      }
+   }
+
+   private boolean isExpired(final Entry<T> entry, final long now) {
+      return expireAfterWriteNanos > 0 && now - entry.writeTime >= expireAfterWriteNanos;
+   }
+}
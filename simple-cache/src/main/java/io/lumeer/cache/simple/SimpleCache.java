@@ -19,11 +19,11 @@
 package io.lumeer.cache.simple;
 
 import io.lumeer.engine.api.cache.Cache;
+import io.lumeer.engine.api.cache.CacheStats;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -31,11 +31,23 @@ public class SimpleCache<T> implements Cache<T> {
 
    private Map<String, T> cache = new ConcurrentHashMap<>();
 
-   private Map<String, Lock> locks = new ConcurrentHashMap<>();
+   private final StripedLocks locks = new StripedLocks();
+
+   private final LongAdder hitCount = new LongAdder();
+
+   private final LongAdder missCount = new LongAdder();
 
    @Override
    public T get(final String key) {
-      return cache.get(key);
+      final T value = cache.get(key);
+
+      if (value != null) {
+         hitCount.increment();
+      } else {
+         missCount.increment();
+      }
+
+      return value;
    }
 
    @Override
@@ -55,33 +67,30 @@ public class SimpleCache<T> implements Cache<T> {
 
    @Override
    public void lock(final String key) {
-      final Lock l = locks.computeIfAbsent(key, k -> new ReentrantLock());
-      l.lock();
+      locks.lock(key);
    }
 
    @Override
    public void unlock(final String key) {
-      final Lock l = locks.get(key);
-
-      if (l != null) {
-         l.unlock();
-      }
+      locks.unlock(key);
    }
 
    @Override
    public boolean tryLock(final String key) {
-      final Lock l = locks.computeIfAbsent(key, k -> new ReentrantLock());
-
-      return l.tryLock();
+      return locks.tryLock(key);
    }
 
    @Override
    public void clear() {
       cache.clear();
-      locks.clear();
    }
 
    public Stream<T> stream() {
       return cache.values().stream();
    }
+
+   @Override
+   public CacheStats getStats() {
+      return new CacheStats(hitCount.sum(), missCount.sum(), 0, 0, cache.size(), cache.size());
+   }
 }
@@ -20,6 +20,7 @@ package io.lumeer.cache.simple;
 
 import io.lumeer.engine.api.cache.Cache;
 import io.lumeer.engine.api.cache.CacheFactory;
+import io.lumeer.engine.api.cache.CacheSettings;
 
 import java.io.Serializable;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -31,4 +32,9 @@ public class SimpleCacheFactory implements CacheFactory, Serializable {
    public <T> Cache<T> getCache() {
       return new SimpleCache<>();
    }
+
+   @Override
+   public <T> Cache<T> getCache(final CacheSettings<T> settings) {
+      return new BoundedCache<>(settings);
+   }
 }
@@ -0,0 +1,65 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed number of locks shared by all keys of a cache. Different keys can map to the same lock,
+ * in exchange the number of locks never grows.
+ */
+class StripedLocks {
+
+   private static final int DEFAULT_STRIPES = 64;
+
+   private final ReentrantLock[] locks;
+
+   StripedLocks() {
+      this(DEFAULT_STRIPES);
+   }
+
+   StripedLocks(final int stripes) {
+      final int size = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+      locks = new ReentrantLock[size];
+      for (int i = 0; i < size; i++) {
+         locks[i] = new ReentrantLock();
+      }
+   }
+
+   void lock(final String key) {
+      get(key).lock();
+   }
+
+   void unlock(final String key) {
+      final ReentrantLock lock = get(key);
+
+      if (lock.isHeldByCurrentThread()) {
+         lock.unlock();
+      }
+   }
+
+   boolean tryLock(final String key) {
+      return get(key).tryLock();
+   }
+
+   private ReentrantLock get(final String key) {
+      final int h = key.hashCode();
+      return locks[(h ^ (h >>> 16)) & (locks.length - 1)];
+   }
+}
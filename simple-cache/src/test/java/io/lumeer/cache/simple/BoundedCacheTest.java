@@ -0,0 +1,92 @@
+/*
+ * Lumeer: Modern Data Definition and Processing Platform
+ *
+ * Copyright (C) since 2017 Lumeer.io, s.r.o. and/or its affiliates.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.lumeer.cache.simple;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lumeer.engine.api.cache.CacheSettings;
+import io.lumeer.engine.api.cache.CacheStats;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BoundedCacheTest {
+
+   @Test
+   public void evictsLeastRecentlyUsed() {
+      final BoundedCache<String> cache = new BoundedCache<>(CacheSettings.maximumSize(3));
+      cache.set("a", "A");
+      cache.set("b", "B");
+      cache.set("c", "C");
+      assertThat(cache.get("a")).isEqualTo("A");
+
+      cache.set("d", "D");
+
+      assertThat(cache.get("b")).isNull();
+      assertThat(cache.stream()).containsExactlyInAnyOrder("A", "C", "D");
+
+      final CacheStats stats = cache.getStats();
+      assertThat(stats.getSize()).isEqualTo(3);
+      assertThat(stats.getEvictionCount()).isEqualTo(1);
+      assertThat(stats.getHitCount()).isEqualTo(1);
+      assertThat(stats.getMissCount()).isEqualTo(1);
+   }
+
+   @Test
+   public void evictsByWeight() {
+      final BoundedCache<String> cache = new BoundedCache<>(CacheSettings.<String>maximumWeight(10, String::length));
+      cache.set("a", "aaaa");
+      cache.set("b", "bbbb");
+      cache.set("c", "cccc");
+
+      assertThat(cache.get("a")).isNull();
+      assertThat(cache.getStats().getWeight()).isEqualTo(8);
+   }
+
+   @Test
+   public void expiresAfterWrite() {
+      final AtomicLong time = new AtomicLong();
+      final BoundedCache<String> cache = new BoundedCache<>(CacheSettings.<String>maximumSize(100).expireAfterWrite(Duration.ofNanos(10)), time::get);
+      cache.set("a", "A");
+      time.set(5);
+      cache.set("b", "B");
+
+      time.set(10);
+      assertThat(cache.get("a")).isNull();
+      assertThat(cache.computeIfAbsent("b", key -> "X")).isEqualTo("B");
+
+      time.set(20);
+      cache.cleanUp();
+      assertThat(cache.getStats().getSize()).isEqualTo(0);
+      assertThat(cache.getStats().getExpirationCount()).isEqualTo(2);
+   }
+
+   @Test
+   public void locksAreReleased() {
+      final BoundedCache<String> cache = new BoundedCache<>(CacheSettings.maximumSize(10));
+      cache.lock("a");
+      cache.unlock("a");
+      cache.unlock("a");
+
+      assertThat(cache.tryLock("a")).isTrue();
+      cache.unlock("a");
+   }
+}
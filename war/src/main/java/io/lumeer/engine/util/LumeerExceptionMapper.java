@@ -23,6 +23,7 @@ import io.lumeer.api.exception.LumeerException;
 import io.lumeer.core.exception.AccessForbiddenException;
 import io.lumeer.core.exception.BadFormatException;
 import io.lumeer.core.exception.FeatureNotAllowedException;
+import io.lumeer.core.exception.ImportJobNotFoundException;
 import io.lumeer.core.exception.NoDocumentPermissionException;
 import io.lumeer.core.exception.NoLinkInstancePermissionException;
 import io.lumeer.core.exception.NoPermissionException;
@@ -93,7 +94,7 @@ public class LumeerExceptionMapper implements ExceptionMapper<LumeerException> {
       // 404 - NOT FOUND
       if (e instanceof CollectionNotFoundException ||
             e instanceof CollectionMetadataDocumentNotFoundException || e instanceof DocumentNotFoundException ||
-            e instanceof ViewMetadataNotFoundException || e instanceof ResourceNotFoundException) {
+            e instanceof ViewMetadataNotFoundException || e instanceof ResourceNotFoundException || e instanceof ImportJobNotFoundException) {
          return Response.status(Response.Status.NOT_FOUND).entity(e.getLocalizedMessage()).type(MediaType.TEXT_PLAIN).build();
       }
 
@@ -22,6 +22,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import io.lumeer.api.model.Attribute;
 import io.lumeer.api.model.Collection;
+import io.lumeer.api.model.ImportJob;
 import io.lumeer.api.model.ImportType;
 import io.lumeer.api.model.ImportedCollection;
 import io.lumeer.api.model.Organization;
@@ -48,6 +49,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Set;
 import jakarta.inject.Inject;
@@ -422,6 +425,35 @@ public class ImportFacadeIT extends IntegrationTestBase {
       assertThat(h3Num).isEqualTo(2);
    }
 
+   @Test
+   public void testImportJob() throws InterruptedException {
+      final String csv = "h1;h2;h3\n"
+            + "a1;b;c\n"
+            + "a2;x;c\n";
+      Collection collection = importFacade.importDocuments(ImportFacade.FORMAT_CSV, createImportObject(csv));
+
+      final String csv2 = "h1;h2;h3\n"
+            + "a1;p;o\n"
+            + "a3;i;u\n";
+      ImportJob job = importFacade.startImport(collection.getId(), ImportFacade.FORMAT_CSV, ImportType.UPDATE, PREFIX + 1,
+            new ByteArrayInputStream(csv2.getBytes(StandardCharsets.UTF_8)));
+      assertThat(job.getId()).isNotNull();
+
+      for (int i = 0; i < 100 && !job.isDone(); i++) {
+         Thread.sleep(100);
+      }
+
+      job = importFacade.getImportJob(job.getId());
+      assertThat(job.getState()).isEqualTo(ImportJob.State.FINISHED);
+      assertThat(job.getProcessedRows()).isEqualTo(2);
+      assertThat(job.getCreatedDocuments()).isEqualTo(1);
+      assertThat(job.getUpdatedDocuments()).isEqualTo(1);
+
+      List<DataDocument> data = dataDao.getData(collection.getId());
+      assertThat(data).hasSize(3);
+      assertThat(data).extracting(d -> d.getString(PREFIX + 2)).containsOnly("x", "p", "i");
+   }
+
    private ImportedCollection createImportObject(String data) {
       return createImportObject(data, ImportType.APPEND);
    }